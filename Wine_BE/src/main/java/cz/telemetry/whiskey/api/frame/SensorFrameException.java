@@ -0,0 +1,13 @@
+package cz.telemetry.whiskey.api.frame;
+
+import java.io.IOException;
+
+/**
+ * Malformed binary sensor frame.
+ */
+public class SensorFrameException extends IOException {
+
+  public SensorFrameException(String message) {
+    super(message);
+  }
+}
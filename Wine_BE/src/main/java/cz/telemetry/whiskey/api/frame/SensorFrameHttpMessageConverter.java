@@ -0,0 +1,74 @@
+package cz.telemetry.whiskey.api.frame;
+
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Reads a {@code List<SensorDataDto>} request body encoded by {@link SensorFrameCodec}. Writing is not
+ * supported, responses stay JSON.
+ */
+public class SensorFrameHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<SensorDataDto>> {
+
+  private final int maxReadings;
+
+  public SensorFrameHttpMessageConverter(int maxReadings) {
+    super(MediaType.parseMediaType(SensorFrameCodec.MEDIA_TYPE));
+    this.maxReadings = maxReadings;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return List.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+    return type instanceof ParameterizedType parameterized
+        && parameterized.getRawType() == List.class
+        && parameterized.getActualTypeArguments()[0] == SensorDataDto.class
+        && canRead(mediaType);
+  }
+
+  @Override
+  protected boolean canRead(@Nullable MediaType mediaType) {
+    // unlike the default, a missing content type must not select this converter
+    return mediaType != null && super.canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  public List<SensorDataDto> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+      throws IOException {
+    return readInternal(null, inputMessage);
+  }
+
+  @Override
+  protected List<SensorDataDto> readInternal(@Nullable Class<? extends List<SensorDataDto>> clazz,
+      HttpInputMessage inputMessage) throws IOException {
+    try {
+      return SensorFrameCodec.decode(inputMessage.getBody(), maxReadings);
+    } catch (SensorFrameException e) {
+      throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+    }
+  }
+
+  @Override
+  protected void writeInternal(List<SensorDataDto> readings, @Nullable Type type, HttpOutputMessage outputMessage) {
+    // not reachable through Spring MVC, canWrite() never selects this converter
+    throw new HttpMessageNotWritableException("Sensor frames are only accepted in requests, responses are JSON");
+  }
+}
@@ -0,0 +1,67 @@
+package cz.telemetry.whiskey.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
+import java.io.IOException;
+
+/**
+ * Writes streamed rows, ordered by sensor, as a JSON array of column blocks:
+ * <pre>
+ * [{"sensorId": "cellar-1", "timestamps": [epochMillis, ...], "temperature": [...], "humidity": [...]}, ...]
+ * </pre>
+ * A block holds at most {@value #BLOCK_SIZE} readings of one sensor, consecutive blocks may belong to the
+ * same sensor. Values are collected in reused primitive arrays, so memory stays constant and no object is
+ * created per reading.
+ */
+public class ColumnarSensorDataJsonWriter implements SensorDataColumnHandler, AutoCloseable {
+
+  static final int BLOCK_SIZE = 4096;
+
+  private final JsonGenerator json;
+  private final long[] timestamps = new long[BLOCK_SIZE];
+  private final double[] temperatures = new double[BLOCK_SIZE];
+  private final double[] humidities = new double[BLOCK_SIZE];
+
+  private String sensorId;
+  private int size;
+
+  public ColumnarSensorDataJsonWriter(JsonGenerator json) throws IOException {
+    this.json = json;
+    json.writeStartArray();
+  }
+
+  @Override
+  public void handle(String sensorId, long epochMillis, double temperature, double humidity)
+      throws IOException {
+    if (size == BLOCK_SIZE || (size > 0 && !sensorId.equals(this.sensorId))) {
+      flush();
+    }
+    this.sensorId = sensorId;
+    timestamps[size] = epochMillis;
+    temperatures[size] = temperature;
+    humidities[size] = humidity;
+    size++;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (size > 0) {
+      flush();
+    }
+    json.writeEndArray();
+    json.close();
+  }
+
+  private void flush() throws IOException {
+    json.writeStartObject();
+    json.writeStringField("sensorId", sensorId);
+    json.writeFieldName("timestamps");
+    json.writeArray(timestamps, 0, size);
+    json.writeFieldName("temperature");
+    json.writeArray(temperatures, 0, size);
+    json.writeFieldName("humidity");
+    json.writeArray(humidities, 0, size);
+    json.writeEndObject();
+    size = 0;
+  }
+}
@@ -0,0 +1,37 @@
+package cz.telemetry.whiskey.api.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import cz.telemetry.whiskey.repository.SensorDataRowHandler;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes streamed rows as a JSON array of reading objects, the same shape as a serialized {@code SensorData}.
+ */
+public class SensorDataJsonWriter implements SensorDataRowHandler, AutoCloseable {
+
+  private final JsonGenerator json;
+
+  public SensorDataJsonWriter(JsonGenerator json) throws IOException {
+    this.json = json;
+    json.writeStartArray();
+  }
+
+  @Override
+  public void handle(long id, Instant timestamp, String sensorId, double temperature, double humidity)
+      throws IOException {
+    json.writeStartObject();
+    json.writeNumberField("id", id);
+    json.writeNumberField("temperature", temperature);
+    json.writeNumberField("humidity", humidity);
+    json.writeStringField("timestamp", timestamp.toString());
+    json.writeStringField("sensorId", sensorId);
+    json.writeEndObject();
+  }
+
+  @Override
+  public void close() throws IOException {
+    json.writeEndArray();
+    json.close();
+  }
+}
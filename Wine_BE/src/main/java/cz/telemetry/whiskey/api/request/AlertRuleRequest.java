@@ -0,0 +1,28 @@
+package cz.telemetry.whiskey.api.request;
+
+import cz.telemetry.whiskey.repository.SensorMetric;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+/**
+ * @param sensorId        restricts the rule to one sensor
+ * @param location        restricts the rule to the sensors of one location, exclusive with {@code sensorId}
+ * @param min             lower bound, at least one bound is required
+ * @param max             upper bound
+ * @param durationSeconds how long readings have to stay out of the range before the alert fires
+ * @param hysteresis      how far back inside the range a reading has to get to resolve the alert
+ * @param enabled         {@code true} when not given
+ */
+public record AlertRuleRequest(@NotBlank @Size(max = 255) String name,
+                               @NotNull SensorMetric metric,
+                               @Size(max = 128) String sensorId,
+                               @Size(max = 255) String location,
+                               Double min,
+                               Double max,
+                               @PositiveOrZero long durationSeconds,
+                               @PositiveOrZero double hysteresis,
+                               Boolean enabled) {
+
+}
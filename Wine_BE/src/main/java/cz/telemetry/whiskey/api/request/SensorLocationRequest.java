@@ -0,0 +1,9 @@
+package cz.telemetry.whiskey.api.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record SensorLocationRequest(@NotBlank @Size(max = 255) String locationName,
+                                    @Size(max = 255) String sensorName) {
+
+}
@@ -0,0 +1,18 @@
+package cz.telemetry.whiskey.api.response;
+
+import cz.telemetry.whiskey.domain.AlertKind;
+import cz.telemetry.whiskey.repository.SensorMetric;
+import java.time.Instant;
+
+/**
+ * @param ruleId     {@code null} once the rule is deleted
+ * @param threshold  bound which was crossed
+ * @param value      reading which fired the alert
+ * @param startedAt  first reading out of the range
+ * @param resolvedAt first reading back in the range, {@code null} while the alert is open
+ */
+public record AlertEventResponse(long id, Long ruleId, String ruleName, String sensorId, SensorMetric metric,
+                                 AlertKind kind, double threshold, double value, Instant startedAt,
+                                 Instant firedAt, Instant resolvedAt) {
+
+}
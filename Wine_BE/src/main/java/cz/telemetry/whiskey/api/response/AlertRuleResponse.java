@@ -0,0 +1,9 @@
+package cz.telemetry.whiskey.api.response;
+
+import cz.telemetry.whiskey.repository.SensorMetric;
+
+public record AlertRuleResponse(long id, String name, SensorMetric metric, String sensorId, String location,
+                                Double min, Double max, long durationSeconds, double hysteresis,
+                                boolean enabled) {
+
+}
@@ -0,0 +1,11 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.YearMonth;
+
+/**
+ * @param readings readings of the month, including flagged ones
+ * @param bytes    size of the compressed chunks of the month
+ */
+public record ArchivedMonthResponse(YearMonth month, int sensors, long readings, long bytes) {
+
+}
@@ -0,0 +1,13 @@
+package cz.telemetry.whiskey.api.response;
+
+/**
+ * Outcome of ingesting a single sensor reading.
+ */
+public enum IngestStatus {
+  ACCEPTED,
+  DUPLICATE,
+  /**
+   * The database was unavailable, the reading is kept in the local spool and written later
+   */
+  SPOOLED
+}
@@ -0,0 +1,15 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.Instant;
+
+/**
+ * Statistics of the readings of one group.
+ *
+ * @param sensorId    sensor of the group, {@code null} when not grouped by sensor
+ * @param location    location of the sensors of the group, {@code null} when not grouped or not placed
+ * @param bucketStart start of the bucket, {@code null} when not grouped by bucket
+ */
+public record SensorAggregateGroup(String sensorId, String location, Instant bucketStart, long count,
+                                   SensorStatistics temperature, SensorStatistics humidity) {
+
+}
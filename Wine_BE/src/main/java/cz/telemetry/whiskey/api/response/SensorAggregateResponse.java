@@ -0,0 +1,11 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Statistics of the readings in {@code [from, to)}, a single group unless grouped by sensor or bucket.
+ */
+public record SensorAggregateResponse(Instant from, Instant to, List<SensorAggregateGroup> groups) {
+
+}
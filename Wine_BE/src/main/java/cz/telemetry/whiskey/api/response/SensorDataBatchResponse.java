@@ -0,0 +1,10 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.util.List;
+
+/**
+ * Result of a batch ingest, {@code items} are in the same order as the readings in the request.
+ */
+public record SensorDataBatchResponse(int accepted, int duplicates, int spooled, List<IngestStatus> items) {
+
+}
@@ -0,0 +1,14 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.util.List;
+
+/**
+ * Readings stored after a cursor.
+ *
+ * @param readings readings in the order they were stored, not necessarily in timestamp order
+ * @param cursor   value of {@code cursor} for the next poll
+ * @param reset    the given cursor could not be followed, the client has to reload its window
+ */
+public record SensorDataChangesResponse(List<SensorReadingResponse> readings, String cursor, boolean reset) {
+
+}
@@ -0,0 +1,19 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk import.
+ *
+ * @param rows          non-empty rows read from the upload
+ * @param accepted      rows inserted into {@code sensor_data}
+ * @param duplicates    valid rows which were already stored or repeated within the upload
+ * @param rejected      rows which could not be parsed
+ * @param durationMillis wall time of the whole import
+ * @param rowsPerSecond rows read per second
+ * @param errors        first few parse errors with their line numbers
+ */
+public record SensorDataImportResponse(long rows, long accepted, long duplicates, long rejected,
+                                       long durationMillis, double rowsPerSecond, List<String> errors) {
+
+}
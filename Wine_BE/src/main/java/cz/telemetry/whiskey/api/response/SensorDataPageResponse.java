@@ -0,0 +1,13 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.util.List;
+
+/**
+ * One keyset page of readings.
+ *
+ * @param items readings ordered by timestamp and sensor id
+ * @param next  value of {@code after} for the next page, {@code null} on the last page
+ */
+public record SensorDataPageResponse(List<SensorReadingResponse> items, String next) {
+
+}
@@ -0,0 +1,5 @@
+package cz.telemetry.whiskey.api.response;
+
+public record SensorLocationResponse(String sensorId, String sensorName, String locationName) {
+
+}
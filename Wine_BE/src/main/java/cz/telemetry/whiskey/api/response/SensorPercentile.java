@@ -0,0 +1,9 @@
+package cz.telemetry.whiskey.api.response;
+
+/**
+ * @param quantile requested quantile between 0 and 1, 0.5 for the median
+ * @param value    value at the quantile, within the relative accuracy of the response
+ */
+public record SensorPercentile(double quantile, double value) {
+
+}
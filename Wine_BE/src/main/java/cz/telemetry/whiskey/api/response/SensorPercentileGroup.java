@@ -0,0 +1,14 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Percentiles of the readings of one group.
+ *
+ * @param bucketStart start of the bucket, {@code null} when not grouped by bucket
+ * @param percentiles in the order of the requested quantiles
+ */
+public record SensorPercentileGroup(Instant bucketStart, long count, List<SensorPercentile> percentiles) {
+
+}
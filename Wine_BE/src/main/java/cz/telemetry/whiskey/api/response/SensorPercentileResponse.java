@@ -0,0 +1,16 @@
+package cz.telemetry.whiskey.api.response;
+
+import cz.telemetry.whiskey.repository.SensorMetric;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Percentiles of one metric of the readings in {@code [from, to)}, a single group unless grouped by bucket.
+ *
+ * @param relativeAccuracy bound of {@code |reported - exact| / |exact|} of every value, except for values
+ *                         closer to zero than 0.001 which are reported as zero
+ */
+public record SensorPercentileResponse(Instant from, Instant to, SensorMetric metric, double relativeAccuracy,
+                                       List<SensorPercentileGroup> groups) {
+
+}
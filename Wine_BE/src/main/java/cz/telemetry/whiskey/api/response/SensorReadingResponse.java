@@ -0,0 +1,10 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.Instant;
+
+/**
+ * One reading of one sensor.
+ */
+public record SensorReadingResponse(String sensorId, Instant timestamp, double temperature, double humidity) {
+
+}
@@ -0,0 +1,15 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.Instant;
+
+/**
+ * Aggregate of the readings in one bucket of a series.
+ *
+ * @param timestamp start of the bucket
+ * @param count     number of readings in the bucket, buckets without readings are left out of the series
+ */
+public record SensorSeriesPoint(Instant timestamp, long count,
+                                double temperatureAvg, double temperatureMin, double temperatureMax,
+                                double humidityAvg, double humidityMin, double humidityMax) {
+
+}
@@ -0,0 +1,15 @@
+package cz.telemetry.whiskey.api.response;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Downsampled readings, at most the requested number of points whatever the length of the range.
+ *
+ * @param from          start of the first bucket, the requested start aligned down to the bucket source
+ * @param to            end of the covered range
+ * @param bucketSeconds width of every bucket
+ */
+public record SensorSeriesResponse(Instant from, Instant to, long bucketSeconds, List<SensorSeriesPoint> points) {
+
+}
@@ -0,0 +1,21 @@
+package cz.telemetry.whiskey.api.response;
+
+import cz.telemetry.whiskey.repository.RollupAggregate;
+
+/**
+ * Statistics of one metric, {@code null} when there are too few readings to compute them.
+ *
+ * @param standardDeviation sample standard deviation
+ */
+public record SensorStatistics(Double average, Double min, Double max, Double standardDeviation) {
+
+  public static SensorStatistics temperature(RollupAggregate aggregate) {
+    return new SensorStatistics(aggregate.averageTemperature().orElse(null), aggregate.temperatureMin(),
+        aggregate.temperatureMax(), aggregate.temperatureStandardDeviation().orElse(null));
+  }
+
+  public static SensorStatistics humidity(RollupAggregate aggregate) {
+    return new SensorStatistics(aggregate.averageHumidity().orElse(null), aggregate.humidityMin(),
+        aggregate.humidityMax(), aggregate.humidityStandardDeviation().orElse(null));
+  }
+}
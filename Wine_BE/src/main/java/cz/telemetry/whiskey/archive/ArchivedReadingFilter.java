@@ -0,0 +1,57 @@
+package cz.telemetry.whiskey.archive;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tells ingest paths which readings of archived months the archive already holds. {@code sensor_data} no
+ * longer has the rows of an archived month, so its unique constraint cannot catch a replayed reading and the
+ * rollups would count it a second time.
+ *
+ * <p>The timestamps of a sensor's archived month are decoded on first use and the last
+ * {@value #CACHED_CHUNKS} are kept, readings of months which are not archived cost a map lookup only. Not
+ * thread safe, create one per batch or import.
+ */
+public final class ArchivedReadingFilter {
+
+  static final int CACHED_CHUNKS = 16;
+
+  private final SensorDataArchive archive;
+  private final ZoneId zone = ZoneId.systemDefault();
+  private final Map<String, long[]> timestamps = new LinkedHashMap<>(CACHED_CHUNKS, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+      return size() > CACHED_CHUNKS;
+    }
+  };
+
+  public ArchivedReadingFilter(SensorDataArchive archive) {
+    this.archive = archive;
+  }
+
+  /**
+   * @return {@code true} when the archive holds a reading of the sensor at the same timestamp
+   */
+  public boolean isArchived(String sensorId, Instant timestamp) {
+    final var month = YearMonth.from(timestamp.atZone(zone));
+    if (!archive.isArchived(month)) {
+      return false;
+    }
+    final long[] archived = timestamps.computeIfAbsent(month + " " + sensorId, key -> read(month, sensorId));
+    return Arrays.binarySearch(archived, SensorDataArchive.epochMicros(timestamp)) >= 0;
+  }
+
+  private long[] read(YearMonth month, String sensorId) {
+    final var readings = new ReadingColumns();
+    archive.read(month, sensorId, readings);
+    final long[] epochMicros = new long[readings.size()];
+    for (int i = 0; i < epochMicros.length; i++) {
+      epochMicros[i] = readings.epochMicros(i);
+    }
+    return epochMicros;
+  }
+}
@@ -0,0 +1,38 @@
+package cz.telemetry.whiskey.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a bit stream written by {@link BitOutput} with absolute reads from a buffer, typically a mapped file.
+ */
+final class BitInput {
+
+  private final ByteBuffer buffer;
+  private final int offset;
+  private long bitPosition;
+
+  BitInput(ByteBuffer buffer, int offset) {
+    this.buffer = buffer;
+    this.offset = offset;
+  }
+
+  boolean readBit() {
+    return readBits(1) != 0;
+  }
+
+  /**
+   * @return the next {@code count} bits, at most 64, as the lowest bits of the result
+   */
+  long readBits(int count) {
+    long result = 0;
+    while (count > 0) {
+      final int available = 8 - (int) (bitPosition & 7);
+      final int n = Math.min(available, count);
+      final int current = buffer.get(offset + (int) (bitPosition >>> 3)) & 0xFF;
+      result = (result << n) | ((current >>> (available - n)) & ((1 << n) - 1));
+      bitPosition += n;
+      count -= n;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,50 @@
+package cz.telemetry.whiskey.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable bit stream, most significant bit first.
+ */
+final class BitOutput {
+
+  private byte[] bytes = new byte[4096];
+  private long bitPosition;
+
+  void writeBit(boolean bit) {
+    writeBits(bit ? 1 : 0, 1);
+  }
+
+  /**
+   * Writes the lowest {@code count} bits of the value, {@code count} at most 64.
+   */
+  void writeBits(long value, int count) {
+    ensureCapacity(count);
+    while (count > 0) {
+      final int index = (int) (bitPosition >>> 3);
+      final int free = 8 - (int) (bitPosition & 7);
+      final int n = Math.min(free, count);
+      final int chunk = (int) (value >>> (count - n)) & ((1 << n) - 1);
+      bytes[index] |= (byte) (chunk << (free - n));
+      bitPosition += n;
+      count -= n;
+    }
+  }
+
+  int byteLength() {
+    return (int) ((bitPosition + 7) >>> 3);
+  }
+
+  byte[] bytes() {
+    return bytes;
+  }
+
+  private void ensureCapacity(int bits) {
+    final long needed = (bitPosition + bits + 7) >>> 3;
+    if (needed > bytes.length) {
+      if (needed > Integer.MAX_VALUE - 8) {
+        throw new IllegalStateException("Chunk exceeds 2 GB");
+      }
+      bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, bytes.length * 2L)));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package cz.telemetry.whiskey.archive;
+
+import java.util.Arrays;
+
+/**
+ * Readings of one sensor in growable primitive columns, ordered by timestamp, timestamps as epoch
+ * microseconds.
+ */
+public final class ReadingColumns {
+
+  private long[] ids = new long[1024];
+  private long[] epochMicros = new long[1024];
+  private double[] temperatures = new double[1024];
+  private double[] humidities = new double[1024];
+  private short[] qualityFlags = new short[1024];
+  private int size;
+
+  /**
+   * @throws IllegalArgumentException when the reading is not newer than the last one
+   */
+  public void add(long id, long epochMicros, double temperature, double humidity, short qualityFlag) {
+    if (size > 0 && epochMicros <= this.epochMicros[size - 1]) {
+      throw new IllegalArgumentException("Readings must be added in ascending timestamp order");
+    }
+    if (size == ids.length) {
+      final int capacity = size * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      this.epochMicros = Arrays.copyOf(this.epochMicros, capacity);
+      temperatures = Arrays.copyOf(temperatures, capacity);
+      humidities = Arrays.copyOf(humidities, capacity);
+      qualityFlags = Arrays.copyOf(qualityFlags, capacity);
+    }
+    ids[size] = id;
+    this.epochMicros[size] = epochMicros;
+    temperatures[size] = temperature;
+    humidities[size] = humidity;
+    qualityFlags[size] = qualityFlag;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public long id(int index) {
+    return ids[index];
+  }
+
+  public long epochMicros(int index) {
+    return epochMicros[index];
+  }
+
+  public double temperature(int index) {
+    return temperatures[index];
+  }
+
+  public double humidity(int index) {
+    return humidities[index];
+  }
+
+  public short qualityFlag(int index) {
+    return qualityFlags[index];
+  }
+}
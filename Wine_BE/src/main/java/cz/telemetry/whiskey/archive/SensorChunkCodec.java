@@ -0,0 +1,272 @@
+package cz.telemetry.whiskey.archive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compressed encoding of the readings of one sensor, a chunk of the {@link SensorDataArchive archive}, in the
+ * spirit of Facebook's Gorilla.
+ *
+ * <p>All numbers of the header are big-endian, the readings follow as one bit stream:
+ * <pre>
+ * chunk   := magic:i32 ("SDA1") version:u8 (1) timeUnit:u8 temperatureScale:u8 humidityScale:u8 count:i32
+ *            firstEpochMicros:i64 lastEpochMicros:i64 idLength:u16 sensorId:utf8[idLength] reading*
+ * reading := id timestamp temperature humidity flag
+ * </pre>
+ * The first reading stores its id and timestamp as 64 bits, the following ones the delta of their delta
+ * against the previous reading, which is 0 for evenly spaced readings and costs one bit. Timestamps are
+ * counted in the coarsest unit all of them are whole multiples of: seconds, milliseconds or microseconds.
+ *
+ * <p>A metric whose values all have at most three decimals, like the integers of a DHT11, is stored in fixed
+ * point: the difference of the scaled value to the previous one. Other metrics store the XOR of the IEEE
+ * 754 bits with the previous value, only its meaningful bits when they fit into the window of the
+ * previous XOR. Signed differences use a variable-length code:
+ * <pre>
+ * 0                 zero
+ * 10    + 7 bits    -64 to 63
+ * 110   + 12 bits   -2048 to 2047
+ * 1110  + 20 bits
+ * 11110 + 32 bits
+ * 11111 + 64 bits
+ * </pre>
+ * The quality flag is a single 0 for clean readings, otherwise 1 followed by the 16 bit flag.
+ */
+public final class SensorChunkCodec {
+
+  static final int MAGIC = 0x53444131;
+  static final int VERSION = 1;
+
+  /**
+   * Scale of a metric stored as XOR of the raw bits
+   */
+  static final int XOR = 0xFF;
+
+  private static final long[] TIME_DIVISORS = {1, 1_000, 1_000_000};
+  private static final double[] SCALES = {1, 10, 100, 1000};
+  private static final int[] SIGNED_WIDTHS = {7, 12, 20, 32, 64};
+
+  private SensorChunkCodec() {
+  }
+
+  /**
+   * @param readings at least one reading
+   * @return the chunk, positioned at 0
+   */
+  public static ByteBuffer encode(String sensorId, ReadingColumns readings) {
+    final int count = readings.size();
+    if (count == 0) {
+      throw new IllegalArgumentException("A chunk needs at least one reading");
+    }
+    final int timeUnit = timeUnit(readings);
+    final long divisor = TIME_DIVISORS[timeUnit];
+    final var temperature = new ValueCodec(scale(readings, true));
+    final var humidity = new ValueCodec(scale(readings, false));
+
+    final var out = new BitOutput();
+    long previousTime = 0;
+    long previousTimeDelta = 0;
+    long previousId = 0;
+    long previousIdDelta = 0;
+    for (int i = 0; i < count; i++) {
+      final long time = readings.epochMicros(i) / divisor;
+      final long id = readings.id(i);
+      if (i == 0) {
+        out.writeBits(id, 64);
+        out.writeBits(time, 64);
+      } else {
+        final long idDelta = id - previousId;
+        writeSigned(out, idDelta - previousIdDelta);
+        previousIdDelta = idDelta;
+        final long timeDelta = time - previousTime;
+        writeSigned(out, timeDelta - previousTimeDelta);
+        previousTimeDelta = timeDelta;
+      }
+      previousId = id;
+      previousTime = time;
+      temperature.write(out, readings.temperature(i));
+      humidity.write(out, readings.humidity(i));
+      final short flag = readings.qualityFlag(i);
+      out.writeBit(flag != 0);
+      if (flag != 0) {
+        out.writeBits(flag, 16);
+      }
+    }
+
+    final byte[] id = sensorId.getBytes(StandardCharsets.UTF_8);
+    if (id.length > 0xFFFF) {
+      throw new IllegalArgumentException("Sensor id is too long");
+    }
+    final var chunk = ByteBuffer.allocate(headerLength(id.length) + out.byteLength());
+    chunk.putInt(MAGIC)
+        .put((byte) VERSION)
+        .put((byte) timeUnit)
+        .put((byte) temperature.scale)
+        .put((byte) humidity.scale)
+        .putInt(count)
+        .putLong(readings.epochMicros(0))
+        .putLong(readings.epochMicros(count - 1))
+        .putShort((short) id.length)
+        .put(id)
+        .put(out.bytes(), 0, out.byteLength());
+    return chunk.flip();
+  }
+
+  static int headerLength(int idLength) {
+    return 4 + 1 + 1 + 1 + 1 + 4 + 8 + 8 + 2 + idLength;
+  }
+
+  static long timeDivisor(int timeUnit) {
+    return TIME_DIVISORS[timeUnit];
+  }
+
+  static void writeSigned(BitOutput out, long value) {
+    if (value == 0) {
+      out.writeBit(false);
+      return;
+    }
+    for (int i = 0; i < SIGNED_WIDTHS.length; i++) {
+      final int width = SIGNED_WIDTHS[i];
+      if (width == 64 || value >= -(1L << (width - 1)) && value < (1L << (width - 1))) {
+        // i + 1 ones, then a zero unless it is the last, widest bucket
+        final int prefixLength = i == SIGNED_WIDTHS.length - 1 ? i + 1 : i + 2;
+        final long prefix = i == SIGNED_WIDTHS.length - 1 ? (1L << prefixLength) - 1 : ((1L << (i + 1)) - 1) << 1;
+        out.writeBits(prefix, prefixLength);
+        out.writeBits(value, width);
+        return;
+      }
+    }
+  }
+
+  static long readSigned(BitInput in) {
+    int ones = 0;
+    while (ones < SIGNED_WIDTHS.length && in.readBit()) {
+      ones++;
+    }
+    if (ones == 0) {
+      return 0;
+    }
+    final int width = SIGNED_WIDTHS[ones - 1];
+    final long bits = in.readBits(width);
+    return width == 64 ? bits : (bits << (64 - width)) >> (64 - width);
+  }
+
+  private static int timeUnit(ReadingColumns readings) {
+    for (int unit = TIME_DIVISORS.length - 1; unit > 0; unit--) {
+      final long divisor = TIME_DIVISORS[unit];
+      boolean whole = true;
+      for (int i = 0; i < readings.size() && whole; i++) {
+        whole = readings.epochMicros(i) % divisor == 0;
+      }
+      if (whole) {
+        return unit;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return the fewest decimals all values of the metric have exactly, {@link #XOR} if more than three
+   */
+  private static int scale(ReadingColumns readings, boolean temperature) {
+    for (int scale = 0; scale < SCALES.length; scale++) {
+      boolean exact = true;
+      for (int i = 0; i < readings.size() && exact; i++) {
+        exact = ValueCodec.isExact(temperature ? readings.temperature(i) : readings.humidity(i), scale);
+      }
+      if (exact) {
+        return scale;
+      }
+    }
+    return XOR;
+  }
+
+  /**
+   * Running state of one metric, shared by the encoder and the decoder.
+   */
+  static final class ValueCodec {
+
+    private final int scale;
+    private boolean started;
+    private long previousScaled;
+    private long previousBits;
+    private int previousLeading = -1;
+    private int previousTrailing;
+
+    ValueCodec(int scale) {
+      this.scale = scale;
+    }
+
+    static boolean isExact(double value, int scale) {
+      final double scaled = value * SCALES[scale];
+      return Math.abs(scaled) < (1L << 52) && Math.round(scaled) / SCALES[scale] == value
+          && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0);
+    }
+
+    void write(BitOutput out, double value) {
+      if (scale != XOR) {
+        final long scaled = Math.round(value * SCALES[scale]);
+        if (started) {
+          writeSigned(out, scaled - previousScaled);
+        } else {
+          out.writeBits(scaled, 64);
+        }
+        previousScaled = scaled;
+        started = true;
+        return;
+      }
+      final long bits = Double.doubleToRawLongBits(value);
+      if (!started) {
+        out.writeBits(bits, 64);
+        previousBits = bits;
+        started = true;
+        return;
+      }
+      final long xor = bits ^ previousBits;
+      previousBits = bits;
+      if (xor == 0) {
+        out.writeBit(false);
+        return;
+      }
+      out.writeBit(true);
+      final int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+      final int trailing = Long.numberOfTrailingZeros(xor);
+      if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+        out.writeBit(false);
+        out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        return;
+      }
+      final int length = 64 - leading - trailing;
+      out.writeBit(true);
+      out.writeBits(leading, 5);
+      out.writeBits(length - 1, 6);
+      out.writeBits(xor >>> trailing, length);
+      previousLeading = leading;
+      previousTrailing = trailing;
+    }
+
+    double read(BitInput in) {
+      if (scale != XOR) {
+        previousScaled = started ? previousScaled + readSigned(in) : in.readBits(64);
+        started = true;
+        return previousScaled / SCALES[scale];
+      }
+      if (!started) {
+        previousBits = in.readBits(64);
+        started = true;
+      } else if (in.readBit()) {
+        if (in.readBit()) {
+          previousLeading = (int) in.readBits(5);
+          final int length = (int) in.readBits(6) + 1;
+          previousTrailing = 64 - previousLeading - length;
+        }
+        final int length = 64 - previousLeading - previousTrailing;
+        previousBits ^= in.readBits(length) << previousTrailing;
+      }
+      return Double.longBitsToDouble(previousBits);
+    }
+
+    int scale() {
+      return scale;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package cz.telemetry.whiskey.archive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes a chunk written by {@link SensorChunkCodec} one reading at a time, straight from the buffer, which
+ * is typically a mapped file. Moving to the next reading allocates nothing.
+ */
+public final class SensorChunkReader {
+
+  private final String sensorId;
+  private final int count;
+  private final long firstEpochMicros;
+  private final long lastEpochMicros;
+  private final long timeDivisor;
+  private final BitInput in;
+  private final SensorChunkCodec.ValueCodec temperatureCodec;
+  private final SensorChunkCodec.ValueCodec humidityCodec;
+
+  private int position;
+  private long id;
+  private long idDelta;
+  private long time;
+  private long timeDelta;
+  private double temperature;
+  private double humidity;
+  private short qualityFlag;
+
+  /**
+   * @throws IllegalArgumentException when the buffer does not hold a chunk of a known version
+   */
+  public SensorChunkReader(ByteBuffer chunk) {
+    if (chunk.limit() < SensorChunkCodec.headerLength(0) || chunk.getInt(0) != SensorChunkCodec.MAGIC) {
+      throw new IllegalArgumentException("Not a sensor chunk");
+    }
+    if (chunk.get(4) != SensorChunkCodec.VERSION) {
+      throw new IllegalArgumentException("Unsupported chunk version " + chunk.get(4));
+    }
+    timeDivisor = SensorChunkCodec.timeDivisor(chunk.get(5));
+    temperatureCodec = new SensorChunkCodec.ValueCodec(chunk.get(6) & 0xFF);
+    humidityCodec = new SensorChunkCodec.ValueCodec(chunk.get(7) & 0xFF);
+    count = chunk.getInt(8);
+    firstEpochMicros = chunk.getLong(12);
+    lastEpochMicros = chunk.getLong(20);
+    final int idLength = chunk.getShort(28) & 0xFFFF;
+    final byte[] id = new byte[idLength];
+    chunk.get(30, id);
+    sensorId = new String(id, StandardCharsets.UTF_8);
+    in = new BitInput(chunk, SensorChunkCodec.headerLength(idLength));
+  }
+
+  public String sensorId() {
+    return sensorId;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public long firstEpochMicros() {
+    return firstEpochMicros;
+  }
+
+  public long lastEpochMicros() {
+    return lastEpochMicros;
+  }
+
+  /**
+   * Moves to the next reading.
+   *
+   * @return {@code false} once all readings were read
+   */
+  public boolean next() {
+    if (position == count) {
+      return false;
+    }
+    if (position == 0) {
+      id = in.readBits(64);
+      time = in.readBits(64);
+    } else {
+      idDelta += SensorChunkCodec.readSigned(in);
+      id += idDelta;
+      timeDelta += SensorChunkCodec.readSigned(in);
+      time += timeDelta;
+    }
+    temperature = temperatureCodec.read(in);
+    humidity = humidityCodec.read(in);
+    qualityFlag = in.readBit() ? (short) in.readBits(16) : 0;
+    position++;
+    return true;
+  }
+
+  public long id() {
+    return id;
+  }
+
+  public long epochMicros() {
+    return time * timeDivisor;
+  }
+
+  public double temperature() {
+    return temperature;
+  }
+
+  public double humidity() {
+    return humidity;
+  }
+
+  public short qualityFlag() {
+    return qualityFlag;
+  }
+
+  /**
+   * Appends the remaining readings.
+   */
+  public void readAll(ReadingColumns into) {
+    while (next()) {
+      into.add(id, epochMicros(), temperature, humidity, qualityFlag);
+    }
+  }
+}
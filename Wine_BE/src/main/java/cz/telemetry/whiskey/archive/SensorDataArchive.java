@@ -0,0 +1,508 @@
+package cz.telemetry.whiskey.archive;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.ReadingAggregator;
+import cz.telemetry.whiskey.repository.RollupGroup;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
+import cz.telemetry.whiskey.repository.SensorDataRowHandler;
+import jakarta.annotation.PostConstruct;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cold history of {@code sensor_data}: whole months of readings moved out of the database into one
+ * {@link SensorChunkCodec chunk} per sensor and month, {@code <directory>/<yyyy-MM>/<URL encoded sensor id>.sda}.
+ *
+ * <p>Chunks are memory-mapped and decoded on the fly, reading a month costs no heap beyond one decoder per
+ * sensor. A month is written into a temporary directory and renamed into place as a whole, a rewritten month
+ * replaces the previous one the same way, so readers see either version but never a half-written one.
+ *
+ * <p>The rollups and sketches of archived months stay in the database, the archive is only read for what
+ * needs single readings. Times are converted between the epoch microseconds of the chunks and the stored wall
+ * times in the JVM time zone, the interpretation the JDBC driver applies to {@code sensor_data.timestamp}.
+ */
+@Slf4j
+@Component
+public class SensorDataArchive {
+
+  private static final String CHUNK_SUFFIX = ".sda";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final String REPLACED_SUFFIX = ".old";
+
+  private final Path directory;
+
+  /**
+   * Chunks of every archived month by sensor, replaced as a whole on every change
+   */
+  private volatile NavigableMap<YearMonth, NavigableMap<String, Path>> index = Collections.emptyNavigableMap();
+
+  public SensorDataArchive(WhiskeyProperties whiskeyProperties) {
+    this.directory = Path.of(whiskeyProperties.getArchive().getDirectory());
+  }
+
+  /**
+   * Indexes the archived months, finishing or rolling back a write interrupted by a crash.
+   */
+  @PostConstruct
+  public synchronized void load() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    for (Path path : list(directory)) {
+      final String name = path.getFileName().toString();
+      if (name.endsWith(TEMPORARY_SUFFIX)) {
+        deleteRecursively(path);
+      } else if (name.endsWith(REPLACED_SUFFIX)) {
+        final Path month = path.resolveSibling(name.substring(0, name.length() - REPLACED_SUFFIX.length()));
+        if (Files.exists(month)) {
+          deleteRecursively(path);
+        } else {
+          Files.move(path, month, StandardCopyOption.ATOMIC_MOVE);
+        }
+      }
+    }
+    final NavigableMap<YearMonth, NavigableMap<String, Path>> loaded = new TreeMap<>();
+    for (Path path : list(directory)) {
+      final YearMonth month;
+      try {
+        month = YearMonth.parse(path.getFileName().toString());
+      } catch (DateTimeParseException e) {
+        continue;
+      }
+      final NavigableMap<String, Path> chunks = new TreeMap<>();
+      for (Path chunk : list(path)) {
+        final String name = chunk.getFileName().toString();
+        if (name.endsWith(CHUNK_SUFFIX)) {
+          chunks.put(URLDecoder.decode(name.substring(0, name.length() - CHUNK_SUFFIX.length()),
+              StandardCharsets.UTF_8), chunk);
+        }
+      }
+      if (!chunks.isEmpty()) {
+        loaded.put(month, Collections.unmodifiableNavigableMap(chunks));
+      }
+    }
+    index = Collections.unmodifiableNavigableMap(loaded);
+    log.info("Sensor data archive {} holds {} months", directory.toAbsolutePath(), loaded.size());
+  }
+
+  /**
+   * @return archived months, ascending
+   */
+  public NavigableSet<YearMonth> months() {
+    return index.navigableKeySet();
+  }
+
+  public boolean isArchived(YearMonth month) {
+    return index.containsKey(month);
+  }
+
+  /**
+   * @return sensors with readings in the archived month, ascending
+   */
+  public NavigableSet<String> sensors(YearMonth month) {
+    return index.getOrDefault(month, Collections.emptyNavigableMap()).navigableKeySet();
+  }
+
+  /**
+   * @return sensors with readings in the archived months overlapping {@code [from, to]}, ascending
+   */
+  public NavigableSet<String> sensors(Instant from, Instant to) {
+    final var sensors = new TreeSet<String>();
+    for (var chunks : monthsBetween(epochMicros(from), epochMicros(to) + 1).values()) {
+      sensors.addAll(chunks.keySet());
+    }
+    return sensors;
+  }
+
+  /**
+   * @return number of sensors, readings and bytes of every archived month, ascending
+   */
+  public List<MonthSummary> summaries() {
+    final List<MonthSummary> summaries = new ArrayList<>();
+    index.forEach((month, chunks) -> {
+      long readings = 0;
+      long bytes = 0;
+      for (Path chunk : chunks.values()) {
+        final var buffer = map(chunk);
+        readings += new SensorChunkReader(buffer).count();
+        bytes += buffer.capacity();
+      }
+      summaries.add(new MonthSummary(month, chunks.size(), readings, bytes));
+    });
+    return summaries;
+  }
+
+  /**
+   * Splits {@code [from, to]} into consecutive segments which are either one archived month or not archived
+   * at all. Both ends of every segment are inclusive, like the bounds of
+   * {@link cz.telemetry.whiskey.repository.SensorDataRepositoryCustom#streamBetween}.
+   */
+  public List<Segment> split(Instant from, Instant to) {
+    final var months = index;
+    if (months.isEmpty() || from.isAfter(to)) {
+      return List.of(new Segment(from, to, false));
+    }
+    final var zone = ZoneId.systemDefault();
+    final List<Segment> segments = new ArrayList<>();
+    var cursor = from;
+    for (YearMonth month : months.subMap(YearMonth.from(from.atZone(zone)), true,
+        YearMonth.from(to.atZone(zone)), true).keySet()) {
+      final var start = max(cursor, month.atDay(1).atStartOfDay(zone).toInstant());
+      final var end = min(to, month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().minusNanos(1000));
+      if (start.isAfter(end)) {
+        continue;
+      }
+      if (cursor.isBefore(start)) {
+        segments.add(new Segment(cursor, start.minusNanos(1000), false));
+      }
+      segments.add(new Segment(start, end, true));
+      cursor = end.plusNanos(1000);
+    }
+    if (!cursor.isAfter(to)) {
+      segments.add(new Segment(cursor, to, false));
+    }
+    return segments;
+  }
+
+  /**
+   * Streams archived readings with {@code from <= timestamp <= to} ordered by timestamp, merging the sensors
+   * of one month at a time.
+   */
+  public void stream(Instant from, Instant to, SensorDataRowHandler handler) {
+    final long fromMicros = epochMicros(from);
+    final long toMicros = epochMicros(to) + 1;
+    final var queue = new PriorityQueue<SensorChunkReader>(Comparator.comparingLong(SensorChunkReader::epochMicros));
+    try {
+      for (var chunks : monthsBetween(fromMicros, toMicros).values()) {
+        for (Path chunk : chunks.values()) {
+          final var reader = open(chunk, fromMicros, toMicros);
+          if (reader != null && seek(reader, fromMicros, toMicros)) {
+            queue.add(reader);
+          }
+        }
+        while (!queue.isEmpty()) {
+          final var reader = queue.poll();
+          handler.handle(reader.id(), instant(reader.epochMicros()), reader.sensorId(), reader.temperature(),
+              reader.humidity());
+          if (reader.next() && reader.epochMicros() < toMicros) {
+            queue.add(reader);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Streams archived readings with {@code from <= timestamp <= to} ordered by sensor and timestamp, as
+   * primitives.
+   */
+  public void streamColumns(Instant from, Instant to, SensorDataColumnHandler handler) {
+    for (String sensorId : sensors(from, to)) {
+      streamColumns(from, to, sensorId, handler);
+    }
+  }
+
+  /**
+   * Same as {@link #streamColumns(Instant, Instant, SensorDataColumnHandler)} for the readings of one sensor.
+   */
+  public void streamColumns(Instant from, Instant to, String sensorId, SensorDataColumnHandler handler) {
+    final long fromMicros = epochMicros(from);
+    final long toMicros = epochMicros(to) + 1;
+    try {
+      for (var chunks : monthsBetween(fromMicros, toMicros).values()) {
+        final var chunk = chunks.get(sensorId);
+        final var reader = chunk == null ? null : open(chunk, fromMicros, toMicros);
+        if (reader == null || !seek(reader, fromMicros, toMicros)) {
+          continue;
+        }
+        do {
+          handler.handle(sensorId, Math.floorDiv(reader.epochMicros(), 1000), reader.temperature(),
+              reader.humidity());
+        } while (reader.next() && reader.epochMicros() < toMicros);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Aggregates the clean archived readings in {@code [from, to)} like
+   * {@link cz.telemetry.whiskey.repository.SensorDataRollupRepository#aggregateGroups}.
+   *
+   * @param bucket    groups by buckets of this resolution, {@code null} for the whole range
+   * @param sensorIds only readings of these sensors, {@code null} for all sensors
+   */
+  public List<RollupGroup> aggregateGroups(LocalDateTime from, LocalDateTime to, RollupResolution bucket,
+      boolean bySensor, Collection<String> sensorIds) {
+    return aggregate(from, to, ReadingAggregator.groups(bucket), bySensor, sensorIds);
+  }
+
+  /**
+   * Aggregates the clean archived readings in {@code [from, to)} into buckets of {@code bucketSeconds}
+   * starting at {@code from}, like the raw series of
+   * {@link cz.telemetry.whiskey.repository.SensorDataRollupRepository#series}.
+   */
+  public List<RollupGroup> series(LocalDateTime from, LocalDateTime to, long bucketSeconds,
+      Collection<String> sensorIds) {
+    return aggregate(from, to, ReadingAggregator.series(from, bucketSeconds), false, sensorIds);
+  }
+
+  /**
+   * Appends the archived readings of the sensor in the month.
+   *
+   * @return {@code false} when the month holds no readings of the sensor
+   */
+  public boolean read(YearMonth month, String sensorId, ReadingColumns into) {
+    final var chunk = index.getOrDefault(month, Collections.emptyNavigableMap()).get(sensorId);
+    if (chunk == null) {
+      return false;
+    }
+    new SensorChunkReader(map(chunk)).readAll(into);
+    return true;
+  }
+
+  /**
+   * Starts writing the month, the month is replaced once the writer is {@link MonthWriter#commit committed}.
+   */
+  public MonthWriter write(YearMonth month) throws IOException {
+    final Path temporary = directory.resolve(month + TEMPORARY_SUFFIX);
+    deleteRecursively(temporary);
+    Files.createDirectories(temporary);
+    return new MonthWriter(month, temporary);
+  }
+
+  /**
+   * Removes the month from the archive.
+   */
+  public synchronized void delete(YearMonth month) throws IOException {
+    final Path target = directory.resolve(month.toString());
+    final Path replaced = directory.resolve(month + REPLACED_SUFFIX);
+    if (Files.exists(target)) {
+      Files.move(target, replaced, StandardCopyOption.ATOMIC_MOVE);
+    }
+    replace(month, null);
+    deleteRecursively(replaced);
+  }
+
+  public static long epochMicros(Instant instant) {
+    return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+  }
+
+  public static Instant instant(long epochMicros) {
+    return Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L),
+        Math.floorMod(epochMicros, 1_000_000L) * 1000);
+  }
+
+  private static long epochMicros(LocalDateTime time) {
+    return epochMicros(time.atZone(ZoneId.systemDefault()).toInstant());
+  }
+
+  private List<RollupGroup> aggregate(LocalDateTime from, LocalDateTime to, ReadingAggregator aggregator,
+      boolean bySensor, Collection<String> sensorIds) {
+    if (!from.isBefore(to) || sensorIds != null && sensorIds.isEmpty()) {
+      return List.of();
+    }
+    final long fromMicros = epochMicros(from);
+    final long toMicros = epochMicros(to);
+    for (var chunks : monthsBetween(fromMicros, toMicros).values()) {
+      for (var entry : chunks.entrySet()) {
+        if (sensorIds != null && !sensorIds.contains(entry.getKey())) {
+          continue;
+        }
+        final var reader = open(entry.getValue(), fromMicros, toMicros);
+        if (reader == null || !seek(reader, fromMicros, toMicros)) {
+          continue;
+        }
+        aggregator.sensor(bySensor ? entry.getKey() : null);
+        do {
+          if (reader.qualityFlag() == 0) {
+            aggregator.add(reader.epochMicros(), reader.temperature(), reader.humidity());
+          }
+        } while (reader.next() && reader.epochMicros() < toMicros);
+      }
+    }
+    return aggregator.result();
+  }
+
+  /**
+   * @return archived months overlapping {@code [fromMicros, toMicros)}
+   */
+  private NavigableMap<YearMonth, NavigableMap<String, Path>> monthsBetween(long fromMicros, long toMicros) {
+    final var zone = ZoneId.systemDefault();
+    final var first = YearMonth.from(instant(fromMicros).atZone(zone));
+    final var last = YearMonth.from(instant(toMicros - 1).atZone(zone));
+    return first.isAfter(last) ? Collections.emptyNavigableMap() : index.subMap(first, true, last, true);
+  }
+
+  /**
+   * @return reader of the chunk, {@code null} when the chunk has no reading in {@code [fromMicros, toMicros)}
+   */
+  private static SensorChunkReader open(Path chunk, long fromMicros, long toMicros) {
+    final var reader = new SensorChunkReader(map(chunk));
+    return reader.lastEpochMicros() < fromMicros || reader.firstEpochMicros() >= toMicros ? null : reader;
+  }
+
+  /**
+   * Moves the reader to its first reading in {@code [fromMicros, toMicros)}.
+   */
+  private static boolean seek(SensorChunkReader reader, long fromMicros, long toMicros) {
+    while (reader.next()) {
+      if (reader.epochMicros() >= fromMicros) {
+        return reader.epochMicros() < toMicros;
+      }
+    }
+    return false;
+  }
+
+  private static ByteBuffer map(Path chunk) {
+    try (var channel = FileChannel.open(chunk, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private synchronized void replace(YearMonth month, NavigableMap<String, Path> chunks) {
+    final NavigableMap<YearMonth, NavigableMap<String, Path>> next = new TreeMap<>(index);
+    if (chunks == null || chunks.isEmpty()) {
+      next.remove(month);
+    } else {
+      next.put(month, Collections.unmodifiableNavigableMap(chunks));
+    }
+    index = Collections.unmodifiableNavigableMap(next);
+  }
+
+  private static List<Path> list(Path directory) throws IOException {
+    try (Stream<Path> entries = Files.list(directory)) {
+      return entries.toList();
+    }
+  }
+
+  private static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> entries = Files.walk(path)) {
+      for (Path entry : entries.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(entry);
+      }
+    }
+  }
+
+  private static Instant max(Instant a, Instant b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  /**
+   * Part of a range, {@code from} and {@code to} inclusive.
+   *
+   * @param archived the part lies in one archived month
+   */
+  public record Segment(Instant from, Instant to, boolean archived) {
+
+  }
+
+  public record MonthSummary(YearMonth month, int sensors, long readings, long bytes) {
+
+  }
+
+  /**
+   * Writes the chunks of one month, {@link #close() closing} an uncommitted writer discards them.
+   */
+  public final class MonthWriter implements Closeable {
+
+    private final YearMonth month;
+    private final Path temporary;
+    private final NavigableMap<String, Path> chunks = new TreeMap<>();
+    private boolean committed;
+
+    private MonthWriter(YearMonth month, Path temporary) {
+      this.month = month;
+      this.temporary = temporary;
+    }
+
+    /**
+     * Writes all readings of the sensor in the month, a sensor may be added only once.
+     */
+    public void add(String sensorId, ReadingColumns readings) throws IOException {
+      if (readings.size() == 0) {
+        return;
+      }
+      final String name = URLEncoder.encode(sensorId, StandardCharsets.UTF_8) + CHUNK_SUFFIX;
+      final var chunk = SensorChunkCodec.encode(sensorId, readings);
+      try (var channel = FileChannel.open(temporary.resolve(name), StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE)) {
+        while (chunk.hasRemaining()) {
+          channel.write(chunk);
+        }
+        // the readings are deleted from the database once the month is committed
+        channel.force(false);
+      }
+      chunks.put(sensorId, directory.resolve(month.toString()).resolve(name));
+    }
+
+    /**
+     * Replaces the archived month by the written chunks.
+     */
+    public void commit() throws IOException {
+      final Path target = directory.resolve(month.toString());
+      final Path replaced = directory.resolve(month + REPLACED_SUFFIX);
+      synchronized (SensorDataArchive.this) {
+        deleteRecursively(replaced);
+        if (Files.exists(target)) {
+          Files.move(target, replaced, StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (chunks.isEmpty()) {
+          deleteRecursively(temporary);
+        } else {
+          Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        replace(month, chunks);
+        committed = true;
+      }
+      deleteRecursively(replaced);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        deleteRecursively(temporary);
+      }
+    }
+  }
+}
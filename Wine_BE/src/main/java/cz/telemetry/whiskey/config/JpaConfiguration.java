@@ -1,6 +1,9 @@
 package cz.telemetry.whiskey.config;
 
 import cz.telemetry.whiskey.repository.ProfileRepository;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
@@ -8,4 +11,22 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @EnableJpaRepositories(basePackageClasses = ProfileRepository.class, enableDefaultTransactions = false)
 public class JpaConfiguration {
 
+  /**
+   * Same as the allocation size of pooled sequences, so one batch needs at most one sequence call
+   */
+  public static final int JDBC_BATCH_SIZE = 50;
+
+  /**
+   * Enables JDBC batching of inserts and updates, values set through {@code spring.jpa.properties} win.
+   *
+   * @return customizer adding the batching defaults
+   */
+  @Bean
+  public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+    return properties -> {
+      properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, JDBC_BATCH_SIZE);
+      properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+      properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+    };
+  }
 }
@@ -12,6 +12,7 @@ import java.security.PrivateKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -41,6 +42,8 @@ import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.oauth2.server.resource.web.access.BearerTokenAccessDeniedHandler;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
@@ -69,6 +72,13 @@ public class SecurityConfig {
       "content-type", "version",
       "content-disposition", "location");
 
+  /**
+   * Endpoints read through {@code EventSource}, which cannot send an Authorization header
+   */
+  private static final String[] QUERY_TOKEN_ENDPOINTS = {
+      "/api/sensors/stream",
+  };
+
   private final UserDetailServiceImpl userDetailsService;
 
 
@@ -173,6 +183,21 @@ public class SecurityConfig {
 //    );
 //  }
 
+  /**
+   * Accepts the token from the {@code access_token} query parameter, but only on {@link #QUERY_TOKEN_ENDPOINTS}
+   * so it does not end up in access logs of ordinary requests.
+   */
+  @Bean
+  public BearerTokenResolver bearerTokenResolver() {
+    final var headerResolver = new DefaultBearerTokenResolver();
+    final var queryResolver = new DefaultBearerTokenResolver();
+    queryResolver.setAllowUriQueryParameter(true);
+    final var queryTokenEndpoints = Set.of(QUERY_TOKEN_ENDPOINTS);
+    return request -> queryTokenEndpoints.contains(request.getRequestURI())
+        ? queryResolver.resolve(request)
+        : headerResolver.resolve(request);
+  }
+
   @Bean
   public CorsConfigurationSource corsFilter() {
     final var cfg = new CorsConfiguration();
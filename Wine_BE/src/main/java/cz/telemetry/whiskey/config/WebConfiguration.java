@@ -1,11 +1,20 @@
 package cz.telemetry.whiskey.config;
 
+import cz.telemetry.whiskey.api.frame.SensorFrameHttpMessageConverter;
+import cz.telemetry.whiskey.controller.SensorDataController;
+import java.util.List;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.data.web.config.EnableSpringDataWebSupport.PageSerializationMode;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableSpringDataWebSupport(pageSerializationMode = PageSerializationMode.VIA_DTO)
-public class WebConfiguration {
+public class WebConfiguration implements WebMvcConfigurer {
 
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new SensorFrameHttpMessageConverter(SensorDataController.MAX_BATCH_SIZE));
+  }
 }
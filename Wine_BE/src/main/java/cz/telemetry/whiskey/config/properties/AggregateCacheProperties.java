@@ -0,0 +1,25 @@
+package cz.telemetry.whiskey.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+
+@Data
+public class AggregateCacheProperties {
+
+  /**
+   * Maximum number of cached aggregate results, the least recently used one is evicted beyond it
+   */
+  private int maxEntries = 10_000;
+
+  /**
+   * Lifetime of a cached result, bounds the staleness after changes of {@code sensor_data} the ingest does
+   * not report
+   */
+  private Duration ttl = Duration.ofHours(6);
+
+  /**
+   * Time after the end of a range during which readings for it are still expected, younger ranges are not
+   * cached at all
+   */
+  private Duration lateArrival = Duration.ofMinutes(15);
+}
@@ -0,0 +1,12 @@
+package cz.telemetry.whiskey.config.properties;
+
+import lombok.Data;
+
+@Data
+public class AlertProperties {
+
+  /**
+   * Alert changes waiting to be written, further changes are dropped while the database lags behind
+   */
+  private int writeQueueCapacity = 10_000;
+}
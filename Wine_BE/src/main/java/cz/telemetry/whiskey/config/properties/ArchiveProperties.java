@@ -0,0 +1,32 @@
+package cz.telemetry.whiskey.config.properties;
+
+import lombok.Data;
+
+/**
+ * Moves whole months of raw readings out of {@code sensor_data} into compressed files, see
+ * {@link cz.telemetry.whiskey.archive.SensorDataArchive}.
+ */
+@Data
+public class ArchiveProperties {
+
+  /**
+   * Run the archive job, archived months are read regardless
+   */
+  private boolean enabled = false;
+
+  /**
+   * Directory of the archive, one subdirectory per month
+   */
+  private String directory = "archive";
+
+  /**
+   * Number of past months kept in the database besides the current one, at least 1 so the archive never races
+   * readings of the previous month still arriving
+   */
+  private int afterMonths = 12;
+
+  /**
+   * Cron of the archive job
+   */
+  private String cron = "0 30 4 * * *";
+}
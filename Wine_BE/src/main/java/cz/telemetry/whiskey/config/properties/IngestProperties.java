@@ -0,0 +1,46 @@
+package cz.telemetry.whiskey.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+
+@Data
+public class IngestProperties {
+
+  /**
+   * When enabled, readings are acknowledged with 202 and written to the database by background writers
+   */
+  private boolean async = false;
+
+  /**
+   * Maximum number of readings waiting for the writers, requests over this limit are rejected with 429,
+   * batches larger than the whole capacity with 413
+   */
+  private int queueCapacity = 10_000;
+
+  /**
+   * Maximum number of readings written by one multi-row insert
+   */
+  private int batchSize = 500;
+
+  /**
+   * How long a writer waits for a batch to fill up before writing what it has
+   */
+  private Duration flushInterval = Duration.ofMillis(200);
+
+  private int writerThreads = 2;
+
+  /**
+   * Value of the Retry-After header sent with 429, also used as a pause between failed writes
+   */
+  private Duration retryAfter = Duration.ofSeconds(5);
+
+  /**
+   * Number of recently stored readings kept for {@code /api/sensors/since}, older cursors get a reset
+   */
+  private int logCapacity = 10_000;
+
+  /**
+   * How long the shutdown waits for the writers to drain the queue
+   */
+  private Duration shutdownTimeout = Duration.ofSeconds(30);
+}
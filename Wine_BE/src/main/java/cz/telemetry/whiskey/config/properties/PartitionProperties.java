@@ -0,0 +1,31 @@
+package cz.telemetry.whiskey.config.properties;
+
+import lombok.Data;
+
+@Data
+public class PartitionProperties {
+
+  /**
+   * What {@link RetentionProperties#getRawDays() retention} does with a monthly partition which expired as a
+   * whole and whose rollups were verified
+   */
+  public enum ExpiredAction {
+    /**
+     * Detach the partition from {@code sensor_data}, the table stays for archiving
+     */
+    DETACH,
+    DROP
+  }
+
+  /**
+   * Cron of the job creating upcoming monthly partitions of {@code sensor_data}
+   */
+  private String cron = "0 0 2 * * *";
+
+  /**
+   * Number of months after the current one which always have a partition
+   */
+  private int premadeMonths = 3;
+
+  private ExpiredAction expiredAction = ExpiredAction.DETACH;
+}
@@ -0,0 +1,55 @@
+package cz.telemetry.whiskey.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+
+@Data
+public class QualityProperties {
+
+  /**
+   * Inspect readings on ingest, disabled every reading is stored as clean
+   */
+  private boolean enabled = true;
+
+  /**
+   * Weight of a new reading in the exponentially weighted mean and variance of a sensor
+   */
+  private double smoothing = 0.05;
+
+  /**
+   * Clean readings a sensor needs before spikes are flagged, also the number of consecutive outliers after
+   * which the model accepts them as a new level and learns it anew
+   */
+  private int warmUpReadings = 30;
+
+  /**
+   * Distance from the smoothed mean, in standard deviations, beyond which a reading is a spike
+   */
+  private double spikeDeviations = 6;
+
+  /**
+   * Smallest change the sensors report, 1 for DHT11. Floor of the standard deviation used for spikes and a
+   * change always allowed by the rate of change check.
+   */
+  private double resolution = 1;
+
+  /**
+   * Fastest plausible temperature change in degrees per minute
+   */
+  private double maxTemperatureRate = 2;
+
+  /**
+   * Fastest plausible humidity change in percent per minute
+   */
+  private double maxHumidityRate = 10;
+
+  /**
+   * Time both metrics of a sensor may stay exactly the same before its readings are flagged as flatline
+   */
+  private Duration flatlineDuration = Duration.ofHours(6);
+
+  /**
+   * Delay between checkpoints of the per sensor models
+   */
+  private Duration checkpointInterval = Duration.ofMinutes(1);
+}
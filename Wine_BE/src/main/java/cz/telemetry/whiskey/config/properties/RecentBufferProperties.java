@@ -0,0 +1,24 @@
+package cz.telemetry.whiskey.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+
+@Data
+public class RecentBufferProperties {
+
+  /**
+   * Keep the recent readings of every sensor in memory and answer queries of recent ranges from there
+   */
+  private boolean enabled = true;
+
+  /**
+   * Age up to which readings are kept, ranges starting earlier are read from the database
+   */
+  private Duration window = Duration.ofHours(24);
+
+  /**
+   * Readings kept per sensor, the oldest ones are dropped beyond it. 34 bytes each, the default holds a day
+   * of readings every 5 seconds
+   */
+  private int capacity = 17_280;
+}
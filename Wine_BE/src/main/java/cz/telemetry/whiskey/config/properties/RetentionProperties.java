@@ -0,0 +1,64 @@
+package cz.telemetry.whiskey.config.properties;
+
+import cz.telemetry.whiskey.repository.RollupResolution;
+import java.time.Duration;
+import lombok.Data;
+
+/**
+ * How long each resolution of the readings is kept, in days before today, 0 keeps it forever. Coarser
+ * resolutions are expected to be kept at least as long as finer ones.
+ */
+@Data
+public class RetentionProperties {
+
+  /**
+   * Cron of the job removing expired readings, rollups and sketches
+   */
+  private String cron = "0 0 4 * * *";
+
+  /**
+   * Raw readings, older ones are deleted once their rollups are verified
+   */
+  private int rawDays = 0;
+
+  /**
+   * Minute rollups
+   */
+  private int minuteDays = 0;
+
+  /**
+   * Hour rollups and the hourly quantile sketches
+   */
+  private int hourDays = 0;
+
+  /**
+   * Day rollups
+   */
+  private int dayDays = 0;
+
+  /**
+   * Rows deleted by one statement, each chunk commits on its own
+   */
+  private int chunkSize = 10_000;
+
+  /**
+   * Pause after each chunk, leaves room for the ingest and for autovacuum
+   */
+  private Duration chunkPause = Duration.ofMillis(200);
+
+  /**
+   * Time one run may take, the rest is left for the next run
+   */
+  private Duration maxRunTime = Duration.ofHours(1);
+
+  /**
+   * @return days the rollups of the resolution are kept
+   */
+  public int rollupDays(RollupResolution resolution) {
+    return switch (resolution) {
+      case MINUTE -> minuteDays;
+      case HOUR -> hourDays;
+      case DAY -> dayDays;
+    };
+  }
+}
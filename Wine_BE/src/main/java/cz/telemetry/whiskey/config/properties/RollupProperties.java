@@ -0,0 +1,17 @@
+package cz.telemetry.whiskey.config.properties;
+
+import lombok.Data;
+
+@Data
+public class RollupProperties {
+
+  /**
+   * Cron of the job recomputing recent rollups from raw readings
+   */
+  private String rebuildCron = "0 30 3 * * *";
+
+  /**
+   * Number of past days, including today, recomputed by the rebuild job
+   */
+  private int rebuildDays = 2;
+}
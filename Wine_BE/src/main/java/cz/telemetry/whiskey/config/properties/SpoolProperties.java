@@ -0,0 +1,32 @@
+package cz.telemetry.whiskey.config.properties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+@Data
+public class SpoolProperties {
+
+  /**
+   * When enabled, readings which cannot be written because the database is unavailable are appended to a
+   * local spool, acknowledged with 202 and replayed later
+   */
+  private boolean enabled = false;
+
+  private Path directory = Path.of("spool");
+
+  /**
+   * Size of one memory-mapped segment file
+   */
+  private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+  /**
+   * Disk space the segments may take, readings over this limit are not spooled
+   */
+  private DataSize maxDiskUsage = DataSize.ofGigabytes(1);
+
+  private int replayBatchSize = 500;
+
+  private Duration replayInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,34 @@
+package cz.telemetry.whiskey.config.properties;
+
+import java.time.Duration;
+import lombok.Data;
+
+@Data
+public class StreamProperties {
+
+  /**
+   * Maximum number of open {@code /api/sensors/stream} connections, further subscriptions get 503
+   */
+  private int maxSubscribers = 5_000;
+
+  /**
+   * Interval of keep-alive comments, lets proxies keep idle connections open and reveals dead ones
+   */
+  private Duration heartbeat = Duration.ofSeconds(15);
+
+  /**
+   * Lifetime of one connection, clients reconnect afterwards and pick up a renewed token
+   */
+  private Duration timeout = Duration.ofMinutes(30);
+
+  /**
+   * Threads writing events to subscribers, a slow subscriber occupies one of them while its socket is full
+   */
+  private int senderThreads = 4;
+
+  /**
+   * Longest time writing one event may take, a subscriber whose socket stays full longer is dropped and its
+   * sender thread is replaced, so stuck clients cannot starve the others
+   */
+  private Duration sendTimeout = Duration.ofSeconds(10);
+}
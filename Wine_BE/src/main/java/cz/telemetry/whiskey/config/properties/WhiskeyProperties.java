@@ -15,4 +15,37 @@ public class WhiskeyProperties {
 
   @NestedConfigurationProperty
   private TokenProperties refreshToken;
+
+  @NestedConfigurationProperty
+  private IngestProperties ingest = new IngestProperties();
+
+  @NestedConfigurationProperty
+  private SpoolProperties spool = new SpoolProperties();
+
+  @NestedConfigurationProperty
+  private RollupProperties rollup = new RollupProperties();
+
+  @NestedConfigurationProperty
+  private PartitionProperties partition = new PartitionProperties();
+
+  @NestedConfigurationProperty
+  private RetentionProperties retention = new RetentionProperties();
+
+  @NestedConfigurationProperty
+  private ArchiveProperties archive = new ArchiveProperties();
+
+  @NestedConfigurationProperty
+  private RecentBufferProperties recentBuffer = new RecentBufferProperties();
+
+  @NestedConfigurationProperty
+  private StreamProperties stream = new StreamProperties();
+
+  @NestedConfigurationProperty
+  private AggregateCacheProperties aggregateCache = new AggregateCacheProperties();
+
+  @NestedConfigurationProperty
+  private AlertProperties alert = new AlertProperties();
+
+  @NestedConfigurationProperty
+  private QualityProperties quality = new QualityProperties();
 }
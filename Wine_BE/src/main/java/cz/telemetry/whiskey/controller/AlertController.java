@@ -0,0 +1,65 @@
+package cz.telemetry.whiskey.controller;
+
+import cz.telemetry.whiskey.api.request.AlertRuleRequest;
+import cz.telemetry.whiskey.api.response.AlertEventResponse;
+import cz.telemetry.whiskey.api.response.AlertRuleResponse;
+import cz.telemetry.whiskey.service.AlertService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/alerts")
+public class AlertController {
+
+  private final AlertService alertService;
+
+  @GetMapping("/rules")
+  public List<AlertRuleResponse> getRules() {
+    return alertService.getRules();
+  }
+
+  @PostMapping("/rules")
+  public ResponseEntity<AlertRuleResponse> createRule(@Valid @RequestBody AlertRuleRequest request) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(alertService.createRule(request));
+  }
+
+  @PutMapping("/rules/{id}")
+  public AlertRuleResponse updateRule(@PathVariable long id, @Valid @RequestBody AlertRuleRequest request) {
+    return alertService.updateRule(id, request);
+  }
+
+  @DeleteMapping("/rules/{id}")
+  public ResponseEntity<Void> deleteRule(@PathVariable long id) {
+    alertService.deleteRule(id);
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Alerts fired in {@code [from, to)}, newest first.
+   */
+  @GetMapping("/events")
+  public List<AlertEventResponse> getEvents(
+      @RequestParam("from") Instant from,
+      @RequestParam("to") Instant to,
+      @RequestParam(value = "sensorId", required = false) String sensorId,
+      @RequestParam(value = "open", defaultValue = "false") boolean openOnly,
+      @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(1000) int limit) {
+    return alertService.getEvents(from, to, sensorId, openOnly, limit);
+  }
+}
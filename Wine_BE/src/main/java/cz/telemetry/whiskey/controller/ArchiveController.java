@@ -0,0 +1,33 @@
+package cz.telemetry.whiskey.controller;
+
+import cz.telemetry.whiskey.api.response.ArchivedMonthResponse;
+import cz.telemetry.whiskey.service.ArchiveService;
+import java.time.YearMonth;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/archive")
+public class ArchiveController {
+
+  private final ArchiveService archiveService;
+
+  @GetMapping
+  public List<ArchivedMonthResponse> getArchivedMonths() {
+    return archiveService.getArchivedMonths();
+  }
+
+  /**
+   * Moves an archived month, e.g. {@code 2025-03}, back into the database.
+   */
+  @PostMapping("/{month}/restore")
+  public ArchivedMonthResponse restoreMonth(@PathVariable YearMonth month) {
+    return archiveService.restoreMonth(month);
+  }
+}
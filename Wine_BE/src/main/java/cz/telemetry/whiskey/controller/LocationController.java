@@ -0,0 +1,41 @@
+package cz.telemetry.whiskey.controller;
+
+import cz.telemetry.whiskey.api.request.SensorLocationRequest;
+import cz.telemetry.whiskey.api.response.SensorLocationResponse;
+import cz.telemetry.whiskey.service.LocationService;
+import jakarta.validation.Valid;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/locations")
+public class LocationController {
+
+  private final LocationService locationService;
+
+  @GetMapping
+  public List<SensorLocationResponse> getSensorLocations() {
+    return locationService.getSensorLocations();
+  }
+
+  @PutMapping("/sensors/{sensorId}")
+  public SensorLocationResponse placeSensor(@PathVariable String sensorId,
+      @Valid @RequestBody SensorLocationRequest request) {
+    return locationService.placeSensor(sensorId, request);
+  }
+
+  @DeleteMapping("/sensors/{sensorId}")
+  public ResponseEntity<Void> removeSensor(@PathVariable String sensorId) {
+    locationService.removeSensor(sensorId);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -1,18 +1,54 @@
 package cz.telemetry.whiskey.controller;
 
-import cz.telemetry.whiskey.security.sensor.SensorData;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.telemetry.whiskey.api.frame.SensorFrameCodec;
+import cz.telemetry.whiskey.api.json.ColumnarSensorDataJsonWriter;
+import cz.telemetry.whiskey.api.json.SensorDataJsonWriter;
+import cz.telemetry.whiskey.api.response.IngestStatus;
+import cz.telemetry.whiskey.api.response.SensorAggregateResponse;
+import cz.telemetry.whiskey.api.response.SensorDataBatchResponse;
+import cz.telemetry.whiskey.api.response.SensorDataChangesResponse;
+import cz.telemetry.whiskey.api.response.SensorDataImportResponse;
+import cz.telemetry.whiskey.api.response.SensorDataPageResponse;
+import cz.telemetry.whiskey.api.response.SensorPercentileResponse;
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.api.response.SensorSeriesResponse;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorMetric;
 import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataImportService;
+import cz.telemetry.whiskey.service.SensorDataIngestQueue;
 import cz.telemetry.whiskey.service.SensorDataService;
+import cz.telemetry.whiskey.service.SensorDataStreamService;
+import cz.telemetry.whiskey.service.SensorSelection;
+import cz.telemetry.whiskey.service.SensorSnapshot;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by User: Vu
@@ -23,17 +59,81 @@ import java.util.List;
 @RequestMapping("/api/sensors")
 public class SensorDataController {
 
+    /**
+     * Upper bound of readings accepted in one batch request
+     */
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    private static final int MAX_PAGE_SIZE = 10000;
+
+    private static final int MAX_SERIES_POINTS = 5000;
+
     @Autowired
     private SensorDataService sensorDataService;
 
+    @Autowired
+    private SensorDataImportService sensorDataImportService;
+
+    @Autowired
+    private ObjectProvider<SensorDataIngestQueue> ingestQueue;
+
+    @Autowired
+    private SensorDataStreamService sensorDataStreamService;
+
+    @Autowired
+    private WhiskeyProperties whiskeyProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
-    public ResponseEntity<String> receiveSensorData(@RequestBody SensorDataDto data) {
-        boolean isSaved = sensorDataService.saveSensorData(data);
-        if (isSaved) {
-            return ResponseEntity.status(HttpStatus.CREATED).body("Data accepted");
-        } else {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body("Duplicate data");
+    public ResponseEntity<String> receiveSensorData(@RequestBody @Valid SensorDataDto data) {
+        SensorDataIngestQueue queue = ingestQueue.getIfAvailable();
+        if (queue != null) {
+            return enqueue(queue, List.of(data));
         }
+
+        IngestStatus status = sensorDataService.saveSensorData(data);
+        return switch (status) {
+            case ACCEPTED -> ResponseEntity.status(HttpStatus.CREATED).body("Data accepted");
+            case DUPLICATE -> ResponseEntity.status(HttpStatus.CONFLICT).body("Duplicate data");
+            case SPOOLED -> ResponseEntity.status(HttpStatus.ACCEPTED).body("Data spooled");
+        };
+    }
+
+    /**
+     * Accepts JSON or, for constrained gateways, the binary frames described in {@link SensorFrameCodec}.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<SensorDataBatchResponse> receiveSensorDataBatch(
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid SensorDataDto> data
+    ) {
+        SensorDataIngestQueue queue = ingestQueue.getIfAvailable();
+        if (queue != null) {
+            return enqueue(queue, data);
+        }
+        SensorDataBatchResponse response = sensorDataService.saveSensorDataBatch(data);
+        return ResponseEntity.status(response.spooled() > 0 ? HttpStatus.ACCEPTED : HttpStatus.OK).body(response);
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public SensorDataImportResponse importNdjson(InputStream body) {
+        return sensorDataImportService.importNdjson(body);
+    }
+
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public SensorDataImportResponse importCsv(InputStream body) {
+        return sensorDataImportService.importCsv(body);
+    }
+
+    private <T> ResponseEntity<T> enqueue(SensorDataIngestQueue queue, List<SensorDataDto> data) {
+        if (queue.offer(data)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        }
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(whiskeyProperties.getIngest().getRetryAfter().toSeconds()))
+                .build();
     }
 
     @GetMapping("/temperature/current")
@@ -51,6 +151,56 @@ public class SensorDataController {
     }
 
 
+    /**
+     * Current reading of every sensor. Answers 304 without a body while nothing changed since the
+     * {@code If-None-Match} version.
+     */
+    @GetMapping("/current")
+    public ResponseEntity<List<SensorReadingResponse>> getCurrentReadings(
+            @RequestParam(value = "location", required = false) String location,
+            WebRequest request
+    ) {
+        SensorSnapshot snapshot = sensorDataService.getCurrentReadings(location);
+        String etag = "\"" + snapshot.version() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.readings());
+    }
+
+    /**
+     * Pushes every newly stored reading as a {@code reading} event, starting with the current ones. Browsers
+     * cannot set headers on an {@code EventSource}, so the token may be passed as {@code access_token}.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReadings(@RequestParam(value = "sensorId", required = false) Set<String> sensorIds) {
+        return sensorDataStreamService.subscribe(sensorIds);
+    }
+
+    @GetMapping("/current/{sensorId}")
+    public ResponseEntity<SensorReadingResponse> getCurrentReading(@PathVariable String sensorId) {
+        return sensorDataService.getCurrentReading(sensorId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/temperature/current/{sensorId}")
+    public ResponseEntity<Double> getCurrentTemperature(@PathVariable String sensorId) {
+        return sensorDataService.getCurrentReading(sensorId)
+                .map(reading -> ResponseEntity.ok(reading.temperature()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/humidity/current/{sensorId}")
+    public ResponseEntity<Double> getCurrentHumidity(@PathVariable String sensorId) {
+        return sensorDataService.getCurrentReading(sensorId)
+                .map(reading -> ResponseEntity.ok(reading.humidity()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/temperature/averageByDay")
     public ResponseEntity<Double> getAverageTemperature(@RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         return sensorDataService.getAverageTemperatureByDate(date)
@@ -85,12 +235,116 @@ public class SensorDataController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Chart-ready series: at most {@code maxPoints} buckets with min, average and max, whatever the range.
+     */
+    @GetMapping("/series")
+    public SensorSeriesResponse getSeries(
+            @RequestParam("from") Instant from,
+            @RequestParam("to") Instant to,
+            @RequestParam(value = "maxPoints", defaultValue = "500") @Min(1) @Max(MAX_SERIES_POINTS) int maxPoints,
+            @RequestParam(value = "sensorId", required = false) String sensorId,
+            @RequestParam(value = "location", required = false) String location
+    ) {
+        return sensorDataService.getSeries(from, to, maxPoints, new SensorSelection(sensorId, location));
+    }
+
+    /**
+     * Count, average, min, max and standard deviation of temperature and humidity in one call, for the whole
+     * range or grouped by sensor, location and {@code HOUR} or {@code DAY} bucket.
+     */
+    @GetMapping("/aggregate")
+    public SensorAggregateResponse getAggregate(
+            @RequestParam("from") Instant from,
+            @RequestParam("to") Instant to,
+            @RequestParam(value = "bucket", required = false) RollupResolution bucket,
+            @RequestParam(value = "bySensor", defaultValue = "false") boolean bySensor,
+            @RequestParam(value = "byLocation", defaultValue = "false") boolean byLocation,
+            @RequestParam(value = "sensorId", required = false) String sensorId,
+            @RequestParam(value = "location", required = false) String location
+    ) {
+        return sensorDataService.getAggregate(from, to, bucket, bySensor, byLocation,
+                new SensorSelection(sensorId, location));
+    }
+
+    /**
+     * Percentiles of {@code TEMPERATURE} or {@code HUMIDITY}, e.g. {@code q=0.5,0.95}, for the whole range or
+     * per {@code HOUR} or {@code DAY} bucket. Values are within one percent of the exact percentiles.
+     */
+    @GetMapping("/percentile")
+    public SensorPercentileResponse getPercentiles(
+            @RequestParam("from") Instant from,
+            @RequestParam("to") Instant to,
+            @RequestParam("metric") SensorMetric metric,
+            @RequestParam(value = "q", defaultValue = "0.5") List<Double> quantiles,
+            @RequestParam(value = "bucket", required = false) RollupResolution bucket,
+            @RequestParam(value = "sensorId", required = false) String sensorId,
+            @RequestParam(value = "location", required = false) String location
+    ) {
+        return sensorDataService.getPercentiles(from, to, metric, quantiles, bucket,
+                new SensorSelection(sensorId, location));
+    }
+
+    /**
+     * Streams the readings straight from a database cursor into the response, nothing is buffered. Recent
+     * ranges come from the readings the service holds in memory.
+     */
     @GetMapping("/between")
-    public List<SensorData> getSensorDataBetween(
+    public void getSensorDataBetween(
+            @RequestParam("from") Instant from,
+            @RequestParam("to") Instant to,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (SensorDataJsonWriter writer = new SensorDataJsonWriter(createGenerator(response))) {
+            sensorDataService.streamSensorDataBetween(from, to, writer);
+        }
+    }
+
+    /**
+     * Opt-in columnar variant of {@code /between}: per sensor blocks of parallel epoch-millis, temperature and
+     * humidity arrays, see {@link ColumnarSensorDataJsonWriter}.
+     */
+    @GetMapping(path = "/between", params = "format=columnar")
+    public void getSensorDataBetweenColumnar(
+            @RequestParam("from") Instant from,
+            @RequestParam("to") Instant to,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (ColumnarSensorDataJsonWriter writer = new ColumnarSensorDataJsonWriter(createGenerator(response))) {
+            sensorDataService.streamSensorDataColumnsBetween(from, to, writer);
+        }
+    }
+
+    private JsonGenerator createGenerator(HttpServletResponse response) throws IOException {
+        return objectMapper.getFactory().createGenerator(response.getOutputStream());
+    }
+
+    /**
+     * Keyset pagination over the same readings as {@code /between}, pass {@code next} of a page as
+     * {@code after} to get the following one.
+     */
+    @GetMapping("/between/page")
+    public SensorDataPageResponse getSensorDataPage(
             @RequestParam("from") Instant from,
-            @RequestParam("to") Instant to
+            @RequestParam("to") Instant to,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "1000") @Min(1) @Max(MAX_PAGE_SIZE) int limit
+    ) {
+        return sensorDataService.getSensorDataPage(from, to, after, limit);
+    }
+
+    /**
+     * Readings stored since the previous poll. Start without a cursor, load the window through
+     * {@code /between} and then keep passing the returned {@code cursor}, reload the window on {@code reset}.
+     */
+    @GetMapping("/since")
+    public SensorDataChangesResponse getSensorDataSince(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "1000") @Min(1) @Max(MAX_PAGE_SIZE) int limit
     ) {
-        return sensorDataService.getSensorDataBetween(from, to);
+        return sensorDataService.getSensorDataSince(cursor, limit);
     }
 
 
@@ -0,0 +1,71 @@
+package cz.telemetry.whiskey.domain;
+
+import cz.telemetry.whiskey.repository.SensorMetric;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One excursion of a sensor out of the range of a rule, open until {@link #resolvedAt} is set.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "alert_event")
+public class AlertEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Rule which fired, {@code null} once the rule is deleted
+   */
+  private Long ruleId;
+
+  private String ruleName;
+
+  private String sensorId;
+
+  @Enumerated(EnumType.STRING)
+  private SensorMetric metric;
+
+  @Enumerated(EnumType.STRING)
+  private AlertKind kind;
+
+  /**
+   * Bound which was crossed
+   */
+  private double threshold;
+
+  /**
+   * Reading which fired the alert
+   */
+  private double value;
+
+  /**
+   * Timestamp of the first reading out of the range
+   */
+  private Instant startedAt;
+
+  /**
+   * Timestamp of the reading which fired the alert, {@code startedAt} plus at least the rule duration
+   */
+  private Instant firedAt;
+
+  /**
+   * Timestamp of the first reading back in the range
+   */
+  private Instant resolvedAt;
+}
@@ -0,0 +1,9 @@
+package cz.telemetry.whiskey.domain;
+
+/**
+ * Side of the acceptable range a reading left it on.
+ */
+public enum AlertKind {
+  LOW,
+  HIGH
+}
@@ -0,0 +1,64 @@
+package cz.telemetry.whiskey.domain;
+
+import cz.telemetry.whiskey.repository.SensorMetric;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Acceptable range of one metric. Applies to one sensor, to the sensors of one location, or to all sensors
+ * when neither is set.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "alert_rule")
+public class AlertRule {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String name;
+
+  @Enumerated(EnumType.STRING)
+  private SensorMetric metric;
+
+  private String sensorId;
+
+  @Column(name = "location_name")
+  private String location;
+
+  /**
+   * Lower bound, {@code null} for none
+   */
+  private Double minValue;
+
+  /**
+   * Upper bound, {@code null} for none
+   */
+  private Double maxValue;
+
+  /**
+   * How long readings have to stay out of the range before the alert fires
+   */
+  private long durationSeconds;
+
+  /**
+   * How far back inside the range a reading has to get to end the excursion
+   */
+  private double hysteresis;
+
+  private boolean enabled;
+}
@@ -0,0 +1,49 @@
+package cz.telemetry.whiskey.domain;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Reason a reading was found suspicious on ingest, stored as a bit of {@code sensor_data.quality_flag}.
+ */
+public enum QualityFlag {
+
+  /**
+   * Too far from the smoothed mean of the sensor, in standard deviations
+   */
+  SPIKE(1),
+
+  /**
+   * Changed faster since the last clean reading than the metric physically can
+   */
+  RATE_OF_CHANGE(2),
+
+  /**
+   * Both metrics unchanged for longer than a working sensor keeps them, the sensor is likely frozen
+   */
+  FLATLINE(4);
+
+  private final int mask;
+
+  QualityFlag(int mask) {
+    this.mask = mask;
+  }
+
+  public int mask() {
+    return mask;
+  }
+
+  public boolean isSet(int flags) {
+    return (flags & mask) != 0;
+  }
+
+  public static Set<QualityFlag> of(int flags) {
+    final var set = EnumSet.noneOf(QualityFlag.class);
+    for (QualityFlag flag : values()) {
+      if (flag.isSet(flags)) {
+        set.add(flag);
+      }
+    }
+    return set;
+  }
+}
@@ -0,0 +1,14 @@
+package cz.telemetry.whiskey.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class BatchTooLargeException extends WhiskeyException {
+
+  public BatchTooLargeException(int size, int capacity) {
+    super("Batch too large", HttpStatus.PAYLOAD_TOO_LARGE,
+        "The batch of " + size + " readings exceeds the ingest queue capacity of " + capacity
+            + ", split it into smaller batches",
+        "008");
+  }
+
+}
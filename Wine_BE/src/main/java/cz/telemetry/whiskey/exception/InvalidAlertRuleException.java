@@ -0,0 +1,11 @@
+package cz.telemetry.whiskey.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidAlertRuleException extends WhiskeyException {
+
+  public InvalidAlertRuleException(String detail) {
+    super("Invalid alert rule", HttpStatus.BAD_REQUEST, detail, "007");
+  }
+
+}
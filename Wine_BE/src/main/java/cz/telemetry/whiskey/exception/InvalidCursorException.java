@@ -0,0 +1,17 @@
+package cz.telemetry.whiskey.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidCursorException extends WhiskeyException {
+
+  public InvalidCursorException(String cursor) {
+    this(cursor, "<timestamp>,<sensorId>");
+  }
+
+  public InvalidCursorException(String cursor, String form) {
+    super("Invalid cursor", HttpStatus.BAD_REQUEST,
+        "Cursor " + cursor + " is not in the form " + form,
+        "004");
+  }
+
+}
@@ -0,0 +1,11 @@
+package cz.telemetry.whiskey.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidImportException extends WhiskeyException {
+
+  public InvalidImportException(String detail) {
+    super("Invalid import", HttpStatus.BAD_REQUEST, detail, "003");
+  }
+
+}
@@ -0,0 +1,11 @@
+package cz.telemetry.whiskey.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidRangeException extends WhiskeyException {
+
+  public InvalidRangeException(Object detail) {
+    super("Invalid range", HttpStatus.BAD_REQUEST, detail, "006");
+  }
+
+}
@@ -0,0 +1,13 @@
+package cz.telemetry.whiskey.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManySubscribersException extends WhiskeyException {
+
+  public TooManySubscribersException(int maxSubscribers) {
+    super("Too many subscribers", HttpStatus.SERVICE_UNAVAILABLE,
+        "The limit of " + maxSubscribers + " concurrent subscribers has been reached",
+        "005");
+  }
+
+}
@@ -0,0 +1,28 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.domain.AlertEvent;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AlertEventRepository extends JpaRepository<AlertEvent, Long> {
+
+  List<AlertEvent> findAllByResolvedAtIsNull();
+
+  /**
+   * @param sensorId only alerts of this sensor, {@code null} for all sensors
+   * @param openOnly only alerts which are not resolved
+   * @return newest first
+   */
+  @Query("""
+      SELECT e FROM AlertEvent e
+      WHERE e.firedAt >= :from AND e.firedAt < :to
+        AND (:sensorId IS NULL OR e.sensorId = :sensorId)
+        AND (:openOnly = false OR e.resolvedAt IS NULL)
+      ORDER BY e.firedAt DESC, e.id DESC""")
+  List<AlertEvent> search(@Param("from") Instant from, @Param("to") Instant to,
+      @Param("sensorId") String sensorId, @Param("openOnly") boolean openOnly, Limit limit);
+}
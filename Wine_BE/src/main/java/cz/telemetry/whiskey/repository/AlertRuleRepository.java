@@ -0,0 +1,10 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.domain.AlertRule;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+
+  List<AlertRule> findAllByEnabledTrue();
+}
@@ -0,0 +1,19 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.util.List;
+
+/**
+ * Receives the outcome of one insert statement of
+ * {@link SensorDataRepositoryCustom#insertIgnoringDuplicates(List, InsertedChunkHandler)} right after it ran.
+ */
+@FunctionalInterface
+public interface InsertedChunkHandler {
+
+  /**
+   * @param offset   index of the first reading of the chunk within the inserted readings
+   * @param chunk    readings of the statement, ids are set on the inserted ones
+   * @param inserted flags aligned with {@code chunk}, {@code true} when the reading was inserted
+   */
+  void handle(int offset, List<SensorData> chunk, boolean[] inserted);
+}
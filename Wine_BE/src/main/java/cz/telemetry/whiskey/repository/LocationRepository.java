@@ -0,0 +1,13 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.security.sensor.Location;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LocationRepository extends JpaRepository<Location, Long> {
+
+  Optional<Location> findBySensorId(String sensorId);
+
+  List<Location> findAllBySensorIdNotNull();
+}
@@ -0,0 +1,93 @@
+package cz.telemetry.whiskey.repository;
+
+import java.util.Arrays;
+
+/**
+ * Logarithmic histogram answering quantiles with a bounded relative error, the mapping of DDSketch.
+ *
+ * <p>A value {@code v} falls into the bin {@code ceil(log_gamma(|v|))} with {@code gamma = (1 + a) / (1 - a)},
+ * offset so that bins are positive, negated for negative values; values closer to zero than
+ * {@link #MIN_MAGNITUDE} share bin 0. Bins are therefore ordered like the values, and the midpoint of a bin is
+ * within the {@link #RELATIVE_ACCURACY relative accuracy} {@code a} of every value in it. The bins are
+ * computed by the database, see {@link #binOf(String)}, so that sketches are merged there by summing the
+ * counts of equal bins. This class only reads the merged histogram.
+ */
+public final class QuantileSketch {
+
+  public static final double RELATIVE_ACCURACY = 0.01;
+
+  public static final double MIN_MAGNITUDE = 0.001;
+
+  private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+
+  /**
+   * Moves the bin of {@link #MIN_MAGNITUDE} to 1, {@code ceil(ln(0.001) / ln(gamma)) = -345}
+   */
+  private static final int OFFSET = 346;
+
+  private int[] bins = new int[16];
+  private long[] counts = new long[16];
+  private int size;
+  private long count;
+
+  /**
+   * @return SQL expression of the bin of a {@code double precision} expression
+   */
+  public static String binOf(String value) {
+    return "CASE WHEN abs(" + value + ") < " + MIN_MAGNITUDE + " THEN 0 ELSE (sign(" + value + ") * (ceil(ln(abs("
+        + value + ")) / ln(" + (1 + RELATIVE_ACCURACY) + " / " + (1 - RELATIVE_ACCURACY) + ")) + " + OFFSET
+        + "))::integer END";
+  }
+
+  /**
+   * @return value representing the bin, within the relative accuracy of every value in it
+   */
+  static double valueOf(int bin) {
+    if (bin == 0) {
+      return 0;
+    }
+    final double magnitude = 2 * Math.pow(GAMMA, Math.abs(bin) - OFFSET) / (GAMMA + 1);
+    return bin < 0 ? -magnitude : magnitude;
+  }
+
+  /**
+   * Adds readings to a bin, bins must be added in ascending order.
+   */
+  void add(int bin, long readings) {
+    if (size > 0 && bins[size - 1] >= bin) {
+      throw new IllegalArgumentException("Bin " + bin + " is not above bin " + bins[size - 1]);
+    }
+    if (size == bins.length) {
+      bins = Arrays.copyOf(bins, size * 2);
+      counts = Arrays.copyOf(counts, size * 2);
+    }
+    bins[size] = bin;
+    counts[size] = readings;
+    size++;
+    count += readings;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  /**
+   * @param quantile between 0 and 1
+   * @return value of the reading at {@code quantile * (count - 1)} in ascending order, the lower one for a
+   *     fractional rank; {@code NaN} for an empty sketch
+   */
+  public double quantile(double quantile) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    final long rank = (long) Math.floor(quantile * (count - 1));
+    long seen = 0;
+    for (int i = 0; i < size; i++) {
+      seen += counts[i];
+      if (seen > rank) {
+        return valueOf(bins[i]);
+      }
+    }
+    return valueOf(bins[size - 1]);
+  }
+}
@@ -0,0 +1,130 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Folds single readings into {@link RollupGroup groups} equal to the ones the rollup queries return, for
+ * readings held outside of {@code sensor_data}. Adding a reading allocates nothing unless it starts a new
+ * group, bucket starts are converted only when a reading leaves the current bucket.
+ *
+ * <p>Callers skip flagged readings themselves, like the rollups do.
+ */
+public final class ReadingAggregator {
+
+  private final UnaryOperator<LocalDateTime> floor;
+  private final UnaryOperator<LocalDateTime> next;
+  private final Map<GroupKey, Accumulator> groups = new HashMap<>();
+
+  private String sensorId;
+  private LocalDateTime bucketStart;
+  private long startMicros = Long.MAX_VALUE;
+  private long endMicros = Long.MIN_VALUE;
+  private Accumulator current;
+
+  private ReadingAggregator(UnaryOperator<LocalDateTime> floor, UnaryOperator<LocalDateTime> next) {
+    this.floor = floor;
+    this.next = next;
+  }
+
+  /**
+   * Groups like {@link SensorDataRollupRepository#aggregateGroups}.
+   *
+   * @param bucket groups by buckets of this resolution, {@code null} for the whole range
+   */
+  public static ReadingAggregator groups(RollupResolution bucket) {
+    return bucket == null ? new ReadingAggregator(null, null)
+        : new ReadingAggregator(bucket::floor, start -> start.plus(1, bucket.unit()));
+  }
+
+  /**
+   * Groups into buckets of {@code bucketSeconds} starting at {@code from}, like the raw series of
+   * {@link SensorDataRollupRepository#series}.
+   */
+  public static ReadingAggregator series(LocalDateTime from, long bucketSeconds) {
+    final long bucketMicros = bucketSeconds * 1_000_000;
+    return new ReadingAggregator(
+        time -> from.plus(Math.floorDiv(ChronoUnit.MICROS.between(from, time), bucketMicros) * bucketMicros,
+            ChronoUnit.MICROS),
+        start -> start.plusSeconds(bucketSeconds));
+  }
+
+  /**
+   * Starts the readings of another sensor.
+   *
+   * @param sensorId group of the following readings, {@code null} when not grouped by sensor
+   */
+  public void sensor(String sensorId) {
+    this.sensorId = sensorId;
+    current = null;
+  }
+
+  public void add(long epochMicros, double temperature, double humidity) {
+    if (floor != null && (epochMicros < startMicros || epochMicros >= endMicros)) {
+      final var zone = ZoneId.systemDefault();
+      bucketStart = floor.apply(LocalDateTime.ofInstant(SensorDataArchive.instant(epochMicros), zone));
+      startMicros = SensorDataArchive.epochMicros(bucketStart.atZone(zone).toInstant());
+      endMicros = SensorDataArchive.epochMicros(next.apply(bucketStart).atZone(zone).toInstant());
+      current = null;
+    }
+    if (current == null) {
+      current = groups.computeIfAbsent(new GroupKey(sensorId, bucketStart), key -> new Accumulator());
+    }
+    current.add(temperature, humidity);
+  }
+
+  /**
+   * @return groups ordered by sensor and bucket start
+   */
+  public List<RollupGroup> result() {
+    return groups.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey(GroupKey.ORDER))
+        .map(entry -> new RollupGroup(entry.getKey().sensorId(), entry.getKey().bucketStart(),
+            entry.getValue().toAggregate()))
+        .toList();
+  }
+
+  private record GroupKey(String sensorId, LocalDateTime bucketStart) {
+
+    static final Comparator<GroupKey> ORDER = Comparator
+        .comparing(GroupKey::sensorId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(GroupKey::bucketStart, Comparator.nullsFirst(Comparator.naturalOrder()));
+  }
+
+  private static final class Accumulator {
+
+    private long count;
+    private double temperatureSum;
+    private double temperatureSumOfSquares;
+    private double temperatureMin = Double.POSITIVE_INFINITY;
+    private double temperatureMax = Double.NEGATIVE_INFINITY;
+    private double humiditySum;
+    private double humiditySumOfSquares;
+    private double humidityMin = Double.POSITIVE_INFINITY;
+    private double humidityMax = Double.NEGATIVE_INFINITY;
+
+    void add(double temperature, double humidity) {
+      count++;
+      temperatureSum += temperature;
+      temperatureSumOfSquares += temperature * temperature;
+      temperatureMin = Math.min(temperatureMin, temperature);
+      temperatureMax = Math.max(temperatureMax, temperature);
+      humiditySum += humidity;
+      humiditySumOfSquares += humidity * humidity;
+      humidityMin = Math.min(humidityMin, humidity);
+      humidityMax = Math.max(humidityMax, humidity);
+    }
+
+    RollupAggregate toAggregate() {
+      return new RollupAggregate(count, temperatureSum, temperatureSumOfSquares, temperatureMin, temperatureMax,
+          humiditySum, humiditySumOfSquares, humidityMin, humidityMax);
+    }
+  }
+}
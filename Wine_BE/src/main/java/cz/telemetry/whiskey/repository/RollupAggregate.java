@@ -0,0 +1,69 @@
+package cz.telemetry.whiskey.repository;
+
+import java.util.Optional;
+
+/**
+ * Aggregate of all readings in a time range, minimum and maximum are {@code null} when the range is empty.
+ */
+public record RollupAggregate(long count,
+                              double temperatureSum, double temperatureSumOfSquares,
+                              Double temperatureMin, Double temperatureMax,
+                              double humiditySum, double humiditySumOfSquares,
+                              Double humidityMin, Double humidityMax) {
+
+  private static final RollupAggregate EMPTY = new RollupAggregate(0, 0, 0, null, null, 0, 0, null, null);
+
+  public static RollupAggregate empty() {
+    return EMPTY;
+  }
+
+  public Optional<Double> averageTemperature() {
+    return count == 0 ? Optional.empty() : Optional.of(temperatureSum / count);
+  }
+
+  public Optional<Double> averageHumidity() {
+    return count == 0 ? Optional.empty() : Optional.of(humiditySum / count);
+  }
+
+  /**
+   * @return aggregate of the readings of both
+   */
+  public RollupAggregate plus(RollupAggregate other) {
+    return new RollupAggregate(count + other.count,
+        temperatureSum + other.temperatureSum, temperatureSumOfSquares + other.temperatureSumOfSquares,
+        min(temperatureMin, other.temperatureMin), max(temperatureMax, other.temperatureMax),
+        humiditySum + other.humiditySum, humiditySumOfSquares + other.humiditySumOfSquares,
+        min(humidityMin, other.humidityMin), max(humidityMax, other.humidityMax));
+  }
+
+  /**
+   * @return sample standard deviation, empty for fewer than two readings
+   */
+  public Optional<Double> temperatureStandardDeviation() {
+    return standardDeviation(temperatureSum, temperatureSumOfSquares);
+  }
+
+  /**
+   * @return sample standard deviation, empty for fewer than two readings
+   */
+  public Optional<Double> humidityStandardDeviation() {
+    return standardDeviation(humiditySum, humiditySumOfSquares);
+  }
+
+  private Optional<Double> standardDeviation(double sum, double sumOfSquares) {
+    if (count < 2) {
+      return Optional.empty();
+    }
+    // rounding of the two large sums can leave a tiny negative remainder for constant values
+    final double variance = (sumOfSquares - sum * sum / count) / (count - 1);
+    return Optional.of(Math.sqrt(Math.max(0, variance)));
+  }
+
+  private static Double min(Double a, Double b) {
+    return a == null ? b : b == null ? a : Double.valueOf(Math.min(a, b));
+  }
+
+  private static Double max(Double a, Double b) {
+    return a == null ? b : b == null ? a : Double.valueOf(Math.max(a, b));
+  }
+}
@@ -0,0 +1,13 @@
+package cz.telemetry.whiskey.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate of one group of {@link SensorDataRollupRepository#aggregateGroups}.
+ *
+ * @param sensorId    sensor of the group, {@code null} when not grouped by sensor
+ * @param bucketStart wall time start of the bucket, {@code null} when not grouped by bucket
+ */
+public record RollupGroup(String sensorId, LocalDateTime bucketStart, RollupAggregate aggregate) {
+
+}
@@ -0,0 +1,44 @@
+package cz.telemetry.whiskey.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket sizes kept in {@code sensor_data_rollup}, stored by name.
+ */
+public enum RollupResolution {
+
+  MINUTE(ChronoUnit.MINUTES),
+  HOUR(ChronoUnit.HOURS),
+  DAY(ChronoUnit.DAYS);
+
+  private final ChronoUnit unit;
+
+  RollupResolution(ChronoUnit unit) {
+    this.unit = unit;
+  }
+
+  public ChronoUnit unit() {
+    return unit;
+  }
+
+  /**
+   * @return next finer resolution, {@code null} for {@link #MINUTE} which is backed by the raw readings
+   */
+  public RollupResolution finer() {
+    return switch (this) {
+      case DAY -> HOUR;
+      case HOUR -> MINUTE;
+      case MINUTE -> null;
+    };
+  }
+
+  public LocalDateTime floor(LocalDateTime time) {
+    return time.truncatedTo(unit);
+  }
+
+  public LocalDateTime ceil(LocalDateTime time) {
+    final var floor = floor(time);
+    return floor.equals(time) ? time : floor.plus(1, unit);
+  }
+}
@@ -0,0 +1,142 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.archive.ReadingColumns;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Moves whole months of {@code sensor_data} to and from the {@link SensorDataArchive archive}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataArchiveRepository {
+
+  /**
+   * Rows fetched per round trip, bounds the memory of one stream
+   */
+  private static final int FETCH_SIZE = 10_000;
+
+  private static final String MONTH_SQL = """
+      SELECT id, timestamp, sensor_id, temperature, humidity, quality_flag FROM sensor_data
+      WHERE timestamp >= ? AND timestamp < ? ORDER BY sensor_id, timestamp""";
+
+  /**
+   * Restored readings are counted by the rollups and sketches already, they are inserted without deltas
+   */
+  private static final String RESTORE_SQL = """
+      INSERT INTO sensor_data (id, timestamp, sensor_id, temperature, humidity, quality_flag)
+      VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Keeps readings of the month from being inserted, updated or deleted until the transaction ends.
+   *
+   * @param partitioned the month has a partition, otherwise its readings are in the default partition only
+   */
+  public void lockMonth(YearMonth month, boolean partitioned) {
+    jdbcTemplate.execute("LOCK TABLE "
+        + (partitioned ? SensorDataPartitionRepository.tableName(month) + ", " : "")
+        + "sensor_data_default IN SHARE MODE");
+  }
+
+  /**
+   * Streams the readings of the month, including flagged ones, one sensor at a time. Must run inside a
+   * transaction, otherwise the driver fetches the whole month at once.
+   *
+   * @param handler receives every sensor once, with its readings ordered by timestamp in a reused buffer
+   */
+  public void streamMonth(YearMonth month, SensorReadingsHandler handler) {
+    final var readings = new ReadingColumns();
+    final String[] sensorId = new String[1];
+    jdbcTemplate.query(connection -> {
+      final var ps = connection.prepareStatement(MONTH_SQL, ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(FETCH_SIZE);
+      ps.setTimestamp(1, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+      ps.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+      return ps;
+    }, (RowCallbackHandler) rs -> {
+      final String current = rs.getString(3);
+      if (!current.equals(sensorId[0])) {
+        flush(sensorId[0], readings, handler);
+        sensorId[0] = current;
+      }
+      readings.add(rs.getLong(1), SensorDataArchive.epochMicros(rs.getTimestamp(2).toInstant()), rs.getDouble(4),
+          rs.getDouble(5), rs.getShort(6));
+    });
+    flush(sensorId[0], readings, handler);
+  }
+
+  /**
+   * @return months before {@code before} with readings in the default partition, ascending
+   */
+  public List<YearMonth> findDefaultMonths(LocalDateTime before) {
+    return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('month', timestamp) FROM sensor_data_default"
+            + " WHERE timestamp < ? ORDER BY 1", Timestamp.class, Timestamp.valueOf(before)).stream()
+        .map(month -> YearMonth.from(month.toLocalDateTime()))
+        .toList();
+  }
+
+  /**
+   * Deletes readings of the month left in the default partition.
+   */
+  public int deleteDefaultMonth(YearMonth month) {
+    return jdbcTemplate.update("DELETE FROM sensor_data_default WHERE timestamp >= ? AND timestamp < ?",
+        Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+        Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+  }
+
+  /**
+   * Inserts archived readings with their original ids, skipping readings which are stored already.
+   *
+   * @return number of inserted readings
+   */
+  public int insertRestored(String sensorId, ReadingColumns readings) {
+    int inserted = 0;
+    for (int count : jdbcTemplate.batchUpdate(RESTORE_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        ps.setLong(1, readings.id(i));
+        ps.setTimestamp(2, Timestamp.from(SensorDataArchive.instant(readings.epochMicros(i))));
+        ps.setString(3, sensorId);
+        ps.setDouble(4, readings.temperature(i));
+        ps.setDouble(5, readings.humidity(i));
+        ps.setShort(6, readings.qualityFlag(i));
+      }
+
+      @Override
+      public int getBatchSize() {
+        return readings.size();
+      }
+    })) {
+      inserted += Math.max(count, 0);
+    }
+    return inserted;
+  }
+
+  static void flush(String sensorId, ReadingColumns readings, SensorReadingsHandler handler) {
+    if (sensorId == null) {
+      return;
+    }
+    try {
+      handler.handle(sensorId, readings);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    readings.clear();
+  }
+}
@@ -0,0 +1,12 @@
+package cz.telemetry.whiskey.repository;
+
+import java.io.IOException;
+
+/**
+ * Receives streamed rows of {@code sensor_data} as primitives, the timestamp as epoch milliseconds.
+ */
+@FunctionalInterface
+public interface SensorDataColumnHandler {
+
+  void handle(String sensorId, long epochMillis, double temperature, double humidity) throws IOException;
+}
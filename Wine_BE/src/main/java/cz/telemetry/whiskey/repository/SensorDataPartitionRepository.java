@@ -0,0 +1,73 @@
+package cz.telemetry.whiskey.repository;
+
+import jakarta.transaction.Transactional;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Monthly partitions {@code sensor_data_yyyy_mm} of {@code sensor_data}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataPartitionRepository {
+
+  private static final Pattern MONTHLY_PARTITION = Pattern.compile("sensor_data_(\\d{4})_(\\d{2})");
+
+  private static final String PARTITIONS_SQL = """
+      SELECT c.relname FROM pg_inherits i
+      JOIN pg_class c ON c.oid = i.inhrelid
+      JOIN pg_class p ON p.oid = i.inhparent
+      WHERE p.relname = 'sensor_data'""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * @return months with an attached partition, ascending
+   */
+  public List<YearMonth> findMonths() {
+    return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class).stream()
+        .map(MONTHLY_PARTITION::matcher)
+        .filter(Matcher::matches)
+        .map(matcher -> YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))))
+        .sorted()
+        .toList();
+  }
+
+  /**
+   * Creates the partition of the month. Readings of the month which already landed in the default partition
+   * are moved into it first, otherwise attaching would fail.
+   */
+  @Transactional
+  public void createMonth(YearMonth month) {
+    final String table = tableName(month);
+    final String from = month.atDay(1).atStartOfDay().toString();
+    final String to = month.plusMonths(1).atDay(1).atStartOfDay().toString();
+    jdbcTemplate.execute("CREATE TABLE " + table
+        + " (LIKE sensor_data INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+    jdbcTemplate.update("WITH moved AS (DELETE FROM sensor_data_default"
+        + " WHERE timestamp >= '" + from + "' AND timestamp < '" + to + "' RETURNING *)"
+        + " INSERT INTO " + table + " SELECT * FROM moved");
+    jdbcTemplate.execute("ALTER TABLE sensor_data ATTACH PARTITION " + table
+        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+  }
+
+  /**
+   * Detaches the partition of the month, the table is kept.
+   */
+  public void detachMonth(YearMonth month) {
+    jdbcTemplate.execute("ALTER TABLE sensor_data DETACH PARTITION " + tableName(month));
+  }
+
+  public void dropMonth(YearMonth month) {
+    jdbcTemplate.execute("DROP TABLE " + tableName(month));
+  }
+
+  public static String tableName(YearMonth month) {
+    return String.format("sensor_data_%04d_%02d", month.getYear(), month.getMonthValue());
+  }
+}
@@ -19,24 +19,10 @@ import java.util.Optional;
  * Time: 16:26
  */
 @Repository
-public interface SensorDataRepository extends JpaRepository<SensorData, Long> {
-    boolean existsByTimestampAndSensorId(Instant timestamp, String sensorId);
-
-    Optional<SensorData> findTopByOrderByTimestampDesc();
-
-    @Query("SELECT AVG(s.temperature) FROM SensorData s WHERE DATE(s.timestamp) = :date")
-    Double getAverageTemperatureByDate(@Param("date") LocalDate date);
-
-    @Query("SELECT AVG(s.humidity) FROM SensorData s WHERE DATE(s.timestamp) = :date")
-    Double getAverageHumidityByDate(@Param("date") LocalDate date);
-
-    @Query("SELECT AVG(s.temperature) FROM SensorData s WHERE s.timestamp BETWEEN :start AND :end")
-    Optional<Double> findAverageTemperatureBetween(@Param("start") Instant start, @Param("end") Instant end);
-
-    @Query("SELECT AVG(s.humidity) FROM SensorData s WHERE s.timestamp BETWEEN :start AND :end")
-    Optional<Double> findAverageHumidityBetween(@Param("start") Instant start, @Param("end") Instant end);
-
-
+public interface SensorDataRepository extends JpaRepository<SensorData, Long>, SensorDataRepositoryCustom {
+    @Query(value = "SELECT DISTINCT ON (sensor_id) * FROM sensor_data ORDER BY sensor_id, timestamp DESC",
+            nativeQuery = true)
+    List<SensorData> findLatestPerSensor();
 
     List<SensorData> findAllByTimestampBetween(Instant from, Instant to);
 
@@ -0,0 +1,56 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Bulk operations over {@code sensor_data} which cannot be expressed efficiently through JPA.
+ */
+public interface SensorDataRepositoryCustom {
+
+  /**
+   * Inserts readings with multi-row inserts, silently skipping readings which collide on the
+   * {@code (timestamp, sensor_id)} unique constraint.
+   *
+   * @param readings readings to insert, ids are ignored and set to the generated ones for inserted readings
+   * @return flags aligned with {@code readings}, {@code true} when the reading was inserted
+   */
+  boolean[] insertIgnoringDuplicates(List<SensorData> readings);
+
+  /**
+   * Same as {@link #insertIgnoringDuplicates(List)}, reporting every statement to {@code handler} before the
+   * next one is sent. Outside of a transaction each statement commits on its own, so the readings reported so
+   * far stay stored when a later statement fails.
+   */
+  void insertIgnoringDuplicates(List<SensorData> readings, InsertedChunkHandler handler);
+
+  /**
+   * Streams readings with {@code from <= timestamp <= to} ordered by timestamp through a forward-only cursor.
+   * Must run inside a transaction, otherwise the driver fetches the whole result at once.
+   */
+  void streamBetween(Instant from, Instant to, SensorDataRowHandler handler);
+
+  /**
+   * Same as {@link #streamBetween(Instant, Instant, SensorDataRowHandler)} but ordered by sensor and
+   * timestamp, passing primitives only. Sensor ids are ordered byte by byte, not by the database collation,
+   * so they come in the order of {@link String#compareTo} like the archived ones.
+   */
+  void streamColumnsBetween(Instant from, Instant to, SensorDataColumnHandler handler);
+
+  /**
+   * Streams readings with {@code timestamp >= from}, including flagged ones, one sensor at a time. Must run
+   * inside a transaction, otherwise the driver fetches the whole result at once.
+   */
+  void streamReadingsSince(Instant from, SensorReadingsHandler handler);
+
+  /**
+   * Keyset page of readings with {@code from <= timestamp <= to}, ordered by {@code (timestamp, sensor_id)}.
+   *
+   * @param afterTimestamp timestamp of the last reading of the previous page, {@code null} for the first page
+   * @param afterSensorId  sensor id of the last reading of the previous page
+   */
+  List<SensorReadingResponse> findPage(Instant from, Instant to, Instant afterTimestamp, String afterSensorId,
+      int limit);
+}
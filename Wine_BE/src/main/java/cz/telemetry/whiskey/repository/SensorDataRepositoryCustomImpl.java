@@ -0,0 +1,207 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.archive.ReadingColumns;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+@RequiredArgsConstructor
+public class SensorDataRepositoryCustomImpl implements SensorDataRepositoryCustom {
+
+  /**
+   * Rows per statement, keeps the bind parameter count far below the PostgreSQL limit of 65535
+   */
+  private static final int ROWS_PER_STATEMENT = 1000;
+
+  private static final String INSERT_PREFIX =
+      "WITH inserted AS (INSERT INTO sensor_data (temperature, humidity, timestamp, sensor_id, quality_flag) VALUES ";
+
+  /**
+   * Rollups and sketches are updated by the same statement, see {@link SensorDataRollupRepository} and
+   * {@link SensorDataSketchRepository}
+   */
+  private static final String INSERT_SUFFIX =
+      " ON CONFLICT (timestamp, sensor_id) DO NOTHING"
+          + " RETURNING id, timestamp, sensor_id, temperature, humidity, quality_flag),"
+          + " rollup AS (" + SensorDataRollupRepository.UPSERT_FROM_INSERTED + "),"
+          + " sketch AS (" + SensorDataSketchRepository.UPSERT_FROM_INSERTED + ")"
+          + " SELECT id, timestamp, sensor_id FROM inserted";
+
+  /**
+   * Rows fetched per round trip while streaming, bounds the memory of one stream
+   */
+  private static final int STREAM_FETCH_SIZE = 1000;
+
+  private static final String STREAM_SQL = """
+      SELECT id, timestamp, sensor_id, temperature, humidity FROM sensor_data
+      WHERE timestamp >= ? AND timestamp <= ? ORDER BY timestamp""";
+
+  /**
+   * Converts to epoch millis in the database, casting to timestamptz applies the session time zone which the
+   * driver sets to the JVM zone, the same interpretation as {@code ResultSet.getTimestamp}.
+   */
+  private static final String STREAM_COLUMNS_SQL = """
+      SELECT sensor_id, floor(extract(epoch FROM timestamp::timestamptz) * 1000)::bigint, temperature, humidity
+      FROM sensor_data
+      WHERE timestamp >= ? AND timestamp <= ? ORDER BY sensor_id COLLATE "C", timestamp""";
+
+  private static final String SINCE_SQL = """
+      SELECT id, timestamp, sensor_id, temperature, humidity, quality_flag FROM sensor_data
+      WHERE timestamp >= ? ORDER BY sensor_id, timestamp""";
+
+  private static final String FIRST_PAGE_SQL = """
+      SELECT sensor_id, timestamp, temperature, humidity FROM sensor_data
+      WHERE timestamp >= ? AND timestamp <= ?
+      ORDER BY timestamp, sensor_id LIMIT ?""";
+
+  /**
+   * The row comparison is answered by the {@code (timestamp, sensor_id)} unique index
+   */
+  private static final String NEXT_PAGE_SQL = """
+      SELECT sensor_id, timestamp, temperature, humidity FROM sensor_data
+      WHERE timestamp >= ? AND timestamp <= ? AND (timestamp, sensor_id) > (?, ?)
+      ORDER BY timestamp, sensor_id LIMIT ?""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public boolean[] insertIgnoringDuplicates(List<SensorData> readings) {
+    final var inserted = new boolean[readings.size()];
+    insertIgnoringDuplicates(readings, (offset, chunk, chunkInserted) ->
+        System.arraycopy(chunkInserted, 0, inserted, offset, chunkInserted.length));
+    return inserted;
+  }
+
+  @Override
+  public void insertIgnoringDuplicates(List<SensorData> readings, InsertedChunkHandler handler) {
+    for (int from = 0; from < readings.size(); from += ROWS_PER_STATEMENT) {
+      final var chunk = readings.subList(from, Math.min(from + ROWS_PER_STATEMENT, readings.size()));
+      final var insertedIds = insertChunk(chunk);
+      final var inserted = new boolean[chunk.size()];
+      for (int i = 0; i < chunk.size(); i++) {
+        // remove() so that a reading repeated within one batch is reported as inserted only once
+        final Long id = insertedIds.remove(Key.of(chunk.get(i)));
+        if (id != null) {
+          chunk.get(i).setId(id);
+          inserted[i] = true;
+        }
+      }
+      handler.handle(from, chunk, inserted);
+    }
+  }
+
+  @Override
+  public void streamBetween(Instant from, Instant to, SensorDataRowHandler handler) {
+    stream(STREAM_SQL, from, to, rs -> handler.handle(rs.getLong(1), rs.getTimestamp(2).toInstant(),
+        rs.getString(3), rs.getDouble(4), rs.getDouble(5)));
+  }
+
+  @Override
+  public void streamColumnsBetween(Instant from, Instant to, SensorDataColumnHandler handler) {
+    stream(STREAM_COLUMNS_SQL, from, to, rs -> handler.handle(rs.getString(1), rs.getLong(2), rs.getDouble(3),
+        rs.getDouble(4)));
+  }
+
+  @Override
+  public void streamReadingsSince(Instant from, SensorReadingsHandler handler) {
+    final var readings = new ReadingColumns();
+    final String[] sensorId = new String[1];
+    jdbcTemplate.query(connection -> {
+      final var ps = connection.prepareStatement(SINCE_SQL, ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(STREAM_FETCH_SIZE);
+      ps.setTimestamp(1, Timestamp.from(from));
+      return ps;
+    }, (RowCallbackHandler) rs -> {
+      final String current = rs.getString(3);
+      if (!current.equals(sensorId[0])) {
+        SensorDataArchiveRepository.flush(sensorId[0], readings, handler);
+        sensorId[0] = current;
+      }
+      readings.add(rs.getLong(1), SensorDataArchive.epochMicros(rs.getTimestamp(2).toInstant()), rs.getDouble(4),
+          rs.getDouble(5), rs.getShort(6));
+    });
+    SensorDataArchiveRepository.flush(sensorId[0], readings, handler);
+  }
+
+  private void stream(String sql, Instant from, Instant to, RowConsumer consumer) {
+    jdbcTemplate.query(connection -> {
+      final var ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      ps.setFetchSize(STREAM_FETCH_SIZE);
+      ps.setTimestamp(1, Timestamp.from(from));
+      ps.setTimestamp(2, Timestamp.from(to));
+      return ps;
+    }, (RowCallbackHandler) rs -> {
+      try {
+        consumer.accept(rs);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  @Override
+  public List<SensorReadingResponse> findPage(Instant from, Instant to, Instant afterTimestamp,
+      String afterSensorId, int limit) {
+    final RowMapper<SensorReadingResponse> mapper = (rs, rowNum) -> new SensorReadingResponse(
+        rs.getString(1), rs.getTimestamp(2).toInstant(), rs.getDouble(3), rs.getDouble(4));
+    if (afterTimestamp == null) {
+      return jdbcTemplate.query(FIRST_PAGE_SQL, mapper, Timestamp.from(from), Timestamp.from(to), limit);
+    }
+    return jdbcTemplate.query(NEXT_PAGE_SQL, mapper, Timestamp.from(from), Timestamp.from(to),
+        Timestamp.from(afterTimestamp), afterSensorId, limit);
+  }
+
+  /**
+   * @return ids of the inserted readings
+   */
+  private Map<Key, Long> insertChunk(List<SensorData> chunk) {
+    final var sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * 19 + INSERT_SUFFIX.length())
+        .append(INSERT_PREFIX);
+    for (int i = 0; i < chunk.size(); i++) {
+      sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+    }
+    sql.append(INSERT_SUFFIX);
+
+    final Map<Key, Long> insertedIds = new HashMap<>();
+    jdbcTemplate.query(sql.toString(), ps -> {
+      int index = 1;
+      for (final var reading : chunk) {
+        ps.setDouble(index++, reading.getTemperature());
+        ps.setDouble(index++, reading.getHumidity());
+        ps.setTimestamp(index++, Timestamp.from(reading.getTimestamp()));
+        ps.setString(index++, reading.getSensorId());
+        ps.setShort(index++, reading.getQualityFlag());
+      }
+    }, rs -> {
+      insertedIds.put(new Key(rs.getTimestamp(2).toInstant(), rs.getString(3)), rs.getLong(1));
+    });
+    return insertedIds;
+  }
+
+  @FunctionalInterface
+  private interface RowConsumer {
+
+    void accept(ResultSet rs) throws SQLException, IOException;
+  }
+
+  private record Key(Instant timestamp, String sensorId) {
+
+    static Key of(SensorData reading) {
+      return new Key(reading.getTimestamp(), reading.getSensorId());
+    }
+  }
+}
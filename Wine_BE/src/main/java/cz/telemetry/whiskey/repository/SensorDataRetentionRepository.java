@@ -0,0 +1,124 @@
+package cz.telemetry.whiskey.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Verification and chunked deletion of expired {@code sensor_data}, rollups and sketches.
+ *
+ * <p>Every delete removes at most the given number of rows, picked through the primary key, and commits on
+ * its own, so a retention run never holds locks for long and leaves dead rows in amounts autovacuum keeps up
+ * with.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataRetentionRepository {
+
+  /**
+   * Sensors whose clean readings in a range differ in number from a summary of the range, {@code %s} takes
+   * the summary query returning {@code (sensor_id, count)}
+   */
+  private static final String MISMATCH_SQL = """
+      SELECT count(*) FROM (
+          (SELECT sensor_id, count(*) AS c FROM sensor_data
+           WHERE quality_flag = 0 AND timestamp >= ? AND timestamp < ? GROUP BY sensor_id
+           EXCEPT %1$s)
+          UNION ALL
+          (%1$s
+           EXCEPT SELECT sensor_id, count(*) AS c FROM sensor_data
+           WHERE quality_flag = 0 AND timestamp >= ? AND timestamp < ? GROUP BY sensor_id)
+      ) mismatch""";
+
+  private static final String ROLLUP_COUNTS = """
+      SELECT sensor_id, sum(reading_count)::bigint AS c FROM sensor_data_rollup
+      WHERE resolution = ? AND bucket_start >= ? AND bucket_start < ? GROUP BY sensor_id""";
+
+  private static final String SKETCH_COUNTS = """
+      SELECT sensor_id, sum(reading_count)::bigint AS c FROM sensor_data_sketch
+      WHERE metric = ? AND bucket_start >= ? AND bucket_start < ? GROUP BY sensor_id""";
+
+  private static final String DELETE_READINGS_SQL = """
+      DELETE FROM sensor_data WHERE (id, timestamp) IN (
+          SELECT id, timestamp FROM sensor_data WHERE timestamp >= ? AND timestamp < ? LIMIT ?)""";
+
+  private static final String DELETE_ROLLUPS_SQL = """
+      DELETE FROM sensor_data_rollup WHERE resolution = ? AND (bucket_start, sensor_id) IN (
+          SELECT bucket_start, sensor_id FROM sensor_data_rollup
+          WHERE resolution = ? AND bucket_start < ? LIMIT ?)""";
+
+  private static final String DELETE_SKETCHES_SQL = """
+      DELETE FROM sensor_data_sketch WHERE (bucket_start, sensor_id, metric, bin) IN (
+          SELECT bucket_start, sensor_id, metric, bin FROM sensor_data_sketch WHERE bucket_start < ? LIMIT ?)""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * @param from inclusive lower bound, {@code null} for none
+   * @return time of the oldest reading in {@code [from, to)}
+   */
+  public Optional<LocalDateTime> findOldestReading(LocalDateTime from, LocalDateTime to) {
+    final var oldest = from == null
+        ? jdbcTemplate.queryForObject("SELECT min(timestamp) FROM sensor_data WHERE timestamp < ?",
+            Timestamp.class, Timestamp.valueOf(to))
+        : jdbcTemplate.queryForObject("SELECT min(timestamp) FROM sensor_data WHERE timestamp >= ? AND timestamp < ?",
+            Timestamp.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    return Optional.ofNullable(oldest).map(Timestamp::toLocalDateTime);
+  }
+
+  /**
+   * Checks that the rollups of the given resolutions and optionally the sketches of both metrics count every
+   * clean reading of every sensor in {@code [from, to)}. The range must be aligned to the coarsest of them.
+   */
+  public boolean summariesMatch(LocalDateTime from, LocalDateTime to, Collection<RollupResolution> resolutions,
+      boolean sketches) {
+    final var start = Timestamp.valueOf(from);
+    final var end = Timestamp.valueOf(to);
+    for (RollupResolution resolution : resolutions) {
+      if (!countsMatch(ROLLUP_COUNTS, resolution.name(), start, end)) {
+        return false;
+      }
+    }
+    if (sketches) {
+      for (SensorMetric metric : SensorMetric.values()) {
+        if (!countsMatch(SKETCH_COUNTS, metric.name(), start, end)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Deletes up to {@code limit} readings in {@code [from, to)}.
+   *
+   * @return number of deleted readings, less than {@code limit} once the range is empty
+   */
+  public int deleteReadings(LocalDateTime from, LocalDateTime to, int limit) {
+    return jdbcTemplate.update(DELETE_READINGS_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+  }
+
+  /**
+   * Deletes up to {@code limit} rollups of the resolution with buckets starting before {@code before}.
+   */
+  public int deleteRollups(RollupResolution resolution, LocalDateTime before, int limit) {
+    return jdbcTemplate.update(DELETE_ROLLUPS_SQL, resolution.name(), resolution.name(), Timestamp.valueOf(before),
+        limit);
+  }
+
+  /**
+   * Deletes up to {@code limit} sketch rows of hours starting before {@code before}.
+   */
+  public int deleteSketches(LocalDateTime before, int limit) {
+    return jdbcTemplate.update(DELETE_SKETCHES_SQL, Timestamp.valueOf(before), limit);
+  }
+
+  private boolean countsMatch(String summarySql, String key, Timestamp start, Timestamp end) {
+    return jdbcTemplate.queryForObject(MISMATCH_SQL.formatted(summarySql), Long.class,
+        start, end, key, start, end, key, start, end, start, end) == 0;
+  }
+}
@@ -0,0 +1,295 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.api.response.SensorSeriesPoint;
+import jakarta.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Minute, hour and day aggregates of {@code sensor_data}.
+ *
+ * <p>Rollups are maintained by the statements that insert readings: they wrap the insert in a CTE named
+ * {@code inserted} and append {@link #UPSERT_FROM_INSERTED}, so a reading and its rollup deltas commit
+ * together and a duplicate, skipped by {@code ON CONFLICT DO NOTHING}, is never counted. All resolutions are
+ * upserted by one statement in primary key order, concurrent writers therefore lock rollup rows in the same
+ * order and cannot deadlock on them.
+ *
+ * <p>Only clean readings are aggregated, readings with a {@code quality_flag} are left out of the rollups
+ * and of every raw part, so excluding them costs nothing at query time.
+ *
+ * <p>Bucket starts are wall times in the same convention as {@code sensor_data.timestamp}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataRollupRepository {
+
+  /**
+   * Upsert of the rollup deltas of a CTE {@code inserted (timestamp, sensor_id, temperature, humidity,
+   * quality_flag)}
+   */
+  public static final String UPSERT_FROM_INSERTED = """
+      INSERT INTO sensor_data_rollup AS r (resolution, bucket_start, sensor_id, reading_count,
+          temperature_sum, temperature_sum_sq, temperature_min, temperature_max,
+          humidity_sum, humidity_sum_sq, humidity_min, humidity_max)
+      SELECT b.resolution, date_trunc(b.unit, i.timestamp), i.sensor_id, count(*),
+          sum(i.temperature), sum(i.temperature * i.temperature), min(i.temperature), max(i.temperature),
+          sum(i.humidity), sum(i.humidity * i.humidity), min(i.humidity), max(i.humidity)
+      FROM inserted i
+      CROSS JOIN (VALUES ('MINUTE', 'minute'), ('HOUR', 'hour'), ('DAY', 'day')) AS b (resolution, unit)
+      WHERE i.quality_flag = 0
+      GROUP BY 1, 2, 3
+      ORDER BY 1, 2, 3
+      ON CONFLICT (resolution, bucket_start, sensor_id) DO UPDATE SET
+          reading_count = r.reading_count + EXCLUDED.reading_count,
+          temperature_sum = r.temperature_sum + EXCLUDED.temperature_sum,
+          temperature_sum_sq = r.temperature_sum_sq + EXCLUDED.temperature_sum_sq,
+          temperature_min = LEAST(r.temperature_min, EXCLUDED.temperature_min),
+          temperature_max = GREATEST(r.temperature_max, EXCLUDED.temperature_max),
+          humidity_sum = r.humidity_sum + EXCLUDED.humidity_sum,
+          humidity_sum_sq = r.humidity_sum_sq + EXCLUDED.humidity_sum_sq,
+          humidity_min = LEAST(r.humidity_min, EXCLUDED.humidity_min),
+          humidity_max = GREATEST(r.humidity_max, EXCLUDED.humidity_max)""";
+
+  /**
+   * Rollup rows of one resolution, {@code %s} takes the group columns
+   */
+  private static final String ROLLUP_PART = """
+      SELECT %s reading_count AS c, temperature_sum AS ts, temperature_sum_sq AS tss, temperature_min AS tmin,
+          temperature_max AS tmax, humidity_sum AS hs, humidity_sum_sq AS hss, humidity_min AS hmin,
+          humidity_max AS hmax
+      FROM sensor_data_rollup WHERE resolution = ? AND bucket_start >= ? AND bucket_start < ?""";
+
+  private static final String RAW_PART = """
+      SELECT %s 1 AS c, temperature AS ts, temperature * temperature AS tss, temperature AS tmin,
+          temperature AS tmax, humidity AS hs, humidity * humidity AS hss, humidity AS hmin, humidity AS hmax
+      FROM sensor_data WHERE quality_flag = 0 AND timestamp >= ? AND timestamp < ?""";
+
+  private static final String AGGREGATE_COLUMNS = """
+      coalesce(sum(c), 0) AS c, coalesce(sum(ts), 0) AS ts, coalesce(sum(tss), 0) AS tss, min(tmin) AS tmin,
+      max(tmax) AS tmax, coalesce(sum(hs), 0) AS hs, coalesce(sum(hss), 0) AS hss, min(hmin) AS hmin,
+      max(hmax) AS hmax""";
+
+  private static final String REBUILD_SQL = """
+      INSERT INTO sensor_data_rollup (resolution, bucket_start, sensor_id, reading_count,
+          temperature_sum, temperature_sum_sq, temperature_min, temperature_max,
+          humidity_sum, humidity_sum_sq, humidity_min, humidity_max)
+      SELECT b.resolution, date_trunc(b.unit, s.timestamp), s.sensor_id, count(*),
+          sum(s.temperature), sum(s.temperature * s.temperature), min(s.temperature), max(s.temperature),
+          sum(s.humidity), sum(s.humidity * s.humidity), min(s.humidity), max(s.humidity)
+      FROM sensor_data s
+      CROSS JOIN (VALUES ('MINUTE', 'minute'), ('HOUR', 'hour'), ('DAY', 'day')) AS b (resolution, unit)
+      WHERE s.quality_flag = 0 AND s.timestamp >= ? AND s.timestamp < ?
+      GROUP BY 1, 2, 3""";
+
+  private static final String ROLLUP_SERIES_SQL = """
+      SELECT date_bin(make_interval(secs => ?), bucket_start, ?) AS bucket, sum(reading_count),
+          sum(temperature_sum), min(temperature_min), max(temperature_max),
+          sum(humidity_sum), min(humidity_min), max(humidity_max)
+      FROM sensor_data_rollup
+      WHERE resolution = ? AND bucket_start >= ? AND bucket_start < ?""";
+
+  private static final String RAW_SERIES_SQL = """
+      SELECT date_bin(make_interval(secs => ?), timestamp, ?) AS bucket, count(*),
+          sum(temperature), min(temperature), max(temperature),
+          sum(humidity), min(humidity), max(humidity)
+      FROM sensor_data
+      WHERE quality_flag = 0 AND timestamp >= ? AND timestamp < ?""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Aggregates readings in {@code [from, to)}. The range is covered by the coarsest buckets that fit in it,
+   * finer buckets fill the edges and only sub-minute edges are read from the raw table, so the cost depends
+   * on the number of sensors, not on the number of readings.
+   */
+  public RollupAggregate aggregate(LocalDateTime from, LocalDateTime to) {
+    final List<RollupGroup> groups = aggregateGroups(from, to, null, false, null);
+    return groups.isEmpty() ? RollupAggregate.empty() : groups.get(0).aggregate();
+  }
+
+  /**
+   * Aggregates readings in {@code [from, to)} like {@link #aggregate}, all statistics of both metrics in one
+   * statement, optionally per sensor and per bucket.
+   *
+   * @param bucket   groups by buckets of this resolution, {@code null} for the whole range; edge buckets cover
+   *                 only their part of the range
+   * @param bySensor groups by sensor
+   * @param sensorIds only readings of these sensors, {@code null} for all sensors
+   * @return groups ordered by sensor and bucket
+   */
+  public List<RollupGroup> aggregateGroups(LocalDateTime from, LocalDateTime to, RollupResolution bucket,
+      boolean bySensor, Collection<String> sensorIds) {
+    if (sensorIds != null && sensorIds.isEmpty()) {
+      return List.of();
+    }
+    final var groupColumns = new ArrayList<String>();
+    if (bySensor) {
+      groupColumns.add("g_sensor");
+    }
+    if (bucket != null) {
+      groupColumns.add("g_bucket");
+    }
+    final var filter = new PartFilter(bySensor, bucket, sensorIds == null ? null : List.copyOf(sensorIds));
+    final var parts = new ArrayList<String>();
+    final var args = new ArrayList<Object>();
+    for (Part part : decompose(from, to, bucket)) {
+      if (part.resolution() == null) {
+        parts.add(filter.apply(RAW_PART, "timestamp"));
+      } else {
+        parts.add(filter.apply(ROLLUP_PART, "bucket_start"));
+        args.add(part.resolution().name());
+      }
+      args.add(Timestamp.valueOf(part.from()));
+      args.add(Timestamp.valueOf(part.to()));
+      filter.addArgs(args);
+    }
+    if (parts.isEmpty()) {
+      return List.of();
+    }
+    final var sql = new StringBuilder("SELECT ");
+    groupColumns.forEach(column -> sql.append(column).append(", "));
+    sql.append(AGGREGATE_COLUMNS).append(" FROM (").append(String.join(" UNION ALL ", parts)).append(") parts");
+    if (!groupColumns.isEmpty()) {
+      final String columns = String.join(", ", groupColumns);
+      sql.append(" GROUP BY ").append(columns).append(" ORDER BY ").append(columns);
+    }
+    return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new RollupGroup(
+        bySensor ? rs.getString("g_sensor") : null,
+        bucket != null ? rs.getTimestamp("g_bucket").toLocalDateTime() : null,
+        new RollupAggregate(rs.getLong("c"),
+            rs.getDouble("ts"), rs.getDouble("tss"), rs.getObject("tmin", Double.class),
+            rs.getObject("tmax", Double.class),
+            rs.getDouble("hs"), rs.getDouble("hss"), rs.getObject("hmin", Double.class),
+            rs.getObject("hmax", Double.class))), args.toArray());
+  }
+
+  /**
+   * Aggregates readings in {@code [from, to)} into buckets of {@code bucketSeconds} starting at {@code from}.
+   *
+   * @param source     rollups to read, {@code null} for raw readings; the bucket width must be a multiple of
+   *                   its unit and {@code from} aligned to it
+   * @param sensorIds  only readings of these sensors, {@code null} for all sensors
+   */
+  public List<SensorSeriesPoint> series(LocalDateTime from, LocalDateTime to, long bucketSeconds,
+      RollupResolution source, Collection<String> sensorIds) {
+    if (sensorIds != null && sensorIds.isEmpty()) {
+      return List.of();
+    }
+    final var sql = new StringBuilder(source == null ? RAW_SERIES_SQL : ROLLUP_SERIES_SQL);
+    final var args = new ArrayList<Object>();
+    args.add(bucketSeconds);
+    args.add(Timestamp.valueOf(from));
+    if (source != null) {
+      args.add(source.name());
+    }
+    args.add(Timestamp.valueOf(from));
+    args.add(Timestamp.valueOf(to));
+    if (sensorIds != null) {
+      sql.append(sensorCondition(sensorIds));
+      args.addAll(sensorIds);
+    }
+    sql.append(" GROUP BY 1 ORDER BY 1");
+    return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+      final long count = rs.getLong(2);
+      return new SensorSeriesPoint(rs.getTimestamp(1).toInstant(), count,
+          rs.getDouble(3) / count, rs.getDouble(4), rs.getDouble(5),
+          rs.getDouble(6) / count, rs.getDouble(7), rs.getDouble(8));
+    }, args.toArray());
+  }
+
+  /**
+   * Recomputes all rollups of whole days in {@code [from, to)} from the raw readings. The table lock keeps
+   * concurrent inserts from adding deltas while the range is rebuilt, they continue afterwards on top of the
+   * rebuilt rows.
+   */
+  @Transactional
+  public int rebuild(LocalDateTime from, LocalDateTime to) {
+    final var start = Timestamp.valueOf(RollupResolution.DAY.floor(from));
+    final var end = Timestamp.valueOf(RollupResolution.DAY.ceil(to));
+    jdbcTemplate.execute("LOCK TABLE sensor_data_rollup IN SHARE ROW EXCLUSIVE MODE");
+    jdbcTemplate.update("DELETE FROM sensor_data_rollup WHERE bucket_start >= ? AND bucket_start < ?", start, end);
+    return jdbcTemplate.update(REBUILD_SQL, start, end);
+  }
+
+  static String sensorCondition(Collection<String> sensorIds) {
+    return sensorIds.size() == 1
+        ? " AND sensor_id = ?"
+        : " AND sensor_id IN (" + String.join(", ", Collections.nCopies(sensorIds.size(), "?")) + ")";
+  }
+
+  /**
+   * @return the sub-minute edges of {@code [from, to)} which {@link #aggregateGroups} reads from the raw
+   *     readings, the rest is answered by rollups
+   */
+  public static List<TimeRange> rawRanges(LocalDateTime from, LocalDateTime to, RollupResolution bucket) {
+    return decompose(from, to, bucket).stream()
+        .filter(part -> part.resolution() == null)
+        .map(part -> new TimeRange(part.from(), part.to()))
+        .toList();
+  }
+
+  private static List<Part> decompose(LocalDateTime from, LocalDateTime to, RollupResolution bucket) {
+    final List<Part> parts = new ArrayList<>();
+    // rollups coarser than the bucket cannot be split into buckets
+    decompose(from, to, bucket == null ? RollupResolution.DAY : bucket, parts);
+    return parts;
+  }
+
+  private static void decompose(LocalDateTime from, LocalDateTime to, RollupResolution resolution,
+      List<Part> parts) {
+    if (!from.isBefore(to)) {
+      return;
+    }
+    if (resolution == null) {
+      parts.add(new Part(null, from, to));
+      return;
+    }
+    final var alignedFrom = resolution.ceil(from);
+    final var alignedTo = resolution.floor(to);
+    if (!alignedFrom.isBefore(alignedTo)) {
+      decompose(from, to, resolution.finer(), parts);
+      return;
+    }
+    parts.add(new Part(resolution, alignedFrom, alignedTo));
+    decompose(from, alignedFrom, resolution.finer(), parts);
+    decompose(alignedTo, to, resolution.finer(), parts);
+  }
+
+  /**
+   * Range answered by the rollups of one resolution, or by the raw readings when it is {@code null}.
+   */
+  private record Part(RollupResolution resolution, LocalDateTime from, LocalDateTime to) {
+
+  }
+
+  /**
+   * Group columns and sensor condition added to every part of a decomposed range.
+   */
+  private record PartFilter(boolean bySensor, RollupResolution bucket, List<String> sensorIds) {
+
+    String apply(String part, String timeColumn) {
+      var columns = "";
+      if (bySensor) {
+        columns += "sensor_id AS g_sensor,";
+      }
+      if (bucket != null) {
+        columns += " date_trunc('" + bucket.name().toLowerCase(Locale.ROOT) + "', " + timeColumn + ") AS g_bucket,";
+      }
+      return part.formatted(columns) + (sensorIds == null ? "" : sensorCondition(sensorIds));
+    }
+
+    void addArgs(List<Object> args) {
+      if (sensorIds != null) {
+        args.addAll(sensorIds);
+      }
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package cz.telemetry.whiskey.repository;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Receives streamed rows of {@code sensor_data} one at a time, without creating entities.
+ */
+@FunctionalInterface
+public interface SensorDataRowHandler {
+
+  void handle(long id, Instant timestamp, String sensorId, double temperature, double humidity)
+      throws IOException;
+}
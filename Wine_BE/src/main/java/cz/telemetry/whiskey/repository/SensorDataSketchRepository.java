@@ -0,0 +1,155 @@
+package cz.telemetry.whiskey.repository;
+
+import jakarta.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Hourly {@link QuantileSketch quantile sketches} of {@code sensor_data} per sensor and metric.
+ *
+ * <p>Maintained like the rollups, see {@link SensorDataRollupRepository}: the insert statements append
+ * {@link #UPSERT_FROM_INSERTED} as another CTE. A sketch row holds the number of readings of one bin, so
+ * merging sketches of any set of hours and sensors is a {@code GROUP BY bin}. Like the rollups they hold
+ * only clean readings.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataSketchRepository {
+
+  private static final String BIN_OF_VALUE = QuantileSketch.binOf("m.value");
+
+  /**
+   * Upsert of the sketch deltas of a CTE {@code inserted (timestamp, sensor_id, temperature, humidity,
+   * quality_flag)}
+   */
+  public static final String UPSERT_FROM_INSERTED = """
+      INSERT INTO sensor_data_sketch AS k (bucket_start, sensor_id, metric, bin, reading_count)
+      SELECT date_trunc('hour', i.timestamp), i.sensor_id, m.metric, %s, count(*)
+      FROM inserted i
+      CROSS JOIN LATERAL (VALUES ('TEMPERATURE', i.temperature), ('HUMIDITY', i.humidity)) AS m (metric, value)
+      WHERE i.quality_flag = 0
+      GROUP BY 1, 2, 3, 4
+      ORDER BY 1, 2, 3, 4
+      ON CONFLICT (bucket_start, sensor_id, metric, bin) DO UPDATE SET
+          reading_count = k.reading_count + EXCLUDED.reading_count""".formatted(BIN_OF_VALUE);
+
+  private static final String REBUILD_SQL = """
+      INSERT INTO sensor_data_sketch (bucket_start, sensor_id, metric, bin, reading_count)
+      SELECT date_trunc('hour', s.timestamp), s.sensor_id, m.metric, %s, count(*)
+      FROM sensor_data s
+      CROSS JOIN LATERAL (VALUES ('TEMPERATURE', s.temperature), ('HUMIDITY', s.humidity)) AS m (metric, value)
+      WHERE s.quality_flag = 0 AND s.timestamp >= ? AND s.timestamp < ?
+      GROUP BY 1, 2, 3, 4""".formatted(BIN_OF_VALUE);
+
+  /**
+   * Sketch rows of whole hours, {@code %s} takes the group column
+   */
+  private static final String SKETCH_PART = """
+      SELECT %s bin, reading_count AS c FROM sensor_data_sketch
+      WHERE metric = ? AND bucket_start >= ? AND bucket_start < ?""";
+
+  /**
+   * Raw readings of the edges, {@code %s} takes the group column and the bin expression
+   */
+  private static final String RAW_PART = """
+      SELECT %s %s AS bin, 1 AS c FROM sensor_data
+      WHERE quality_flag = 0 AND timestamp >= ? AND timestamp < ?""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Merges the sketches of readings in {@code [from, to)}. Whole hours are read from the sketches, only the
+   * edges up to the next full hour are binned from the raw readings.
+   *
+   * @param bucket    groups by buckets of this resolution, {@code HOUR} or {@code DAY}, {@code null} for the
+   *                  whole range; edge buckets cover only their part of the range
+   * @param sensorIds only readings of these sensors, {@code null} for all sensors
+   * @return non-empty groups ordered by bucket
+   */
+  public List<SketchGroup> sketches(LocalDateTime from, LocalDateTime to, SensorMetric metric,
+      RollupResolution bucket, Collection<String> sensorIds) {
+    if (bucket == RollupResolution.MINUTE) {
+      throw new IllegalArgumentException("Sketches are kept per hour, they cannot be split into minutes");
+    }
+    if (!from.isBefore(to) || sensorIds != null && sensorIds.isEmpty()) {
+      return List.of();
+    }
+    final var parts = new ArrayList<String>();
+    final var args = new ArrayList<Object>();
+    final var alignedFrom = RollupResolution.HOUR.ceil(from);
+    final var alignedTo = RollupResolution.HOUR.floor(to);
+    if (alignedFrom.isBefore(alignedTo)) {
+      addRawPart(from, alignedFrom, metric, bucket, sensorIds, parts, args);
+      parts.add(SKETCH_PART.formatted(groupColumn(bucket, "bucket_start")) + sensorCondition(sensorIds));
+      args.add(metric.name());
+      args.add(Timestamp.valueOf(alignedFrom));
+      args.add(Timestamp.valueOf(alignedTo));
+      addSensorArgs(sensorIds, args);
+      addRawPart(alignedTo, to, metric, bucket, sensorIds, parts, args);
+    } else {
+      addRawPart(from, to, metric, bucket, sensorIds, parts, args);
+    }
+
+    final var groupBy = bucket == null ? "bin" : "g_bucket, bin";
+    final var sql = "SELECT " + groupBy + ", sum(c) AS c FROM (" + String.join(" UNION ALL ", parts)
+        + ") parts GROUP BY " + groupBy + " ORDER BY " + groupBy;
+    final List<SketchGroup> groups = new ArrayList<>();
+    jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+      final LocalDateTime bucketStart = bucket == null ? null : rs.getTimestamp("g_bucket").toLocalDateTime();
+      if (groups.isEmpty() || !Objects.equals(groups.get(groups.size() - 1).bucketStart(), bucketStart)) {
+        groups.add(new SketchGroup(bucketStart, new QuantileSketch()));
+      }
+      groups.get(groups.size() - 1).sketch().add(rs.getInt("bin"), rs.getLong("c"));
+    }, args.toArray());
+    return groups;
+  }
+
+  /**
+   * Recomputes the sketches of whole days in {@code [from, to)} from the raw readings, locking out
+   * concurrent inserts like {@link SensorDataRollupRepository#rebuild}.
+   */
+  @Transactional
+  public int rebuild(LocalDateTime from, LocalDateTime to) {
+    final var start = Timestamp.valueOf(RollupResolution.DAY.floor(from));
+    final var end = Timestamp.valueOf(RollupResolution.DAY.ceil(to));
+    jdbcTemplate.execute("LOCK TABLE sensor_data_sketch IN SHARE ROW EXCLUSIVE MODE");
+    jdbcTemplate.update("DELETE FROM sensor_data_sketch WHERE bucket_start >= ? AND bucket_start < ?", start, end);
+    return jdbcTemplate.update(REBUILD_SQL, start, end);
+  }
+
+  private static void addRawPart(LocalDateTime from, LocalDateTime to, SensorMetric metric,
+      RollupResolution bucket, Collection<String> sensorIds, List<String> parts, List<Object> args) {
+    if (!from.isBefore(to)) {
+      return;
+    }
+    parts.add(RAW_PART.formatted(groupColumn(bucket, "timestamp"), QuantileSketch.binOf(metric.column()))
+        + sensorCondition(sensorIds));
+    args.add(Timestamp.valueOf(from));
+    args.add(Timestamp.valueOf(to));
+    addSensorArgs(sensorIds, args);
+  }
+
+  private static String groupColumn(RollupResolution bucket, String timeColumn) {
+    return bucket == null ? ""
+        : "date_trunc('" + bucket.name().toLowerCase(Locale.ROOT) + "', " + timeColumn + ") AS g_bucket,";
+  }
+
+  private static String sensorCondition(Collection<String> sensorIds) {
+    return sensorIds == null ? "" : SensorDataRollupRepository.sensorCondition(sensorIds);
+  }
+
+  private static void addSensorArgs(Collection<String> sensorIds, List<Object> args) {
+    if (sensorIds != null) {
+      args.addAll(sensorIds);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package cz.telemetry.whiskey.repository;
+
+/**
+ * Measured quantities of a reading, stored by name in {@code sensor_data_sketch}.
+ */
+public enum SensorMetric {
+
+  TEMPERATURE("temperature"),
+  HUMIDITY("humidity");
+
+  private final String column;
+
+  SensorMetric(String column) {
+    this.column = column;
+  }
+
+  /**
+   * @return column of {@code sensor_data} holding the metric
+   */
+  public String column() {
+    return column;
+  }
+}
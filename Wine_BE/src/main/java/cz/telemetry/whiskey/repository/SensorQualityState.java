@@ -0,0 +1,20 @@
+package cz.telemetry.whiskey.repository;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint of the quality model of one sensor, see {@code SensorQualityDetector}.
+ *
+ * @param readings    clean readings learned since the model last started over
+ * @param lastAt      newest inspected reading, {@code null} before the first one
+ * @param cleanAt     newest clean reading, {@code null} before the first one
+ * @param outlierRun  consecutive spikes or too fast changes up to {@code lastAt}
+ * @param flatSince   first reading of the current run of unchanged values, {@code null} before the first one
+ */
+public record SensorQualityState(String sensorId, long readings, Instant lastAt,
+                                 double temperatureMean, double temperatureVariance,
+                                 double humidityMean, double humidityVariance,
+                                 Instant cleanAt, double cleanTemperature, double cleanHumidity,
+                                 int outlierRun, Instant flatSince, double flatTemperature, double flatHumidity) {
+
+}
@@ -0,0 +1,76 @@
+package cz.telemetry.whiskey.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Checkpoints {@code sensor_quality_state} of the per sensor quality models.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorQualityStateRepository {
+
+  private static final String COLUMNS = """
+      sensor_id, reading_count, last_at, temperature_mean, temperature_variance, humidity_mean,
+      humidity_variance, clean_at, clean_temperature, clean_humidity, outlier_run, flat_since,
+      flat_temperature, flat_humidity""";
+
+  private static final String UPSERT_SQL = "INSERT INTO sensor_quality_state (" + COLUMNS + """
+      ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      ON CONFLICT (sensor_id) DO UPDATE SET
+          reading_count = EXCLUDED.reading_count, last_at = EXCLUDED.last_at,
+          temperature_mean = EXCLUDED.temperature_mean, temperature_variance = EXCLUDED.temperature_variance,
+          humidity_mean = EXCLUDED.humidity_mean, humidity_variance = EXCLUDED.humidity_variance,
+          clean_at = EXCLUDED.clean_at, clean_temperature = EXCLUDED.clean_temperature,
+          clean_humidity = EXCLUDED.clean_humidity, outlier_run = EXCLUDED.outlier_run,
+          flat_since = EXCLUDED.flat_since, flat_temperature = EXCLUDED.flat_temperature,
+          flat_humidity = EXCLUDED.flat_humidity""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public List<SensorQualityState> findAll() {
+    return jdbcTemplate.query("SELECT " + COLUMNS + " FROM sensor_quality_state", (rs, rowNum) ->
+        new SensorQualityState(rs.getString(1), rs.getLong(2), instant(rs, 3), rs.getDouble(4), rs.getDouble(5),
+            rs.getDouble(6), rs.getDouble(7), instant(rs, 8), rs.getDouble(9), rs.getDouble(10), rs.getInt(11),
+            instant(rs, 12), rs.getDouble(13), rs.getDouble(14)));
+  }
+
+  /**
+   * Inserts or overwrites the states in one batch.
+   */
+  public void saveAll(Collection<SensorQualityState> states) {
+    jdbcTemplate.batchUpdate(UPSERT_SQL, states, states.size(), (PreparedStatement ps, SensorQualityState s) -> {
+      ps.setString(1, s.sensorId());
+      ps.setLong(2, s.readings());
+      ps.setTimestamp(3, timestamp(s.lastAt()));
+      ps.setDouble(4, s.temperatureMean());
+      ps.setDouble(5, s.temperatureVariance());
+      ps.setDouble(6, s.humidityMean());
+      ps.setDouble(7, s.humidityVariance());
+      ps.setTimestamp(8, timestamp(s.cleanAt()));
+      ps.setDouble(9, s.cleanTemperature());
+      ps.setDouble(10, s.cleanHumidity());
+      ps.setInt(11, s.outlierRun());
+      ps.setTimestamp(12, timestamp(s.flatSince()));
+      ps.setDouble(13, s.flatTemperature());
+      ps.setDouble(14, s.flatHumidity());
+    });
+  }
+
+  private static Instant instant(ResultSet rs, int column) throws SQLException {
+    final var timestamp = rs.getTimestamp(column);
+    return timestamp == null ? null : timestamp.toInstant();
+  }
+
+  private static Timestamp timestamp(Instant instant) {
+    return instant == null ? null : Timestamp.from(instant);
+  }
+}
@@ -0,0 +1,16 @@
+package cz.telemetry.whiskey.repository;
+
+import cz.telemetry.whiskey.archive.ReadingColumns;
+import java.io.IOException;
+
+/**
+ * Receives streamed readings of {@code sensor_data} one sensor at a time.
+ */
+@FunctionalInterface
+public interface SensorReadingsHandler {
+
+  /**
+   * @param readings every reading of the sensor ordered by timestamp, in a buffer reused for the next sensor
+   */
+  void handle(String sensorId, ReadingColumns readings) throws IOException;
+}
@@ -0,0 +1,12 @@
+package cz.telemetry.whiskey.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Merged sketch of one group of {@link SensorDataSketchRepository#sketches}.
+ *
+ * @param bucketStart wall time start of the bucket, {@code null} when not grouped by bucket
+ */
+public record SketchGroup(LocalDateTime bucketStart, QuantileSketch sketch) {
+
+}
@@ -0,0 +1,10 @@
+package cz.telemetry.whiskey.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Range {@code [from, to)} of stored wall times.
+ */
+public record TimeRange(LocalDateTime from, LocalDateTime to) {
+
+}
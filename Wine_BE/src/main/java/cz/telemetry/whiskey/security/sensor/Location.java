@@ -22,5 +22,11 @@ public class Location {
     @Column(name = "sensor_name")
     private String sensorName;
 
+    /**
+     * Sensor placed at this location, {@link SensorData#getSensorId()}
+     */
+    @Column(name = "sensor_id")
+    private String sensorId;
+
 
 }
@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,11 +23,23 @@ import java.time.Instant;
 public class SensorData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence instead of IDENTITY, otherwise Hibernate cannot batch inserts; rows inserted by SQL take
+    // their ids from sensor_data_row_seq, which is incremented by 1
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sensor_data_seq")
+    @SequenceGenerator(name = "sensor_data_seq", sequenceName = "sensor_data_seq", allocationSize = 50)
     private Long id;
 
     private double temperature;
     private double humidity;
     private Instant timestamp;
     private String sensorId;
+
+    /**
+     * Bit mask of {@link cz.telemetry.whiskey.domain.QualityFlag}, {@code 0} for a clean reading
+     */
+    private short qualityFlag;
+
+    public SensorData(Long id, double temperature, double humidity, Instant timestamp, String sensorId) {
+        this(id, temperature, humidity, timestamp, sensorId, (short) 0);
+    }
 }
\ No newline at end of file
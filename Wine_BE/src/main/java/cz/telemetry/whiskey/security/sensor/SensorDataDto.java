@@ -1,5 +1,8 @@
 package cz.telemetry.whiskey.security.sensor;
 
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,8 +18,16 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 public class SensorDataDto {
+    /**
+     * Length of the {@code sensor_id} columns.
+     */
+    public static final int MAX_SENSOR_ID_LENGTH = 128;
+
     private double temperature;
     private double humidity;
+    @NotNull
     private Instant timestamp;
+    @NotBlank
+    @Size(max = MAX_SENSOR_ID_LENGTH)
     private String sensorId;
 }
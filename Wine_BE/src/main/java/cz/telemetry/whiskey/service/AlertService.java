@@ -0,0 +1,35 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.api.request.AlertRuleRequest;
+import cz.telemetry.whiskey.api.response.AlertEventResponse;
+import cz.telemetry.whiskey.api.response.AlertRuleResponse;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Threshold rules evaluated on ingest and the alerts they fired.
+ */
+public interface AlertService {
+
+  List<AlertRuleResponse> getRules();
+
+  AlertRuleResponse createRule(AlertRuleRequest request);
+
+  /**
+   * Replaces the rule, its open alerts are resolved and it is evaluated from a clean state.
+   */
+  AlertRuleResponse updateRule(long id, AlertRuleRequest request);
+
+  /**
+   * Deletes the rule, its alerts are kept.
+   */
+  void deleteRule(long id);
+
+  /**
+   * Alerts fired in {@code [from, to)}, newest first.
+   *
+   * @param sensorId only alerts of this sensor, {@code null} for all sensors
+   * @param openOnly only alerts which are not resolved yet
+   */
+  List<AlertEventResponse> getEvents(Instant from, Instant to, String sensorId, boolean openOnly, int limit);
+}
@@ -0,0 +1,24 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.api.response.ArchivedMonthResponse;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Months of readings moved out of the database into the compressed archive.
+ */
+public interface ArchiveService {
+
+  /**
+   * @return archived months, ascending
+   */
+  List<ArchivedMonthResponse> getArchivedMonths();
+
+  /**
+   * Moves the month back into the database. A month older than the configured threshold is archived again by
+   * the next run of the archive job, unless the job is disabled or the threshold raised first.
+   *
+   * @return the month as it was archived
+   */
+  ArchivedMonthResponse restoreMonth(YearMonth month);
+}
@@ -0,0 +1,20 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.api.request.SensorLocationRequest;
+import cz.telemetry.whiskey.api.response.SensorLocationResponse;
+import java.util.List;
+
+/**
+ * Placement of sensors in locations (cellars, rooms).
+ */
+public interface LocationService {
+
+  List<SensorLocationResponse> getSensorLocations();
+
+  /**
+   * Places the sensor at a location, replacing its previous placement.
+   */
+  SensorLocationResponse placeSensor(String sensorId, SensorLocationRequest request);
+
+  void removeSensor(String sensorId);
+}
@@ -0,0 +1,24 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.api.response.SensorDataImportResponse;
+import java.io.InputStream;
+import org.springframework.lang.NonNull;
+
+/**
+ * Streaming bulk import of historical readings, the upload is never held in memory as a whole.
+ */
+public interface SensorDataImportService {
+
+  /**
+   * Imports one JSON reading per line, fields as in {@code SensorDataDto}.
+   */
+  @NonNull
+  SensorDataImportResponse importNdjson(@NonNull InputStream body);
+
+  /**
+   * Imports CSV with a header line naming the {@code timestamp}, {@code sensorId}, {@code temperature} and
+   * {@code humidity} columns in any order.
+   */
+  @NonNull
+  SensorDataImportResponse importCsv(@NonNull InputStream body);
+}
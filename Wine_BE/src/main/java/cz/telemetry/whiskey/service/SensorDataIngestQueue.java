@@ -0,0 +1,21 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.exception.BatchTooLargeException;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import java.util.List;
+
+/**
+ * Bounded buffer between the ingest endpoints and the database, available only when
+ * {@code whiskey.ingest.async} is enabled.
+ */
+public interface SensorDataIngestQueue {
+
+  /**
+   * Queues all readings for writing, or none of them when there is not enough free capacity.
+   *
+   * @param readings readings to write
+   * @return {@code true} when the readings were queued, {@code false} when the caller should back off
+   * @throws BatchTooLargeException when the readings exceed the whole capacity, backing off would not help
+   */
+  boolean offer(List<SensorDataDto> readings);
+}
@@ -0,0 +1,19 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.util.List;
+
+/**
+ * Callback for readings newly stored by {@link SensorDataService}, invoked after the insert has committed.
+ * Duplicates are not reported. Bulk imports through {@link SensorDataImportService} are not reported either,
+ * they carry historical data.
+ *
+ * <p>Called on the ingest thread, implementations must be quick and must not block.
+ */
+public interface SensorDataListener {
+
+  /**
+   * @param readings inserted readings in the order they were received, possibly out of timestamp order
+   */
+  void onSensorDataStored(List<SensorData> readings);
+}
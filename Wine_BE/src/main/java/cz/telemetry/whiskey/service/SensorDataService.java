@@ -1,6 +1,17 @@
 package cz.telemetry.whiskey.service;
 
-import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.api.response.IngestStatus;
+import cz.telemetry.whiskey.api.response.SensorDataBatchResponse;
+import cz.telemetry.whiskey.api.response.SensorAggregateResponse;
+import cz.telemetry.whiskey.api.response.SensorDataChangesResponse;
+import cz.telemetry.whiskey.api.response.SensorDataPageResponse;
+import cz.telemetry.whiskey.api.response.SensorPercentileResponse;
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.api.response.SensorSeriesResponse;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
+import cz.telemetry.whiskey.repository.SensorDataRowHandler;
+import cz.telemetry.whiskey.repository.SensorMetric;
 import cz.telemetry.whiskey.security.sensor.SensorDataDto;
 import jakarta.persistence.criteria.CriteriaBuilder;
 
@@ -16,12 +27,44 @@ import java.util.Optional;
  * Time: 16:28
  */
 public interface SensorDataService {
-    boolean saveSensorData(SensorDataDto dto);
+    IngestStatus saveSensorData(SensorDataDto dto);
 
+    /**
+     * Stores all readings using multi-row inserts, readings already present are reported as duplicates.
+     * When the database is unavailable and the spool is enabled, the readings are spooled instead.
+     *
+     * @param dtos readings in the order they were received
+     * @return per-reading outcome in the same order as {@code dtos}
+     */
+    SensorDataBatchResponse saveSensorDataBatch(List<SensorDataDto> dtos);
+
+    /**
+     * Same as {@link #saveSensorDataBatch(List)} but never spools, database failures reach the caller.
+     */
+    SensorDataBatchResponse storeSensorDataBatch(List<SensorDataDto> dtos);
+
+    /**
+     * Newest temperature over all sensors, served from memory.
+     */
     Optional<Double> getCurrentTemperature();
 
+    /**
+     * Newest humidity over all sensors, served from memory.
+     */
     Optional<Double> getCurrentHumidity();
 
+    /**
+     * Newest reading of the sensor, served from memory.
+     */
+    Optional<SensorReadingResponse> getCurrentReading(String sensorId);
+
+    /**
+     * Newest reading of every sensor, served from memory.
+     *
+     * @param location only sensors placed at this location, {@code null} for all sensors
+     */
+    SensorSnapshot getCurrentReadings(String location);
+
     Optional<Double> getAverageTemperatureByDate(LocalDate date);
 
     Optional<Double> getAverageHumidityByDate(LocalDate date);
@@ -30,6 +73,60 @@ public interface SensorDataService {
 
     Optional<Double> getAverageHumidityBetween(LocalDate start, LocalDate end);
 
-    List<SensorData> getSensorDataBetween(Instant from, Instant to);
+    /**
+     * Downsampled series of at most {@code maxPoints} buckets covering {@code [from, to)}, read from the
+     * coarsest rollups the bucket width allows. Recent ranges are folded from the readings held in memory.
+     *
+     * @param selection sensors whose readings are included
+     */
+    SensorSeriesResponse getSeries(Instant from, Instant to, int maxPoints, SensorSelection selection);
+
+    /**
+     * Count, average, minimum, maximum and standard deviation of both metrics in {@code [from, to)}, computed
+     * by one statement over the rollups. Recent ranges are computed from the readings held in memory.
+     *
+     * @param bucket     groups by hour or day buckets, {@code null} for the whole range
+     * @param bySensor   groups by sensor
+     * @param byLocation groups by location of the sensors, sensors without one form a group without location
+     * @param selection  sensors whose readings are included
+     */
+    SensorAggregateResponse getAggregate(Instant from, Instant to, RollupResolution bucket, boolean bySensor,
+                                         boolean byLocation, SensorSelection selection);
+
+    /**
+     * Percentiles of one metric in {@code [from, to)}, merged from the hourly quantile sketches with a
+     * bounded relative error.
+     *
+     * @param quantiles quantiles between 0 and 1
+     * @param bucket    groups by hour or day buckets, {@code null} for the whole range
+     * @param selection sensors whose readings are included
+     */
+    SensorPercentileResponse getPercentiles(Instant from, Instant to, SensorMetric metric, List<Double> quantiles,
+                                            RollupResolution bucket, SensorSelection selection);
+
+    /**
+     * Streams readings with {@code from <= timestamp <= to} ordered by timestamp, memory use does not depend
+     * on the size of the range. Recent ranges are copied from the readings held in memory instead.
+     */
+    void streamSensorDataBetween(Instant from, Instant to, SensorDataRowHandler handler);
+
+    /**
+     * Same readings as {@link #streamSensorDataBetween}, ordered by sensor and timestamp, as primitives.
+     * Readings of archived months are merged with the ones still in the database, all readings of a sensor
+     * follow each other.
+     */
+    void streamSensorDataColumnsBetween(Instant from, Instant to, SensorDataColumnHandler handler);
+
+    /**
+     * @param after {@code next} of the previous page, {@code null} for the first page
+     */
+    SensorDataPageResponse getSensorDataPage(Instant from, Instant to, String after, int limit);
+
+    /**
+     * Readings stored after {@code cursor}, see {@link SensorDataChangesResponse}.
+     *
+     * @param cursor {@code cursor} of the previous response, {@code null} on the first poll
+     */
+    SensorDataChangesResponse getSensorDataSince(String cursor, int limit);
 
 }
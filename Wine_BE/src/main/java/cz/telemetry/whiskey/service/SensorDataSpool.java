@@ -0,0 +1,24 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import java.util.List;
+
+/**
+ * Durable local buffer for readings which could not be written to the database, available only when
+ * {@code whiskey.spool.enabled} is set. Spooled readings are replayed in batches once the database is back.
+ */
+public interface SensorDataSpool {
+
+  /**
+   * Durably appends all readings, or none of them when the disk usage limit would be exceeded.
+   *
+   * @param readings readings to spool
+   * @return {@code true} when the readings are on disk
+   */
+  boolean append(List<SensorDataDto> readings);
+
+  /**
+   * @return number of readings waiting for replay
+   */
+  long pendingReadings();
+}
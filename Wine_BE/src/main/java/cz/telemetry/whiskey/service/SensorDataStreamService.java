@@ -0,0 +1,17 @@
+package cz.telemetry.whiskey.service;
+
+import java.util.Set;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes newly stored readings to subscribers as Server-Sent Events.
+ */
+public interface SensorDataStreamService {
+
+  /**
+   * Opens a subscription which starts with the current reading of every matching sensor.
+   *
+   * @param sensorIds sensors to receive, {@code null} or empty for all
+   */
+  SseEmitter subscribe(Set<String> sensorIds);
+}
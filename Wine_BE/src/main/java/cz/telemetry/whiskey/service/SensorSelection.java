@@ -0,0 +1,11 @@
+package cz.telemetry.whiskey.service;
+
+/**
+ * Sensors a query is restricted to, both parts are optional and combine.
+ *
+ * @param sensorId only this sensor
+ * @param location only sensors placed at this location
+ */
+public record SensorSelection(String sensorId, String location) {
+
+}
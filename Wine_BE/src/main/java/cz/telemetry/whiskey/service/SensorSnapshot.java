@@ -0,0 +1,14 @@
+package cz.telemetry.whiskey.service;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import java.util.List;
+
+/**
+ * Current reading of every sensor.
+ *
+ * @param version  changes whenever any of the readings changes, usable as an entity tag
+ * @param readings ordered by sensor id
+ */
+public record SensorSnapshot(String version, List<SensorReadingResponse> readings) {
+
+}
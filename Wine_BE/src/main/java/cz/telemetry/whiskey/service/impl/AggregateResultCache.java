@@ -0,0 +1,200 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.properties.AggregateCacheProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Results of aggregate queries over past ranges, keyed by the query, the sensors and the range. Bounded by
+ * size with least recently used eviction and by age.
+ *
+ * <p>Only ranges which ended more than the late-arrival window ago are cached, younger ones change with
+ * almost every reading. A late reading still evicts exactly the entries whose range and sensors cover it.
+ * An entry is registered before its query runs, so a reading committed while the query runs evicts it and
+ * the possibly stale result is never served. Flagged readings are not aggregated and evict nothing.
+ */
+@Slf4j
+@Component
+public class AggregateResultCache implements SensorDataListener {
+
+  private final AggregateCacheProperties properties;
+  private final Clock clock;
+  private final Map<Key, Entry> entries;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter invalidations;
+
+  @Autowired
+  public AggregateResultCache(WhiskeyProperties whiskeyProperties, MeterRegistry meterRegistry) {
+    this(whiskeyProperties, meterRegistry, Clock.systemDefaultZone());
+  }
+
+  AggregateResultCache(WhiskeyProperties whiskeyProperties, MeterRegistry meterRegistry, Clock clock) {
+    this.properties = whiskeyProperties.getAggregateCache();
+    this.clock = clock;
+    final int maxEntries = properties.getMaxEntries();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+    this.hits = Counter.builder("whiskey.aggregate.cache.requests")
+        .description("Aggregate queries answered from the cache")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("whiskey.aggregate.cache.requests")
+        .description("Aggregate queries which had to run against the database")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    this.invalidations = Counter.builder("whiskey.aggregate.cache.invalidations")
+        .description("Cached aggregates evicted by late readings")
+        .register(meterRegistry);
+    Gauge.builder("whiskey.aggregate.cache.size", this, AggregateResultCache::size)
+        .description("Cached aggregate results")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @param query     identifies the query and every parameter of it except the sensors and the range
+   * @param sensorIds sensors the query is restricted to, {@code null} for all sensors
+   * @param from      inclusive start of the range as stored wall time
+   * @param to        exclusive end of the range as stored wall time
+   * @param loader    runs the query, must not return {@code null}
+   */
+  public <T> T get(String query, Collection<String> sensorIds, LocalDateTime from, LocalDateTime to,
+      Supplier<T> loader) {
+    if (to.isAfter(LocalDateTime.now(clock).minus(properties.getLateArrival()))) {
+      return loader.get();
+    }
+    final var key = new Key(query, sensorIds == null ? null : Set.copyOf(sensorIds), from, to);
+    final long now = clock.millis();
+    final Entry entry;
+    synchronized (this) {
+      final var cached = entries.get(key);
+      if (cached != null && cached.expiresAt > now) {
+        if (cached.value != null) {
+          hits.increment();
+          @SuppressWarnings("unchecked")
+          final T value = (T) cached.value;
+          return value;
+        }
+        // another thread is loading it, loading it again is cheaper than waiting for it
+        entry = cached;
+      } else {
+        entry = new Entry(now + properties.getTtl().toMillis());
+        entries.put(key, entry);
+      }
+    }
+    misses.increment();
+    final T value;
+    try {
+      value = loader.get();
+    } catch (RuntimeException e) {
+      synchronized (this) {
+        entries.remove(key, entry);
+      }
+      throw e;
+    }
+    entry.value = value;
+    return value;
+  }
+
+  @Override
+  public void onSensorDataStored(List<SensorData> readings) {
+    final var zone = ZoneId.systemDefault();
+    final var times = new LocalDateTime[readings.size()];
+    LocalDateTime oldest = LocalDateTime.MAX;
+    for (int i = 0; i < times.length; i++) {
+      times[i] = LocalDateTime.ofInstant(readings.get(i).getTimestamp(), zone);
+      if (times[i].isBefore(oldest)) {
+        oldest = times[i];
+      }
+    }
+    final var bound = oldest;
+    int removed = 0;
+    synchronized (this) {
+      final var iterator = entries.keySet().iterator();
+      while (iterator.hasNext()) {
+        final var key = iterator.next();
+        // readings of the current range, the usual case, end after every cached range
+        if (key.to().isAfter(bound) && key.coversAny(readings, times)) {
+          iterator.remove();
+          removed++;
+        }
+      }
+    }
+    if (removed > 0) {
+      invalidations.increment(removed);
+      log.debug("Late readings evicted {} cached aggregates", removed);
+    }
+  }
+
+  /**
+   * Drops every entry, for changes of {@code sensor_data} which are not reported to listeners
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  /**
+   * Drops every entry once the current transaction commits, a query before that would cache the old state.
+   */
+  public void invalidateAllAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidateAll();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidateAll();
+      }
+    });
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private record Key(String query, Set<String> sensorIds, LocalDateTime from, LocalDateTime to) {
+
+    boolean coversAny(List<SensorData> readings, LocalDateTime[] times) {
+      for (int i = 0; i < times.length; i++) {
+        if (readings.get(i).getQualityFlag() == 0 && !times[i].isBefore(from) && times[i].isBefore(to)
+            && (sensorIds == null || sensorIds.contains(readings.get(i).getSensorId()))) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class Entry {
+
+    private final long expiresAt;
+    private volatile Object value;
+
+    private Entry(long expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+  }
+}
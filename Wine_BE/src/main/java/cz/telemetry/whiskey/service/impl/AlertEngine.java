@@ -0,0 +1,347 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.domain.AlertEvent;
+import cz.telemetry.whiskey.domain.AlertKind;
+import cz.telemetry.whiskey.domain.AlertRule;
+import cz.telemetry.whiskey.repository.AlertEventRepository;
+import cz.telemetry.whiskey.repository.AlertRuleRepository;
+import cz.telemetry.whiskey.repository.SensorMetric;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Evaluates the enabled {@link AlertRule threshold rules} against every stored reading.
+ *
+ * <p>Rules are held in memory, indexed by sensor and location, so a reading costs a few map lookups and one
+ * small state update per matching rule, never a query. The state of a rule and sensor is constant in size:
+ * the side of the range the sensor is out on, since when, and the open alert. An alert fires once the
+ * readings stayed out of the range for the rule duration and resolves once a reading gets back inside by
+ * more than the hysteresis. Readings older than the last evaluated one of the sensor are ignored, so are
+ * readings flagged by {@link SensorQualityDetector}.
+ *
+ * <p>Fired and resolved alerts are written by a single background thread in the order they happened, the
+ * ingest thread only queues them. Open alerts are restored at startup, so a restart neither fires them again
+ * nor leaves them open forever.
+ */
+@Slf4j
+@Component
+public class AlertEngine implements SensorDataListener {
+
+  private final AlertRuleRepository ruleRepository;
+  private final AlertEventRepository eventRepository;
+  private final SensorTopology sensorTopology;
+  private final TransactionTemplate transactionTemplate;
+  private final Executor writer;
+  private final ConcurrentMap<StateKey, AlertState> states = new ConcurrentHashMap<>();
+
+  private volatile Rules rules = Rules.EMPTY;
+
+  @Autowired
+  public AlertEngine(AlertRuleRepository ruleRepository, AlertEventRepository eventRepository,
+      SensorTopology sensorTopology, PlatformTransactionManager transactionManager,
+      WhiskeyProperties whiskeyProperties) {
+    this(ruleRepository, eventRepository, sensorTopology, transactionManager,
+        new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(whiskeyProperties.getAlert().getWriteQueueCapacity()),
+            runnable -> {
+              final var thread = new Thread(runnable, "alert-writer");
+              thread.setDaemon(true);
+              return thread;
+            },
+            (task, executor) -> log.error("Alert write queue is full, an alert change is lost")));
+  }
+
+  AlertEngine(AlertRuleRepository ruleRepository, AlertEventRepository eventRepository,
+      SensorTopology sensorTopology, PlatformTransactionManager transactionManager, Executor writer) {
+    this.ruleRepository = ruleRepository;
+    this.eventRepository = eventRepository;
+    this.sensorTopology = sensorTopology;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.writer = writer;
+  }
+
+  @PostConstruct
+  void warmUp() {
+    rules = load();
+    int restored = 0;
+    for (AlertEvent event : eventRepository.findAllByResolvedAtIsNull()) {
+      final var rule = event.getRuleId() == null ? null : rules.byId().get(event.getRuleId());
+      if (rule == null) {
+        resolve(event, Instant.now());
+        continue;
+      }
+      final var state = new AlertState();
+      state.restore(event);
+      states.put(new StateKey(rule.id(), event.getSensorId()), state);
+      restored++;
+    }
+    log.info("Alert engine started with {} rules and {} open alerts", rules.byId().size(), restored);
+  }
+
+  @Override
+  public void onSensorDataStored(List<SensorData> readings) {
+    final var current = rules;
+    if (current.byId().isEmpty()) {
+      return;
+    }
+    for (SensorData reading : readings) {
+      if (reading.getQualityFlag() != 0) {
+        continue;
+      }
+      evaluate(current.global(), reading);
+      evaluate(current.bySensor().get(reading.getSensorId()), reading);
+      if (!current.byLocation().isEmpty()) {
+        sensorTopology.locationOf(reading.getSensorId())
+            .ifPresent(location -> evaluate(current.byLocation().get(location), reading));
+      }
+    }
+  }
+
+  /**
+   * Reloads the rules. Alerts of rules which were deleted, disabled or changed are resolved, the changed
+   * rules start from a clean state.
+   */
+  public synchronized void reload() {
+    final var previous = rules;
+    final var next = load();
+    rules = next;
+    final var now = Instant.now();
+    states.entrySet().removeIf(entry -> {
+      final long ruleId = entry.getKey().ruleId();
+      final var rule = next.byId().get(ruleId);
+      if (rule != null && rule.equals(previous.byId().get(ruleId))) {
+        return false;
+      }
+      final AlertEvent open = entry.getValue().close();
+      if (open != null) {
+        resolve(open, now);
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Reloads once the current transaction commits, a reload before that would read the old rules.
+   */
+  public void reloadAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      reload();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        reload();
+      }
+    });
+  }
+
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    if (writer instanceof ExecutorService executor) {
+      executor.shutdown();
+      if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        log.warn("Alert writer did not finish, pending alert changes are lost");
+      }
+    }
+  }
+
+  private void evaluate(List<ThresholdRule> matching, SensorData reading) {
+    if (matching == null) {
+      return;
+    }
+    for (ThresholdRule rule : matching) {
+      final var state = states.computeIfAbsent(new StateKey(rule.id(), reading.getSensorId()),
+          key -> new AlertState());
+      final double value = rule.metric() == SensorMetric.TEMPERATURE ? reading.getTemperature()
+          : reading.getHumidity();
+      final AlertEvent resolved;
+      final AlertEvent fired;
+      synchronized (state) {
+        resolved = state.update(rule, reading.getTimestamp(), value);
+        fired = state.fire(rule, reading.getSensorId(), reading.getTimestamp(), value);
+      }
+      if (resolved != null) {
+        resolve(resolved, reading.getTimestamp());
+      }
+      if (fired != null) {
+        log.warn("Alert {} fired for sensor {}: {} {} is {} than {}", rule.name(), reading.getSensorId(),
+            rule.metric(), value, fired.getKind() == AlertKind.LOW ? "lower" : "higher", fired.getThreshold());
+        write(fired);
+      }
+    }
+  }
+
+  private void resolve(AlertEvent event, Instant at) {
+    writer.execute(() -> {
+      event.setResolvedAt(at);
+      save(event);
+    });
+  }
+
+  private void write(AlertEvent event) {
+    writer.execute(() -> save(event));
+  }
+
+  private void save(AlertEvent event) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> eventRepository.save(event));
+    } catch (RuntimeException e) {
+      log.error("Alert {} of sensor {} could not be saved", event.getRuleName(), event.getSensorId(), e);
+    }
+  }
+
+  private Rules load() {
+    final Map<Long, ThresholdRule> byId = new HashMap<>();
+    final List<ThresholdRule> global = new ArrayList<>();
+    final Map<String, List<ThresholdRule>> bySensor = new HashMap<>();
+    final Map<String, List<ThresholdRule>> byLocation = new HashMap<>();
+    for (AlertRule entity : ruleRepository.findAllByEnabledTrue()) {
+      final var rule = ThresholdRule.of(entity);
+      byId.put(rule.id(), rule);
+      if (rule.sensorId() != null) {
+        bySensor.computeIfAbsent(rule.sensorId(), key -> new ArrayList<>()).add(rule);
+      } else if (rule.location() != null) {
+        byLocation.computeIfAbsent(rule.location(), key -> new ArrayList<>()).add(rule);
+      } else {
+        global.add(rule);
+      }
+    }
+    return new Rules(Map.copyOf(byId), List.copyOf(global), Map.copyOf(bySensor), Map.copyOf(byLocation));
+  }
+
+  private record Rules(Map<Long, ThresholdRule> byId, List<ThresholdRule> global,
+                       Map<String, List<ThresholdRule>> bySensor, Map<String, List<ThresholdRule>> byLocation) {
+
+    static final Rules EMPTY = new Rules(Map.of(), List.of(), Map.of(), Map.of());
+  }
+
+  /**
+   * Immutable copy of an enabled rule, equal copies mean the rule did not change.
+   */
+  record ThresholdRule(long id, String name, SensorMetric metric, String sensorId, String location,
+                       Double min, Double max, Duration duration, double hysteresis) {
+
+    static ThresholdRule of(AlertRule rule) {
+      return new ThresholdRule(rule.getId(), rule.getName(), rule.getMetric(), rule.getSensorId(),
+          rule.getLocation(), rule.getMinValue(), rule.getMaxValue(), Duration.ofSeconds(rule.getDurationSeconds()),
+          rule.getHysteresis());
+    }
+
+    /**
+     * @param current side the sensor is out on so far, {@code null} when in the range
+     * @return side the value is out on, {@code null} when in the range
+     */
+    AlertKind breach(double value, AlertKind current) {
+      if (current == AlertKind.LOW && min != null && value < min + hysteresis) {
+        return AlertKind.LOW;
+      }
+      if (current == AlertKind.HIGH && max != null && value > max - hysteresis) {
+        return AlertKind.HIGH;
+      }
+      if (min != null && value < min) {
+        return AlertKind.LOW;
+      }
+      if (max != null && value > max) {
+        return AlertKind.HIGH;
+      }
+      return null;
+    }
+
+    double threshold(AlertKind kind) {
+      return kind == AlertKind.LOW ? min : max;
+    }
+  }
+
+  private record StateKey(long ruleId, String sensorId) {
+
+  }
+
+  /**
+   * State of one rule and sensor, guarded by its own monitor.
+   */
+  private static final class AlertState {
+
+    private Instant last;
+    private AlertKind breach;
+    private Instant breachSince;
+    private AlertEvent open;
+    private boolean closed;
+
+    void restore(AlertEvent event) {
+      last = event.getFiredAt();
+      breach = event.getKind();
+      breachSince = event.getStartedAt();
+      open = event;
+    }
+
+    /**
+     * Moves the state by one reading.
+     *
+     * @return open alert ended by the reading
+     */
+    AlertEvent update(ThresholdRule rule, Instant timestamp, double value) {
+      if (closed || last != null && !timestamp.isAfter(last)) {
+        return null;
+      }
+      last = timestamp;
+      final var kind = rule.breach(value, breach);
+      if (kind == breach) {
+        return null;
+      }
+      final var ended = open;
+      open = null;
+      breach = kind;
+      breachSince = kind == null ? null : timestamp;
+      return ended;
+    }
+
+    /**
+     * @return alert to fire after the reading just {@link #update evaluated}
+     */
+    AlertEvent fire(ThresholdRule rule, String sensorId, Instant timestamp, double value) {
+      if (closed || breach == null || open != null || !timestamp.equals(last)
+          || Duration.between(breachSince, timestamp).compareTo(rule.duration()) < 0) {
+        return null;
+      }
+      open = new AlertEvent(null, rule.id(), rule.name(), sensorId, rule.metric(), breach, rule.threshold(breach),
+          value, breachSince, timestamp, null);
+      return open;
+    }
+
+    /**
+     * Stops the state for good, readings of a concurrent batch cannot fire anything afterwards.
+     *
+     * @return alert which was open
+     */
+    synchronized AlertEvent close() {
+      closed = true;
+      final var ended = open;
+      open = null;
+      return ended;
+    }
+  }
+}
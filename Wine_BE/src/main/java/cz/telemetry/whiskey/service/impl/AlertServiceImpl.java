@@ -0,0 +1,101 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.api.request.AlertRuleRequest;
+import cz.telemetry.whiskey.api.response.AlertEventResponse;
+import cz.telemetry.whiskey.api.response.AlertRuleResponse;
+import cz.telemetry.whiskey.domain.AlertEvent;
+import cz.telemetry.whiskey.domain.AlertRule;
+import cz.telemetry.whiskey.exception.EntityNotFoundException;
+import cz.telemetry.whiskey.exception.InvalidAlertRuleException;
+import cz.telemetry.whiskey.repository.AlertEventRepository;
+import cz.telemetry.whiskey.repository.AlertRuleRepository;
+import cz.telemetry.whiskey.service.AlertService;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class AlertServiceImpl implements AlertService {
+
+  private final AlertRuleRepository ruleRepository;
+  private final AlertEventRepository eventRepository;
+  private final AlertEngine alertEngine;
+
+  @Override
+  public List<AlertRuleResponse> getRules() {
+    return ruleRepository.findAll().stream()
+        .sorted(Comparator.comparing(AlertRule::getId))
+        .map(AlertServiceImpl::toResponse)
+        .toList();
+  }
+
+  @Override
+  public AlertRuleResponse createRule(AlertRuleRequest request) {
+    final var saved = ruleRepository.save(apply(new AlertRule(), request));
+    alertEngine.reloadAfterCommit();
+    return toResponse(saved);
+  }
+
+  @Override
+  public AlertRuleResponse updateRule(long id, AlertRuleRequest request) {
+    final var rule = ruleRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(AlertRule.class));
+    final var saved = ruleRepository.save(apply(rule, request));
+    alertEngine.reloadAfterCommit();
+    return toResponse(saved);
+  }
+
+  @Override
+  public void deleteRule(long id) {
+    final var rule = ruleRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(AlertRule.class));
+    ruleRepository.delete(rule);
+    alertEngine.reloadAfterCommit();
+  }
+
+  @Override
+  public List<AlertEventResponse> getEvents(Instant from, Instant to, String sensorId, boolean openOnly,
+      int limit) {
+    return eventRepository.search(from, to, sensorId, openOnly, Limit.of(limit)).stream()
+        .map(AlertServiceImpl::toResponse)
+        .toList();
+  }
+
+  private static AlertRule apply(AlertRule rule, AlertRuleRequest request) {
+    if (request.min() == null && request.max() == null) {
+      throw new InvalidAlertRuleException("At least one of min and max is required");
+    }
+    if (request.min() != null && request.max() != null && request.min() >= request.max()) {
+      throw new InvalidAlertRuleException("min must be lower than max");
+    }
+    if (request.sensorId() != null && request.location() != null) {
+      throw new InvalidAlertRuleException("A rule applies either to a sensor or to a location, not to both");
+    }
+    rule.setName(request.name());
+    rule.setMetric(request.metric());
+    rule.setSensorId(request.sensorId());
+    rule.setLocation(request.location());
+    rule.setMinValue(request.min());
+    rule.setMaxValue(request.max());
+    rule.setDurationSeconds(request.durationSeconds());
+    rule.setHysteresis(request.hysteresis());
+    rule.setEnabled(request.enabled() == null || request.enabled());
+    return rule;
+  }
+
+  private static AlertRuleResponse toResponse(AlertRule rule) {
+    return new AlertRuleResponse(rule.getId(), rule.getName(), rule.getMetric(), rule.getSensorId(),
+        rule.getLocation(), rule.getMinValue(), rule.getMaxValue(), rule.getDurationSeconds(), rule.getHysteresis(),
+        rule.isEnabled());
+  }
+
+  private static AlertEventResponse toResponse(AlertEvent event) {
+    return new AlertEventResponse(event.getId(), event.getRuleId(), event.getRuleName(), event.getSensorId(),
+        event.getMetric(), event.getKind(), event.getThreshold(), event.getValue(), event.getStartedAt(),
+        event.getFiredAt(), event.getResolvedAt());
+  }
+}
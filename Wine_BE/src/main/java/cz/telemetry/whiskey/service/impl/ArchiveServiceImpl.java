@@ -0,0 +1,221 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.api.response.ArchivedMonthResponse;
+import cz.telemetry.whiskey.archive.ArchivedReadingFilter;
+import cz.telemetry.whiskey.archive.ReadingColumns;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.ArchiveProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.EntityNotFoundException;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataArchiveRepository;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.service.ArchiveService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves months older than {@link ArchiveProperties#getAfterMonths()} from {@code sensor_data} into the
+ * {@link SensorDataArchive archive} and back on request.
+ *
+ * <p>A month is archived in one transaction which keeps its readings locked: its rollups and sketches are
+ * verified like before {@link RetentionJob retention}, the readings are written to the archive and committed
+ * there, then the partition is dropped. A failure after the archive was written leaves the month in both
+ * places, reads use the archive and the next run finishes the move. Readings arriving late for an archived
+ * month land in the default partition and are merged into the archive by the next run. The ingest paths
+ * drop readings the archive already holds through {@link ArchivedReadingFilter}, the rollups of the month
+ * already count them. A duplicate which still gets through is logged by the merge.
+ */
+@Slf4j
+@Service
+public class ArchiveServiceImpl implements ArchiveService {
+
+  private final SensorDataArchive archive;
+  private final SensorDataArchiveRepository archiveRepository;
+  private final SensorDataPartitionRepository partitionRepository;
+  private final RollupVerifier rollupVerifier;
+  private final WhiskeyProperties whiskeyProperties;
+  private final AggregateResultCache aggregateResultCache;
+  private final TransactionTemplate transactionTemplate;
+
+  public ArchiveServiceImpl(SensorDataArchive archive, SensorDataArchiveRepository archiveRepository,
+      SensorDataPartitionRepository partitionRepository, RollupVerifier rollupVerifier,
+      WhiskeyProperties whiskeyProperties, AggregateResultCache aggregateResultCache,
+      PlatformTransactionManager transactionManager) {
+    this.archive = archive;
+    this.archiveRepository = archiveRepository;
+    this.partitionRepository = partitionRepository;
+    this.rollupVerifier = rollupVerifier;
+    this.whiskeyProperties = whiskeyProperties;
+    this.aggregateResultCache = aggregateResultCache;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @Scheduled(cron = "${whiskey.archive.cron:0 30 4 * * *}")
+  public void archiveExpired() {
+    if (whiskeyProperties.getArchive().isEnabled()) {
+      archiveExpired(LocalDate.now());
+    }
+  }
+
+  void archiveExpired(LocalDate today) {
+    final var before = YearMonth.from(today).minusMonths(Math.max(1, whiskeyProperties.getArchive().getAfterMonths()));
+    final var months = new TreeSet<YearMonth>();
+    partitionRepository.findMonths().stream().filter(month -> month.isBefore(before)).forEach(months::add);
+    months.addAll(archiveRepository.findDefaultMonths(before.atDay(1).atStartOfDay()));
+
+    int archived = 0;
+    for (YearMonth month : months) {
+      if (archiveMonth(month, today)) {
+        archived++;
+      }
+    }
+    if (archived > 0) {
+      aggregateResultCache.invalidateAll();
+    }
+  }
+
+  @Override
+  public List<ArchivedMonthResponse> getArchivedMonths() {
+    return archive.summaries().stream()
+        .map(summary -> new ArchivedMonthResponse(summary.month(), summary.sensors(), summary.readings(),
+            summary.bytes()))
+        .toList();
+  }
+
+  @Override
+  public ArchivedMonthResponse restoreMonth(YearMonth month) {
+    final var restored = getArchivedMonths().stream()
+        .filter(summary -> summary.month().equals(month))
+        .findFirst()
+        .orElseThrow(() -> new EntityNotFoundException(ArchivedMonthResponse.class));
+    final Long inserted = transactionTemplate.execute(status -> {
+      if (!partitionRepository.findMonths().contains(month)) {
+        partitionRepository.createMonth(month);
+      }
+      long count = 0;
+      final var readings = new ReadingColumns();
+      for (String sensorId : archive.sensors(month)) {
+        readings.clear();
+        archive.read(month, sensorId, readings);
+        count += archiveRepository.insertRestored(sensorId, readings);
+      }
+      return count;
+    });
+    // only once the readings are committed, a failure in between leaves them in both places
+    try {
+      archive.delete(month);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    aggregateResultCache.invalidateAll();
+    log.info("Restored {} of {} archived readings of {}", inserted, restored.readings(), month);
+    return restored;
+  }
+
+  /**
+   * @return {@code false} when the rollups of the month do not match its readings and it stays in the database
+   */
+  boolean archiveMonth(YearMonth month, LocalDate today) {
+    final var from = month.atDay(1).atStartOfDay();
+    final var to = month.plusMonths(1).atDay(1).atStartOfDay();
+    final boolean partitioned = partitionRepository.findMonths().contains(month);
+    // readings of a month archived before are late arrivals, checking them alone would fail
+    final boolean merge = archive.isArchived(month);
+    final long[] moved = new long[1];
+    final Boolean archived = transactionTemplate.execute(status -> {
+      archiveRepository.lockMonth(month, partitioned);
+      if (!merge && !rollupVerifier.verify(from, to, keptResolutions(from, today),
+          kept(whiskeyProperties.getRetention().getHourDays(), from, today))) {
+        return false;
+      }
+      try (var writer = archive.write(month)) {
+        final Set<String> written = new HashSet<>();
+        final var existing = new ReadingColumns();
+        archiveRepository.streamMonth(month, (sensorId, readings) -> {
+          written.add(sensorId);
+          moved[0] += readings.size();
+          existing.clear();
+          if (archive.read(month, sensorId, existing)) {
+            final var merged = merge(existing, readings);
+            final int duplicates = existing.size() + readings.size() - merged.size();
+            if (duplicates > 0) {
+              log.warn("{} late readings of {} in {} duplicate archived ones, its rollups count them twice",
+                  duplicates, sensorId, month);
+            }
+            writer.add(sensorId, merged);
+          } else {
+            writer.add(sensorId, readings);
+          }
+        });
+        for (String sensorId : archive.sensors(month)) {
+          if (!written.contains(sensorId)) {
+            existing.clear();
+            archive.read(month, sensorId, existing);
+            writer.add(sensorId, existing);
+          }
+        }
+        writer.commit();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (partitioned) {
+        partitionRepository.dropMonth(month);
+      }
+      archiveRepository.deleteDefaultMonth(month);
+      return true;
+    });
+    if (Boolean.TRUE.equals(archived)) {
+      log.info("Archived {} readings of {}", moved[0], month);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return rollups which still cover the range starting at {@code from}
+   */
+  private List<RollupResolution> keptResolutions(LocalDateTime from, LocalDate today) {
+    return Arrays.stream(RollupResolution.values())
+        .filter(resolution -> kept(whiskeyProperties.getRetention().rollupDays(resolution), from, today))
+        .toList();
+  }
+
+  private static boolean kept(int days, LocalDateTime from, LocalDate today) {
+    return days <= 0 || !from.isBefore(today.minusDays(days).atStartOfDay());
+  }
+
+  /**
+   * @return readings of both, on equal timestamps the archived one
+   */
+  private static ReadingColumns merge(ReadingColumns archived, ReadingColumns late) {
+    final var merged = new ReadingColumns();
+    int i = 0;
+    int j = 0;
+    while (i < archived.size() || j < late.size()) {
+      final boolean takeArchived = j == late.size()
+          || i < archived.size() && archived.epochMicros(i) <= late.epochMicros(j);
+      final var source = takeArchived ? archived : late;
+      final int index = takeArchived ? i++ : j++;
+      if (takeArchived && j < late.size() && late.epochMicros(j) == archived.epochMicros(index)) {
+        j++;
+      }
+      merged.add(source.id(index), source.epochMicros(index), source.temperature(index), source.humidity(index),
+          source.qualityFlag(index));
+    }
+    return merged;
+  }
+}
@@ -0,0 +1,96 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Merges database readings, ordered by sensor and timestamp, with the archived readings of the same range, so
+ * the readings of one sensor reach the handler in one run ordered by timestamp, whether they come from
+ * archived months or not. Database readings inside an archived month are skipped, the archive holds that
+ * month. Archived readings are streamed sensor by sensor as the database readings pass them, nothing is
+ * buffered.
+ */
+final class ArchivedColumnMerge implements SensorDataColumnHandler {
+
+  private final SensorDataArchive archive;
+  private final List<SensorDataArchive.Segment> archived;
+  private final Iterator<String> archivedSensors;
+  private final SensorDataColumnHandler handler;
+
+  private String nextArchivedSensor;
+  private String sensorId;
+  /**
+   * First archived segment not yet streamed for {@link #sensorId}.
+   */
+  private int segment;
+
+  /**
+   * @param segments consecutive segments of the range, see {@link SensorDataArchive#split}
+   */
+  ArchivedColumnMerge(SensorDataArchive archive, List<SensorDataArchive.Segment> segments,
+      SensorDataColumnHandler handler) {
+    this.archive = archive;
+    this.archived = segments.stream().filter(SensorDataArchive.Segment::archived).toList();
+    this.archivedSensors = archive.sensors(segments.get(0).from(), segments.get(segments.size() - 1).to())
+        .iterator();
+    this.nextArchivedSensor = archivedSensors.hasNext() ? archivedSensors.next() : null;
+    this.handler = handler;
+  }
+
+  @Override
+  public void handle(String sensorId, long epochMillis, double temperature, double humidity)
+      throws IOException {
+    if (!sensorId.equals(this.sensorId)) {
+      finishSensor();
+      streamArchivedSensorsBefore(sensorId);
+      this.sensorId = sensorId;
+      segment = 0;
+    }
+    while (segment < archived.size() && archived.get(segment).to().toEpochMilli() < epochMillis) {
+      streamSegment(sensorId, archived.get(segment++));
+    }
+    if (segment < archived.size() && archived.get(segment).from().toEpochMilli() <= epochMillis) {
+      // stored late for an archived month, the archive is read instead until the month is merged
+      return;
+    }
+    handler.handle(sensorId, epochMillis, temperature, humidity);
+  }
+
+  /**
+   * Streams what is left of the archive, called after the last database reading.
+   */
+  void finish() throws IOException {
+    finishSensor();
+    streamArchivedSensorsBefore(null);
+  }
+
+  private void finishSensor() throws IOException {
+    if (sensorId != null) {
+      while (segment < archived.size()) {
+        streamSegment(sensorId, archived.get(segment++));
+      }
+    }
+  }
+
+  /**
+   * Streams the archived sensors ordered before {@code next}, all of them for {@code null}. {@code next}
+   * itself is skipped, its archived readings are merged with the database ones.
+   */
+  private void streamArchivedSensorsBefore(String next) throws IOException {
+    while (nextArchivedSensor != null && (next == null || nextArchivedSensor.compareTo(next) <= 0)) {
+      if (!nextArchivedSensor.equals(next)) {
+        for (SensorDataArchive.Segment part : archived) {
+          streamSegment(nextArchivedSensor, part);
+        }
+      }
+      nextArchivedSensor = archivedSensors.hasNext() ? archivedSensors.next() : null;
+    }
+  }
+
+  private void streamSegment(String sensorId, SensorDataArchive.Segment part) {
+    archive.streamColumns(part.from(), part.to(), sensorId, handler);
+  }
+}
@@ -0,0 +1,95 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.api.response.SensorDataChangesResponse;
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.InvalidCursorException;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataListener;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ring of the most recently stored readings numbered by an ingest sequence, so pollers can ask for what
+ * arrived after their cursor instead of re-reading a whole time window.
+ *
+ * <p>A cursor is {@code <epoch>-<sequence>}. The ring lives in memory, a cursor from another application run
+ * or one whose readings were already overwritten gets {@code reset} and the client reloads its window.
+ */
+@Component
+public class IngestLog implements SensorDataListener {
+
+  private static final String CURSOR_FORM = "<epoch>-<sequence>";
+
+  /**
+   * Distinguishes cursors of different application runs, the sequence starts from zero on every start
+   */
+  private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+  private final SensorReadingResponse[] ring;
+
+  /**
+   * Sequence of the next stored reading, guarded by {@code this}
+   */
+  private long next;
+
+  public IngestLog(WhiskeyProperties properties) {
+    this.ring = new SensorReadingResponse[properties.getIngest().getLogCapacity()];
+  }
+
+  @Override
+  public void onSensorDataStored(List<SensorData> readings) {
+    final var responses = readings.stream()
+        .map(reading -> new SensorReadingResponse(reading.getSensorId(), reading.getTimestamp(),
+            reading.getTemperature(), reading.getHumidity()))
+        .toList();
+    synchronized (this) {
+      for (SensorReadingResponse response : responses) {
+        ring[(int) (next % ring.length)] = response;
+        next++;
+      }
+    }
+  }
+
+  /**
+   * @param cursor {@code cursor} of the previous response, {@code null} to only obtain the current one
+   * @param limit  maximum number of returned readings, fewer means the client has caught up
+   */
+  public SensorDataChangesResponse changesSince(String cursor, int limit) {
+    final Long from = cursor == null ? null : parse(cursor);
+    synchronized (this) {
+      final long oldest = Math.max(0, next - ring.length);
+      if (from == null || from < oldest || from > next) {
+        return new SensorDataChangesResponse(Collections.emptyList(), format(next), true);
+      }
+      final int count = (int) Math.min(limit, next - from);
+      final var readings = new SensorReadingResponse[count];
+      for (int i = 0; i < count; i++) {
+        readings[i] = ring[(int) ((from + i) % ring.length)];
+      }
+      return new SensorDataChangesResponse(List.of(readings), format(from + count), false);
+    }
+  }
+
+  /**
+   * @return sequence of the cursor, {@code null} when it comes from another application run
+   */
+  private Long parse(String cursor) {
+    final int separator = cursor.lastIndexOf('-');
+    if (separator < 0) {
+      throw new InvalidCursorException(cursor, CURSOR_FORM);
+    }
+    final long sequence;
+    try {
+      sequence = Long.parseLong(cursor.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(cursor, CURSOR_FORM);
+    }
+    return epoch.equals(cursor.substring(0, separator)) ? sequence : null;
+  }
+
+  private String format(long sequence) {
+    return epoch + "-" + sequence;
+  }
+}
@@ -0,0 +1,94 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataListener;
+import cz.telemetry.whiskey.service.SensorSnapshot;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Newest reading of every sensor, warmed from the database at startup and kept current by the ingest path.
+ * A late reading never replaces a newer one, so gateways flushing old buffers do not move "current" back.
+ *
+ * <p>Every change bumps a version counter. The {@link #snapshot() snapshot} is rebuilt only when the version
+ * moved, so polls of an unchanged state cost neither a copy nor a sort.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LatestReadingCache implements SensorDataListener {
+
+  private final SensorDataRepository repository;
+  private final ConcurrentMap<String, SensorReadingResponse> latest = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+  /**
+   * Distinguishes versions of different application runs, the counter starts from zero on every start
+   */
+  private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+  private volatile SensorSnapshot snapshot;
+
+  @PostConstruct
+  void warmUp() {
+    final List<SensorData> readings = repository.findLatestPerSensor();
+    readings.forEach(this::update);
+    log.info("Latest reading cache warmed with {} sensors", readings.size());
+  }
+
+  @Override
+  public void onSensorDataStored(List<SensorData> readings) {
+    readings.forEach(this::update);
+  }
+
+  public Optional<SensorReadingResponse> get(String sensorId) {
+    return Optional.ofNullable(latest.get(sensorId));
+  }
+
+  /**
+   * @return newest reading over all sensors
+   */
+  public Optional<SensorReadingResponse> newest() {
+    return latest.values().stream().max(Comparator.comparing(SensorReadingResponse::timestamp));
+  }
+
+  public Collection<SensorReadingResponse> all() {
+    return Collections.unmodifiableCollection(latest.values());
+  }
+
+  public SensorSnapshot snapshot() {
+    // version is read before the values, a concurrent update makes the next poll see a newer version
+    final long current = version.get();
+    final String tag = epoch + "-" + current;
+    SensorSnapshot cached = snapshot;
+    if (cached == null || !cached.version().equals(tag)) {
+      final var readings = new ArrayList<>(latest.values());
+      readings.sort(Comparator.comparing(SensorReadingResponse::sensorId));
+      cached = new SensorSnapshot(tag, List.copyOf(readings));
+      snapshot = cached;
+    }
+    return cached;
+  }
+
+  private void update(SensorData reading) {
+    final var candidate = new SensorReadingResponse(reading.getSensorId(), reading.getTimestamp(),
+        reading.getTemperature(), reading.getHumidity());
+    final var stored = latest.merge(reading.getSensorId(), candidate,
+        (current, next) -> next.timestamp().isAfter(current.timestamp()) ? next : current);
+    if (stored == candidate) {
+      version.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.api.request.SensorLocationRequest;
+import cz.telemetry.whiskey.api.response.SensorLocationResponse;
+import cz.telemetry.whiskey.exception.EntityNotFoundException;
+import cz.telemetry.whiskey.repository.LocationRepository;
+import cz.telemetry.whiskey.security.sensor.Location;
+import cz.telemetry.whiskey.service.LocationService;
+import jakarta.transaction.Transactional;
+import java.util.Comparator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class LocationServiceImpl implements LocationService {
+
+  private final LocationRepository locationRepository;
+  private final SensorTopology sensorTopology;
+
+  @Override
+  public List<SensorLocationResponse> getSensorLocations() {
+    return locationRepository.findAllBySensorIdNotNull().stream()
+        .sorted(Comparator.comparing(Location::getLocationName).thenComparing(Location::getSensorId))
+        .map(LocationServiceImpl::toResponse)
+        .toList();
+  }
+
+  @Override
+  public SensorLocationResponse placeSensor(String sensorId, SensorLocationRequest request) {
+    final var location = locationRepository.findBySensorId(sensorId).orElseGet(Location::new);
+    location.setSensorId(sensorId);
+    location.setLocationName(request.locationName());
+    location.setSensorName(request.sensorName());
+    final var saved = locationRepository.save(location);
+    sensorTopology.invalidateAfterCommit();
+    return toResponse(saved);
+  }
+
+  @Override
+  public void removeSensor(String sensorId) {
+    final var location = locationRepository.findBySensorId(sensorId)
+        .orElseThrow(() -> new EntityNotFoundException(Location.class));
+    locationRepository.delete(location);
+    sensorTopology.invalidateAfterCommit();
+  }
+
+  private static SensorLocationResponse toResponse(Location location) {
+    return new SensorLocationResponse(location.getSensorId(), location.getSensorName(),
+        location.getLocationName());
+  }
+}
@@ -0,0 +1,45 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.properties.PartitionProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import java.time.YearMonth;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps monthly partitions of {@code sensor_data} ahead of time. Runs at startup as well, so a long downtime
+ * never leaves the current month in the default partition. Expired partitions are removed by the
+ * {@link RetentionJob} once their rollups are verified.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionMaintenanceJob {
+
+  private final SensorDataPartitionRepository partitionRepository;
+  private final WhiskeyProperties whiskeyProperties;
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${whiskey.partition.cron:0 0 2 * * *}")
+  public void maintainPartitions() {
+    maintainPartitions(YearMonth.now());
+  }
+
+  void maintainPartitions(YearMonth current) {
+    final PartitionProperties properties = whiskeyProperties.getPartition();
+    final var existing = partitionRepository.findMonths();
+
+    for (int i = 0; i <= properties.getPremadeMonths(); i++) {
+      final var month = current.plusMonths(i);
+      if (!existing.contains(month)) {
+        partitionRepository.createMonth(month);
+        log.info("Created partition {}", SensorDataPartitionRepository.tableName(month));
+      }
+    }
+  }
+}
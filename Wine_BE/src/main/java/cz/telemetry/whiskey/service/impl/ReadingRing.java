@@ -0,0 +1,200 @@
+package cz.telemetry.whiskey.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * Readings of one sensor ordered by timestamp in a ring of primitive arrays, timestamps as epoch
+ * microseconds. The arrays grow up to the capacity, beyond it the oldest reading is dropped for every new one.
+ *
+ * <p>Every dropped reading moves {@link #coveredFromMicros()} past it: from there on the ring holds every
+ * reading it was given. Not thread safe, {@link RecentReadingBuffer} guards each ring by its monitor.
+ */
+final class ReadingRing {
+
+  /**
+   * Bytes of one slot: id, timestamp, temperature, humidity and quality flag
+   */
+  static final int BYTES_PER_READING = 8 + 8 + 8 + 8 + 2;
+
+  private static final int INITIAL_LENGTH = 64;
+
+  private final int capacity;
+  private long[] ids;
+  private long[] epochMicros;
+  private double[] temperatures;
+  private double[] humidities;
+  private short[] qualityFlags;
+  private int head;
+  private int size;
+  private long coveredFromMicros = Long.MIN_VALUE;
+
+  ReadingRing(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+    final int length = Math.min(capacity, INITIAL_LENGTH);
+    ids = new long[length];
+    epochMicros = new long[length];
+    temperatures = new double[length];
+    humidities = new double[length];
+    qualityFlags = new short[length];
+  }
+
+  /**
+   * Adds the reading at its place in timestamp order, usually the end.
+   *
+   * @return {@code false} when a reading with the same timestamp is present or the reading is older than
+   * {@link #coveredFromMicros()}
+   */
+  boolean add(long id, long epochMicros, double temperature, double humidity, short qualityFlag) {
+    if (epochMicros < coveredFromMicros) {
+      return false;
+    }
+    int index = size;
+    if (size > 0 && epochMicros <= epochMicros(size - 1)) {
+      index = lowerBound(epochMicros);
+      if (epochMicros(index) == epochMicros) {
+        return false;
+      }
+    }
+    if (size == capacity) {
+      if (index == 0) {
+        // older than everything kept, it would be dropped right away
+        coveredFromMicros = epochMicros + 1;
+        return false;
+      }
+      dropOldest();
+      index--;
+    } else if (size == ids.length) {
+      grow();
+    }
+    for (int i = size; i > index; i--) {
+      copy(slot(i - 1), slot(i));
+    }
+    final int slot = slot(index);
+    ids[slot] = id;
+    this.epochMicros[slot] = epochMicros;
+    temperatures[slot] = temperature;
+    humidities[slot] = humidity;
+    qualityFlags[slot] = qualityFlag;
+    size++;
+    return true;
+  }
+
+  /**
+   * Drops the readings older than {@code epochMicros}.
+   */
+  void dropBefore(long epochMicros) {
+    while (size > 0 && epochMicros(0) < epochMicros) {
+      dropOldest();
+    }
+    coveredFromMicros = Math.max(coveredFromMicros, epochMicros);
+  }
+
+  /**
+   * @return index of the first reading with a timestamp of at least {@code epochMicros}, {@link #size()} when
+   * there is none
+   */
+  int lowerBound(long epochMicros) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (epochMicros(middle) < epochMicros) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the earliest time from which the ring holds every reading it was given
+   */
+  long coveredFromMicros() {
+    return coveredFromMicros;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return bytes taken by the arrays
+   */
+  long bytes() {
+    return (long) ids.length * BYTES_PER_READING;
+  }
+
+  long id(int index) {
+    return ids[slot(index)];
+  }
+
+  long epochMicros(int index) {
+    return epochMicros[slot(index)];
+  }
+
+  double temperature(int index) {
+    return temperatures[slot(index)];
+  }
+
+  double humidity(int index) {
+    return humidities[slot(index)];
+  }
+
+  short qualityFlag(int index) {
+    return qualityFlags[slot(index)];
+  }
+
+  private void dropOldest() {
+    coveredFromMicros = Math.max(coveredFromMicros, epochMicros(0) + 1);
+    head = slot(1);
+    size--;
+  }
+
+  private int slot(int index) {
+    final int slot = head + index;
+    return slot < ids.length ? slot : slot - ids.length;
+  }
+
+  private void copy(int from, int to) {
+    ids[to] = ids[from];
+    epochMicros[to] = epochMicros[from];
+    temperatures[to] = temperatures[from];
+    humidities[to] = humidities[from];
+    qualityFlags[to] = qualityFlags[from];
+  }
+
+  /**
+   * Doubles the arrays up to the capacity, unrolling the ring to start at slot 0.
+   */
+  private void grow() {
+    final int length = (int) Math.min(capacity, ids.length * 2L);
+    ids = unroll(ids, length);
+    epochMicros = unroll(epochMicros, length);
+    temperatures = unroll(temperatures, length);
+    humidities = unroll(humidities, length);
+    qualityFlags = unroll(qualityFlags, length);
+    head = 0;
+  }
+
+  private long[] unroll(long[] array, int length) {
+    final long[] grown = Arrays.copyOfRange(array, head, head + length);
+    System.arraycopy(array, 0, grown, array.length - head, head);
+    return grown;
+  }
+
+  private double[] unroll(double[] array, int length) {
+    final double[] grown = Arrays.copyOfRange(array, head, head + length);
+    System.arraycopy(array, 0, grown, array.length - head, head);
+    return grown;
+  }
+
+  private short[] unroll(short[] array, int length) {
+    final short[] grown = Arrays.copyOfRange(array, head, head + length);
+    System.arraycopy(array, 0, grown, array.length - head, head);
+    return grown;
+  }
+}
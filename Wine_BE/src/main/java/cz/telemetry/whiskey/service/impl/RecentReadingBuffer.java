@@ -0,0 +1,332 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.archive.ReadingColumns;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.RecentBufferProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.ReadingAggregator;
+import cz.telemetry.whiskey.repository.RollupGroup;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.repository.SensorDataRowHandler;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Readings of the last {@link RecentBufferProperties#getWindow() window} per sensor in {@link ReadingRing rings}
+ * of primitive arrays, warmed from the database at startup and fed by the ingest path. Ranges starting inside
+ * the window are aggregated and streamed from memory without touching the database.
+ *
+ * <p>A query is answered only when every ring it reads holds all readings of the range, otherwise it returns
+ * {@link Optional#empty() empty} or {@code false} and the caller asks the database. A ring which dropped
+ * readings for its capacity answers only ranges starting after them. Writes bypassing the listeners, like the
+ * CSV and NDJSON imports, have to be reported through {@link #invalidateUntil}.
+ */
+@Slf4j
+@Component
+public class RecentReadingBuffer implements SensorDataListener {
+
+  private final RecentBufferProperties properties;
+  private final SensorDataRepository repository;
+  private final TransactionTemplate transactionTemplate;
+  private final Clock clock;
+  private final long windowMicros;
+  private final ConcurrentMap<String, ReadingRing> rings = new ConcurrentHashMap<>();
+  /**
+   * Readings changed without being reported to the listeners end before it
+   */
+  private final AtomicLong invalidatedUntilMicros = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Start of the warm-up, nothing is answered before the warm-up finished
+   */
+  private volatile long warmedFromMicros = Long.MAX_VALUE;
+
+  @Autowired
+  public RecentReadingBuffer(WhiskeyProperties whiskeyProperties, SensorDataRepository repository,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+    this(whiskeyProperties, repository, transactionManager, meterRegistry, Clock.systemDefaultZone());
+  }
+
+  RecentReadingBuffer(WhiskeyProperties whiskeyProperties, SensorDataRepository repository,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, Clock clock) {
+    this.properties = whiskeyProperties.getRecentBuffer();
+    this.repository = repository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.clock = clock;
+    this.windowMicros = properties.getWindow().toNanos() / 1000;
+    Gauge.builder("whiskey.recent.buffer.readings", this, RecentReadingBuffer::readings)
+        .description("Readings held in memory for queries of recent ranges")
+        .register(meterRegistry);
+    Gauge.builder("whiskey.recent.buffer.memory", this, RecentReadingBuffer::memoryBytes)
+        .description("Bytes taken by the readings held in memory")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void warmUp() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    final var from = clock.instant().minus(properties.getWindow());
+    final long[] loaded = new long[1];
+    // inside a transaction, otherwise the driver fetches the whole window at once
+    transactionTemplate.executeWithoutResult(status -> repository.streamReadingsSince(from,
+        (sensorId, readings) -> {
+          final var ring = ring(sensorId);
+          synchronized (ring) {
+            for (int i = 0; i < readings.size(); i++) {
+              ring.add(readings.id(i), readings.epochMicros(i), readings.temperature(i), readings.humidity(i),
+                  readings.qualityFlag(i));
+            }
+          }
+          loaded[0] += readings.size();
+        }));
+    warmedFromMicros = SensorDataArchive.epochMicros(from);
+    log.info("Recent reading buffer warmed with {} readings of {} sensors, {} bytes", loaded[0], rings.size(),
+        memoryBytes());
+  }
+
+  @Override
+  public void onSensorDataStored(List<SensorData> readings) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    final long windowStart = SensorDataArchive.epochMicros(clock.instant()) - windowMicros;
+    for (SensorData reading : readings) {
+      final var ring = ring(reading.getSensorId());
+      synchronized (ring) {
+        ring.dropBefore(windowStart);
+        ring.add(reading.getId(), SensorDataArchive.epochMicros(reading.getTimestamp()), reading.getTemperature(),
+            reading.getHumidity(), reading.getQualityFlag());
+      }
+    }
+  }
+
+  /**
+   * Stops answering ranges starting before {@code until}, for readings stored or deleted without being
+   * reported to the listeners.
+   */
+  public void invalidateUntil(Instant until) {
+    final long untilMicros = SensorDataArchive.epochMicros(until) + 1;
+    invalidatedUntilMicros.accumulateAndGet(untilMicros, Math::max);
+  }
+
+  /**
+   * Same groups as {@link cz.telemetry.whiskey.repository.SensorDataRollupRepository#aggregateGroups} over
+   * the clean readings in {@code [from, to)}.
+   *
+   * @return {@link Optional#empty() empty} when the buffer does not hold every reading of the range
+   */
+  public Optional<List<RollupGroup>> aggregateGroups(LocalDateTime from, LocalDateTime to,
+      RollupResolution bucket, boolean bySensor, Collection<String> sensorIds) {
+    return aggregate(from, to, ReadingAggregator.groups(bucket), bySensor, sensorIds);
+  }
+
+  /**
+   * Buckets of {@code bucketSeconds} starting at {@code from} over the clean readings in {@code [from, to)},
+   * like the raw series of {@link cz.telemetry.whiskey.repository.SensorDataRollupRepository#series}.
+   *
+   * @return {@link Optional#empty() empty} when the buffer does not hold every reading of the range
+   */
+  public Optional<List<RollupGroup>> series(LocalDateTime from, LocalDateTime to, long bucketSeconds,
+      Collection<String> sensorIds) {
+    return aggregate(from, to, ReadingAggregator.series(from, bucketSeconds), false, sensorIds);
+  }
+
+  /**
+   * Streams readings with {@code from <= timestamp <= to} ordered by timestamp, like
+   * {@link cz.telemetry.whiskey.repository.SensorDataRepositoryCustom#streamBetween}. The readings are
+   * copied out of the rings first, a slow handler does not hold up the ingest.
+   *
+   * @return {@code false} without calling the handler when the buffer does not hold every reading of the range
+   */
+  public boolean stream(Instant from, Instant to, SensorDataRowHandler handler) {
+    final var slices = slices(from, to);
+    if (slices == null) {
+      return false;
+    }
+    final int[] positions = new int[slices.size()];
+    try {
+      while (true) {
+        int next = -1;
+        for (int i = 0; i < positions.length; i++) {
+          final var readings = slices.get(i).readings();
+          if (positions[i] < readings.size() && (next < 0
+              || readings.epochMicros(positions[i]) < slices.get(next).readings().epochMicros(positions[next]))) {
+            next = i;
+          }
+        }
+        if (next < 0) {
+          return true;
+        }
+        final var slice = slices.get(next);
+        final int index = positions[next]++;
+        handler.handle(slice.readings().id(index), SensorDataArchive.instant(slice.readings().epochMicros(index)),
+            slice.sensorId(), slice.readings().temperature(index), slice.readings().humidity(index));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Streams readings with {@code from <= timestamp <= to} ordered by sensor and timestamp, like
+   * {@link cz.telemetry.whiskey.repository.SensorDataRepositoryCustom#streamColumnsBetween}.
+   *
+   * @return {@code false} without calling the handler when the buffer does not hold every reading of the range
+   */
+  public boolean streamColumns(Instant from, Instant to, SensorDataColumnHandler handler) {
+    final var slices = slices(from, to);
+    if (slices == null) {
+      return false;
+    }
+    try {
+      for (Slice slice : slices) {
+        final var readings = slice.readings();
+        for (int i = 0; i < readings.size(); i++) {
+          handler.handle(slice.sensorId(), Math.floorDiv(readings.epochMicros(i), 1000), readings.temperature(i),
+              readings.humidity(i));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return true;
+  }
+
+  long readings() {
+    long readings = 0;
+    for (ReadingRing ring : rings.values()) {
+      synchronized (ring) {
+        readings += ring.size();
+      }
+    }
+    return readings;
+  }
+
+  long memoryBytes() {
+    long bytes = 0;
+    for (ReadingRing ring : rings.values()) {
+      synchronized (ring) {
+        bytes += ring.bytes();
+      }
+    }
+    return bytes;
+  }
+
+  private Optional<List<RollupGroup>> aggregate(LocalDateTime from, LocalDateTime to,
+      ReadingAggregator aggregator, boolean bySensor, Collection<String> sensorIds) {
+    final var zone = ZoneId.systemDefault();
+    final long fromMicros = SensorDataArchive.epochMicros(from.atZone(zone).toInstant());
+    final long toMicros = SensorDataArchive.epochMicros(to.atZone(zone).toInstant());
+    if (!covers(fromMicros)) {
+      return Optional.empty();
+    }
+    for (Map.Entry<String, ReadingRing> entry : selected(sensorIds)) {
+      final var ring = entry.getValue();
+      synchronized (ring) {
+        if (ring.coveredFromMicros() > fromMicros) {
+          return Optional.empty();
+        }
+        aggregator.sensor(bySensor ? entry.getKey() : null);
+        for (int i = ring.lowerBound(fromMicros); i < ring.size() && ring.epochMicros(i) < toMicros; i++) {
+          if (ring.qualityFlag(i) == 0) {
+            aggregator.add(ring.epochMicros(i), ring.temperature(i), ring.humidity(i));
+          }
+        }
+      }
+    }
+    return Optional.of(aggregator.result());
+  }
+
+  /**
+   * @return copies of the readings with {@code from <= timestamp <= to} ordered by sensor, {@code null} when
+   * the buffer does not hold all of them
+   */
+  private List<Slice> slices(Instant from, Instant to) {
+    final long fromMicros = SensorDataArchive.epochMicros(from);
+    final long toMicros = SensorDataArchive.epochMicros(to) + 1;
+    if (!covers(fromMicros)) {
+      return null;
+    }
+    final List<Slice> slices = new ArrayList<>();
+    for (Map.Entry<String, ReadingRing> entry : selected(null)) {
+      final var ring = entry.getValue();
+      final var readings = new ReadingColumns();
+      synchronized (ring) {
+        if (ring.coveredFromMicros() > fromMicros) {
+          return null;
+        }
+        for (int i = ring.lowerBound(fromMicros); i < ring.size() && ring.epochMicros(i) < toMicros; i++) {
+          readings.add(ring.id(i), ring.epochMicros(i), ring.temperature(i), ring.humidity(i),
+              ring.qualityFlag(i));
+        }
+      }
+      if (readings.size() > 0) {
+        slices.add(new Slice(entry.getKey(), readings));
+      }
+    }
+    slices.sort(Comparator.comparing(Slice::sensorId));
+    return slices;
+  }
+
+  private boolean covers(long fromMicros) {
+    return properties.isEnabled()
+        && fromMicros >= warmedFromMicros
+        && fromMicros >= invalidatedUntilMicros.get()
+        && fromMicros >= SensorDataArchive.epochMicros(clock.instant()) - windowMicros;
+  }
+
+  /**
+   * @param sensorIds {@code null} for all sensors
+   */
+  private Collection<Map.Entry<String, ReadingRing>> selected(Collection<String> sensorIds) {
+    if (sensorIds == null) {
+      return rings.entrySet();
+    }
+    final List<Map.Entry<String, ReadingRing>> selected = new ArrayList<>(sensorIds.size());
+    for (String sensorId : sensorIds) {
+      final var ring = rings.get(sensorId);
+      if (ring != null) {
+        selected.add(Map.entry(sensorId, ring));
+      }
+    }
+    return selected;
+  }
+
+  private ReadingRing ring(String sensorId) {
+    final var ring = rings.get(sensorId);
+    return ring != null ? ring : rings.computeIfAbsent(sensorId, id -> new ReadingRing(properties.getCapacity()));
+  }
+
+  private record Slice(String sensorId, ReadingColumns readings) {
+
+  }
+}
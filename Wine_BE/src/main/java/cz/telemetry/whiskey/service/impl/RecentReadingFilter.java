@@ -0,0 +1,86 @@
+package cz.telemetry.whiskey.service.impl;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the last few reading timestamps of every sensor which are known to be stored.
+ *
+ * <p>A hit means the reading is certainly a duplicate and the database does not need to be asked, a miss
+ * means nothing and the unique constraint decides. Each sensor has a fixed ring of timestamps written and
+ * scanned without locks, a lost race only causes a miss.
+ */
+@Component
+public class RecentReadingFilter {
+
+  /**
+   * Timestamps remembered per sensor, covers a couple of minutes of replays at one reading per 2 s
+   */
+  static final int WINDOW_SIZE = 64;
+
+  /**
+   * Sensors beyond this count are not filtered, so unknown sensor ids cannot grow the map without bound
+   */
+  static final int MAX_SENSORS = 1024;
+
+  private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+  /**
+   * @return {@code true} when the reading was recently confirmed as stored
+   */
+  public boolean isKnown(String sensorId, Instant timestamp) {
+    final var window = windows.get(sensorId);
+    return window != null && window.contains(toKey(timestamp));
+  }
+
+  /**
+   * Records a reading which is stored in the database, either inserted or rejected by the unique constraint.
+   */
+  public void remember(String sensorId, Instant timestamp) {
+    var window = windows.get(sensorId);
+    if (window == null) {
+      if (windows.size() >= MAX_SENSORS) {
+        return;
+      }
+      window = windows.computeIfAbsent(sensorId, id -> new Window());
+    }
+    window.add(toKey(timestamp));
+  }
+
+  private static long toKey(Instant timestamp) {
+    return ChronoUnit.MICROS.between(Instant.EPOCH, timestamp);
+  }
+
+  private static final class Window {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final AtomicLongArray keys = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicInteger next = new AtomicInteger();
+
+    Window() {
+      for (int i = 0; i < WINDOW_SIZE; i++) {
+        keys.set(i, EMPTY);
+      }
+    }
+
+    boolean contains(long key) {
+      for (int i = 0; i < WINDOW_SIZE; i++) {
+        if (keys.get(i) == key) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void add(long key) {
+      if (!contains(key)) {
+        keys.set(Math.floorMod(next.getAndIncrement(), WINDOW_SIZE), key);
+      }
+    }
+  }
+}
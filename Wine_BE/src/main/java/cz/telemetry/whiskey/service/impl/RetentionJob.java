@@ -0,0 +1,195 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.PartitionProperties;
+import cz.telemetry.whiskey.config.properties.RetentionProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRetentionRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes readings, rollups and sketches older than their {@link RetentionProperties retention}.
+ *
+ * <p>Raw readings go one day at a time, oldest first. Before a day is removed, the rollups and sketches which
+ * outlive it are checked to count every clean reading of every sensor; a day which does not match is rebuilt
+ * from the raw readings first and skipped if it still does not match. Monthly partitions which expired as a
+ * whole are verified the same way and then dropped or detached as configured for the partitions, the rest is
+ * deleted in throttled chunks. Queries of removed days are then answered from the rollups, at minute
+ * precision at best.
+ *
+ * <p>Months in the {@link SensorDataArchive archive} were verified when they were archived, they are removed
+ * from the archive once they expired as a whole. Their readings which arrived late are left to the next
+ * archive run, verifying them alone would rebuild the rollups of the whole day from a fraction of it.
+ *
+ * <p>A run stops after its maximum run time, the next run continues where it stopped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetentionJob {
+
+  private final SensorDataRetentionRepository retentionRepository;
+  private final SensorDataPartitionRepository partitionRepository;
+  private final RollupVerifier rollupVerifier;
+  private final SensorDataArchive archive;
+  private final WhiskeyProperties whiskeyProperties;
+  private final AggregateResultCache aggregateResultCache;
+
+  @Scheduled(cron = "${whiskey.retention.cron:0 0 4 * * *}")
+  public void applyRetention() {
+    applyRetention(LocalDate.now());
+  }
+
+  void applyRetention(LocalDate today) {
+    final RetentionProperties properties = whiskeyProperties.getRetention();
+    final long deadline = System.nanoTime() + properties.getMaxRunTime().toNanos();
+    final var removed = new Removed();
+    try {
+      if (properties.getRawDays() > 0) {
+        expireReadings(today.minusDays(properties.getRawDays()).atStartOfDay(), deadline, removed);
+      }
+      for (RollupResolution resolution : RollupResolution.values()) {
+        final int days = properties.rollupDays(resolution);
+        if (days > 0) {
+          removed.rollups += deleteInChunks(deadline, () -> retentionRepository.deleteRollups(resolution,
+              today.minusDays(days).atStartOfDay(), properties.getChunkSize()));
+        }
+      }
+      if (properties.getHourDays() > 0) {
+        removed.sketches += deleteInChunks(deadline, () -> retentionRepository.deleteSketches(
+            today.minusDays(properties.getHourDays()).atStartOfDay(), properties.getChunkSize()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (removed.any()) {
+        aggregateResultCache.invalidateAll();
+      }
+      log.info("Retention removed {} partitions, {} archived months, {} readings, {} rollups and {} sketch rows{}",
+          removed.partitions, removed.archivedMonths, removed.readings, removed.rollups, removed.sketches,
+          System.nanoTime() - deadline >= 0 ? ", stopped at the maximum run time" : "");
+    }
+  }
+
+  private void expireReadings(LocalDateTime cutoff, long deadline, Removed removed) throws InterruptedException {
+    final var checked = checkedResolutions();
+    final boolean sketches = outlivesRaw(whiskeyProperties.getRetention().getHourDays());
+
+    for (final var month : partitionRepository.findMonths()) {
+      final var start = month.atDay(1).atStartOfDay();
+      final var end = month.plusMonths(1).atDay(1).atStartOfDay();
+      if (end.isAfter(cutoff) || expired(deadline)) {
+        break;
+      }
+      if (!rollupVerifier.verify(start, end, checked, sketches)) {
+        continue;
+      }
+      if (whiskeyProperties.getPartition().getExpiredAction() == PartitionProperties.ExpiredAction.DROP) {
+        partitionRepository.dropMonth(month);
+      } else {
+        partitionRepository.detachMonth(month);
+      }
+      removed.partitions++;
+      log.info("Expired partition {} ({})", SensorDataPartitionRepository.tableName(month),
+          whiskeyProperties.getPartition().getExpiredAction());
+    }
+
+    for (final var month : List.copyOf(archive.months())) {
+      if (month.plusMonths(1).atDay(1).atStartOfDay().isAfter(cutoff) || expired(deadline)) {
+        break;
+      }
+      try {
+        archive.delete(month);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      removed.archivedMonths++;
+      log.info("Expired archived month {}", month);
+    }
+
+    // the remaining days live in partially expired months or in the default partition
+    LocalDateTime from = null;
+    while (!expired(deadline)) {
+      final var oldest = retentionRepository.findOldestReading(from, cutoff);
+      if (oldest.isEmpty()) {
+        break;
+      }
+      final var day = RollupResolution.DAY.floor(oldest.get());
+      final var month = YearMonth.from(day);
+      if (archive.isArchived(month)) {
+        from = month.plusMonths(1).atDay(1).atStartOfDay();
+        continue;
+      }
+      final var next = day.plusDays(1);
+      from = next;
+      if (!rollupVerifier.verify(day, next, checked, sketches)) {
+        continue;
+      }
+      removed.readings += deleteInChunks(deadline, () -> retentionRepository.deleteReadings(day, next,
+          whiskeyProperties.getRetention().getChunkSize()));
+    }
+  }
+
+  private long deleteInChunks(long deadline, IntSupplier chunk) throws InterruptedException {
+    final var properties = whiskeyProperties.getRetention();
+    long total = 0;
+    while (!expired(deadline)) {
+      final int deleted = chunk.getAsInt();
+      total += deleted;
+      if (deleted < properties.getChunkSize()) {
+        break;
+      }
+      if (properties.getChunkPause().toMillis() > 0) {
+        Thread.sleep(properties.getChunkPause().toMillis());
+      }
+    }
+    return total;
+  }
+
+  /**
+   * @return resolutions still kept once the raw readings are removed
+   */
+  private List<RollupResolution> checkedResolutions() {
+    final List<RollupResolution> checked = new ArrayList<>();
+    for (RollupResolution resolution : RollupResolution.values()) {
+      if (outlivesRaw(whiskeyProperties.getRetention().rollupDays(resolution))) {
+        checked.add(resolution);
+      }
+    }
+    return checked;
+  }
+
+  private boolean outlivesRaw(int days) {
+    return days <= 0 || days > whiskeyProperties.getRetention().getRawDays();
+  }
+
+  private static boolean expired(long deadline) {
+    return System.nanoTime() - deadline >= 0;
+  }
+
+  private static final class Removed {
+
+    private int partitions;
+    private int archivedMonths;
+    private long readings;
+    private long rollups;
+    private long sketches;
+
+    boolean any() {
+      return partitions + archivedMonths + readings + rollups + sketches > 0;
+    }
+  }
+}
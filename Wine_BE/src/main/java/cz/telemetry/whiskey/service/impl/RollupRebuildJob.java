@@ -0,0 +1,49 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.SensorDataSketchRepository;
+import java.time.LocalDate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the rollups and sketches of the last few days from raw readings. Incremental maintenance keeps them exact,
+ * the rebuild repairs rollups after manual changes of {@code sensor_data}, cached aggregates computed from the
+ * broken rollups are dropped afterwards. Days whose raw readings may already be removed by {@link RetentionJob}
+ * are never rebuilt, their rollups are all that is left of them, neither are days of archived months or before them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupRebuildJob {
+
+  private final SensorDataRollupRepository rollupRepository;
+  private final SensorDataSketchRepository sketchRepository;
+  private final WhiskeyProperties whiskeyProperties;
+  private final SensorDataArchive archive;
+  private final AggregateResultCache aggregateResultCache;
+
+  @Scheduled(cron = "${whiskey.rollup.rebuild-cron:0 30 3 * * *}")
+  public void rebuildRecent() {
+    final var today = LocalDate.now();
+    var from = today.minusDays(whiskeyProperties.getRollup().getRebuildDays() - 1L);
+    final int rawDays = whiskeyProperties.getRetention().getRawDays();
+    if (rawDays > 0 && from.isBefore(today.minusDays(rawDays - 1L))) {
+      from = today.minusDays(rawDays - 1L);
+    }
+    if (!archive.months().isEmpty() && from.isBefore(archive.months().last().plusMonths(1).atDay(1))) {
+      from = archive.months().last().plusMonths(1).atDay(1);
+    }
+    if (from.isAfter(today)) {
+      return;
+    }
+    final int rows = rollupRepository.rebuild(from.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    final int sketchRows = sketchRepository.rebuild(from.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    aggregateResultCache.invalidateAll();
+    log.info("Rebuilt {} rollup rows and {} sketch rows from {} to {}", rows, sketchRows, from, today);
+  }
+}
@@ -0,0 +1,46 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataRetentionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.SensorDataSketchRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks that the rollups and sketches of a range count every clean raw reading before the raw readings leave
+ * the database, by {@link RetentionJob} or to the archive.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupVerifier {
+
+  private final SensorDataRetentionRepository retentionRepository;
+  private final SensorDataRollupRepository rollupRepository;
+  private final SensorDataSketchRepository sketchRepository;
+
+  /**
+   * Verifies the summaries of whole days in {@code [from, to)}, rebuilding them once if they do not match.
+   *
+   * @param resolutions rollups which must match
+   * @param sketches    the sketches of both metrics must match as well
+   */
+  public boolean verify(LocalDateTime from, LocalDateTime to, Collection<RollupResolution> resolutions,
+      boolean sketches) {
+    if (retentionRepository.summariesMatch(from, to, resolutions, sketches)) {
+      return true;
+    }
+    log.warn("Rollups from {} to {} do not match the raw readings, rebuilding them before removal", from, to);
+    rollupRepository.rebuild(from, to);
+    sketchRepository.rebuild(from, to);
+    if (retentionRepository.summariesMatch(from, to, resolutions, sketches)) {
+      return true;
+    }
+    log.error("Rollups from {} to {} still do not match the raw readings, keeping the readings", from, to);
+    return false;
+  }
+}
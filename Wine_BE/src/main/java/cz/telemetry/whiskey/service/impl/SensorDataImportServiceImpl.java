@@ -0,0 +1,342 @@
+package cz.telemetry.whiskey.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import cz.telemetry.whiskey.api.response.SensorDataImportResponse;
+import cz.telemetry.whiskey.archive.ArchivedReadingFilter;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.exception.InvalidImportException;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.SensorDataSketchRepository;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataImportService;
+import jakarta.transaction.Transactional;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bulk import through {@code COPY FROM STDIN} into a temporary staging table which is then merged into
+ * {@code sensor_data} by a single {@code INSERT ... SELECT ... ON CONFLICT DO NOTHING}.
+ *
+ * <p>The upload is parsed line by line and streamed straight into the COPY, so memory use does not depend on
+ * its size. Rows which cannot be parsed are counted and skipped, they do not abort the import. The staging
+ * table is dropped on commit, the whole import is one transaction. Imported readings are not reported to
+ * listeners, cached aggregates are dropped as a whole once it commits and the {@link RecentReadingBuffer}
+ * stops answering ranges starting before the newest imported reading. Historical data is not inspected by
+ * {@link SensorQualityDetector}, imported readings are stored as clean. Readings the archive already holds are
+ * counted as duplicates without reaching the COPY.
+ */
+@Slf4j
+@Service
+public class SensorDataImportServiceImpl implements SensorDataImportService {
+
+  private static final int MAX_REPORTED_ERRORS = 10;
+
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private static final String CREATE_STAGING_SQL = """
+      CREATE TEMPORARY TABLE sensor_data_import (
+          temperature double precision,
+          humidity    double precision,
+          timestamp   timestamptz,
+          sensor_id   varchar(128)
+      ) ON COMMIT DROP""";
+
+  private static final String COPY_SQL =
+      "COPY sensor_data_import (temperature, humidity, timestamp, sensor_id) FROM STDIN";
+
+  /**
+   * The staging column is {@code timestamptz} so the instants can be sent as unambiguous ISO strings. The
+   * cast to {@code timestamp} uses the session time zone, which the driver sets to the JVM zone, giving the
+   * same wall time Hibernate and the JDBC insert path store. Rollups and sketches are updated by the same
+   * statement.
+   */
+  private static final String MERGE_SQL = """
+      WITH inserted AS (
+          INSERT INTO sensor_data (temperature, humidity, timestamp, sensor_id)
+          SELECT temperature, humidity, timestamp::timestamp, sensor_id FROM sensor_data_import
+          ON CONFLICT (timestamp, sensor_id) DO NOTHING
+          RETURNING timestamp, sensor_id, temperature, humidity, quality_flag
+      ), rollup AS (
+      """ + SensorDataRollupRepository.UPSERT_FROM_INSERTED + """
+      ), sketch AS (
+      """ + SensorDataSketchRepository.UPSERT_FROM_INSERTED + """
+      )
+      SELECT count(*) AS accepted, max(timestamp) AS newest FROM inserted""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectReader dtoReader;
+  private final AggregateResultCache aggregateResultCache;
+  private final RecentReadingBuffer recentReadingBuffer;
+  private final SensorDataArchive archive;
+
+  public SensorDataImportServiceImpl(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+      AggregateResultCache aggregateResultCache, RecentReadingBuffer recentReadingBuffer,
+      SensorDataArchive archive) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dtoReader = objectMapper.readerFor(SensorDataDto.class);
+    this.aggregateResultCache = aggregateResultCache;
+    this.recentReadingBuffer = recentReadingBuffer;
+    this.archive = archive;
+  }
+
+  @Override
+  @Transactional
+  public SensorDataImportResponse importNdjson(InputStream body) {
+    return importRows(body, line -> validate(dtoReader.readValue(line)));
+  }
+
+  @Override
+  @Transactional
+  public SensorDataImportResponse importCsv(InputStream body) {
+    return importRows(body, new CsvRowParser());
+  }
+
+  private SensorDataImportResponse importRows(InputStream body, RowParser parser) {
+    final long started = System.nanoTime();
+    final var counters = new Counters();
+
+    jdbcTemplate.execute(CREATE_STAGING_SQL);
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      final var copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL, COPY_BUFFER_SIZE);
+      try {
+        final var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8),
+            COPY_BUFFER_SIZE);
+        copyRows(reader, writer, parser, counters);
+        writer.flush();
+        copy.endCopy();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        if (copy.isActive()) {
+          copy.cancelCopy();
+        }
+      }
+      return null;
+    });
+    final var merged = jdbcTemplate.queryForMap(MERGE_SQL);
+    final long accepted = ((Number) merged.get("accepted")).longValue();
+    if (accepted > 0) {
+      aggregateResultCache.invalidateAllAfterCommit();
+      // right away, until the commit the database answers with the old state just as well
+      recentReadingBuffer.invalidateUntil(((Timestamp) merged.get("newest")).toInstant());
+    }
+
+    final long durationNanos = System.nanoTime() - started;
+    final long rows = counters.valid + counters.rejected;
+    final var response = new SensorDataImportResponse(
+        rows,
+        accepted,
+        counters.valid - accepted,
+        counters.rejected,
+        durationNanos / 1_000_000,
+        durationNanos == 0 ? 0 : rows * 1_000_000_000.0 / durationNanos,
+        counters.errors);
+    log.info("Imported {} of {} rows ({} duplicates, {} rejected) in {} ms", accepted, rows,
+        response.duplicates(), response.rejected(), response.durationMillis());
+    return response;
+  }
+
+  private void copyRows(BufferedReader reader, Writer writer, RowParser parser, Counters counters)
+      throws IOException {
+    final var archived = new ArchivedReadingFilter(archive);
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      final SensorDataDto dto;
+      try {
+        dto = parser.parse(line);
+      } catch (InvalidImportException e) {
+        throw e;
+      } catch (IOException | RuntimeException e) {
+        counters.reject(lineNumber, e);
+        continue;
+      }
+      if (dto == null) {
+        continue;
+      }
+      counters.valid++;
+      if (!archived.isArchived(dto.getSensorId(), dto.getTimestamp())) {
+        writeRow(writer, dto);
+      }
+    }
+  }
+
+  /**
+   * Writes one row in the COPY text format, columns separated by tabs.
+   */
+  private static void writeRow(Writer writer, SensorDataDto dto) throws IOException {
+    writer.write(Double.toString(dto.getTemperature()));
+    writer.write('\t');
+    writer.write(Double.toString(dto.getHumidity()));
+    writer.write('\t');
+    writer.write(dto.getTimestamp().truncatedTo(ChronoUnit.MICROS).toString());
+    writer.write('\t');
+    final String sensorId = dto.getSensorId();
+    for (int i = 0; i < sensorId.length(); i++) {
+      final char c = sensorId.charAt(i);
+      switch (c) {
+        case '\\' -> writer.write("\\\\");
+        case '\t' -> writer.write("\\t");
+        case '\n' -> writer.write("\\n");
+        case '\r' -> writer.write("\\r");
+        default -> writer.write(c);
+      }
+    }
+    writer.write('\n');
+  }
+
+  private static SensorDataDto validate(SensorDataDto dto) {
+    if (dto.getTimestamp() == null) {
+      throw new IllegalArgumentException("timestamp is missing");
+    }
+    if (dto.getSensorId() == null || dto.getSensorId().isEmpty()) {
+      throw new IllegalArgumentException("sensorId is missing");
+    }
+    if (dto.getSensorId().length() > SensorDataDto.MAX_SENSOR_ID_LENGTH) {
+      throw new IllegalArgumentException(
+          "sensorId is longer than " + SensorDataDto.MAX_SENSOR_ID_LENGTH + " characters");
+    }
+    return dto;
+  }
+
+  @FunctionalInterface
+  private interface RowParser {
+
+    /**
+     * @return parsed reading or {@code null} for a line which carries no reading (e.g. a header)
+     */
+    SensorDataDto parse(String line) throws IOException;
+  }
+
+  /**
+   * Comma separated values as of RFC 4180, the first line is the header. A field may be enclosed in double
+   * quotes to hold commas, a double quote inside it is written twice. Line breaks inside a quoted field are
+   * not supported, such a row is rejected as unterminated.
+   */
+  private static final class CsvRowParser implements RowParser {
+
+    private int timestampColumn = -1;
+    private int sensorIdColumn = -1;
+    private int temperatureColumn = -1;
+    private int humidityColumn = -1;
+    private int columns;
+
+    @Override
+    public SensorDataDto parse(String line) {
+      final String[] values = split(line);
+      if (columns == 0) {
+        readHeader(values);
+        return null;
+      }
+      if (values.length != columns) {
+        throw new IllegalArgumentException("expected " + columns + " columns but got " + values.length);
+      }
+      return validate(new SensorDataDto(
+          parseDouble(values, temperatureColumn),
+          parseDouble(values, humidityColumn),
+          Instant.parse(values[timestampColumn].trim()),
+          values[sensorIdColumn].trim()));
+    }
+
+    private void readHeader(String[] names) {
+      for (int i = 0; i < names.length; i++) {
+        switch (names[i].trim()) {
+          case "timestamp" -> timestampColumn = i;
+          case "sensorId" -> sensorIdColumn = i;
+          case "temperature" -> temperatureColumn = i;
+          case "humidity" -> humidityColumn = i;
+          default -> {
+            // unknown columns are ignored
+          }
+        }
+      }
+      if (timestampColumn < 0 || sensorIdColumn < 0 || temperatureColumn < 0 || humidityColumn < 0) {
+        throw new InvalidImportException("CSV header must name the timestamp, sensorId, temperature and "
+            + "humidity columns, got "
+            + Arrays.toString(names));
+      }
+      columns = names.length;
+    }
+
+    private static String[] split(String line) {
+      final List<String> values = new ArrayList<>();
+      final var value = new StringBuilder();
+      int i = 0;
+      while (true) {
+        if (i < line.length() && line.charAt(i) == '"') {
+          i++;
+          while (true) {
+            if (i == line.length()) {
+              throw new IllegalArgumentException("quoted value is not terminated");
+            }
+            final char c = line.charAt(i++);
+            if (c != '"') {
+              value.append(c);
+            } else if (i < line.length() && line.charAt(i) == '"') {
+              value.append('"');
+              i++;
+            } else {
+              break;
+            }
+          }
+          if (i < line.length() && line.charAt(i) != ',') {
+            throw new IllegalArgumentException("unexpected character after quoted value at position " + i);
+          }
+        } else {
+          final int end = line.indexOf(',', i);
+          value.append(line, i, end < 0 ? line.length() : end);
+          i = end < 0 ? line.length() : end;
+        }
+        values.add(value.toString());
+        value.setLength(0);
+        if (i == line.length()) {
+          return values.toArray(String[]::new);
+        }
+        i++;
+      }
+    }
+
+    private static double parseDouble(String[] values, int column) {
+      return Double.parseDouble(values[column].trim());
+    }
+  }
+
+  private static final class Counters {
+
+    private long valid;
+    private long rejected;
+    private final List<String> errors = new ArrayList<>();
+
+    private void reject(long lineNumber, Exception e) {
+      rejected++;
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add("line " + lineNumber + ": " + e.getMessage());
+      }
+    }
+  }
+}
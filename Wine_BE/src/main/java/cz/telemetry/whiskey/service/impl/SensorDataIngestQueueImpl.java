@@ -0,0 +1,168 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.properties.IngestProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.BatchTooLargeException;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataIngestQueue;
+import cz.telemetry.whiskey.service.SensorDataService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind queue drained by a small pool of writer threads into batched inserts.
+ *
+ * <p>Capacity is tracked by a semaphore so a whole batch request is either queued or rejected. Permits are
+ * returned only after a reading is written, therefore a slow or unavailable database fills the queue and
+ * turns into 429 responses instead of blocked request threads. A batch larger than the whole capacity could
+ * never be queued and is refused outright. Queued readings were already acknowledged, so a reading which
+ * cannot be stored is dropped alone and never takes the rest of its batch with it. The lifecycle phase is
+ * below the web server, so on shutdown the server stops taking requests first and the writers then drain
+ * what is left.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "whiskey.ingest", name = "async", havingValue = "true")
+public class SensorDataIngestQueueImpl implements SensorDataIngestQueue, SmartLifecycle {
+
+  private final SensorDataService sensorDataService;
+  private final IngestProperties properties;
+  private final BlockingQueue<SensorDataDto> queue = new LinkedBlockingQueue<>();
+  private final Semaphore capacity;
+  private final List<Thread> writers = new ArrayList<>();
+
+  private volatile boolean running;
+
+  public SensorDataIngestQueueImpl(SensorDataService sensorDataService, WhiskeyProperties whiskeyProperties) {
+    this.sensorDataService = sensorDataService;
+    this.properties = whiskeyProperties.getIngest();
+    this.capacity = new Semaphore(properties.getQueueCapacity());
+  }
+
+  @Override
+  public boolean offer(List<SensorDataDto> readings) {
+    if (readings.size() > properties.getQueueCapacity()) {
+      throw new BatchTooLargeException(readings.size(), properties.getQueueCapacity());
+    }
+    if (!running || !capacity.tryAcquire(readings.size())) {
+      return false;
+    }
+    queue.addAll(readings);
+    return true;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    for (int i = 0; i < properties.getWriterThreads(); i++) {
+      final var writer = new Thread(this::drain, "sensor-writer-" + i);
+      writer.start();
+      writers.add(writer);
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    final var deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+    for (final var writer : writers) {
+      try {
+        writer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      writer.interrupt();
+    }
+    writers.clear();
+    if (!queue.isEmpty()) {
+      log.error("Shutdown timed out, {} queued readings were not written", queue.size());
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4096;
+  }
+
+  private void drain() {
+    final List<SensorDataDto> batch = new ArrayList<>(properties.getBatchSize());
+    try {
+      while (running || !queue.isEmpty()) {
+        fillBatch(batch);
+        if (!batch.isEmpty()) {
+          write(batch);
+          capacity.release(batch.size());
+          batch.clear();
+        }
+      }
+    } catch (InterruptedException e) {
+      log.error("Writer interrupted, {} readings were not written", batch.size() + queue.size());
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void fillBatch(List<SensorDataDto> batch) throws InterruptedException {
+    final var flushInterval = properties.getFlushInterval().toNanos();
+    final var first = queue.poll(flushInterval, TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+
+    final var deadline = System.nanoTime() + flushInterval;
+    while (batch.size() < properties.getBatchSize()) {
+      queue.drainTo(batch, properties.getBatchSize() - batch.size());
+      final var remaining = deadline - System.nanoTime();
+      if (batch.size() >= properties.getBatchSize() || remaining <= 0 || !running) {
+        return;
+      }
+      final var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  /**
+   * Writes the batch, retrying while the database is unavailable. A batch failing for any other reason is
+   * split in halves until the failing readings are isolated, only those are dropped. Inserts ignore
+   * duplicates, so writing again the part of a batch which was already committed is harmless.
+   */
+  private void write(List<SensorDataDto> batch) throws InterruptedException {
+    while (true) {
+      try {
+        sensorDataService.saveSensorDataBatch(batch);
+        return;
+      } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+        log.warn("Writing {} queued readings failed, retrying in {}", batch.size(), properties.getRetryAfter(), e);
+        Thread.sleep(properties.getRetryAfter().toMillis());
+      } catch (RuntimeException e) {
+        if (batch.size() == 1) {
+          log.error("Dropping queued reading {} which cannot be written", batch.get(0), e);
+          return;
+        }
+        log.warn("Writing {} queued readings failed, writing them in halves: {}", batch.size(), e.toString());
+        final int half = batch.size() / 2;
+        write(batch.subList(0, half));
+        write(batch.subList(half, batch.size()));
+        return;
+      }
+    }
+  }
+}
@@ -1,82 +1,549 @@
 package cz.telemetry.whiskey.service.impl;
 
+import cz.telemetry.whiskey.api.response.IngestStatus;
+import cz.telemetry.whiskey.api.response.SensorDataBatchResponse;
+import cz.telemetry.whiskey.api.response.SensorDataChangesResponse;
+import cz.telemetry.whiskey.api.response.SensorAggregateGroup;
+import cz.telemetry.whiskey.api.response.SensorAggregateResponse;
+import cz.telemetry.whiskey.api.response.SensorDataPageResponse;
+import cz.telemetry.whiskey.api.response.SensorPercentile;
+import cz.telemetry.whiskey.api.response.SensorPercentileGroup;
+import cz.telemetry.whiskey.api.response.SensorPercentileResponse;
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.api.response.SensorSeriesPoint;
+import cz.telemetry.whiskey.api.response.SensorSeriesResponse;
+import cz.telemetry.whiskey.api.response.SensorStatistics;
+import cz.telemetry.whiskey.archive.ArchivedReadingFilter;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.exception.EntityNotFoundException;
+import cz.telemetry.whiskey.exception.InvalidCursorException;
+import cz.telemetry.whiskey.exception.InvalidRangeException;
+import cz.telemetry.whiskey.repository.QuantileSketch;
+import cz.telemetry.whiskey.repository.RollupAggregate;
+import cz.telemetry.whiskey.repository.RollupGroup;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
 import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.SensorDataRowHandler;
+import cz.telemetry.whiskey.repository.SensorDataSketchRepository;
+import cz.telemetry.whiskey.repository.SensorMetric;
+import cz.telemetry.whiskey.repository.SketchGroup;
+import cz.telemetry.whiskey.repository.TimeRange;
+import cz.telemetry.whiskey.security.sensor.Location;
 import cz.telemetry.whiskey.security.sensor.SensorData;
 import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataListener;
 import cz.telemetry.whiskey.service.SensorDataService;
-import jakarta.transaction.Transactional;
+import cz.telemetry.whiskey.service.SensorDataSpool;
+import cz.telemetry.whiskey.service.SensorSelection;
+import cz.telemetry.whiskey.service.SensorSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Created by User: Vu
  * Date: 30.03.2025
  * Time: 16:28
  */
+@Slf4j
 @Service
 public class SensorDataServiceImpl implements SensorDataService {
 
+    /**
+     * Upper bound of buckets one aggregate request may span
+     */
+    private static final long MAX_AGGREGATE_BUCKETS = 10_000;
+
     @Autowired
     private SensorDataRepository repository;
 
+    @Autowired
+    private SensorDataRollupRepository rollupRepository;
+
+    @Autowired
+    private SensorDataSketchRepository sketchRepository;
+
+    @Autowired
+    private RecentReadingFilter recentReadingFilter;
+
+    @Autowired
+    private LatestReadingCache latestReadingCache;
+
+    @Autowired
+    private IngestLog ingestLog;
+
+    @Autowired
+    private SensorTopology sensorTopology;
+
+    @Autowired
+    private AggregateResultCache aggregateResultCache;
+
+    @Autowired
+    private SensorQualityDetector qualityDetector;
+
+    @Autowired
+    private SensorDataArchive archive;
+
+    @Autowired
+    private RecentReadingBuffer recentReadingBuffer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<SensorDataSpool> spool;
+
+    @Autowired
+    private ObjectProvider<SensorDataListener> listeners;
+
     @Override
-    @Transactional
-    public boolean saveSensorData(SensorDataDto dto) {
-        boolean exists = repository.existsByTimestampAndSensorId(dto.getTimestamp(), dto.getSensorId());
-        if (exists) return false;
+    public IngestStatus saveSensorData(SensorDataDto dto) {
+        return saveSensorDataBatch(List.of(dto)).items().get(0);
+    }
 
+    @Override
+    public SensorDataBatchResponse saveSensorDataBatch(List<SensorDataDto> dtos) {
+        try {
+            return storeSensorDataBatch(dtos);
+        } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+            SensorDataSpool available = spool.getIfAvailable();
+            if (available == null || !available.append(dtos)) {
+                throw e;
+            }
+            return new SensorDataBatchResponse(0, 0, dtos.size(),
+                    Collections.nCopies(dtos.size(), IngestStatus.SPOOLED));
+        }
+    }
+
+    /**
+     * Not transactional on purpose, every insert statement commits on its own, so readings are remembered
+     * by {@link RecentReadingFilter} only after they are durably stored. Each committed chunk is remembered
+     * and announced to the listeners before the next one is sent: when a later chunk fails and the batch is
+     * retried, the committed readings come back as duplicates and would never reach the listeners otherwise.
+     */
+    @Override
+    public SensorDataBatchResponse storeSensorDataBatch(List<SensorDataDto> dtos) {
+        List<IngestStatus> items = new ArrayList<>(Collections.nCopies(dtos.size(), IngestStatus.DUPLICATE));
+        List<SensorData> candidates = new ArrayList<>(dtos.size());
+        int[] positions = new int[dtos.size()];
+        ArchivedReadingFilter archived = new ArchivedReadingFilter(archive);
+        for (int i = 0; i < dtos.size(); i++) {
+            SensorData entity = toEntity(dtos.get(i));
+            if (!recentReadingFilter.isKnown(entity.getSensorId(), entity.getTimestamp())
+                    && !archived.isArchived(entity.getSensorId(), entity.getTimestamp())) {
+                positions[candidates.size()] = i;
+                candidates.add(entity);
+            }
+        }
+
+        int[] accepted = new int[1];
+        if (!candidates.isEmpty()) {
+            qualityDetector.classify(candidates);
+            repository.insertIgnoringDuplicates(candidates, (offset, chunk, inserted) -> {
+                List<SensorData> stored = new ArrayList<>(chunk.size());
+                for (int i = 0; i < inserted.length; i++) {
+                    SensorData entity = chunk.get(i);
+                    recentReadingFilter.remember(entity.getSensorId(), entity.getTimestamp());
+                    if (inserted[i]) {
+                        items.set(positions[offset + i], IngestStatus.ACCEPTED);
+                        stored.add(entity);
+                    }
+                }
+                if (!stored.isEmpty()) {
+                    accepted[0] += stored.size();
+                    qualityDetector.commit(stored);
+                    notifyListeners(stored);
+                }
+            });
+        }
+        return new SensorDataBatchResponse(accepted[0], dtos.size() - accepted[0], 0, items);
+    }
+
+    private void notifyListeners(List<SensorData> stored) {
+        List<SensorData> readings = Collections.unmodifiableList(stored);
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onSensorDataStored(readings);
+            } catch (RuntimeException e) {
+                // the readings are committed already, a failing listener must not fail the ingest
+                log.error("Sensor data listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    private SensorData toEntity(SensorDataDto dto) {
         SensorData entity = new SensorData();
         entity.setTemperature(dto.getTemperature());
         entity.setHumidity(dto.getHumidity());
-        entity.setTimestamp(dto.getTimestamp());
+        // PostgreSQL keeps microseconds, truncate so the returned keys match the submitted ones
+        entity.setTimestamp(dto.getTimestamp().truncatedTo(ChronoUnit.MICROS));
         entity.setSensorId(dto.getSensorId());
-        repository.save(entity);
-        return true;
+        return entity;
     }
 
     @Override
     public Optional<Double> getCurrentTemperature() {
-        return repository.findTopByOrderByTimestampDesc()
-                .map(SensorData::getTemperature);
+        return latestReadingCache.newest()
+                .map(SensorReadingResponse::temperature);
     }
 
     public Optional<Double> getCurrentHumidity() {
-        return repository.findTopByOrderByTimestampDesc()
-                .map(SensorData::getHumidity);
+        return latestReadingCache.newest()
+                .map(SensorReadingResponse::humidity);
+    }
+
+    @Override
+    public Optional<SensorReadingResponse> getCurrentReading(String sensorId) {
+        return latestReadingCache.get(sensorId);
+    }
+
+    @Override
+    public SensorSnapshot getCurrentReadings(String location) {
+        SensorSnapshot snapshot = latestReadingCache.snapshot();
+        if (location == null) {
+            return snapshot;
+        }
+        Set<String> sensors = sensorsAt(location);
+        return new SensorSnapshot(snapshot.version() + "-" + sensorTopology.version(), snapshot.readings().stream()
+                .filter(reading -> sensors.contains(reading.sensorId()))
+                .toList());
     }
 
 
     public Optional<Double> getAverageTemperatureByDate(LocalDate date) {
-                return Optional.ofNullable(repository.getAverageTemperatureByDate(date));
+        return aggregateDays(date, date).averageTemperature();
     }
 
     @Override
-   public Optional<Double> getAverageHumidityByDate(LocalDate date) {
-        return Optional.ofNullable(repository.getAverageHumidityByDate(date));
+    public Optional<Double> getAverageHumidityByDate(LocalDate date) {
+        return aggregateDays(date, date).averageHumidity();
     }
 
     @Override
     public Optional<Double> getAverageTemperatureBetween(LocalDate start, LocalDate end) {
-        Instant startInstant = start.atStartOfDay(ZoneId.systemDefault()).toInstant();
-        Instant endInstant = end.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
-        return repository.findAverageTemperatureBetween(startInstant, endInstant);
+        return aggregateDays(start, end).averageTemperature();
+    }
+
+    @Override
+    public SensorAggregateResponse getAggregate(Instant from, Instant to, RollupResolution bucket, boolean bySensor,
+                                                boolean byLocation, SensorSelection selection) {
+        checkBuckets(from, to, bucket);
+        Collection<String> sensorIds = resolveSensors(selection);
+        if (!from.isBefore(to)) {
+            return new SensorAggregateResponse(from, to, List.of());
+        }
+        LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
+        LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
+        boolean grouped = bySensor || byLocation;
+        List<RollupGroup> rows = recentReadingBuffer.aggregateGroups(start, end, bucket, grouped, sensorIds)
+                .orElseGet(() -> aggregateResultCache.get("groups/" + bucket + "/" + grouped, sensorIds, start, end,
+                        () -> withArchived(rollupRepository.aggregateGroups(start, end, bucket, grouped, sensorIds),
+                                start, end, bucket, grouped, sensorIds)));
+
+        // locations are folded from per sensor rows through the in-memory topology instead of a join
+        Map<AggregateKey, RollupAggregate> merged = new HashMap<>();
+        for (RollupGroup row : rows) {
+            String location = row.sensorId() == null ? null : sensorTopology.locationOf(row.sensorId()).orElse(null);
+            AggregateKey key = new AggregateKey(bySensor ? row.sensorId() : null, location, row.bucketStart());
+            merged.merge(key, row.aggregate(), RollupAggregate::plus);
+        }
+        List<SensorAggregateGroup> groups = merged.entrySet().stream()
+                .filter(entry -> entry.getValue().count() > 0)
+                .sorted(Map.Entry.comparingByKey(AggregateKey.ORDER))
+                .map(entry -> new SensorAggregateGroup(
+                        entry.getKey().sensorId(),
+                        entry.getKey().location(),
+                        entry.getKey().bucketStart() == null ? null
+                                : entry.getKey().bucketStart().atZone(ZoneId.systemDefault()).toInstant(),
+                        entry.getValue().count(),
+                        SensorStatistics.temperature(entry.getValue()),
+                        SensorStatistics.humidity(entry.getValue())))
+                .toList();
+        return new SensorAggregateResponse(from, to, groups);
+    }
+
+    @Override
+    public SensorPercentileResponse getPercentiles(Instant from, Instant to, SensorMetric metric,
+                                                   List<Double> quantiles, RollupResolution bucket,
+                                                   SensorSelection selection) {
+        if (bucket == RollupResolution.MINUTE) {
+            throw new InvalidRangeException("Percentiles are kept per hour, group them by HOUR or DAY");
+        }
+        for (double quantile : quantiles) {
+            if (!(quantile >= 0 && quantile <= 1)) {
+                throw new InvalidRangeException("Quantile " + quantile + " is not between 0 and 1");
+            }
+        }
+        checkBuckets(from, to, bucket);
+        Collection<String> sensorIds = resolveSensors(selection);
+        if (!from.isBefore(to)) {
+            return new SensorPercentileResponse(from, to, metric, QuantileSketch.RELATIVE_ACCURACY, List.of());
+        }
+        LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
+        LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
+        List<SketchGroup> sketches = aggregateResultCache.get("sketches/" + metric + "/" + bucket, sensorIds,
+                start, end, () -> sketchRepository.sketches(start, end, metric, bucket, sensorIds));
+        List<SensorPercentileGroup> groups = sketches.stream()
+                .map(group -> new SensorPercentileGroup(
+                        group.bucketStart() == null ? null
+                                : group.bucketStart().atZone(ZoneId.systemDefault()).toInstant(),
+                        group.sketch().count(),
+                        quantiles.stream()
+                                .map(quantile -> new SensorPercentile(quantile, group.sketch().quantile(quantile)))
+                                .toList()))
+                .toList();
+        return new SensorPercentileResponse(from, to, metric, QuantileSketch.RELATIVE_ACCURACY, groups);
+    }
+
+    @Override
+    public SensorSeriesResponse getSeries(Instant from, Instant to, int maxPoints, SensorSelection selection) {
+        Collection<String> sensorIds = resolveSensors(selection);
+        if (!from.isBefore(to)) {
+            return new SensorSeriesResponse(from, to, 0, List.of());
+        }
+        long seconds = Math.max(1, ceilDiv(Duration.between(from, to).toSeconds(), maxPoints));
+        LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
+        LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
+
+        // the widest rollup not wider than a bucket; widening the bucket to its multiple only lowers the count
+        RollupResolution source = null;
+        for (RollupResolution resolution : List.of(RollupResolution.DAY, RollupResolution.HOUR,
+                RollupResolution.MINUTE)) {
+            long unitSeconds = resolution.unit().getDuration().toSeconds();
+            if (seconds >= unitSeconds) {
+                source = resolution;
+                seconds = ceilDiv(seconds, unitSeconds) * unitSeconds;
+                start = resolution.floor(start);
+                end = resolution.ceil(end);
+                break;
+            }
+        }
+        if (source == null) {
+            start = start.truncatedTo(ChronoUnit.SECONDS);
+        }
+
+        LocalDateTime seriesStart = start;
+        LocalDateTime seriesEnd = end;
+        long bucketSeconds = seconds;
+        RollupResolution seriesSource = source;
+        // rollups hold the same sums as the readings, recent series are folded from the buffer at any width
+        List<SensorSeriesPoint> points = recentReadingBuffer.series(start, end, seconds, sensorIds)
+                .map(groups -> groups.stream().map(SensorDataServiceImpl::toPoint).toList())
+                .orElseGet(() -> aggregateResultCache.get("series/" + bucketSeconds + "/" + seriesSource, sensorIds,
+                        seriesStart, seriesEnd, () -> withArchived(rollupRepository.series(seriesStart, seriesEnd,
+                                bucketSeconds, seriesSource, sensorIds), seriesStart, seriesEnd, bucketSeconds,
+                                seriesSource, sensorIds)));
+        return new SensorSeriesResponse(start.atZone(ZoneId.systemDefault()).toInstant(), to, seconds, points);
+    }
+
+    /**
+     * Adds the archived readings of the raw edges of the range, rollups of archived months are kept and
+     * answer the rest.
+     */
+    private List<RollupGroup> withArchived(List<RollupGroup> rows, LocalDateTime from, LocalDateTime to,
+                                           RollupResolution bucket, boolean bySensor,
+                                           Collection<String> sensorIds) {
+        if (archive.months().isEmpty()) {
+            return rows;
+        }
+        List<RollupGroup> all = new ArrayList<>(rows);
+        for (TimeRange range : SensorDataRollupRepository.rawRanges(from, to, bucket)) {
+            all.addAll(archive.aggregateGroups(range.from(), range.to(), bucket, bySensor, sensorIds));
+        }
+        return all;
+    }
+
+    /**
+     * Merges the archived readings into a series read from the raw readings.
+     */
+    private List<SensorSeriesPoint> withArchived(List<SensorSeriesPoint> points, LocalDateTime from,
+                                                 LocalDateTime to, long bucketSeconds, RollupResolution source,
+                                                 Collection<String> sensorIds) {
+        if (source != null || archive.months().isEmpty()) {
+            return points;
+        }
+        List<RollupGroup> archived = archive.series(from, to, bucketSeconds, sensorIds);
+        if (archived.isEmpty()) {
+            return points;
+        }
+        Map<Instant, SensorSeriesPoint> merged = new TreeMap<>();
+        points.forEach(point -> merged.put(point.timestamp(), point));
+        for (RollupGroup group : archived) {
+            SensorSeriesPoint point = toPoint(group);
+            merged.merge(point.timestamp(), point, SensorDataServiceImpl::plus);
+        }
+        return List.copyOf(merged.values());
+    }
+
+    private static SensorSeriesPoint toPoint(RollupGroup group) {
+        RollupAggregate aggregate = group.aggregate();
+        return new SensorSeriesPoint(group.bucketStart().atZone(ZoneId.systemDefault()).toInstant(),
+                aggregate.count(), aggregate.temperatureSum() / aggregate.count(), aggregate.temperatureMin(),
+                aggregate.temperatureMax(), aggregate.humiditySum() / aggregate.count(), aggregate.humidityMin(),
+                aggregate.humidityMax());
+    }
+
+    private static SensorSeriesPoint plus(SensorSeriesPoint a, SensorSeriesPoint b) {
+        long count = a.count() + b.count();
+        return new SensorSeriesPoint(a.timestamp(), count,
+                (a.temperatureAvg() * a.count() + b.temperatureAvg() * b.count()) / count,
+                Math.min(a.temperatureMin(), b.temperatureMin()), Math.max(a.temperatureMax(), b.temperatureMax()),
+                (a.humidityAvg() * a.count() + b.humidityAvg() * b.count()) / count,
+                Math.min(a.humidityMin(), b.humidityMin()), Math.max(a.humidityMax(), b.humidityMax()));
+    }
+
+    /**
+     * @return sensors of the selection, {@code null} for all sensors
+     */
+    private Collection<String> resolveSensors(SensorSelection selection) {
+        if (selection.location() == null) {
+            return selection.sensorId() == null ? null : List.of(selection.sensorId());
+        }
+        Set<String> sensors = sensorsAt(selection.location());
+        if (selection.sensorId() == null) {
+            return sensors;
+        }
+        return sensors.contains(selection.sensorId()) ? List.of(selection.sensorId()) : List.of();
+    }
+
+    private Set<String> sensorsAt(String location) {
+        return sensorTopology.sensorsAt(location).orElseThrow(() -> new EntityNotFoundException(Location.class));
+    }
+
+    private static void checkBuckets(Instant from, Instant to, RollupResolution bucket) {
+        if (bucket != null) {
+            long buckets = ceilDiv(Duration.between(from, to).toSeconds(), bucket.unit().getDuration().toSeconds());
+            if (buckets > MAX_AGGREGATE_BUCKETS) {
+                throw new InvalidRangeException("The range spans " + buckets + " " + bucket + " buckets, at most "
+                        + MAX_AGGREGATE_BUCKETS + " are allowed");
+            }
+        }
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    /**
+     * Recent ranges are read from the {@link RecentReadingBuffer} without a transaction. Otherwise archived
+     * months are read from their mapped chunks, the rest from the database, one segment after another.
+     */
+    @Override
+    public void streamSensorDataBetween(Instant from, Instant to, SensorDataRowHandler handler) {
+        if (recentReadingBuffer.stream(from, to, handler)) {
+            return;
+        }
+        readOnlyTransaction().executeWithoutResult(status -> {
+            for (SensorDataArchive.Segment segment : archive.split(from, to)) {
+                if (segment.archived()) {
+                    archive.stream(segment.from(), segment.to(), handler);
+                } else {
+                    repository.streamBetween(segment.from(), segment.to(), handler);
+                }
+            }
+        });
     }
 
     @Override
-    public List<SensorData> getSensorDataBetween(Instant from, Instant to) {
-        return repository.findAllByTimestampBetween(from, to);
+    public void streamSensorDataColumnsBetween(Instant from, Instant to, SensorDataColumnHandler handler) {
+        if (recentReadingBuffer.streamColumns(from, to, handler)) {
+            return;
+        }
+        readOnlyTransaction().executeWithoutResult(status -> {
+            List<SensorDataArchive.Segment> segments = archive.split(from, to);
+            if (segments.stream().noneMatch(SensorDataArchive.Segment::archived)) {
+                repository.streamColumnsBetween(from, to, handler);
+                return;
+            }
+            ArchivedColumnMerge merge = new ArchivedColumnMerge(archive, segments, handler);
+            repository.streamColumnsBetween(from, to, merge);
+            try {
+                merge.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction;
+    }
+
+    @Override
+    public SensorDataPageResponse getSensorDataPage(Instant from, Instant to, String after, int limit) {
+        List<SensorReadingResponse> items;
+        if (after == null) {
+            items = repository.findPage(from, to, null, null, limit);
+        } else {
+            int separator = after.indexOf(',');
+            if (separator < 0) {
+                throw new InvalidCursorException(after);
+            }
+            Instant afterTimestamp;
+            try {
+                afterTimestamp = Instant.parse(after.substring(0, separator));
+            } catch (DateTimeParseException e) {
+                throw new InvalidCursorException(after);
+            }
+            items = repository.findPage(from, to, afterTimestamp, after.substring(separator + 1), limit);
+        }
+        String next = null;
+        if (items.size() == limit) {
+            SensorReadingResponse last = items.get(items.size() - 1);
+            next = last.timestamp() + "," + last.sensorId();
+        }
+        return new SensorDataPageResponse(items, next);
+    }
+
+    @Override
+    public SensorDataChangesResponse getSensorDataSince(String cursor, int limit) {
+        return ingestLog.changesSince(cursor, limit);
     }
 
     public Optional<Double> getAverageHumidityBetween(LocalDate start, LocalDate end) {
-        Instant from = start.atStartOfDay(ZoneOffset.UTC).toInstant();
-        Instant to = end.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
-        return repository.findAverageHumidityBetween(from, to);
+        return aggregateDays(start, end).averageHumidity();
     }
 
+    /**
+     * Days are local days of the stored wall times, the same days {@code DATE(timestamp)} yields.
+     * Both metrics come from one aggregate, so the temperature and humidity of a day share a cache entry.
+     */
+    private RollupAggregate aggregateDays(LocalDate first, LocalDate last) {
+        LocalDateTime from = first.atStartOfDay();
+        LocalDateTime to = last.plusDays(1).atStartOfDay();
+        return aggregateResultCache.get("total", null, from, to, () -> rollupRepository.aggregate(from, to));
+    }
 
+    private record AggregateKey(String sensorId, String location, LocalDateTime bucketStart) {
 
-}
\ No newline at end of file
+        static final Comparator<AggregateKey> ORDER = Comparator
+                .comparing(AggregateKey::location, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(AggregateKey::sensorId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(AggregateKey::bucketStart, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+}
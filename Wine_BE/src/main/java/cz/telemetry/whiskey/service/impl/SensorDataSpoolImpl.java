@@ -0,0 +1,457 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.properties.SpoolProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataService;
+import cz.telemetry.whiskey.service.SensorDataSpool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-ahead spool made of fixed-size memory-mapped segment files.
+ *
+ * <p>Every record is {@code [int length][int crc32][payload]}, the payload holds the append time, the reading
+ * timestamp in epoch microseconds, both values and the sensor id. A zero length marks the end of written data.
+ * A record failing its checksum is skipped alone: reading resumes at the next record which passes its
+ * checksum, so readings appended after it are still replayed and counted as pending. A torn write at the end
+ * has nothing valid after it and is zeroed on startup. Skipped records are counted by
+ * {@code whiskey.spool.corrupted}. The replay position is kept in a small cursor
+ * file replaced atomically after every replayed batch, so a crash replays at most one batch twice, which the
+ * unique constraint turns into duplicates. Fully replayed segments are deleted.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "whiskey.spool", name = "enabled", havingValue = "true")
+public class SensorDataSpoolImpl implements SensorDataSpool {
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".spool";
+  private static final String CURSOR_FILE = "cursor";
+
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+  private static final int FIXED_PAYLOAD_BYTES = Long.BYTES * 2 + Double.BYTES * 2 + Short.BYTES;
+  /**
+   * A sensor id takes up to four bytes per character.
+   */
+  private static final int MAX_PAYLOAD_BYTES = FIXED_PAYLOAD_BYTES + SensorDataDto.MAX_SENSOR_ID_LENGTH * 4;
+
+  private final SensorDataService sensorDataService;
+  private final MeterRegistry meterRegistry;
+  private final SpoolProperties properties;
+  private final Clock clock;
+  private final int segmentSize;
+  private final long maxSegments;
+
+  private final NavigableMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+  private final AtomicLong pending = new AtomicLong();
+  /**
+   * Corrupted records found so far and where reading resumes after them, {@code null} when nothing valid
+   * follows in their segment. Each one is reported once.
+   */
+  private final Map<Position, Position> corrupted = new HashMap<>();
+
+  private Counter corruptedRecords;
+
+  private Position cursor;
+  private Position end;
+  private volatile long oldestPendingAppendedAt;
+
+  public SensorDataSpoolImpl(SensorDataService sensorDataService, MeterRegistry meterRegistry,
+      WhiskeyProperties whiskeyProperties) {
+    this(sensorDataService, meterRegistry, whiskeyProperties, Clock.systemUTC());
+  }
+
+  SensorDataSpoolImpl(SensorDataService sensorDataService, MeterRegistry meterRegistry,
+      WhiskeyProperties whiskeyProperties, Clock clock) {
+    this.sensorDataService = sensorDataService;
+    this.meterRegistry = meterRegistry;
+    this.properties = whiskeyProperties.getSpool();
+    this.clock = clock;
+    this.segmentSize = Math.toIntExact(properties.getSegmentSize().toBytes());
+    this.maxSegments = Math.max(1, properties.getMaxDiskUsage().toBytes() / segmentSize);
+  }
+
+  @PostConstruct
+  synchronized void open() throws IOException {
+    corruptedRecords = Counter.builder("whiskey.spool.corrupted")
+        .description("Spooled records skipped because they failed their checksum")
+        .register(meterRegistry);
+    Files.createDirectories(properties.getDirectory());
+    try (final var files = Files.list(properties.getDirectory())) {
+      for (final var file : files.toList()) {
+        final var name = file.getFileName().toString();
+        if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+          final var id = Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10);
+          segments.put(id, map(id));
+        }
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.put(0L, map(0L));
+    }
+
+    cursor = readCursor();
+    if (!segments.containsKey(cursor.segment())) {
+      final var segment = segments.ceilingKey(cursor.segment());
+      cursor = new Position(segment == null ? segments.lastKey() : segment, 0);
+    }
+    deleteSegmentsBefore(cursor.segment());
+
+    // count pending records and find where the last segment ends
+    var position = cursor;
+    while (true) {
+      final var step = next(position);
+      if (step == null) {
+        break;
+      }
+      if (step.valid()) {
+        pending.incrementAndGet();
+      }
+      position = step.next();
+    }
+    end = position;
+    truncateAfterEnd();
+    updateOldestPending();
+
+    Gauge.builder("whiskey.spool.pending", pending, AtomicLong::get)
+        .description("Readings waiting for replay into the database")
+        .register(meterRegistry);
+    Gauge.builder("whiskey.spool.disk.usage", this, spool -> spool.diskUsage())
+        .description("Bytes taken by spool segments")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("whiskey.spool.lag", this, spool -> spool.lagSeconds())
+        .description("Age of the oldest reading waiting for replay")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+
+    if (pending.get() > 0) {
+      log.info("Spool opened with {} readings waiting for replay", pending.get());
+    }
+  }
+
+  @Override
+  public synchronized boolean append(List<SensorDataDto> readings) {
+    final List<byte[]> sensorIds = new ArrayList<>(readings.size());
+    var extraSegments = 0;
+    var position = end.offset();
+    for (final var reading : readings) {
+      final var sensorId = reading.getSensorId().getBytes(StandardCharsets.UTF_8);
+      final var size = HEADER_BYTES + FIXED_PAYLOAD_BYTES + sensorId.length;
+      if (size > segmentSize) {
+        return false;
+      }
+      if (position + size > segmentSize) {
+        extraSegments++;
+        position = 0;
+      }
+      position += size;
+      sensorIds.add(sensorId);
+    }
+    if (segments.size() + extraSegments > maxSegments) {
+      return false;
+    }
+
+    final var appendedAt = clock.millis();
+    final Set<Long> touched = new HashSet<>();
+    for (int i = 0; i < readings.size(); i++) {
+      final var reading = readings.get(i);
+      final var sensorId = sensorIds.get(i);
+      final var length = FIXED_PAYLOAD_BYTES + sensorId.length;
+      if (end.offset() + HEADER_BYTES + length > segmentSize) {
+        roll();
+      }
+      final var buffer = segments.get(end.segment());
+      final var offset = end.offset();
+      final var payload = offset + HEADER_BYTES;
+      buffer.putLong(payload, appendedAt);
+      buffer.putLong(payload + 8, ChronoUnit.MICROS.between(Instant.EPOCH, reading.getTimestamp()));
+      buffer.putDouble(payload + 16, reading.getTemperature());
+      buffer.putDouble(payload + 24, reading.getHumidity());
+      buffer.putShort(payload + 32, (short) sensorId.length);
+      buffer.put(payload + FIXED_PAYLOAD_BYTES, sensorId);
+      buffer.putInt(offset + Integer.BYTES, checksum(buffer, payload, length));
+      // length goes last, a record becomes visible to the reader only when it is complete
+      buffer.putInt(offset, length);
+      end = new Position(end.segment(), offset + HEADER_BYTES + length);
+      touched.add(end.segment());
+    }
+    touched.forEach(segment -> segments.get(segment).force());
+
+    if (pending.getAndAdd(readings.size()) == 0) {
+      oldestPendingAppendedAt = appendedAt;
+    }
+    return true;
+  }
+
+  @Override
+  public long pendingReadings() {
+    return pending.get();
+  }
+
+  /**
+   * Replays spooled readings in batches until the spool is empty or the database fails again.
+   */
+  @Scheduled(fixedDelayString = "${whiskey.spool.replay-interval:PT5S}")
+  public void replay() {
+    while (true) {
+      final var batch = readBatch();
+      if (batch.readings().isEmpty()) {
+        return;
+      }
+      try {
+        sensorDataService.storeSensorDataBatch(batch.readings());
+      } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+        log.debug("Database still unavailable, {} readings stay spooled", pending.get());
+        return;
+      } catch (RuntimeException e) {
+        // a batch which can never be written must not block the rest of the spool
+        log.error("Skipping {} spooled readings which cannot be written", batch.readings().size(), e);
+      }
+      commit(batch);
+      log.info("Replayed {} spooled readings, {} remaining", batch.readings().size(), pending.get());
+    }
+  }
+
+  private synchronized Batch readBatch() {
+    final List<SensorDataDto> readings = new ArrayList<>();
+    var position = cursor;
+    while (readings.size() < properties.getReplayBatchSize()) {
+      final var step = next(position);
+      if (step == null) {
+        break;
+      }
+      if (step.valid()) {
+        readings.add(decode(segments.get(position.segment()), position.offset()));
+      }
+      position = step.next();
+    }
+    return new Batch(readings, position);
+  }
+
+  private synchronized void commit(Batch batch) {
+    cursor = batch.end();
+    writeCursor();
+    pending.addAndGet(-batch.readings().size());
+    corrupted.keySet().removeIf(position -> position.segment() < cursor.segment()
+        || position.segment() == cursor.segment() && position.offset() < cursor.offset());
+    deleteSegmentsBefore(cursor.segment());
+    updateOldestPending();
+  }
+
+  /**
+   * @return position after the record at {@code position}, where reading resumes after a corrupted record, the
+   *     start of the next segment when there is no valid record left in the current one, or {@code null} at the
+   *     end of the spool
+   */
+  private Step next(Position position) {
+    final int length = recordLength(segments.get(position.segment()), position.offset());
+    if (length > 0) {
+      return new Step(new Position(position.segment(), position.offset() + HEADER_BYTES + length), true);
+    }
+    if (length < 0) {
+      if (!corrupted.containsKey(position)) {
+        corrupted.put(position, resync(position));
+      }
+      final var resumed = corrupted.get(position);
+      if (resumed != null) {
+        return new Step(resumed, false);
+      }
+    }
+    final var nextSegment = segments.higherKey(position.segment());
+    return nextSegment == null ? null : new Step(new Position(nextSegment, 0), false);
+  }
+
+  /**
+   * @return payload length of the valid record at {@code offset}, 0 at the end of written data or -1 for a
+   *     corrupted record
+   */
+  private int recordLength(ByteBuffer buffer, int offset) {
+    if (offset + HEADER_BYTES > segmentSize) {
+      return 0;
+    }
+    final var length = buffer.getInt(offset);
+    if (length == 0) {
+      return 0;
+    }
+    if (length < FIXED_PAYLOAD_BYTES || length > MAX_PAYLOAD_BYTES || length > segmentSize - offset - HEADER_BYTES
+        || buffer.getInt(offset + Integer.BYTES) != checksum(buffer, offset + HEADER_BYTES, length)) {
+      return -1;
+    }
+    return length;
+  }
+
+  /**
+   * @return start of the first valid record after the corrupted one at {@code position}, {@code null} when the
+   *     rest of its segment holds none
+   */
+  private Position resync(Position position) {
+    final var buffer = segments.get(position.segment());
+    corruptedRecords.increment();
+    for (int offset = position.offset() + 1; offset + HEADER_BYTES <= segmentSize; offset++) {
+      if (recordLength(buffer, offset) > 0) {
+        log.warn("Spool segment {} has a corrupted record at offset {}, skipped {} bytes", position.segment(),
+            position.offset(), offset - position.offset());
+        return new Position(position.segment(), offset);
+      }
+    }
+    log.warn("Spool segment {} has a corrupted record at offset {} and no valid one after it",
+        position.segment(), position.offset());
+    return null;
+  }
+
+  private SensorDataDto decode(ByteBuffer buffer, int offset) {
+    final var payload = offset + HEADER_BYTES;
+    final var sensorId = new byte[buffer.getShort(payload + 32)];
+    buffer.get(payload + FIXED_PAYLOAD_BYTES, sensorId);
+    return new SensorDataDto(
+        buffer.getDouble(payload + 16),
+        buffer.getDouble(payload + 24),
+        Instant.EPOCH.plus(buffer.getLong(payload + 8), ChronoUnit.MICROS),
+        new String(sensorId, StandardCharsets.UTF_8));
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset, int length) {
+    final var crc = new CRC32();
+    crc.update(buffer.slice(offset, length));
+    return (int) crc.getValue();
+  }
+
+  private void roll() {
+    final var id = segments.lastKey() + 1;
+    try {
+      segments.put(id, map(id));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    end = new Position(id, 0);
+  }
+
+  /**
+   * Zeroes whatever follows the last valid record, so a torn write is never mistaken for data later.
+   */
+  private void truncateAfterEnd() {
+    final var buffer = segments.get(end.segment());
+    for (int i = end.offset(); i < segmentSize; i++) {
+      buffer.put(i, (byte) 0);
+    }
+    buffer.force();
+  }
+
+  private void updateOldestPending() {
+    var position = cursor;
+    var step = next(position);
+    while (step != null) {
+      if (step.valid()) {
+        oldestPendingAppendedAt = segments.get(position.segment()).getLong(position.offset() + HEADER_BYTES);
+        return;
+      }
+      position = step.next();
+      step = next(position);
+    }
+    oldestPendingAppendedAt = 0;
+  }
+
+  private void deleteSegmentsBefore(long segment) {
+    final var obsolete = segments.headMap(segment, false);
+    for (final var id : List.copyOf(obsolete.keySet())) {
+      segments.remove(id);
+      try {
+        Files.deleteIfExists(segmentPath(id));
+      } catch (IOException e) {
+        log.warn("Could not delete replayed spool segment {}", id, e);
+      }
+    }
+  }
+
+  private synchronized long diskUsage() {
+    return (long) segments.size() * segmentSize;
+  }
+
+  private double lagSeconds() {
+    final var appendedAt = oldestPendingAppendedAt;
+    return appendedAt == 0 ? 0 : (clock.millis() - appendedAt) / 1000.0;
+  }
+
+  private MappedByteBuffer map(long id) throws IOException {
+    try (final var channel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private Path segmentPath(long id) {
+    return properties.getDirectory().resolve(SEGMENT_PREFIX + String.format("%020d", id) + SEGMENT_SUFFIX);
+  }
+
+  private Position readCursor() throws IOException {
+    final var file = properties.getDirectory().resolve(CURSOR_FILE);
+    if (!Files.exists(file)) {
+      return new Position(segments.firstKey(), 0);
+    }
+    final var content = ByteBuffer.wrap(Files.readAllBytes(file));
+    return new Position(content.getLong(), content.getInt());
+  }
+
+  private void writeCursor() {
+    final var content = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+        .putLong(cursor.segment())
+        .putInt(cursor.offset());
+    final var file = properties.getDirectory().resolve(CURSOR_FILE);
+    final var temporary = properties.getDirectory().resolve(CURSOR_FILE + ".tmp");
+    try {
+      Files.write(temporary, content.array(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record Position(long segment, int offset) {
+
+  }
+
+  private record Batch(List<SensorDataDto> readings, Position end) {
+
+  }
+
+  /**
+   * @param valid a valid record was read, otherwise a corrupted record or the end of a segment was skipped
+   */
+  private record Step(Position next, boolean valid) {
+
+  }
+}
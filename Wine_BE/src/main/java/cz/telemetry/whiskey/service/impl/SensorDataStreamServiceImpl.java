@@ -0,0 +1,273 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.config.properties.StreamProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.TooManySubscribersException;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataListener;
+import cz.telemetry.whiskey.service.SensorDataStreamService;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fan-out of stored readings to Server-Sent Events subscribers.
+ *
+ * <p>The ingest thread only merges the readings into a pending map of each subscriber and schedules its
+ * drain, the events are written by a small pool of sender threads. Pending readings are keyed by sensor, so
+ * a subscriber which cannot keep up receives the newest reading of every sensor instead of a growing
+ * backlog. Idle connections hold no thread, they are parked in servlet async mode.
+ *
+ * <p>Writes block while the socket of a subscriber is full. A watchdog on its own thread drops a subscriber
+ * whose write takes longer than {@link StreamProperties#getSendTimeout() sendTimeout} and adds a sender
+ * thread for as long as the write stays blocked, so stuck clients never hold the threads of the others.
+ */
+@Slf4j
+@Service
+public class SensorDataStreamServiceImpl implements SensorDataStreamService, SensorDataListener {
+
+  static final String READING_EVENT = "reading";
+
+  private final LatestReadingCache latestReadingCache;
+  private final StreamProperties properties;
+  private final ThreadPoolExecutor sender;
+  private final ScheduledExecutorService watchdog;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger slots = new AtomicInteger();
+
+  public SensorDataStreamServiceImpl(LatestReadingCache latestReadingCache, WhiskeyProperties properties) {
+    this.latestReadingCache = latestReadingCache;
+    this.properties = properties.getStream();
+    final var threadNumber = new AtomicInteger();
+    this.sender = new ThreadPoolExecutor(this.properties.getSenderThreads(), this.properties.getSenderThreads(),
+        1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+          final var thread = new Thread(runnable, "sensor-stream-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final var thread = new Thread(runnable, "sensor-stream-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long heartbeat = this.properties.getHeartbeat().toMillis();
+    watchdog.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    final long check = Math.max(1, this.properties.getSendTimeout().toMillis() / 4);
+    watchdog.scheduleWithFixedDelay(this::dropStuckSubscribers, check, check, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public SseEmitter subscribe(Set<String> sensorIds) {
+    return subscribe(sensorIds, new SseEmitter(properties.getTimeout().toMillis()));
+  }
+
+  SseEmitter subscribe(Set<String> sensorIds, SseEmitter emitter) {
+    // the slot is reserved before the subscriber is added, concurrent subscriptions cannot overshoot the limit
+    if (slots.incrementAndGet() > properties.getMaxSubscribers()) {
+      slots.decrementAndGet();
+      throw new TooManySubscribersException(properties.getMaxSubscribers());
+    }
+    final var subscriber = new Subscriber(emitter, sensorIds == null || sensorIds.isEmpty() ? null : sensorIds);
+    subscribers.add(subscriber);
+    emitter.onCompletion(() -> remove(subscriber));
+    emitter.onTimeout(() -> remove(subscriber));
+    emitter.onError(e -> remove(subscriber));
+    latestReadingCache.all().forEach(subscriber::offer);
+    return emitter;
+  }
+
+  /**
+   * @return {@code true} when this call removed the subscriber and released its slot
+   */
+  private boolean remove(Subscriber subscriber) {
+    if (subscribers.remove(subscriber)) {
+      slots.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  int subscriberCount() {
+    return subscribers.size();
+  }
+
+  @Override
+  public void onSensorDataStored(List<SensorData> readings) {
+    if (subscribers.isEmpty()) {
+      return;
+    }
+    // a batch usually carries several readings of the same few sensors, only the newest ones are offered
+    final Map<String, SensorReadingResponse> newest = new HashMap<>();
+    for (SensorData reading : readings) {
+      newest.merge(reading.getSensorId(), new SensorReadingResponse(reading.getSensorId(), reading.getTimestamp(),
+          reading.getTemperature(), reading.getHumidity()), SensorDataStreamServiceImpl::newer);
+    }
+    for (Subscriber subscriber : subscribers) {
+      newest.values().forEach(subscriber::offer);
+    }
+  }
+
+  private void heartbeat() {
+    subscribers.forEach(Subscriber::heartbeat);
+  }
+
+  private void dropStuckSubscribers() {
+    final long now = System.nanoTime();
+    for (Subscriber subscriber : subscribers) {
+      final long sendingSince = subscriber.sendingSince;
+      if (sendingSince != 0 && now - sendingSince > properties.getSendTimeout().toNanos() && remove(subscriber)) {
+        log.debug("Dropping sensor stream subscriber which did not take an event for {}",
+            properties.getSendTimeout());
+        subscriber.stuck = true;
+        subscriber.replaced.set(true);
+        resizeSender(1);
+        if (subscriber.sendingSince == 0) {
+          // the write returned meanwhile, its thread is free again
+          subscriber.releaseReplacement();
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds or removes a sender thread. A thread blocked by a dropped subscriber does not count, it leaves the
+   * pool once its write returns.
+   */
+  private synchronized void resizeSender(int delta) {
+    final int size = sender.getCorePoolSize() + delta;
+    if (delta > 0) {
+      sender.setMaximumPoolSize(size);
+      sender.setCorePoolSize(size);
+    } else {
+      sender.setCorePoolSize(size);
+      sender.setMaximumPoolSize(size);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    watchdog.shutdownNow();
+    sender.shutdownNow();
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+  }
+
+  private static SensorReadingResponse newer(SensorReadingResponse current, SensorReadingResponse next) {
+    return next.timestamp().isBefore(current.timestamp()) ? current : next;
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final Set<String> sensorIds;
+    private final ConcurrentMap<String, SensorReadingResponse> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean heartbeatDue;
+    /**
+     * {@link System#nanoTime()} when the running write started, {@code 0} while none is running.
+     */
+    private volatile long sendingSince;
+    private volatile boolean stuck;
+    /**
+     * Set while a sender thread was added for the one blocked by this subscriber.
+     */
+    private final AtomicBoolean replaced = new AtomicBoolean();
+
+    private Subscriber(SseEmitter emitter, Set<String> sensorIds) {
+      this.emitter = emitter;
+      this.sensorIds = sensorIds;
+    }
+
+    private void offer(SensorReadingResponse reading) {
+      if (sensorIds != null && !sensorIds.contains(reading.sensorId())) {
+        return;
+      }
+      pending.merge(reading.sensorId(), reading, SensorDataStreamServiceImpl::newer);
+      schedule();
+    }
+
+    private void heartbeat() {
+      heartbeatDue = true;
+      schedule();
+    }
+
+    /**
+     * At most one drain of a subscriber is queued or running, so its events stay ordered.
+     */
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        try {
+          sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          scheduled.set(false);
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        if (heartbeatDue && pending.isEmpty()) {
+          send(SseEmitter.event().comment(""));
+        }
+        heartbeatDue = false;
+        for (String sensorId : pending.keySet()) {
+          final SensorReadingResponse reading = pending.remove(sensorId);
+          if (reading != null && !stuck) {
+            send(SseEmitter.event().name(READING_EVENT).data(reading, MediaType.APPLICATION_JSON));
+          }
+        }
+      } catch (IOException | IllegalStateException e) {
+        // the container notices the broken connection and completes the emitter on its own
+        log.debug("Dropping sensor stream subscriber: {}", e.getMessage());
+        remove(this);
+        return;
+      } finally {
+        scheduled.set(false);
+        if (stuck) {
+          releaseReplacement();
+          emitter.complete();
+        }
+      }
+      if (stuck) {
+        return;
+      }
+      // readings offered after the last pass saw the drain still scheduled and did not schedule another
+      if (!pending.isEmpty()) {
+        schedule();
+      }
+    }
+
+    private void releaseReplacement() {
+      if (replaced.compareAndSet(true, false)) {
+        resizeSender(-1);
+      }
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) throws IOException {
+      sendingSince = System.nanoTime();
+      try {
+        emitter.send(event);
+      } finally {
+        sendingSince = 0;
+      }
+    }
+  }
+}
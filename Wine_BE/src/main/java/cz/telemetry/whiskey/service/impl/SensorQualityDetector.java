@@ -0,0 +1,282 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.properties.QualityProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.domain.QualityFlag;
+import cz.telemetry.whiskey.repository.SensorQualityState;
+import cz.telemetry.whiskey.repository.SensorQualityStateRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flags suspicious readings on ingest, before they are stored, with a constant size model per sensor.
+ *
+ * <p>The model keeps an exponentially weighted mean and variance of both metrics. Once warmed up, a reading
+ * further from the mean than the configured number of standard deviations is a {@link QualityFlag#SPIKE}. A
+ * reading which moved away from the last clean one faster than the metric plausibly can is a
+ * {@link QualityFlag#RATE_OF_CHANGE}. Both metrics staying exactly the same for too long is a
+ * {@link QualityFlag#FLATLINE}. Flagged readings do not move the model, a run of outliers as long as the
+ * warm-up is taken for a real change of level and the model starts over from it.
+ *
+ * <p>Readings are {@link #classify classified} against copies of the models before they are inserted, the
+ * models move only by the readings which were {@link #commit stored}. A batch whose insert failed is flagged
+ * the same when it is retried from the spool or the ingest queue. Readings not newer than the last stored one
+ * of their sensor, late or duplicated, are not inspected and stay clean. The models are checkpointed
+ * periodically and on shutdown and restored at startup, so a restart does not start every sensor over.
+ */
+@Slf4j
+@Component
+public class SensorQualityDetector {
+
+  private final QualityProperties properties;
+  private final SensorQualityStateRepository stateRepository;
+  private final ConcurrentMap<String, SensorModel> models = new ConcurrentHashMap<>();
+  private final Map<QualityFlag, Counter> flagged = new EnumMap<>(QualityFlag.class);
+
+  public SensorQualityDetector(WhiskeyProperties whiskeyProperties, SensorQualityStateRepository stateRepository,
+      MeterRegistry meterRegistry) {
+    this.properties = whiskeyProperties.getQuality();
+    this.stateRepository = stateRepository;
+    for (QualityFlag flag : QualityFlag.values()) {
+      flagged.put(flag, Counter.builder("whiskey.quality.flagged")
+          .description("Readings flagged as suspicious on ingest")
+          .tag("flag", flag.name())
+          .register(meterRegistry));
+    }
+  }
+
+  @PostConstruct
+  void restore() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    for (SensorQualityState state : stateRepository.findAll()) {
+      models.put(state.sensorId(), SensorModel.of(state));
+    }
+    log.info("Restored quality models of {} sensors", models.size());
+  }
+
+  /**
+   * Sets the {@link SensorData#getQualityFlag() quality flag} of every reading without moving the models.
+   *
+   * @param readings readings about to be stored, in the order they were received
+   */
+  public void classify(List<SensorData> readings) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    final Map<String, SensorModel> copies = new HashMap<>();
+    for (SensorData reading : readings) {
+      final var model = copies.computeIfAbsent(reading.getSensorId(), this::copyOf);
+      reading.setQualityFlag((short) model.inspect(properties, reading.getTimestamp(), reading.getTemperature(),
+          reading.getHumidity()));
+    }
+  }
+
+  /**
+   * Moves the models by readings which were stored.
+   *
+   * @param stored readings {@link #classify classified} before, in the same order
+   */
+  public void commit(List<SensorData> stored) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    for (SensorData reading : stored) {
+      final var model = models.computeIfAbsent(reading.getSensorId(), key -> new SensorModel());
+      synchronized (model) {
+        model.inspect(properties, reading.getTimestamp(), reading.getTemperature(), reading.getHumidity());
+      }
+      final int flags = reading.getQualityFlag();
+      if (flags != 0) {
+        final var reasons = QualityFlag.of(flags);
+        reasons.forEach(flag -> flagged.get(flag).increment());
+        log.debug("Reading of sensor {} at {} flagged as {}", reading.getSensorId(), reading.getTimestamp(),
+            reasons);
+      }
+    }
+  }
+
+  private SensorModel copyOf(String sensorId) {
+    final var model = models.get(sensorId);
+    if (model == null) {
+      return new SensorModel();
+    }
+    synchronized (model) {
+      return SensorModel.of(model.state(sensorId));
+    }
+  }
+
+  /**
+   * Saves the models changed since the previous checkpoint.
+   */
+  @Scheduled(fixedDelayString = "${whiskey.quality.checkpoint-interval:PT1M}")
+  public void checkpoint() {
+    final List<SensorQualityState> changed = new ArrayList<>();
+    models.forEach((sensorId, model) -> {
+      synchronized (model) {
+        if (model.dirty) {
+          changed.add(model.state(sensorId));
+          model.dirty = false;
+        }
+      }
+    });
+    if (changed.isEmpty()) {
+      return;
+    }
+    try {
+      stateRepository.saveAll(changed);
+    } catch (RuntimeException e) {
+      changed.forEach(state -> {
+        final var model = models.get(state.sensorId());
+        synchronized (model) {
+          model.dirty = true;
+        }
+      });
+      log.warn("Quality models of {} sensors could not be checkpointed", changed.size(), e);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    checkpoint();
+  }
+
+  /**
+   * Quality model of one sensor, guarded by its own monitor.
+   */
+  static final class SensorModel {
+
+    private long readings;
+    private Instant lastAt;
+    private double temperatureMean;
+    private double temperatureVariance;
+    private double humidityMean;
+    private double humidityVariance;
+    private Instant cleanAt;
+    private double cleanTemperature;
+    private double cleanHumidity;
+    private int outlierRun;
+    private Instant flatSince;
+    private double flatTemperature;
+    private double flatHumidity;
+    private boolean dirty;
+
+    static SensorModel of(SensorQualityState state) {
+      final var model = new SensorModel();
+      model.readings = state.readings();
+      model.lastAt = state.lastAt();
+      model.temperatureMean = state.temperatureMean();
+      model.temperatureVariance = state.temperatureVariance();
+      model.humidityMean = state.humidityMean();
+      model.humidityVariance = state.humidityVariance();
+      model.cleanAt = state.cleanAt();
+      model.cleanTemperature = state.cleanTemperature();
+      model.cleanHumidity = state.cleanHumidity();
+      model.outlierRun = state.outlierRun();
+      model.flatSince = state.flatSince();
+      model.flatTemperature = state.flatTemperature();
+      model.flatHumidity = state.flatHumidity();
+      return model;
+    }
+
+    SensorQualityState state(String sensorId) {
+      return new SensorQualityState(sensorId, readings, lastAt, temperatureMean, temperatureVariance, humidityMean,
+          humidityVariance, cleanAt, cleanTemperature, cleanHumidity, outlierRun, flatSince, flatTemperature,
+          flatHumidity);
+    }
+
+    /**
+     * Moves the model by one reading.
+     *
+     * @return {@link QualityFlag} bit mask of the reading
+     */
+    int inspect(QualityProperties properties, Instant timestamp, double temperature, double humidity) {
+      if (lastAt != null && !timestamp.isAfter(lastAt)) {
+        return 0;
+      }
+      lastAt = timestamp;
+      dirty = true;
+      if (!Double.isFinite(temperature) || !Double.isFinite(humidity)) {
+        return QualityFlag.SPIKE.mask();
+      }
+
+      int flags = 0;
+      if (flatSince == null || temperature != flatTemperature || humidity != flatHumidity) {
+        flatSince = timestamp;
+        flatTemperature = temperature;
+        flatHumidity = humidity;
+      } else if (Duration.between(flatSince, timestamp).compareTo(properties.getFlatlineDuration()) >= 0) {
+        flags |= QualityFlag.FLATLINE.mask();
+      }
+      if (cleanAt != null) {
+        final double minutes = Duration.between(cleanAt, timestamp).toMillis() / 60_000.0;
+        if (Math.abs(temperature - cleanTemperature) > properties.getResolution()
+            + properties.getMaxTemperatureRate() * minutes
+            || Math.abs(humidity - cleanHumidity) > properties.getResolution()
+            + properties.getMaxHumidityRate() * minutes) {
+          flags |= QualityFlag.RATE_OF_CHANGE.mask();
+        }
+      }
+      if (readings >= properties.getWarmUpReadings()
+          && (isSpike(properties, temperature, temperatureMean, temperatureVariance)
+          || isSpike(properties, humidity, humidityMean, humidityVariance))) {
+        flags |= QualityFlag.SPIKE.mask();
+      }
+
+      final boolean outlier = QualityFlag.SPIKE.isSet(flags) || QualityFlag.RATE_OF_CHANGE.isSet(flags);
+      if (outlier) {
+        if (++outlierRun < properties.getWarmUpReadings()) {
+          return flags;
+        }
+        // off for a whole warm-up, the level really moved: learn it anew from here
+        readings = 0;
+      }
+      outlierRun = 0;
+      if (outlier || !QualityFlag.FLATLINE.isSet(flags)) {
+        learn(properties.getSmoothing(), timestamp, temperature, humidity);
+      }
+      return flags;
+    }
+
+    private void learn(double smoothing, Instant timestamp, double temperature, double humidity) {
+      if (readings == 0) {
+        temperatureMean = temperature;
+        temperatureVariance = 0;
+        humidityMean = humidity;
+        humidityVariance = 0;
+      } else {
+        final double temperatureDelta = temperature - temperatureMean;
+        temperatureMean += smoothing * temperatureDelta;
+        temperatureVariance = (1 - smoothing) * (temperatureVariance + smoothing * temperatureDelta * temperatureDelta);
+        final double humidityDelta = humidity - humidityMean;
+        humidityMean += smoothing * humidityDelta;
+        humidityVariance = (1 - smoothing) * (humidityVariance + smoothing * humidityDelta * humidityDelta);
+      }
+      readings++;
+      cleanAt = timestamp;
+      cleanTemperature = temperature;
+      cleanHumidity = humidity;
+    }
+
+    private static boolean isSpike(QualityProperties properties, double value, double mean, double variance) {
+      final double deviation = Math.max(Math.sqrt(variance), properties.getResolution());
+      return Math.abs(value - mean) > properties.getSpikeDeviations() * deviation;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.repository.LocationRepository;
+import cz.telemetry.whiskey.security.sensor.Location;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory mapping of sensors to locations, so per-location queries resolve to a set of sensor ids without
+ * joining {@code location}. Loaded on first use and again after every {@link #invalidate() invalidation}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SensorTopology {
+
+  private final LocationRepository locationRepository;
+  private final AtomicLong version = new AtomicLong();
+
+  private volatile Topology topology;
+
+  /**
+   * @return sensors placed at the location, empty when the location is unknown
+   */
+  public Optional<Set<String>> sensorsAt(String location) {
+    return Optional.ofNullable(topology().sensorsByLocation().get(location));
+  }
+
+  /**
+   * @return location of the sensor, empty for a sensor not placed anywhere
+   */
+  public Optional<String> locationOf(String sensorId) {
+    return Optional.ofNullable(topology().locationBySensor().get(sensorId));
+  }
+
+  public Set<String> locations() {
+    return topology().sensorsByLocation().keySet();
+  }
+
+  /**
+   * Changes whenever the mapping may have changed, usable as a part of an entity tag
+   */
+  public long version() {
+    return version.get();
+  }
+
+  /**
+   * Synchronized with the loading, so a load running concurrently cannot store the mapping it read before.
+   */
+  public synchronized void invalidate() {
+    version.incrementAndGet();
+    topology = null;
+  }
+
+  /**
+   * Invalidates once the current transaction commits, a reload before that would cache the old mapping.
+   */
+  public void invalidateAfterCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate();
+      }
+    });
+  }
+
+  private Topology topology() {
+    Topology current = topology;
+    if (current == null) {
+      synchronized (this) {
+        current = topology;
+        if (current == null) {
+          current = load();
+          topology = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private Topology load() {
+    final Map<String, Set<String>> sensorsByLocation = new HashMap<>();
+    final Map<String, String> locationBySensor = new HashMap<>();
+    for (Location location : locationRepository.findAllBySensorIdNotNull()) {
+      sensorsByLocation.computeIfAbsent(location.getLocationName(), name -> new HashSet<>())
+          .add(location.getSensorId());
+      locationBySensor.put(location.getSensorId(), location.getLocationName());
+    }
+    sensorsByLocation.replaceAll((name, sensors) -> Set.copyOf(sensors));
+    log.debug("Sensor topology loaded with {} sensors in {} locations", locationBySensor.size(),
+        sensorsByLocation.size());
+    return new Topology(Map.copyOf(sensorsByLocation), Map.copyOf(locationBySensor));
+  }
+
+  private record Topology(Map<String, Set<String>> sensorsByLocation, Map<String, String> locationBySensor) {
+
+  }
+}
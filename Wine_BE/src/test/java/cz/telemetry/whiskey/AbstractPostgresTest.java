@@ -0,0 +1,27 @@
+package cz.telemetry.whiskey;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base class for tests which need a real PostgreSQL with the Liquibase schema applied. Tests are skipped
+ * when no Docker daemon is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class AbstractPostgresTest {
+
+  @Container
+  protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+  @DynamicPropertySource
+  static void postgresProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+    registry.add("spring.datasource.username", POSTGRES::getUsername);
+    registry.add("spring.datasource.password", POSTGRES::getPassword);
+    registry.add("spring.liquibase.change-log", () -> "classpath:db/changelog/db.changelog-master.xml");
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+  }
+}
@@ -0,0 +1,51 @@
+package cz.telemetry.whiskey;
+
+import cz.telemetry.whiskey.repository.SensorDataArchiveRepository;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.repository.SensorDataRetentionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.SensorDataSketchRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.impl.RollupVerifier;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Base class for tests of the {@code sensor_data} partitions, rollups and archive. All of them share one
+ * application context with the JDBC repositories.
+ */
+@DataJpaTest
+@Import({SensorDataPartitionRepository.class, SensorDataArchiveRepository.class, SensorDataRetentionRepository.class,
+    SensorDataRollupRepository.class, SensorDataSketchRepository.class, RollupVerifier.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public abstract class AbstractSensorDataTest extends AbstractPostgresTest {
+
+  @Autowired
+  protected SensorDataRepository repository;
+
+  /**
+   * @return readings of {@code cellar-1} and {@code cellar-2} every 15 seconds for {@code hours} from
+   *     {@code start}, both sensors at the same times
+   */
+  protected static List<SensorData> twoCellars(LocalDateTime start, int hours) {
+    final List<SensorData> readings = new ArrayList<>();
+    for (int i = 0; i < hours * 60 * 4; i++) {
+      final var time = instant(start.plusSeconds(i * 15L));
+      readings.add(new SensorData(null, 12 + i % 3 * 0.1, 60 + i % 5, time, "cellar-1"));
+      readings.add(new SensorData(null, 14 + Math.sin(i), 70 + i % 7, time, "cellar-2"));
+    }
+    return readings;
+  }
+
+  protected static Instant instant(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant();
+  }
+}
@@ -0,0 +1,55 @@
+package cz.telemetry.whiskey;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * Warm-up and measurement loop of the benchmark tests. Benchmarks log their timings and assert sizes only,
+ * timings depend too much on the machine to be asserted.
+ */
+public final class Benchmark {
+
+  private Benchmark() {
+  }
+
+  /**
+   * Runs {@code round} {@code warmUpRounds} times, then measures {@code measuredRounds} more runs by the CPU
+   * time of the current thread.
+   *
+   * @param itemsPerRound readings or rows one run of {@code round} handles
+   * @return CPU nanoseconds per item
+   */
+  public static long cpuNanosPerItem(int warmUpRounds, int measuredRounds, long itemsPerRound, Round round)
+      throws IOException {
+    return nanosPerItem(ManagementFactory.getThreadMXBean()::getCurrentThreadCpuTime, warmUpRounds,
+        measuredRounds, itemsPerRound, round);
+  }
+
+  /**
+   * Same as {@link #cpuNanosPerItem} by wall time, for rounds which wait for work done elsewhere, such as a
+   * database query.
+   */
+  public static long wallNanosPerItem(int warmUpRounds, int measuredRounds, long itemsPerRound, Round round)
+      throws IOException {
+    return nanosPerItem(System::nanoTime, warmUpRounds, measuredRounds, itemsPerRound, round);
+  }
+
+  private static long nanosPerItem(LongSupplier clock, int warmUpRounds, int measuredRounds, long itemsPerRound,
+      Round round) throws IOException {
+    for (int i = 0; i < warmUpRounds; i++) {
+      round.run();
+    }
+    final long started = clock.getAsLong();
+    for (int i = 0; i < measuredRounds; i++) {
+      round.run();
+    }
+    return (clock.getAsLong() - started) / (measuredRounds * itemsPerRound);
+  }
+
+  @FunctionalInterface
+  public interface Round {
+
+    void run() throws IOException;
+  }
+}
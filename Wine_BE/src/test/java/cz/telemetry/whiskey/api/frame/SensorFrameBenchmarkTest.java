@@ -0,0 +1,57 @@
+package cz.telemetry.whiskey.api.frame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import cz.telemetry.whiskey.Benchmark;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares payload size and parse CPU time of a gateway batch in JSON and in binary frames.
+ */
+@Slf4j
+class SensorFrameBenchmarkTest {
+
+  private static final int READINGS = 5000;
+  private static final int WARMUP_ROUNDS = 50;
+  private static final int MEASURED_ROUNDS = 100;
+
+  private static final TypeReference<List<SensorDataDto>> DTO_LIST = new TypeReference<>() {
+  };
+
+  private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+  @Test
+  void binaryFramesAreSmallerAndCheaperToParseThanJson() throws IOException {
+    final List<SensorDataDto> readings = new ArrayList<>(READINGS);
+    final var start = Instant.parse("2025-04-01T00:00:00Z");
+    for (int i = 0; i < READINGS; i++) {
+      readings.add(new SensorDataDto(12.5 + (i % 40) / 10.0, 70 + (i % 15) / 10.0, start.plusSeconds(i * 10L),
+          "cellar-1"));
+    }
+    final byte[] json = objectMapper.writeValueAsBytes(readings);
+    final var frames = new ByteArrayOutputStream();
+    SensorFrameCodec.encode("cellar-1", readings, frames);
+    final byte[] binary = frames.toByteArray();
+
+    final long jsonNanos = Benchmark.cpuNanosPerItem(WARMUP_ROUNDS, MEASURED_ROUNDS, READINGS,
+        () -> objectMapper.readValue(json, DTO_LIST));
+    final long binaryNanos = Benchmark.cpuNanosPerItem(WARMUP_ROUNDS, MEASURED_ROUNDS, READINGS,
+        () -> SensorFrameCodec.decode(new ByteArrayInputStream(binary), READINGS));
+
+    log.info("JSON:   {} bytes/reading, {} ns CPU/reading", json.length / READINGS, jsonNanos);
+    log.info("Frames: {} bytes/reading, {} ns CPU/reading", binary.length / READINGS, binaryNanos);
+    assertThat(SensorFrameCodec.decode(new ByteArrayInputStream(binary), READINGS)).isEqualTo(readings);
+    assertThat(binary.length * 5).isLessThan(json.length);
+  }
+}
@@ -0,0 +1,90 @@
+package cz.telemetry.whiskey.api.frame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SensorFrameCodecTest {
+
+  private static final Instant T0 = Instant.parse("2025-04-01T10:00:00.123Z");
+
+  @Test
+  void concatenatedFramesRoundTrip() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    SensorFrameCodec.encode("cellar-1", List.of(
+        new SensorDataDto(21.3, 63.5, T0, "cellar-1"),
+        new SensorDataDto(21.4, 63.0, T0.plusSeconds(1), "cellar-1")), out);
+    SensorFrameCodec.encode("cellar-2", List.of(new SensorDataDto(-4.2, 80.1, T0, "cellar-2")), out);
+
+    final var decoded = SensorFrameCodec.decode(new ByteArrayInputStream(out.toByteArray()), 10);
+
+    assertThat(out.size()).isEqualTo(2 * (6 + 8) + 3 * 16);
+    assertThat(decoded).containsExactly(
+        new SensorDataDto(21.3, 63.5, T0, "cellar-1"),
+        new SensorDataDto(21.4, 63.0, T0.plusSeconds(1), "cellar-1"),
+        new SensorDataDto(-4.2, 80.1, T0, "cellar-2"));
+  }
+
+  @Test
+  void truncatedFrameIsRejected() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    SensorFrameCodec.encode("cellar-1", List.of(new SensorDataDto(21.3, 63.5, T0, "cellar-1")), out);
+    final byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+
+    assertThatThrownBy(() -> SensorFrameCodec.decode(new ByteArrayInputStream(truncated), 10))
+        .isInstanceOf(SensorFrameException.class);
+  }
+
+  @Test
+  void readingLimitIsCheckedFromTheHeader() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    SensorFrameCodec.encode("cellar-1", List.of(
+        new SensorDataDto(21.3, 63.5, T0, "cellar-1"),
+        new SensorDataDto(21.4, 63.0, T0.plusSeconds(1), "cellar-1")), out);
+
+    assertThatThrownBy(() -> SensorFrameCodec.decode(new ByteArrayInputStream(out.toByteArray()), 1))
+        .isInstanceOf(SensorFrameException.class)
+        .hasMessageContaining("more than 1");
+  }
+
+  @Test
+  void frameWithoutSensorIdIsRejected() {
+    final byte[] frame = {0x53, 0x44, 1, 0, 0, 0};
+
+    assertThatThrownBy(() -> SensorFrameCodec.decode(new ByteArrayInputStream(frame), 10))
+        .isInstanceOf(SensorFrameException.class)
+        .hasMessageContaining("sensor id");
+    assertThatThrownBy(() -> SensorFrameCodec.encode(" ", List.of(), new ByteArrayOutputStream()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void sensorIdLongerThanTheColumnIsRejected() {
+    final byte[] frame = new byte[6 + 129];
+    frame[0] = 0x53;
+    frame[1] = 0x44;
+    frame[2] = 1;
+    frame[3] = (byte) 129;
+    Arrays.fill(frame, 4, 4 + 129, (byte) 'x');
+
+    assertThatThrownBy(() -> SensorFrameCodec.decode(new ByteArrayInputStream(frame), 10))
+        .isInstanceOf(SensorFrameException.class)
+        .hasMessageContaining("longer than 128");
+    assertThatThrownBy(() -> SensorFrameCodec.encode("x".repeat(129), List.of(), new ByteArrayOutputStream()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void badMagicIsRejected() {
+    assertThatThrownBy(() -> SensorFrameCodec.decode(new ByteArrayInputStream(new byte[] {'{', '"'}), 10))
+        .isInstanceOf(SensorFrameException.class);
+  }
+}
@@ -0,0 +1,93 @@
+package cz.telemetry.whiskey.api.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import cz.telemetry.whiskey.Benchmark;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares response size and serialization CPU time of {@code /between} rows and the columnar format.
+ */
+@Slf4j
+class ColumnarSensorDataJsonBenchmarkTest {
+
+  private static final int SENSORS = 4;
+  private static final int READINGS_PER_SENSOR = 5000;
+  private static final int READINGS = SENSORS * READINGS_PER_SENSOR;
+  private static final int WARMUP_ROUNDS = 30;
+  private static final int MEASURED_ROUNDS = 50;
+  private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+  private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+  @Test
+  void columnarJsonIsSmallerAndCheaperToWriteThanRows() throws IOException {
+    final byte[] rows = writeRows();
+    final byte[] columns = writeColumns();
+
+    final long rowNanos = Benchmark.cpuNanosPerItem(WARMUP_ROUNDS, MEASURED_ROUNDS, READINGS, this::writeRows);
+    final long columnNanos = Benchmark.cpuNanosPerItem(WARMUP_ROUNDS, MEASURED_ROUNDS, READINGS,
+        this::writeColumns);
+
+    log.info("Rows:    {} bytes/reading, {} ns CPU/reading", rows.length / READINGS, rowNanos);
+    log.info("Columns: {} bytes/reading, {} ns CPU/reading", columns.length / READINGS, columnNanos);
+    assertThat(columns.length * 2).isLessThan(rows.length);
+  }
+
+  @Test
+  void splitsBlocksOnSensorChangeAndBlockSize() throws IOException {
+    final JsonNode blocks = objectMapper.readTree(writeColumns());
+
+    final int blocksPerSensor = (READINGS_PER_SENSOR + ColumnarSensorDataJsonWriter.BLOCK_SIZE - 1)
+        / ColumnarSensorDataJsonWriter.BLOCK_SIZE;
+    assertThat(blocks).hasSize(SENSORS * blocksPerSensor);
+    final JsonNode first = blocks.get(0);
+    assertThat(first.get("sensorId").asText()).isEqualTo("cellar-0");
+    assertThat(first.get("timestamps")).hasSize(ColumnarSensorDataJsonWriter.BLOCK_SIZE);
+    assertThat(first.get("timestamps").get(1).asLong()).isEqualTo(START.plusSeconds(10).toEpochMilli());
+    assertThat(first.get("temperature").get(1).asDouble()).isEqualTo(temperature(1));
+    assertThat(blocks.get(1).get("humidity")).hasSize(READINGS_PER_SENSOR - ColumnarSensorDataJsonWriter.BLOCK_SIZE);
+    assertThat(blocks.get(blocksPerSensor).get("sensorId").asText()).isEqualTo("cellar-1");
+  }
+
+  private byte[] writeRows() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    try (var writer = new SensorDataJsonWriter(objectMapper.getFactory().createGenerator(out))) {
+      long id = 0;
+      for (int s = 0; s < SENSORS; s++) {
+        for (int i = 0; i < READINGS_PER_SENSOR; i++) {
+          writer.handle(id++, START.plusSeconds(i * 10L), "cellar-" + s, temperature(i), humidity(i));
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private byte[] writeColumns() throws IOException {
+    final var out = new ByteArrayOutputStream();
+    try (var writer = new ColumnarSensorDataJsonWriter(objectMapper.getFactory().createGenerator(out))) {
+      final long start = START.toEpochMilli();
+      for (int s = 0; s < SENSORS; s++) {
+        for (int i = 0; i < READINGS_PER_SENSOR; i++) {
+          writer.handle("cellar-" + s, start + i * 10_000L, temperature(i), humidity(i));
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static double temperature(int i) {
+    return 12.5 + (i % 40) / 10.0;
+  }
+
+  private static double humidity(int i) {
+    return 70 + (i % 15) / 10.0;
+  }
+}
@@ -0,0 +1,43 @@
+package cz.telemetry.whiskey.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchivedReadingFilterTest {
+
+  private static final YearMonth MARCH = YearMonth.of(2031, 3);
+  private static final Instant T0 = MARCH.atDay(14).atStartOfDay(ZoneId.systemDefault()).toInstant();
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void onlyReadingsTheArchiveHoldsAreFiltered() throws IOException {
+    final var whiskeyProperties = new WhiskeyProperties();
+    whiskeyProperties.getArchive().setDirectory(directory.toString());
+    final var archive = new SensorDataArchive(whiskeyProperties);
+    archive.load();
+    try (var writer = archive.write(MARCH)) {
+      final var readings = new ReadingColumns();
+      for (int i = 0; i < 100; i++) {
+        readings.add(i, SensorDataArchive.epochMicros(T0.plusSeconds(i * 15L)), 12, 60, (short) 0);
+      }
+      writer.add("cellar-1", readings);
+      writer.commit();
+    }
+    final var filter = new ArchivedReadingFilter(archive);
+
+    assertThat(filter.isArchived("cellar-1", T0.plusSeconds(30))).isTrue();
+    assertThat(filter.isArchived("cellar-1", T0.plusSeconds(31))).as("late reading").isFalse();
+    assertThat(filter.isArchived("cellar-2", T0.plusSeconds(30))).as("other sensor").isFalse();
+    assertThat(filter.isArchived("cellar-1", T0.plusSeconds(60L * 60 * 24 * 30))).as("not archived").isFalse();
+  }
+}
@@ -0,0 +1,113 @@
+package cz.telemetry.whiskey.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SensorChunkCodecTest {
+
+  private static final long T0 = SensorDataArchive.epochMicros(Instant.parse("2025-04-01T00:00:00Z"));
+
+  @Test
+  void evenlySpacedIntegerReadingsTakeAFewBitsEach() {
+    final var readings = new ReadingColumns();
+    for (int i = 0; i < 10_000; i++) {
+      readings.add(1000 + i, T0 + i * 10_000_000L, 12 + i / 500 % 3, 60 + i / 200 % 5, (short) 0);
+    }
+
+    final var chunk = SensorChunkCodec.encode("cellar-1", readings);
+
+    assertRoundTrip("cellar-1", readings, chunk);
+    assertThat(chunk.limit()).isLessThan(readings.size());
+  }
+
+  @Test
+  void decimalReadingsAreStoredInFixedPoint() {
+    final var readings = new ReadingColumns();
+    for (int i = 0; i < 1000; i++) {
+      readings.add(i * 3L, T0 + i * 1_000L, 12.5 + i % 40 / 10.0, 70.25 - i % 15 / 100.0, (short) 0);
+    }
+
+    final var chunk = SensorChunkCodec.encode("cellar-1", readings);
+
+    assertThat(chunk.get(5)).as("time unit").isEqualTo((byte) 1);
+    assertThat(chunk.get(6)).as("temperature scale").isEqualTo((byte) 1);
+    assertThat(chunk.get(7)).as("humidity scale").isEqualTo((byte) 2);
+    assertRoundTrip("cellar-1", readings, chunk);
+  }
+
+  @Test
+  void noisyReadingsAndIrregularTimestampsRoundTripExactly() {
+    final var random = new Random(42);
+    final var readings = new ReadingColumns();
+    long time = T0 + 7;
+    for (int i = 0; i < 5000; i++) {
+      time += 1 + random.nextInt(i % 100 == 0 ? 1_000_000_000 : 20_000_000);
+      readings.add(random.nextLong(), time, 15 + random.nextGaussian(),
+          i % 7 == 0 ? Double.NaN : random.nextDouble() * 100, (short) 0);
+    }
+
+    final var chunk = SensorChunkCodec.encode("cellar-ž/1", readings);
+
+    assertThat(chunk.get(6)).isEqualTo((byte) SensorChunkCodec.XOR);
+    assertRoundTrip("cellar-ž/1", readings, chunk);
+  }
+
+  @Test
+  void qualityFlagsAndSpecialValuesSurvive() {
+    final var readings = new ReadingColumns();
+    readings.add(1, T0, -0.0, Double.POSITIVE_INFINITY, (short) 0);
+    readings.add(2, T0 + 1, Double.MAX_VALUE, -1e-300, (short) 5);
+    readings.add(3, T0 + 2, Double.MIN_VALUE, 0, (short) -1);
+    readings.add(Long.MIN_VALUE, T0 + 3, 0, 0, (short) 0);
+
+    assertRoundTrip("cellar-1", readings, SensorChunkCodec.encode("cellar-1", readings));
+  }
+
+  @Test
+  void singleReadingRoundTrips() {
+    final var readings = new ReadingColumns();
+    readings.add(7, -T0, 21.3, 63.5, (short) 2);
+
+    assertRoundTrip("", readings, SensorChunkCodec.encode("", readings));
+  }
+
+  @Test
+  void readingsMustBeAscending() {
+    final var readings = new ReadingColumns();
+    readings.add(1, T0, 20, 60, (short) 0);
+
+    assertThatThrownBy(() -> readings.add(2, T0, 20, 60, (short) 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void foreignBufferIsRejected() {
+    assertThatThrownBy(() -> new SensorChunkReader(ByteBuffer.wrap(new byte[64])))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static void assertRoundTrip(String sensorId, ReadingColumns expected, ByteBuffer chunk) {
+    final var reader = new SensorChunkReader(chunk);
+    assertThat(reader.sensorId()).isEqualTo(sensorId);
+    assertThat(reader.count()).isEqualTo(expected.size());
+    assertThat(reader.firstEpochMicros()).isEqualTo(expected.epochMicros(0));
+    assertThat(reader.lastEpochMicros()).isEqualTo(expected.epochMicros(expected.size() - 1));
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(reader.next()).isTrue();
+      assertThat(reader.id()).isEqualTo(expected.id(i));
+      assertThat(reader.epochMicros()).isEqualTo(expected.epochMicros(i));
+      assertThat(Double.doubleToRawLongBits(reader.temperature()))
+          .as("temperature of reading %d", i)
+          .isEqualTo(Double.doubleToRawLongBits(expected.temperature(i)));
+      assertThat(Double.doubleToRawLongBits(reader.humidity()))
+          .as("humidity of reading %d", i)
+          .isEqualTo(Double.doubleToRawLongBits(expected.humidity(i)));
+      assertThat(reader.qualityFlag()).isEqualTo(expected.qualityFlag(i));
+    }
+    assertThat(reader.next()).isFalse();
+  }
+}
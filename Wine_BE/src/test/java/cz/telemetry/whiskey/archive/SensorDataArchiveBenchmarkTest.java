@@ -0,0 +1,95 @@
+package cz.telemetry.whiskey.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractSensorDataTest;
+import cz.telemetry.whiskey.Benchmark;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.SensorDataArchiveRepository;
+import cz.telemetry.whiskey.repository.SensorDataColumnHandler;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Compares bytes per reading and scan time of a month in its {@code sensor_data} partition, indexes included,
+ * and in the archive.
+ */
+@Slf4j
+class SensorDataArchiveBenchmarkTest extends AbstractSensorDataTest {
+
+  private static final YearMonth MONTH = YearMonth.of(2032, 1);
+  private static final int SENSORS = 5;
+  private static final int READINGS_PER_SENSOR = 10_000;
+  private static final int READINGS = SENSORS * READINGS_PER_SENSOR;
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int MEASURED_ROUNDS = 5;
+
+  @TempDir
+  private Path directory;
+
+  @Autowired
+  private SensorDataPartitionRepository partitionRepository;
+
+  @Autowired
+  private SensorDataArchiveRepository archiveRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void archiveIsSmallerThanTheTable() throws IOException {
+    partitionRepository.createMonth(MONTH);
+    final var start = MONTH.atDay(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    final var random = new Random(7);
+    final List<SensorData> readings = new ArrayList<>(READINGS);
+    for (int sensor = 0; sensor < SENSORS; sensor++) {
+      double temperature = 12;
+      double humidity = 70;
+      for (int i = 0; i < READINGS_PER_SENSOR; i++) {
+        temperature = Math.round((temperature + random.nextGaussian() * 0.1) * 10) / 10.0;
+        humidity = Math.round((humidity + random.nextGaussian() * 0.3) * 10) / 10.0;
+        readings.add(new SensorData(null, temperature, humidity, start.plusSeconds(i * 10L), "cellar-" + sensor));
+      }
+    }
+    repository.insertIgnoringDuplicates(readings);
+    final long tableBytes = jdbcTemplate.queryForObject(
+        "SELECT pg_total_relation_size('sensor_data_2032_01')", Long.class);
+
+    final var whiskeyProperties = new WhiskeyProperties();
+    whiskeyProperties.getArchive().setDirectory(directory.toString());
+    final var archive = new SensorDataArchive(whiskeyProperties);
+    archive.load();
+    try (var writer = archive.write(MONTH)) {
+      archiveRepository.streamMonth(MONTH, writer::add);
+      writer.commit();
+    }
+    final long archiveBytes = archive.summaries().get(0).bytes();
+
+    final var end = start.plusSeconds(READINGS_PER_SENSOR * 10L);
+    final long[] scanned = new long[1];
+    final SensorDataColumnHandler counter = (sensorId, epochMillis, temperature, humidity) -> scanned[0]++;
+    final long tableNanos = Benchmark.wallNanosPerItem(WARMUP_ROUNDS, MEASURED_ROUNDS, READINGS,
+        () -> repository.streamColumnsBetween(start, end, counter));
+    final long archiveNanos = Benchmark.wallNanosPerItem(WARMUP_ROUNDS, MEASURED_ROUNDS, READINGS,
+        () -> archive.streamColumns(start, end, counter));
+
+    log.info("Table:   {} bytes/reading, {} ns/reading scanned", tableBytes / READINGS, tableNanos);
+    log.info("Archive: {} bytes/reading, {} ns/reading scanned", (double) archiveBytes / READINGS, archiveNanos);
+    assertThat(scanned[0]).isEqualTo(2L * (WARMUP_ROUNDS + MEASURED_ROUNDS) * READINGS);
+    assertThat(archive.summaries().get(0).readings()).isEqualTo(READINGS);
+    assertThat(archiveBytes * 10).isLessThan(tableBytes);
+  }
+}
@@ -0,0 +1,89 @@
+package cz.telemetry.whiskey.controller;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import cz.telemetry.whiskey.config.ProblemConfiguration;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.BatchTooLargeException;
+import cz.telemetry.whiskey.service.SensorDataIngestQueue;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.zalando.problem.jackson.ProblemModule;
+
+/**
+ * Answers of the batch endpoint while the write-behind queue is enabled.
+ */
+class SensorDataControllerTest {
+
+  private static final String BATCH = """
+      [{"temperature":20.5,"humidity":61,"timestamp":"2025-04-01T10:00:00Z","sensorId":"cellar-1"},
+       {"temperature":20.6,"humidity":61,"timestamp":"2025-04-01T10:00:15Z","sensorId":"cellar-1"}]""";
+
+  private final SensorDataIngestQueue queue = mock(SensorDataIngestQueue.class);
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    final var properties = new WhiskeyProperties();
+    properties.getIngest().setRetryAfter(Duration.ofSeconds(7));
+    final var controller = new SensorDataController();
+    ReflectionTestUtils.setField(controller, "ingestQueue",
+        new StaticListableBeanFactory(Map.of("queue", queue)).getBeanProvider(SensorDataIngestQueue.class));
+    ReflectionTestUtils.setField(controller, "whiskeyProperties", properties);
+    final var objectMapper = Jackson2ObjectMapperBuilder.json()
+        .modules(new JavaTimeModule(), new ProblemModule())
+        .build();
+    mockMvc = MockMvcBuilders.standaloneSetup(controller)
+        .setControllerAdvice(new ProblemConfiguration.SecurityExceptionHandling())
+        .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+        .build();
+  }
+
+  @Test
+  void fullQueueAnswersTooManyRequestsWithRetryAfter() throws Exception {
+    when(queue.offer(anyList())).thenReturn(true, false);
+
+    mockMvc.perform(post("/api/sensors/batch").contentType(MediaType.APPLICATION_JSON).content(BATCH))
+        .andExpect(status().isAccepted());
+    mockMvc.perform(post("/api/sensors/batch").contentType(MediaType.APPLICATION_JSON).content(BATCH))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string("Retry-After", "7"));
+  }
+
+  @Test
+  void batchLargerThanTheQueueAnswersPayloadTooLarge() throws Exception {
+    when(queue.offer(anyList())).thenThrow(new BatchTooLargeException(2, 1));
+
+    mockMvc.perform(post("/api/sensors/batch").contentType(MediaType.APPLICATION_JSON).content(BATCH))
+        .andExpect(status().isPayloadTooLarge())
+        .andExpect(header().doesNotExist("Retry-After"))
+        .andExpect(jsonPath("$.title").value("Batch too large"));
+  }
+
+  @Test
+  void sensorIdLongerThanTheColumnIsRejectedBeforeItIsQueued() throws Exception {
+    final var batch = BATCH.replaceFirst("cellar-1", "x".repeat(129));
+
+    mockMvc.perform(post("/api/sensors/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+        .andExpect(status().isBadRequest());
+    verifyNoInteractions(queue);
+  }
+}
@@ -0,0 +1,53 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.domain.AlertEvent;
+import cz.telemetry.whiskey.domain.AlertKind;
+import cz.telemetry.whiskey.domain.AlertRule;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AlertEventRepositoryTest extends AbstractPostgresTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T10:00:00Z");
+
+  @Autowired
+  private AlertRuleRepository ruleRepository;
+
+  @Autowired
+  private AlertEventRepository eventRepository;
+
+  @Test
+  void searchFiltersBySensorAndOpenAlertsNewestFirst() {
+    final var rule = ruleRepository.save(new AlertRule(null, "cellar too warm", SensorMetric.TEMPERATURE, null,
+        "cellar", null, 14.0, 600, 0.5, true));
+    eventRepository.save(event(rule, "cellar-1", 0, START.plusSeconds(60)));
+    eventRepository.save(event(rule, "cellar-1", 120, null));
+    eventRepository.save(event(rule, "cellar-2", 240, null));
+    eventRepository.save(event(rule, "cellar-1", 7200, null));
+
+    final var window = eventRepository.search(START, START.plusSeconds(3600), null, false, Limit.of(10));
+    final var open = eventRepository.search(START, START.plusSeconds(3600), "cellar-1", true, Limit.of(10));
+
+    assertThat(window).extracting(AlertEvent::getSensorId).containsExactly("cellar-2", "cellar-1", "cellar-1");
+    assertThat(open).singleElement().satisfies(event -> {
+      assertThat(event.getFiredAt()).isEqualTo(START.plusSeconds(120));
+      assertThat(event.getRuleId()).isEqualTo(rule.getId());
+    });
+    assertThat(eventRepository.findAllByResolvedAtIsNull()).hasSize(3);
+  }
+
+  private static AlertEvent event(AlertRule rule, String sensorId, long second, Instant resolvedAt) {
+    final var firedAt = START.plusSeconds(second);
+    return new AlertEvent(null, rule.getId(), rule.getName(), sensorId, rule.getMetric(), AlertKind.HIGH, 14.0, 15.1,
+        firedAt.minusSeconds(600), firedAt, resolvedAt);
+  }
+}
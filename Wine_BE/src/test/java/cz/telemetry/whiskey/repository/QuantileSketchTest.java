@@ -0,0 +1,51 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+  @Test
+  void binValuesAreOrderedAndWithinRelativeAccuracyOfTheirRange() {
+    final double gamma = (1 + QuantileSketch.RELATIVE_ACCURACY) / (1 - QuantileSketch.RELATIVE_ACCURACY);
+    double previous = QuantileSketch.valueOf(-2000);
+    for (int bin = -1999; bin <= 2000; bin++) {
+      final double value = QuantileSketch.valueOf(bin);
+      assertThat(value).isGreaterThan(previous);
+      previous = value;
+    }
+    // bin 400 holds (gamma^53, gamma^54]
+    final double upper = Math.pow(gamma, 54);
+    assertThat(QuantileSketch.valueOf(400)).isCloseTo(upper, within(upper * QuantileSketch.RELATIVE_ACCURACY));
+    assertThat(QuantileSketch.valueOf(400)).isCloseTo(upper / gamma,
+        within(upper / gamma * QuantileSketch.RELATIVE_ACCURACY * 1.0001));
+    assertThat(QuantileSketch.valueOf(-400)).isEqualTo(-QuantileSketch.valueOf(400));
+  }
+
+  @Test
+  void quantilesWalkCumulativeCounts() {
+    final var sketch = new QuantileSketch();
+    sketch.add(-400, 2);
+    sketch.add(0, 1);
+    sketch.add(400, 6);
+    sketch.add(500, 1);
+
+    assertThat(sketch.count()).isEqualTo(10);
+    assertThat(sketch.quantile(0)).isEqualTo(QuantileSketch.valueOf(-400));
+    assertThat(sketch.quantile(0.25)).isEqualTo(0);
+    assertThat(sketch.quantile(0.5)).isEqualTo(QuantileSketch.valueOf(400));
+    assertThat(sketch.quantile(1)).isEqualTo(QuantileSketch.valueOf(500));
+    assertThat(new QuantileSketch().quantile(0.5)).isNaN();
+  }
+
+  @Test
+  void binsMustBeAddedInAscendingOrder() {
+    final var sketch = new QuantileSketch();
+    sketch.add(3, 1);
+
+    assertThatThrownBy(() -> sketch.add(3, 1)).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,74 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.config.JpaConfiguration;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+@DataJpaTest
+@Import(JpaConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class SensorDataRepositoryBatchingTest extends AbstractPostgresTest {
+
+  private static final int READINGS = 1_000;
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void savesThousandReadingsWithBatchedStatements() {
+    final var start = Instant.parse("2025-04-01T00:00:00Z");
+    final List<SensorData> readings = new ArrayList<>(READINGS);
+    for (int i = 0; i < READINGS; i++) {
+      readings.add(new SensorData(null, 20 + i % 5, 60 + i % 7, start.plusSeconds(2L * i), "sensor-1"));
+    }
+
+    final var statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    repository.saveAll(readings);
+    entityManager.flush();
+
+    final var batches = READINGS / JpaConfiguration.JDBC_BATCH_SIZE;
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(READINGS);
+    // one sequence call and one batched insert per block of 50 ids
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * batches + 2);
+  }
+
+  @Test
+  void rowsInsertedBySqlTakeOneIdEachAndNeverMeetThePooledIds() {
+    repository.saveAll(List.of(new SensorData(null, 20, 60, Instant.parse("2025-04-01T00:00:00Z"), "sensor-1")));
+    entityManager.flush();
+
+    final List<Long> ids = jdbcTemplate.queryForList("""
+        INSERT INTO sensor_data (temperature, humidity, timestamp, sensor_id)
+        VALUES (20, 60, '2025-04-02 00:00:00', 'sensor-2'), (21, 60, '2025-04-02 00:00:02', 'sensor-2')
+        RETURNING id
+        """, Long.class);
+
+    assertThat(ids.get(1) - ids.get(0)).isEqualTo(1);
+    final var pooledId = jdbcTemplate.queryForObject(
+        "SELECT id FROM sensor_data WHERE sensor_id = 'sensor-1'", Long.class);
+    assertThat(pooledId).isGreaterThan(ids.get(1));
+  }
+}
@@ -0,0 +1,77 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SensorDataRepositoryReadTest extends AbstractPostgresTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+  private static final int READINGS = 2500;
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    final List<SensorData> readings = new ArrayList<>();
+    for (int i = 0; i < READINGS; i++) {
+      // two sensors share every timestamp, pages must not split or repeat them
+      readings.add(new SensorData(null, i, 50, START.plusSeconds(i / 2), "cellar-" + (i % 2)));
+    }
+    repository.insertIgnoringDuplicates(readings);
+  }
+
+  @Test
+  void streamsRowsInTimestampOrderWithinInclusiveBounds() {
+    final List<Instant> timestamps = new ArrayList<>();
+    repository.streamBetween(START.plusSeconds(10), START.plusSeconds(1009),
+        (id, timestamp, sensorId, temperature, humidity) -> timestamps.add(timestamp));
+
+    assertThat(timestamps).hasSize(2000).isSorted();
+    assertThat(timestamps.get(0)).isEqualTo(START.plusSeconds(10));
+    assertThat(timestamps.get(timestamps.size() - 1)).isEqualTo(START.plusSeconds(1009));
+  }
+
+  @Test
+  void streamsColumnsGroupedBySensorWithEpochMillis() {
+    final List<String> sensors = new ArrayList<>();
+    final List<Long> millis = new ArrayList<>();
+    repository.streamColumnsBetween(START.plusSeconds(10), START.plusSeconds(1009),
+        (sensorId, epochMillis, temperature, humidity) -> {
+          sensors.add(sensorId);
+          millis.add(epochMillis);
+        });
+
+    assertThat(sensors).hasSize(2000).isSorted();
+    assertThat(millis.get(0)).isEqualTo(START.plusSeconds(10).toEpochMilli());
+    assertThat(millis.subList(0, 1000)).isSorted();
+    assertThat(millis.get(1999)).isEqualTo(START.plusSeconds(1009).toEpochMilli());
+  }
+
+  @Test
+  void keysetPagesCoverTheRangeExactlyOnce() {
+    final List<SensorReadingResponse> all = new ArrayList<>();
+    List<SensorReadingResponse> page = repository.findPage(START, START.plusSeconds(READINGS), null, null, 333);
+    while (!page.isEmpty()) {
+      all.addAll(page);
+      final var last = page.get(page.size() - 1);
+      page = repository.findPage(START, START.plusSeconds(READINGS), last.timestamp(), last.sensorId(), 333);
+    }
+
+    assertThat(all).hasSize(READINGS);
+    assertThat(all).extracting(SensorReadingResponse::temperature).doesNotHaveDuplicates();
+  }
+}
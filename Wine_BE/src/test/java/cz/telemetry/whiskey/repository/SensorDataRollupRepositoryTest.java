@@ -0,0 +1,169 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.api.response.SensorSeriesPoint;
+import cz.telemetry.whiskey.domain.QualityFlag;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest
+@Import(SensorDataRollupRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SensorDataRollupRepositoryTest extends AbstractPostgresTest {
+
+  private static final LocalDateTime START = LocalDateTime.parse("2025-04-01T22:00:00");
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Autowired
+  private SensorDataRollupRepository rollupRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    // every 7 seconds for 5 hours, crossing midnight, for two sensors
+    final List<SensorData> readings = new ArrayList<>();
+    for (int i = 0; i < 5 * 3600 / 7; i++) {
+      final var time = START.plusSeconds(i * 7L).atZone(ZoneId.systemDefault()).toInstant();
+      readings.add(new SensorData(null, 10 + i % 13, 50 + i % 7, time, "cellar-1"));
+      readings.add(new SensorData(null, 12 + i % 5, 60 + i % 11, time, "cellar-2"));
+    }
+    repository.insertIgnoringDuplicates(readings);
+    // a duplicate must not change the rollups
+    repository.insertIgnoringDuplicates(readings.subList(0, 10));
+  }
+
+  @Test
+  void aggregatesMatchRawReadingsForUnalignedRanges() {
+    assertMatchesRaw(START, START.plusHours(5));
+    assertMatchesRaw(START.plusSeconds(13), START.plusHours(4).plusMinutes(3).plusSeconds(29));
+    assertMatchesRaw(START.plusMinutes(59).plusSeconds(59), START.plusHours(2).plusSeconds(1));
+    assertMatchesRaw(START.plusSeconds(1), START.plusSeconds(50));
+    assertMatchesRaw(START.plusHours(2), START.plusHours(2));
+  }
+
+  @Test
+  void rebuildRestoresRollupsFromRawReadings() {
+    jdbcTemplate.update("UPDATE sensor_data_rollup SET reading_count = 1, temperature_sum = 0");
+
+    rollupRepository.rebuild(START, START.plusHours(5));
+
+    assertMatchesRaw(START, START.plusHours(5));
+    assertMatchesRaw(START.plusSeconds(13), START.plusHours(4).plusSeconds(29));
+  }
+
+  @Test
+  void seriesFromRollupsMatchesSeriesFromRawReadings() {
+    final var end = START.plusHours(5);
+
+    final var fromRaw = rollupRepository.series(START, end, 1800, null, List.of("cellar-1"));
+    final var fromMinutes = rollupRepository.series(START, end, 1800, RollupResolution.MINUTE, List.of("cellar-1"));
+    final var fromHours = rollupRepository.series(START, end, 7200, RollupResolution.HOUR, null);
+
+    assertThat(fromRaw).hasSize(10);
+    assertThat(fromMinutes).usingRecursiveFieldByFieldElementComparator(
+            RecursiveComparisonConfiguration.builder().withComparatorForType(
+                Comparator.comparingDouble(d -> Math.round(d * 1e6)), Double.class).build())
+        .isEqualTo(fromRaw);
+    assertThat(fromHours).hasSize(3);
+    assertThat(fromHours.stream().mapToLong(SensorSeriesPoint::count).sum())
+        .isEqualTo(rollupRepository.aggregate(START, end).count());
+  }
+
+  @Test
+  void groupedStatisticsMatchRawReadings() {
+    final var from = START.plusMinutes(17).plusSeconds(3);
+    final var to = START.plusHours(4).plusMinutes(41);
+    final var expected = jdbcTemplate.queryForList("""
+        SELECT sensor_id, date_trunc('hour', timestamp) AS bucket, count(*) AS c, stddev_samp(temperature) AS tsd,
+            avg(humidity) AS havg, stddev_samp(humidity) AS hsd
+        FROM sensor_data WHERE timestamp >= ? AND timestamp < ? GROUP BY 1, 2 ORDER BY 1, 2""",
+        Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+    final var actual = rollupRepository.aggregateGroups(from, to, RollupResolution.HOUR, true, null);
+
+    assertThat(actual).hasSize(expected.size());
+    for (int i = 0; i < actual.size(); i++) {
+      final var group = actual.get(i);
+      final var row = expected.get(i);
+      assertThat(group.sensorId()).isEqualTo(row.get("sensor_id"));
+      assertThat(Timestamp.valueOf(group.bucketStart())).isEqualTo(row.get("bucket"));
+      assertThat(group.aggregate().count()).isEqualTo(row.get("c"));
+      assertThat(group.aggregate().temperatureStandardDeviation()).get()
+          .satisfies(sd -> assertThat(sd).isCloseTo((Double) row.get("tsd"), within(1e-6)));
+      assertThat(group.aggregate().averageHumidity()).get()
+          .satisfies(avg -> assertThat(avg).isCloseTo(((Number) row.get("havg")).doubleValue(), within(1e-6)));
+      assertThat(group.aggregate().humidityStandardDeviation()).get()
+          .satisfies(sd -> assertThat(sd).isCloseTo((Double) row.get("hsd"), within(1e-6)));
+    }
+  }
+
+  @Test
+  void sensorFilterAppliesToEveryPart() {
+    final var from = START.plusSeconds(13);
+    final var to = START.plusHours(4).plusMinutes(3);
+
+    final var groups = rollupRepository.aggregateGroups(from, to, null, false, List.of("cellar-2"));
+
+    assertThat(groups).singleElement().satisfies(group -> assertThat(group.aggregate().count())
+        .isEqualTo(jdbcTemplate.queryForObject("""
+            SELECT count(*) FROM sensor_data WHERE sensor_id = 'cellar-2' AND timestamp >= ? AND timestamp < ?""",
+            Long.class, Timestamp.valueOf(from), Timestamp.valueOf(to))));
+  }
+
+  @Test
+  void flaggedReadingsAreLeftOutOfRollupsAndRawEdges() {
+    final var from = START.plusSeconds(1);
+    final var to = START.plusHours(3).plusSeconds(5);
+    final var before = rollupRepository.aggregate(from, to);
+
+    repository.insertIgnoringDuplicates(List.of(
+        flagged(START.plusSeconds(3)), flagged(START.plusHours(1).plusSeconds(3)), flagged(to.minusSeconds(1))));
+
+    assertThat(rollupRepository.aggregate(from, to)).isEqualTo(before);
+    rollupRepository.rebuild(START, START.plusHours(5));
+    final var rebuilt = rollupRepository.aggregate(from, to);
+    assertThat(rebuilt.count()).isEqualTo(before.count());
+    assertThat(rebuilt.temperatureMax()).isEqualTo(before.temperatureMax());
+    assertThat(rollupRepository.series(START, START.plusHours(2), 3600, null, null))
+        .allSatisfy(point -> assertThat(point.temperatureMax()).isLessThan(255));
+  }
+
+  private static SensorData flagged(LocalDateTime time) {
+    return new SensorData(null, 255, 255, time.atZone(ZoneId.systemDefault()).toInstant(), "cellar-1",
+        (short) QualityFlag.SPIKE.mask());
+  }
+
+  private void assertMatchesRaw(LocalDateTime from, LocalDateTime to) {
+    final var expected = jdbcTemplate.queryForMap("""
+        SELECT count(*) AS c, coalesce(sum(temperature), 0) AS ts, min(temperature) AS tmin,
+            max(humidity) AS hmax FROM sensor_data WHERE timestamp >= ? AND timestamp < ?""",
+        Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+    final var actual = rollupRepository.aggregate(from, to);
+
+    assertThat(actual.count()).isEqualTo(expected.get("c"));
+    assertThat(actual.temperatureSum()).isCloseTo((Double) expected.get("ts"), within(1e-6));
+    assertThat(actual.temperatureMin()).isEqualTo(expected.get("tmin"));
+    assertThat(actual.humidityMax()).isEqualTo(expected.get("hmax"));
+  }
+}
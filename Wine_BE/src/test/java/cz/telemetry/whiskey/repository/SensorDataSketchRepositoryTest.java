@@ -0,0 +1,114 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest
+@Import(SensorDataSketchRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SensorDataSketchRepositoryTest extends AbstractPostgresTest {
+
+  private static final LocalDateTime START = LocalDateTime.parse("2025-04-01T21:00:00");
+  private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.9, 0.95, 0.99, 1};
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Autowired
+  private SensorDataSketchRepository sketchRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    // every 11 seconds for 6 hours, crossing midnight, temperatures below and above zero
+    final List<SensorData> readings = new ArrayList<>();
+    for (int i = 0; i < 6 * 3600 / 11; i++) {
+      final var time = START.plusSeconds(i * 11L).atZone(ZoneId.systemDefault()).toInstant();
+      readings.add(new SensorData(null, -3 + (i * 37 % 101) / 10.0, 55 + (i * 13 % 29) * 0.7, time, "cellar-1"));
+      readings.add(new SensorData(null, 12 + (i % 17) * 0.3, i % 5 == 0 ? 0 : 80 + i % 9, time, "cellar-2"));
+    }
+    repository.insertIgnoringDuplicates(readings);
+    // a duplicate must not change the sketches
+    repository.insertIgnoringDuplicates(readings.subList(0, 10));
+  }
+
+  @Test
+  void percentilesAreWithinRelativeAccuracyForUnalignedRanges() {
+    assertMatchesRaw(START, START.plusHours(6), SensorMetric.TEMPERATURE, null);
+    assertMatchesRaw(START.plusMinutes(7).plusSeconds(3), START.plusHours(5).plusMinutes(41),
+        SensorMetric.HUMIDITY, null);
+    assertMatchesRaw(START.plusMinutes(20), START.plusMinutes(50), SensorMetric.TEMPERATURE, List.of("cellar-1"));
+    assertMatchesRaw(START.plusMinutes(59), START.plusHours(4).plusSeconds(1), SensorMetric.HUMIDITY,
+        List.of("cellar-2"));
+  }
+
+  @Test
+  void dailyBucketsSplitAtMidnight() {
+    final var from = START.plusMinutes(30);
+    final var to = START.plusHours(5);
+
+    final var groups = sketchRepository.sketches(from, to, SensorMetric.TEMPERATURE, RollupResolution.DAY, null);
+
+    assertThat(groups).extracting(SketchGroup::bucketStart)
+        .containsExactly(START.toLocalDate().atStartOfDay(), START.toLocalDate().plusDays(1).atStartOfDay());
+    assertThat(groups.get(0).sketch().count() + groups.get(1).sketch().count())
+        .isEqualTo(count(from, to));
+    assertThat(groups.get(1).sketch().count()).isEqualTo(count(START.plusHours(3), to));
+  }
+
+  @Test
+  void rebuildRestoresSketchesFromRawReadings() {
+    jdbcTemplate.update("UPDATE sensor_data_sketch SET reading_count = 1");
+
+    sketchRepository.rebuild(START, START.plusHours(6));
+
+    assertMatchesRaw(START, START.plusHours(6), SensorMetric.HUMIDITY, null);
+  }
+
+  private void assertMatchesRaw(LocalDateTime from, LocalDateTime to, SensorMetric metric, List<String> sensorIds) {
+    final var sql = new StringBuilder("SELECT " + metric.column() + " FROM sensor_data"
+        + " WHERE timestamp >= ? AND timestamp < ?");
+    final List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    if (sensorIds != null) {
+      sql.append(" AND sensor_id = ?");
+      args.add(sensorIds.get(0));
+    }
+    final var values = jdbcTemplate.queryForList(sql.append(" ORDER BY 1").toString(), Double.class,
+        args.toArray());
+
+    final var groups = sketchRepository.sketches(from, to, metric, null, sensorIds);
+
+    assertThat(groups).singleElement().satisfies(group -> {
+      assertThat(group.bucketStart()).isNull();
+      assertThat(group.sketch().count()).isEqualTo(values.size());
+      for (double quantile : QUANTILES) {
+        final double exact = values.get((int) Math.floor(quantile * (values.size() - 1)));
+        assertThat(group.sketch().quantile(quantile))
+            .as("%s quantile %s", metric, quantile)
+            .isCloseTo(exact, within(Math.max(Math.abs(exact) * QuantileSketch.RELATIVE_ACCURACY, 1e-9)));
+      }
+    });
+  }
+
+  private long count(LocalDateTime from, LocalDateTime to) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM sensor_data WHERE timestamp >= ? AND timestamp < ?",
+        Long.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+  }
+}
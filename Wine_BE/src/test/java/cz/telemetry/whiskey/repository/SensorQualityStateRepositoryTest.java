@@ -0,0 +1,36 @@
+package cz.telemetry.whiskey.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import(SensorQualityStateRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SensorQualityStateRepositoryTest extends AbstractPostgresTest {
+
+  private static final Instant AT = Instant.parse("2025-04-01T10:00:00.123456Z");
+
+  @Autowired
+  private SensorQualityStateRepository repository;
+
+  @Test
+  void savedStatesAreOverwrittenAndReadBack() {
+    final var fresh = new SensorQualityState("cellar-1", 0, null, 0, 0, 0, 0, null, 0, 0, 0, null, 0, 0);
+    final var warm = new SensorQualityState("cellar-2", 40, AT, 12.5, 0.3, 64, 2.1, AT.minusSeconds(10), 12, 65, 1,
+        AT.minusSeconds(3600), 12, 65);
+    repository.saveAll(List.of(fresh, warm));
+
+    final var moved = new SensorQualityState("cellar-1", 1, AT, 11, 0, 60, 0, AT, 11, 60, 0, AT, 11, 60);
+    repository.saveAll(List.of(moved));
+
+    assertThat(repository.findAll()).containsExactlyInAnyOrder(moved, warm);
+  }
+}
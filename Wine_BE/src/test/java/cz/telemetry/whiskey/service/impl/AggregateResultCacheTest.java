@@ -0,0 +1,141 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AggregateResultCacheTest {
+
+  private static final LocalDate TODAY = LocalDate.parse("2025-04-10");
+  private static final LocalDateTime DAY = TODAY.minusDays(3).atStartOfDay();
+
+  private SimpleMeterRegistry meterRegistry;
+  private AggregateResultCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    final var properties = new WhiskeyProperties();
+    properties.getAggregateCache().setMaxEntries(3);
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new AggregateResultCache(properties, meterRegistry, clockAt(TODAY.atTime(12, 0)));
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  void pastRangeIsLoadedOnceAndCountedAsHit() {
+    assertThat(load("total", null, DAY, DAY.plusDays(1))).isEqualTo(1);
+    assertThat(load("total", null, DAY, DAY.plusDays(1))).isEqualTo(1);
+
+    assertThat(loads).hasValue(1);
+    assertThat(meterRegistry.get("whiskey.aggregate.cache.requests").tag("result", "hit").counter().count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get("whiskey.aggregate.cache.requests").tag("result", "miss").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void rangeWithinLateArrivalWindowIsNotCached() {
+    final var now = TODAY.atTime(12, 0);
+
+    load("total", null, now.minusHours(1), now.minusMinutes(5));
+    load("total", null, now.minusHours(1), now.minusMinutes(5));
+
+    assertThat(loads).hasValue(2);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void lateReadingEvictsOnlyEntriesCoveringIt() {
+    load("total", null, DAY, DAY.plusDays(1));
+    load("total", List.of("cellar-1"), DAY, DAY.plusDays(1));
+    load("total", null, DAY.plusDays(1), DAY.plusDays(2));
+
+    cache.onSensorDataStored(List.of(reading(DAY.plusHours(5), "cellar-2")));
+
+    assertThat(cache.size()).isEqualTo(2);
+    load("total", null, DAY, DAY.plusDays(1));
+    load("total", List.of("cellar-1"), DAY, DAY.plusDays(1));
+    load("total", null, DAY.plusDays(1), DAY.plusDays(2));
+    assertThat(loads).hasValue(4);
+  }
+
+  @Test
+  void readingCommittedWhileLoadingIsNotHiddenByTheResult() {
+    cache.get("total", null, DAY, DAY.plusDays(1), () -> {
+      cache.onSensorDataStored(List.of(reading(DAY.plusHours(1), "cellar-1")));
+      return loads.incrementAndGet();
+    });
+
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void leastRecentlyUsedEntryIsEvictedBeyondMaxEntries() {
+    load("a", null, DAY, DAY.plusDays(1));
+    load("b", null, DAY, DAY.plusDays(1));
+    load("c", null, DAY, DAY.plusDays(1));
+    load("a", null, DAY, DAY.plusDays(1));
+
+    load("d", null, DAY, DAY.plusDays(1));
+
+    assertThat(cache.size()).isEqualTo(3);
+    load("a", null, DAY, DAY.plusDays(1));
+    load("b", null, DAY, DAY.plusDays(1));
+    assertThat(loads).hasValue(5);
+  }
+
+  @Test
+  void expiredEntryIsLoadedAgain() {
+    final var properties = new WhiskeyProperties();
+    properties.getAggregateCache().setTtl(Duration.ofMinutes(1));
+    final var clock = new AtomicInteger();
+    final var now = TODAY.atTime(12, 0);
+    final var ticking = new AggregateResultCache(properties, new SimpleMeterRegistry(), new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneId.systemDefault();
+      }
+
+      @Override
+      public Clock withZone(ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return now.plusMinutes(clock.get()).atZone(ZoneId.systemDefault()).toInstant();
+      }
+    });
+
+    ticking.get("total", null, DAY, DAY.plusDays(1), loads::incrementAndGet);
+    clock.set(2);
+    ticking.get("total", null, DAY, DAY.plusDays(1), loads::incrementAndGet);
+
+    assertThat(loads).hasValue(2);
+  }
+
+  private int load(String query, List<String> sensorIds, LocalDateTime from, LocalDateTime to) {
+    return cache.get(query, sensorIds, from, to, loads::incrementAndGet);
+  }
+
+  private static SensorData reading(LocalDateTime time, String sensorId) {
+    return new SensorData(null, 20, 60, time.atZone(ZoneId.systemDefault()).toInstant(), sensorId);
+  }
+
+  private static Clock clockAt(LocalDateTime time) {
+    return Clock.fixed(time.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+  }
+}
@@ -0,0 +1,148 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.domain.AlertEvent;
+import cz.telemetry.whiskey.domain.AlertKind;
+import cz.telemetry.whiskey.domain.AlertRule;
+import cz.telemetry.whiskey.repository.AlertEventRepository;
+import cz.telemetry.whiskey.repository.AlertRuleRepository;
+import cz.telemetry.whiskey.repository.SensorMetric;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class AlertEngineTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T10:00:00Z");
+
+  private AlertRuleRepository ruleRepository;
+  private AlertEventRepository eventRepository;
+  private SensorTopology topology;
+  private AlertEngine engine;
+  private List<AlertEvent> saved;
+
+  @BeforeEach
+  void setUp() {
+    ruleRepository = mock(AlertRuleRepository.class);
+    eventRepository = mock(AlertEventRepository.class);
+    topology = mock(SensorTopology.class);
+    saved = new ArrayList<>();
+    when(eventRepository.save(any())).thenAnswer(invocation -> {
+      final AlertEvent event = invocation.getArgument(0);
+      if (event.getId() == null) {
+        event.setId((long) saved.size() + 1);
+        saved.add(event);
+      }
+      return event;
+    });
+    when(topology.locationOf(any())).thenReturn(Optional.empty());
+    engine = new AlertEngine(ruleRepository, eventRepository, topology, mock(PlatformTransactionManager.class),
+        Runnable::run);
+  }
+
+  @Test
+  void firesAfterDurationAndResolvesBeyondHysteresis() {
+    rules(rule(1, null, null, 10.0, 14.0, 60, 0.5));
+
+    ingest("cellar-1", 0, 14.5);
+    ingest("cellar-1", 30, 15.0);
+    assertThat(saved).isEmpty();
+
+    ingest("cellar-1", 60, 14.2);
+    assertThat(saved).singleElement().satisfies(event -> {
+      assertThat(event.getKind()).isEqualTo(AlertKind.HIGH);
+      assertThat(event.getThreshold()).isEqualTo(14.0);
+      assertThat(event.getStartedAt()).isEqualTo(START);
+      assertThat(event.getFiredAt()).isEqualTo(START.plusSeconds(60));
+    });
+
+    // back in range but within the hysteresis, the alert stays open
+    ingest("cellar-1", 90, 13.8);
+    assertThat(saved.get(0).getResolvedAt()).isNull();
+
+    ingest("cellar-1", 120, 13.4);
+    assertThat(saved.get(0).getResolvedAt()).isEqualTo(START.plusSeconds(120));
+    assertThat(saved).hasSize(1);
+  }
+
+  @Test
+  void shortExcursionAndLateReadingsDoNotFire() {
+    rules(rule(1, null, null, 10.0, null, 60, 0));
+
+    ingest("cellar-1", 0, 9.0);
+    ingest("cellar-1", 50, 11.0);
+    ingest("cellar-1", 40, 9.0);
+    ingest("cellar-1", 100, 11.0);
+
+    assertThat(saved).isEmpty();
+  }
+
+  @Test
+  void rulesApplyToTheirSensorOrLocationOnly() {
+    rules(rule(1, "cellar-1", null, null, 14.0, 0, 0), rule(2, null, "cellar", null, 16.0, 0, 0));
+    when(topology.locationOf("cellar-2")).thenReturn(Optional.of("cellar"));
+
+    ingest("cellar-1", 0, 15.0);
+    ingest("cellar-2", 0, 15.0);
+    ingest("room-1", 0, 20.0);
+    ingest("cellar-2", 10, 17.0);
+
+    assertThat(saved).extracting(AlertEvent::getRuleId, AlertEvent::getSensorId)
+        .containsExactly(tuple(1L, "cellar-1"),
+            tuple(2L, "cellar-2"));
+  }
+
+  @Test
+  void changedRuleResolvesItsOpenAlerts() {
+    rules(rule(1, null, null, null, 14.0, 0, 0), rule(2, null, null, 10.0, null, 0, 0));
+    ingest("cellar-1", 0, 15.0);
+    assertThat(saved).hasSize(1);
+
+    rules(rule(1, null, null, null, 16.0, 0, 0), rule(2, null, null, 10.0, null, 0, 0));
+    engine.reload();
+
+    assertThat(saved.get(0).getResolvedAt()).isNotNull();
+    ingest("cellar-1", 10, 15.0);
+    assertThat(saved).hasSize(1);
+  }
+
+  @Test
+  void openAlertsAreRestoredAtStartup() {
+    rules(rule(1, null, null, null, 14.0, 0, 0));
+    final var open = new AlertEvent(7L, 1L, "rule-1", "cellar-1", SensorMetric.TEMPERATURE, AlertKind.HIGH, 14.0,
+        15.0, START, START, null);
+    when(eventRepository.findAllByResolvedAtIsNull()).thenReturn(List.of(open));
+    engine.warmUp();
+
+    ingest("cellar-1", 10, 15.0);
+    assertThat(saved).isEmpty();
+
+    ingest("cellar-1", 20, 13.0);
+    assertThat(open.getResolvedAt()).isEqualTo(START.plusSeconds(20));
+  }
+
+  private void rules(AlertRule... rules) {
+    when(ruleRepository.findAllByEnabledTrue()).thenReturn(List.of(rules));
+    engine.reload();
+  }
+
+  private void ingest(String sensorId, long second, double temperature) {
+    engine.onSensorDataStored(List.of(new SensorData(null, temperature, 60, START.plusSeconds(second), sensorId)));
+  }
+
+  private static AlertRule rule(long id, String sensorId, String location, Double min, Double max,
+      long durationSeconds, double hysteresis) {
+    return new AlertRule(id, "rule-" + id, SensorMetric.TEMPERATURE, sensorId, location, min, max, durationSeconds,
+        hysteresis, true);
+  }
+}
@@ -0,0 +1,175 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import cz.telemetry.whiskey.AbstractSensorDataTest;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.RollupAggregate;
+import cz.telemetry.whiskey.repository.RollupGroup;
+import cz.telemetry.whiskey.repository.SensorDataArchiveRepository;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.TimeRange;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ArchiveServiceImplTest extends AbstractSensorDataTest {
+
+  private static final YearMonth MARCH = YearMonth.of(2031, 3);
+  private static final LocalDate TODAY = LocalDate.parse("2031-05-10");
+  private static final LocalDateTime DAY = MARCH.atDay(14).atStartOfDay();
+
+  @TempDir
+  private Path directory;
+
+  @Autowired
+  private SensorDataPartitionRepository partitionRepository;
+
+  @Autowired
+  private SensorDataArchiveRepository archiveRepository;
+
+  @Autowired
+  private SensorDataRollupRepository rollupRepository;
+
+  @Autowired
+  private RollupVerifier rollupVerifier;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final WhiskeyProperties whiskeyProperties = new WhiskeyProperties();
+
+  private SensorDataArchive archive;
+
+  private ArchiveServiceImpl service;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    whiskeyProperties.getArchive().setDirectory(directory.toString());
+    whiskeyProperties.getArchive().setAfterMonths(1);
+    archive = new SensorDataArchive(whiskeyProperties);
+    archive.load();
+    service = new ArchiveServiceImpl(archive, archiveRepository, partitionRepository, rollupVerifier,
+        whiskeyProperties, new AggregateResultCache(whiskeyProperties, new SimpleMeterRegistry()),
+        transactionManager);
+  }
+
+  @Test
+  void expiredMonthIsMovedToTheArchiveAndReadFromThere() throws IOException {
+    partitionRepository.createMonth(MARCH);
+    insertHours(DAY, 3);
+    final var from = instant(DAY.plusMinutes(30).plusSeconds(15));
+    final var to = instant(DAY.plusMinutes(95).plusSeconds(45));
+    final List<String> expectedRows = rows(from, to);
+    final var expected = aggregate(DAY.plusMinutes(30).plusSeconds(15), DAY.plusMinutes(95).plusSeconds(45));
+
+    service.archiveExpired(TODAY);
+
+    assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('sensor_data_2031_03')", String.class)).isNull();
+    assertThat(rows(from, to)).isEmpty();
+    assertThat(archive.months()).containsExactly(MARCH);
+    assertThat(archive.sensors(MARCH)).containsExactly("cellar-1", "cellar-2");
+    assertThat(service.getArchivedMonths()).singleElement()
+        .satisfies(month -> assertThat(month.readings()).isEqualTo(3 * 2 * 60 * 4));
+
+    final List<String> archivedRows = new ArrayList<>();
+    archive.stream(from, to, (id, timestamp, sensorId, temperature, humidity) ->
+        archivedRows.add(timestamp + " " + id + " " + sensorId + " " + temperature + " " + humidity));
+    assertThat(archivedRows).isSorted().containsExactlyInAnyOrderElementsOf(expectedRows);
+    final var archived = aggregate(DAY.plusMinutes(30).plusSeconds(15), DAY.plusMinutes(95).plusSeconds(45));
+    assertThat(archived.count()).isEqualTo(expected.count());
+    assertThat(archived.temperatureSum()).isCloseTo(expected.temperatureSum(), within(1e-9));
+    assertThat(archived.humiditySumOfSquares()).isCloseTo(expected.humiditySumOfSquares(), within(1e-6));
+    assertThat(archived.temperatureMin()).isEqualTo(expected.temperatureMin());
+    assertThat(archived.humidityMax()).isEqualTo(expected.humidityMax());
+
+    final var reloaded = new SensorDataArchive(whiskeyProperties);
+    reloaded.load();
+    assertThat(reloaded.months()).containsExactly(MARCH);
+  }
+
+  @Test
+  void lateReadingsAreMergedAndRestoredMonthIsBackInTheDatabase() throws IOException {
+    partitionRepository.createMonth(MARCH);
+    insertHours(DAY, 1);
+    service.archiveExpired(TODAY);
+    repository.insertIgnoringDuplicates(List.of(
+        new SensorData(null, 30, 90, instant(DAY.plusSeconds(7)), "cellar-1"),
+        new SensorData(null, 31, 91, instant(DAY.plusSeconds(16)), "cellar-2"),
+        new SensorData(null, 32, 92, instant(DAY.plusDays(3)), "cellar-3")));
+
+    service.archiveExpired(TODAY);
+
+    assertThat(count("sensor_data_default")).isZero();
+    assertThat(archive.sensors(MARCH)).containsExactly("cellar-1", "cellar-2", "cellar-3");
+    assertThat(service.getArchivedMonths().get(0).readings()).isEqualTo(2 * 60 * 4 + 3);
+
+    final var restored = service.restoreMonth(MARCH);
+
+    assertThat(restored.readings()).isEqualTo(2 * 60 * 4 + 3);
+    assertThat(archive.months()).isEmpty();
+    assertThat(count("sensor_data_2031_03")).isEqualTo(2 * 60 * 4 + 3);
+    assertThat(rollupRepository.aggregate(DAY, DAY.plusDays(1)).count()).isEqualTo(2 * 60 * 4 + 2);
+  }
+
+  @Test
+  void monthWithBrokenRollupsIsRebuiltBeforeItIsArchived() {
+    insertHours(DAY, 1);
+    jdbcTemplate.update("DELETE FROM sensor_data_rollup WHERE resolution = 'MINUTE' AND bucket_start < ?",
+        Timestamp.valueOf(DAY.plusMinutes(10)));
+
+    service.archiveExpired(TODAY);
+
+    assertThat(archive.months()).containsExactly(MARCH);
+    // four minutes of rollups and the last two readings of the first minute from the archive
+    assertThat(aggregate(DAY.plusSeconds(30), DAY.plusMinutes(5)).count()).isEqualTo(2 * 18);
+  }
+
+  private void insertHours(LocalDateTime start, int hours) {
+    repository.insertIgnoringDuplicates(twoCellars(start, hours));
+  }
+
+  /**
+   * Aggregate as the service answers it: rollups, and the raw edges from the database or the archive.
+   */
+  private RollupAggregate aggregate(LocalDateTime from, LocalDateTime to) {
+    var total = rollupRepository.aggregate(from, to);
+    for (TimeRange range : SensorDataRollupRepository.rawRanges(from, to, null)) {
+      for (RollupGroup group : archive.aggregateGroups(range.from(), range.to(), null, false, null)) {
+        total = total.plus(group.aggregate());
+      }
+    }
+    return total;
+  }
+
+  private List<String> rows(Instant from, Instant to) {
+    final List<String> rows = new ArrayList<>();
+    repository.streamBetween(from, to, (id, timestamp, sensorId, temperature, humidity) ->
+        rows.add(timestamp + " " + id + " " + sensorId + " " + temperature + " " + humidity));
+    return rows;
+  }
+
+  private long count(String table) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+  }
+}
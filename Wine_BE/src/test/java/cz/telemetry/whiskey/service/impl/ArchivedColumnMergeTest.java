@@ -0,0 +1,82 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.archive.ReadingColumns;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchivedColumnMergeTest {
+
+  private static final YearMonth MARCH = YearMonth.of(2031, 3);
+
+  @TempDir
+  private Path directory;
+
+  private SensorDataArchive archive;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    final var whiskeyProperties = new WhiskeyProperties();
+    whiskeyProperties.getArchive().setDirectory(directory.toString());
+    archive = new SensorDataArchive(whiskeyProperties);
+    archive.load();
+    try (var writer = archive.write(MARCH)) {
+      for (String sensorId : List.of("a", "b", "c")) {
+        final var readings = new ReadingColumns();
+        readings.add(1, SensorDataArchive.epochMicros(day(MARCH, 10)), 10, 60, (short) 0);
+        readings.add(2, SensorDataArchive.epochMicros(day(MARCH, 20)), 11, 60, (short) 0);
+        writer.add(sensorId, readings);
+      }
+      writer.commit();
+    }
+  }
+
+  @Test
+  void readingsOfEverySensorStayTogetherAcrossArchivedAndStoredMonths() throws IOException {
+    final var from = day(MARCH.minusMonths(1), 1);
+    final var to = day(MARCH.plusMonths(1), 28);
+    final List<String> rows = new ArrayList<>();
+    final var merge = new ArchivedColumnMerge(archive, archive.split(from, to),
+        (sensorId, epochMillis, temperature, humidity) -> rows.add(sensorId + " " + Instant.ofEpochMilli(epochMillis)));
+
+    // database rows, ordered by sensor and timestamp
+    merge.handle("b", day(MARCH.minusMonths(1), 5).toEpochMilli(), 20, 60);
+    merge.handle("b", day(MARCH, 15).toEpochMilli(), 99, 60);
+    merge.handle("b", day(MARCH.plusMonths(1), 5).toEpochMilli(), 21, 60);
+    merge.handle("d", day(MARCH.plusMonths(1), 6).toEpochMilli(), 22, 60);
+    merge.finish();
+
+    assertThat(rows).containsExactly(
+        "a " + day(MARCH, 10), "a " + day(MARCH, 20),
+        "b " + day(MARCH.minusMonths(1), 5), "b " + day(MARCH, 10), "b " + day(MARCH, 20),
+        "b " + day(MARCH.plusMonths(1), 5),
+        "c " + day(MARCH, 10), "c " + day(MARCH, 20),
+        "d " + day(MARCH.plusMonths(1), 6));
+  }
+
+  @Test
+  void archiveAloneIsStreamedWhenTheDatabaseHasNothing() throws IOException {
+    final List<String> rows = new ArrayList<>();
+    final var merge = new ArchivedColumnMerge(archive, archive.split(day(MARCH, 1), day(MARCH, 15)),
+        (sensorId, epochMillis, temperature, humidity) -> rows.add(sensorId));
+
+    merge.finish();
+
+    assertThat(rows).containsExactly("a", "b", "c");
+  }
+
+  private static Instant day(YearMonth month, int day) {
+    return month.atDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant();
+  }
+}
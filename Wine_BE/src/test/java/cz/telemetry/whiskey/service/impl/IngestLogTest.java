@@ -0,0 +1,81 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.InvalidCursorException;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IngestLogTest {
+
+  private static final Instant T0 = Instant.parse("2025-04-01T10:00:00Z");
+
+  private IngestLog log;
+
+  @BeforeEach
+  void setUp() {
+    final var properties = new WhiskeyProperties();
+    properties.getIngest().setLogCapacity(5);
+    log = new IngestLog(properties);
+  }
+
+  @Test
+  void firstPollOnlyReturnsCursor() {
+    store(0, 2);
+
+    final var response = log.changesSince(null, 10);
+
+    assertThat(response.reset()).isTrue();
+    assertThat(response.readings()).isEmpty();
+    assertThat(log.changesSince(response.cursor(), 10).readings()).isEmpty();
+  }
+
+  @Test
+  void returnsReadingsStoredAfterCursor() {
+    final String cursor = log.changesSince(null, 10).cursor();
+    store(0, 3);
+
+    final var first = log.changesSince(cursor, 2);
+    assertThat(first.reset()).isFalse();
+    assertThat(first.readings()).extracting(SensorReadingResponse::temperature).containsExactly(0.0, 1.0);
+
+    final var second = log.changesSince(first.cursor(), 2);
+    assertThat(second.readings()).extracting(SensorReadingResponse::temperature).containsExactly(2.0);
+    assertThat(log.changesSince(second.cursor(), 2).readings()).isEmpty();
+  }
+
+  @Test
+  void overwrittenCursorGetsReset() {
+    final String cursor = log.changesSince(null, 10).cursor();
+    store(0, 6);
+
+    final var response = log.changesSince(cursor, 10);
+
+    assertThat(response.reset()).isTrue();
+    assertThat(log.changesSince(response.cursor(), 10).readings()).isEmpty();
+  }
+
+  @Test
+  void cursorOfAnotherRunGetsReset() {
+    assertThat(log.changesSince("abc-0", 10).reset()).isTrue();
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    assertThatThrownBy(() -> log.changesSince("abc", 10)).isInstanceOf(InvalidCursorException.class);
+    assertThatThrownBy(() -> log.changesSince("abc-x", 10)).isInstanceOf(InvalidCursorException.class);
+  }
+
+  private void store(int from, int to) {
+    log.onSensorDataStored(IntStream.range(from, to)
+        .mapToObj(i -> new SensorData(null, i, 50, T0.plusSeconds(i), "cellar-1"))
+        .toList());
+  }
+}
@@ -0,0 +1,70 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LatestReadingCacheTest {
+
+  private static final Instant T0 = Instant.parse("2025-04-01T10:00:00Z");
+
+  private LatestReadingCache cache;
+
+  @BeforeEach
+  void setUp() {
+    final var repository = mock(SensorDataRepository.class);
+    when(repository.findLatestPerSensor()).thenReturn(List.of(reading("cellar-1", T0, 20.0)));
+    cache = new LatestReadingCache(repository);
+    cache.warmUp();
+  }
+
+  @Test
+  void warmUpLoadsLatestReadings() {
+    assertThat(cache.get("cellar-1")).map(SensorReadingResponse::temperature).contains(20.0);
+    assertThat(cache.get("cellar-2")).isEmpty();
+  }
+
+  @Test
+  void lateReadingDoesNotReplaceNewerOne() {
+    cache.onSensorDataStored(List.of(
+        reading("cellar-1", T0.plusSeconds(60), 21.0),
+        reading("cellar-1", T0.plusSeconds(30), 19.0)));
+
+    assertThat(cache.get("cellar-1")).map(SensorReadingResponse::temperature).contains(21.0);
+  }
+
+  @Test
+  void newestIsTakenOverAllSensors() {
+    cache.onSensorDataStored(List.of(reading("cellar-2", T0.plusSeconds(5), 15.0)));
+
+    assertThat(cache.newest()).map(SensorReadingResponse::sensorId).contains("cellar-2");
+    assertThat(cache.all()).hasSize(2);
+  }
+
+  @Test
+  void snapshotVersionMovesOnlyWhenAReadingChanges() {
+    final var first = cache.snapshot();
+    assertThat(cache.snapshot()).isSameAs(first);
+
+    cache.onSensorDataStored(List.of(reading("cellar-1", T0.minusSeconds(60), 18.0)));
+    assertThat(cache.snapshot().version()).isEqualTo(first.version());
+
+    cache.onSensorDataStored(List.of(reading("cellar-0", T0, 17.0)));
+    final var second = cache.snapshot();
+    assertThat(second.version()).isNotEqualTo(first.version());
+    assertThat(second.readings()).extracting(SensorReadingResponse::sensorId)
+        .containsExactly("cellar-0", "cellar-1");
+  }
+
+  private static SensorData reading(String sensorId, Instant timestamp, double temperature) {
+    return new SensorData(null, temperature, 60, timestamp, sensorId);
+  }
+}
@@ -0,0 +1,74 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest
+@Import(SensorDataPartitionRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PartitionMaintenanceJobTest extends AbstractPostgresTest {
+
+  private static final YearMonth MAY_2030 = YearMonth.of(2030, 5);
+
+  @Autowired
+  private SensorDataPartitionRepository partitionRepository;
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final WhiskeyProperties whiskeyProperties = new WhiskeyProperties();
+
+  private PartitionMaintenanceJob job;
+
+  @BeforeEach
+  void setUp() {
+    job = new PartitionMaintenanceJob(partitionRepository, whiskeyProperties);
+  }
+
+  @Test
+  void createsUpcomingPartitionsAndMovesRowsOutOfTheDefaultPartition() {
+    final var time = LocalDateTime.parse("2030-05-10T12:00:00").atZone(ZoneId.systemDefault()).toInstant();
+    repository.insertIgnoringDuplicates(List.of(new SensorData(null, 12.5, 70, time, "cellar-1")));
+    assertThat(count("sensor_data_default")).isEqualTo(1);
+
+    job.maintainPartitions(MAY_2030.minusMonths(1));
+
+    assertThat(partitionRepository.findMonths()).contains(
+        MAY_2030.minusMonths(1), MAY_2030, MAY_2030.plusMonths(1), MAY_2030.plusMonths(2));
+    assertThat(count("sensor_data_default")).isZero();
+    assertThat(count("sensor_data_2030_05")).isEqualTo(1);
+    assertThat(repository.findAllByTimestampBetween(time, time)).hasSize(1);
+  }
+
+  @Test
+  void leavesPastPartitionsToTheRetention() {
+    job.maintainPartitions(MAY_2030);
+
+    job.maintainPartitions(MAY_2030.plusYears(2));
+
+    assertThat(partitionRepository.findMonths()).contains(MAY_2030, MAY_2030.plusYears(2));
+  }
+
+  private long count(String table) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+  }
+}
@@ -0,0 +1,80 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ReadingRingTest {
+
+  @Test
+  void fullRingDropsOldestAndMovesCoverage() {
+    final var ring = new ReadingRing(100);
+    for (int i = 0; i < 250; i++) {
+      assertThat(ring.add(i, i * 10L, i, -i, (short) 0)).isTrue();
+    }
+
+    assertThat(ring.size()).isEqualTo(100);
+    assertThat(timestamps(ring)).containsExactlyElementsOf(range(150, 250));
+    assertThat(ring.coveredFromMicros()).isEqualTo(1491);
+    assertThat(ring.id(0)).isEqualTo(150);
+    assertThat(ring.humidity(99)).isEqualTo(-249);
+    assertThat(ring.bytes()).isEqualTo(100L * ReadingRing.BYTES_PER_READING);
+  }
+
+  @Test
+  void lateReadingIsPlacedInOrderAcrossTheWrap() {
+    final var ring = new ReadingRing(8);
+    for (int i = 0; i < 12; i++) {
+      ring.add(i, i * 10L, 0, 0, (short) 0);
+    }
+
+    assertThat(ring.add(100, 75, 1, 1, (short) 4)).isTrue();
+    assertThat(ring.add(101, 70, 1, 1, (short) 0)).as("duplicate timestamp").isFalse();
+    assertThat(ring.add(102, 45, 1, 1, (short) 0)).as("older than everything kept").isFalse();
+
+    assertThat(timestamps(ring)).containsExactly(50L, 60L, 70L, 75L, 80L, 90L, 100L, 110L);
+    assertThat(ring.coveredFromMicros()).isEqualTo(46);
+    assertThat(ring.qualityFlag(ring.lowerBound(75))).isEqualTo((short) 4);
+    assertThat(ring.lowerBound(111)).isEqualTo(ring.size());
+  }
+
+  @Test
+  void growingKeepsTheOrderOfAWrappedRing() {
+    final var ring = new ReadingRing(1000);
+    for (int i = 0; i < 64; i++) {
+      ring.add(i, i * 10L + 10, 0, 0, (short) 0);
+    }
+    ring.dropBefore(200);
+    for (int i = 64; i < 100; i++) {
+      ring.add(i, i * 10L + 10, 0, 0, (short) 0);
+    }
+    ring.add(-1, 205, 0, 0, (short) 0);
+
+    final List<Long> expected = new ArrayList<>(range(20, 101));
+    expected.add(1, 205L);
+    assertThat(timestamps(ring)).containsExactlyElementsOf(expected);
+    assertThat(ring.coveredFromMicros()).isEqualTo(200);
+    assertThat(ring.add(-2, 150, 0, 0, (short) 0)).isFalse();
+  }
+
+  private static List<Long> timestamps(ReadingRing ring) {
+    final List<Long> timestamps = new ArrayList<>();
+    for (int i = 0; i < ring.size(); i++) {
+      timestamps.add(ring.epochMicros(i));
+    }
+    return timestamps;
+  }
+
+  /**
+   * @return timestamps {@code from * 10} to {@code (to - 1) * 10}
+   */
+  private static List<Long> range(int from, int to) {
+    final List<Long> range = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      range.add(i * 10L);
+    }
+    return range;
+  }
+}
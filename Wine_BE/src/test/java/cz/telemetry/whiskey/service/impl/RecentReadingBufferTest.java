@@ -0,0 +1,135 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import cz.telemetry.whiskey.AbstractSensorDataTest;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.RollupGroup;
+import cz.telemetry.whiskey.repository.RollupResolution;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class RecentReadingBufferTest extends AbstractSensorDataTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.parse("2030-06-01T12:00:07");
+
+  @Autowired
+  private SensorDataRollupRepository rollupRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final WhiskeyProperties whiskeyProperties = new WhiskeyProperties();
+
+  @BeforeEach
+  void setUp() {
+    whiskeyProperties.getRecentBuffer().setWindow(Duration.ofHours(2));
+    final var readings = twoCellars(NOW.minusHours(3), 3);
+    readings.get(601).setQualityFlag((short) 1);
+    repository.insertIgnoringDuplicates(readings);
+  }
+
+  @Test
+  void recentAggregatesMatchTheDatabase() {
+    final var buffer = warmedBuffer();
+    final var from = NOW.minusMinutes(100).plusSeconds(20);
+
+    for (RollupResolution bucket : new RollupResolution[] {null, RollupResolution.MINUTE, RollupResolution.HOUR}) {
+      final var expected = rollupRepository.aggregateGroups(from, NOW, bucket, true, null);
+      assertThat(buffer.aggregateGroups(from, NOW, bucket, true, null)).hasValueSatisfying(actual -> {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+          assertSameGroup(actual.get(i), expected.get(i));
+        }
+      });
+    }
+
+    final var expected = rollupRepository.series(from, NOW, 300, null, List.of("cellar-2"));
+    assertThat(buffer.series(from, NOW, 300, List.of("cellar-2"))).hasValueSatisfying(actual -> {
+      assertThat(actual).hasSameSizeAs(expected);
+      for (int i = 0; i < expected.size(); i++) {
+        assertThat(instant(actual.get(i).bucketStart())).isEqualTo(expected.get(i).timestamp());
+        assertThat(actual.get(i).aggregate().count()).isEqualTo(expected.get(i).count());
+        assertThat(actual.get(i).aggregate().temperatureMax()).isEqualTo(expected.get(i).temperatureMax());
+      }
+    });
+  }
+
+  @Test
+  void storedReadingsAreStreamedLikeTheDatabaseStreamsThem() {
+    final var buffer = warmedBuffer();
+    final var late = List.of(
+        new SensorData(null, 30, 90, instant(NOW.minusMinutes(10).plusSeconds(7)), "cellar-1"),
+        new SensorData(null, 31, 91, instant(NOW.minusSeconds(3)), "cellar-3"));
+    repository.insertIgnoringDuplicates(late);
+    buffer.onSensorDataStored(late);
+    final var from = instant(NOW.minusMinutes(30));
+    final var to = instant(NOW);
+
+    final List<String> expectedRows = new ArrayList<>();
+    repository.streamBetween(from, to, (id, timestamp, sensorId, temperature, humidity) ->
+        expectedRows.add(timestamp + " " + id + " " + sensorId + " " + temperature + " " + humidity));
+    final List<String> rows = new ArrayList<>();
+    assertThat(buffer.stream(from, to, (id, timestamp, sensorId, temperature, humidity) ->
+        rows.add(timestamp + " " + id + " " + sensorId + " " + temperature + " " + humidity))).isTrue();
+    assertThat(rows).hasSize(2 * 30 * 4 + 2).isSorted().containsExactlyInAnyOrderElementsOf(expectedRows);
+
+    final List<String> expectedColumns = new ArrayList<>();
+    repository.streamColumnsBetween(from, to, (sensorId, epochMillis, temperature, humidity) ->
+        expectedColumns.add(sensorId + " " + epochMillis + " " + temperature + " " + humidity));
+    final List<String> columns = new ArrayList<>();
+    assertThat(buffer.streamColumns(from, to, (sensorId, epochMillis, temperature, humidity) ->
+        columns.add(sensorId + " " + epochMillis + " " + temperature + " " + humidity))).isTrue();
+    assertThat(columns).containsExactlyElementsOf(expectedColumns);
+  }
+
+  @Test
+  void rangesWithReadingsMissingInMemoryAreLeftToTheDatabase() {
+    whiskeyProperties.getRecentBuffer().setCapacity(60 * 4);
+    final var buffer = warmedBuffer();
+
+    assertThat(buffer.aggregateGroups(NOW.minusMinutes(50), NOW, null, false, null)).isPresent();
+    assertThat(buffer.aggregateGroups(NOW.minusMinutes(70), NOW, null, false, null))
+        .as("dropped for the capacity").isEmpty();
+    assertThat(buffer.aggregateGroups(NOW.minusMinutes(70), NOW, null, false, List.of("cellar-3"))).isPresent();
+    assertThat(buffer.streamColumns(instant(NOW.minusHours(3)), instant(NOW), (sensorId, time, t, h) -> {
+    })).as("before the window").isFalse();
+
+    buffer.invalidateUntil(instant(NOW.minusMinutes(20)));
+
+    assertThat(buffer.series(NOW.minusMinutes(30), NOW, 60, null)).isEmpty();
+    assertThat(buffer.series(NOW.minusMinutes(10), NOW, 60, null)).isPresent();
+    assertThat(buffer.memoryBytes()).isEqualTo(2L * 60 * 4 * ReadingRing.BYTES_PER_READING);
+  }
+
+  private RecentReadingBuffer warmedBuffer() {
+    final var buffer = new RecentReadingBuffer(whiskeyProperties, repository, transactionManager,
+        new SimpleMeterRegistry(), Clock.fixed(instant(NOW), ZoneId.systemDefault()));
+    buffer.warmUp();
+    return buffer;
+  }
+
+  private static void assertSameGroup(RollupGroup actual, RollupGroup expected) {
+    assertThat(actual.sensorId()).isEqualTo(expected.sensorId());
+    assertThat(actual.bucketStart()).isEqualTo(expected.bucketStart());
+    assertThat(actual.aggregate().count()).isEqualTo(expected.aggregate().count());
+    assertThat(actual.aggregate().temperatureSum()).isCloseTo(expected.aggregate().temperatureSum(), within(1e-9));
+    assertThat(actual.aggregate().humiditySumOfSquares())
+        .isCloseTo(expected.aggregate().humiditySumOfSquares(), within(1e-6));
+    assertThat(actual.aggregate().temperatureMin()).isEqualTo(expected.aggregate().temperatureMin());
+    assertThat(actual.aggregate().humidityMax()).isEqualTo(expected.aggregate().humidityMax());
+  }
+}
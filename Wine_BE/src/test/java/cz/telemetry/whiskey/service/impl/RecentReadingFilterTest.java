@@ -0,0 +1,68 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class RecentReadingFilterTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+  private final RecentReadingFilter filter = new RecentReadingFilter();
+
+  @Test
+  void knowsOnlyRememberedReadingsOfTheSameSensor() {
+    filter.remember("sensor-1", START);
+
+    assertThat(filter.isKnown("sensor-1", START)).isTrue();
+    assertThat(filter.isKnown("sensor-1", START.plusSeconds(2))).isFalse();
+    assertThat(filter.isKnown("sensor-2", START)).isFalse();
+  }
+
+  @Test
+  void forgetsOldestReadingsWhenWindowIsFull() {
+    for (int i = 0; i <= RecentReadingFilter.WINDOW_SIZE; i++) {
+      filter.remember("sensor-1", START.plusSeconds(i));
+    }
+
+    assertThat(filter.isKnown("sensor-1", START)).isFalse();
+    assertThat(filter.isKnown("sensor-1", START.plusSeconds(1))).isTrue();
+    assertThat(filter.isKnown("sensor-1", START.plusSeconds(RecentReadingFilter.WINDOW_SIZE))).isTrue();
+  }
+
+  @Test
+  void concurrentWritersNeverProduceFalseHits() throws Exception {
+    final var threads = 16;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final var start = new CountDownLatch(1);
+    final List<Future<Boolean>> results = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++) {
+        final var offset = t;
+        results.add(executor.submit(() -> {
+          start.await();
+          var falseHit = false;
+          for (int i = 0; i < 10_000; i++) {
+            // odd seconds are never remembered, so every hit on them is wrong
+            filter.remember("sensor-1", START.plusSeconds(2L * (i * threads + offset)));
+            falseHit |= filter.isKnown("sensor-1", START.plusSeconds(2L * i + 1));
+          }
+          return falseHit;
+        }));
+      }
+      start.countDown();
+      for (final var result : results) {
+        assertThat(result.get()).isFalse();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
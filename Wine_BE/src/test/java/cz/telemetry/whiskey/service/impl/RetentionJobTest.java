@@ -0,0 +1,138 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.archive.SensorDataArchive;
+import cz.telemetry.whiskey.config.properties.PartitionProperties;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.repository.SensorDataPartitionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.repository.SensorDataRetentionRepository;
+import cz.telemetry.whiskey.repository.SensorDataRollupRepository;
+import cz.telemetry.whiskey.repository.SensorDataSketchRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest
+@Import({SensorDataPartitionRepository.class, SensorDataRetentionRepository.class, SensorDataRollupRepository.class,
+    SensorDataSketchRepository.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RetentionJobTest extends AbstractPostgresTest {
+
+  private static final LocalDateTime DAY = LocalDateTime.parse("2031-03-01T00:00:00");
+  private static final int READINGS_PER_DAY = 2 * 24 * 60;
+
+  @Autowired
+  private SensorDataPartitionRepository partitionRepository;
+
+  @Autowired
+  private SensorDataRetentionRepository retentionRepository;
+
+  @Autowired
+  private SensorDataRollupRepository rollupRepository;
+
+  @Autowired
+  private SensorDataSketchRepository sketchRepository;
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final WhiskeyProperties whiskeyProperties = new WhiskeyProperties();
+
+  private RetentionJob job;
+
+  @BeforeEach
+  void setUp() {
+    whiskeyProperties.getRetention().setChunkSize(500);
+    whiskeyProperties.getRetention().setChunkPause(Duration.ZERO);
+    job = new RetentionJob(retentionRepository, partitionRepository,
+        new RollupVerifier(retentionRepository, rollupRepository, sketchRepository),
+        new SensorDataArchive(whiskeyProperties), whiskeyProperties,
+        new AggregateResultCache(whiskeyProperties, new SimpleMeterRegistry()));
+  }
+
+  @Test
+  void expiredDaysAreDeletedInChunksAfterBrokenRollupsAreRebuilt() {
+    insertDays(DAY, 2);
+    jdbcTemplate.update("UPDATE sensor_data_rollup SET reading_count = 1 WHERE resolution = 'HOUR'"
+        + " AND bucket_start < ?", Timestamp.valueOf(DAY.plusHours(3)));
+    whiskeyProperties.getRetention().setRawDays(8);
+
+    job.applyRetention(LocalDate.parse("2031-03-10"));
+
+    assertThat(rawCount(DAY, DAY.plusDays(1))).isZero();
+    assertThat(rawCount(DAY.plusDays(1), DAY.plusDays(2))).isEqualTo(READINGS_PER_DAY);
+    assertThat(rollupRepository.aggregate(DAY, DAY.plusDays(1)).count()).isEqualTo(READINGS_PER_DAY);
+    assertThat(rollupRepository.aggregate(DAY.plusHours(1), DAY.plusHours(2)).count()).isEqualTo(120);
+    assertThat(rollupRepository.aggregate(DAY.plusMinutes(5), DAY.plusMinutes(65)).count()).isEqualTo(120);
+  }
+
+  @Test
+  void wholeExpiredPartitionIsDropped() {
+    final var may = YearMonth.of(2031, 5);
+    partitionRepository.createMonth(may);
+    insertDays(may.atDay(30).atStartOfDay(), 1);
+    whiskeyProperties.getRetention().setRawDays(30);
+    whiskeyProperties.getPartition().setExpiredAction(PartitionProperties.ExpiredAction.DROP);
+
+    job.applyRetention(LocalDate.parse("2031-07-15"));
+
+    assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('sensor_data_2031_05')", String.class)).isNull();
+    assertThat(rollupRepository.aggregate(may.atDay(1).atStartOfDay(), may.plusMonths(1).atDay(1).atStartOfDay())
+        .count()).isEqualTo(READINGS_PER_DAY);
+  }
+
+  @Test
+  void finerRollupsExpireBeforeCoarserOnes() {
+    insertDays(DAY, 2);
+    whiskeyProperties.getRetention().setMinuteDays(9);
+    whiskeyProperties.getRetention().setHourDays(30);
+
+    job.applyRetention(LocalDate.parse("2031-03-11"));
+
+    assertThat(rollupRows("MINUTE", DAY, DAY.plusDays(1))).isZero();
+    assertThat(rollupRows("MINUTE", DAY.plusDays(1), DAY.plusDays(2))).isEqualTo(READINGS_PER_DAY);
+    assertThat(rollupRows("HOUR", DAY, DAY.plusDays(1))).isEqualTo(48);
+    assertThat(rawCount(DAY, DAY.plusDays(2))).isEqualTo(2L * READINGS_PER_DAY);
+  }
+
+  private void insertDays(LocalDateTime start, int days) {
+    final List<SensorData> readings = new ArrayList<>();
+    for (int minute = 0; minute < days * 24 * 60; minute++) {
+      final var time = start.plusMinutes(minute).atZone(ZoneId.systemDefault()).toInstant();
+      readings.add(new SensorData(null, 12 + minute % 3, 60 + minute % 5, time, "cellar-1"));
+      readings.add(new SensorData(null, 14 + minute % 2, 70 + minute % 7, time, "cellar-2"));
+    }
+    repository.insertIgnoringDuplicates(readings);
+  }
+
+  private long rawCount(LocalDateTime from, LocalDateTime to) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM sensor_data WHERE timestamp >= ? AND timestamp < ?",
+        Long.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+  }
+
+  private long rollupRows(String resolution, LocalDateTime from, LocalDateTime to) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM sensor_data_rollup WHERE resolution = ?"
+        + " AND bucket_start >= ? AND bucket_start < ?", Long.class, resolution, Timestamp.valueOf(from),
+        Timestamp.valueOf(to));
+  }
+}
@@ -0,0 +1,94 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.exception.InvalidImportException;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.service.SensorDataImportService;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import(SensorDataServiceTestConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SensorDataImportServiceImplTest extends AbstractPostgresTest {
+
+  @Autowired
+  private SensorDataImportService importService;
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Test
+  void ndjsonImportSkipsDuplicatesAndRejectsBrokenLines() {
+    repository.insertIgnoringDuplicates(List.of(
+        new SensorData(null, 20.0, 60, Instant.parse("2025-04-01T10:00:00Z"), "sensor-1")));
+
+    final var response = importService.importNdjson(stream("""
+        {"temperature":20.0,"humidity":60,"timestamp":"2025-04-01T10:00:00Z","sensorId":"sensor-1"}
+        {"temperature":21.0,"humidity":61,"timestamp":"2025-04-01T10:01:00Z","sensorId":"sensor-1"}
+        {"temperature":21.0,"humidity":61,"timestamp":"2025-04-01T10:01:00Z","sensorId":"sensor-1"}
+        {"temperature":22.0,"humidity":62,"timestamp":"not a timestamp","sensorId":"sensor-1"}
+
+        {"temperature":23.0,"humidity":63,"sensorId":"sensor-1"}
+        """));
+
+    assertThat(response.rows()).isEqualTo(5);
+    assertThat(response.accepted()).isEqualTo(1);
+    assertThat(response.duplicates()).isEqualTo(2);
+    assertThat(response.rejected()).isEqualTo(2);
+    assertThat(response.errors()).hasSize(2).first().asString().startsWith("line 4");
+    assertThat(repository.findAllByTimestampBetween(
+        Instant.parse("2025-04-01T10:01:00Z"), Instant.parse("2025-04-01T10:01:00Z")))
+        .singleElement()
+        .satisfies(stored -> assertThat(stored.getTemperature()).isEqualTo(21.0));
+  }
+
+  @Test
+  void csvImportReadsColumnsByHeader() {
+    final var response = importService.importCsv(stream("""
+        sensorId,timestamp,humidity,temperature
+        sensor-2,2025-04-01T10:00:00Z,60,20.5
+        sensor-2,2025-04-01T10:01:00Z,,21.5
+        sensor-2,2025-04-01T10:02:00Z,62
+        """));
+
+    assertThat(response.accepted()).isEqualTo(1);
+    assertThat(response.rejected()).isEqualTo(2);
+  }
+
+  @Test
+  void csvImportReadsQuotedValues() {
+    final var response = importService.importCsv(stream("""
+        "sensorId","timestamp","humidity","temperature"
+        "cellar ""north"", rack 2",2025-04-01T10:00:00Z,"60",20.5
+        "sensor-3,2025-04-01T10:01:00Z,61,21.5
+        """));
+
+    assertThat(response.accepted()).isEqualTo(1);
+    assertThat(response.rejected()).isEqualTo(1);
+    assertThat(repository.findAll())
+        .anySatisfy(stored -> assertThat(stored.getSensorId()).isEqualTo("cellar \"north\", rack 2"));
+  }
+
+  @Test
+  void csvImportWithoutRequiredColumnsFails() {
+    assertThatThrownBy(() -> importService.importCsv(stream("temperature,humidity\n20,60\n")))
+        .isInstanceOf(InvalidImportException.class);
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,159 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.BatchTooLargeException;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataService;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+class SensorDataIngestQueueImplTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T10:00:00Z");
+
+  private WhiskeyProperties properties;
+  private SensorDataService sensorDataService;
+  private List<SensorDataDto> written;
+  private SensorDataIngestQueueImpl queue;
+
+  @BeforeEach
+  void setUp() {
+    properties = new WhiskeyProperties();
+    properties.getIngest().setQueueCapacity(10);
+    properties.getIngest().setBatchSize(4);
+    properties.getIngest().setWriterThreads(1);
+    properties.getIngest().setFlushInterval(Duration.ofMillis(10));
+    properties.getIngest().setRetryAfter(Duration.ofMillis(10));
+    sensorDataService = mock(SensorDataService.class);
+    written = Collections.synchronizedList(new ArrayList<>());
+    when(sensorDataService.saveSensorDataBatch(anyList())).thenAnswer(invocation -> {
+      written.addAll(invocation.getArgument(0));
+      return null;
+    });
+    queue = new SensorDataIngestQueueImpl(sensorDataService, properties);
+  }
+
+  @AfterEach
+  void tearDown() {
+    queue.stop();
+  }
+
+  @Test
+  void fullQueueRejectsWholeBatchesUntilReadingsAreWritten() throws Exception {
+    final var writing = new CountDownLatch(1);
+    final var database = new CountDownLatch(1);
+    when(sensorDataService.saveSensorDataBatch(anyList())).thenAnswer(invocation -> {
+      writing.countDown();
+      database.await();
+      written.addAll(invocation.getArgument(0));
+      return null;
+    });
+    queue.start();
+
+    assertThat(queue.offer(readings(0, 6))).isTrue();
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(queue.offer(readings(6, 5))).as("readings being written still hold capacity").isFalse();
+    assertThat(queue.offer(readings(6, 4))).isTrue();
+    assertThat(queue.offer(readings(10, 1))).isFalse();
+
+    database.countDown();
+    final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!queue.offer(readings(10, 1))) {
+      assertThat(System.nanoTime()).as("capacity returned after writing").isLessThan(deadline);
+      Thread.sleep(10);
+    }
+    queue.stop();
+    assertThat(written).containsExactlyElementsOf(readings(0, 11));
+  }
+
+  @Test
+  void batchLargerThanTheWholeCapacityIsRefusedOutright() {
+    queue.start();
+
+    assertThatThrownBy(() -> queue.offer(readings(0, 11)))
+        .isInstanceOf(BatchTooLargeException.class)
+        .satisfies(e -> assertThat(((BatchTooLargeException) e).getStatus().getStatusCode()).isEqualTo(413));
+    assertThat(queue.offer(readings(0, 10))).isTrue();
+  }
+
+  @Test
+  void stopWritesEverythingQueuedAndRejectsNewReadings() {
+    properties.getIngest().setWriterThreads(2);
+    queue.start();
+    assertThat(queue.offer(readings(0, 3))).isTrue();
+    assertThat(queue.offer(readings(3, 7))).isTrue();
+
+    queue.stop();
+
+    assertThat(written).containsExactlyInAnyOrderElementsOf(readings(0, 10));
+    assertThat(queue.isRunning()).isFalse();
+    assertThat(queue.offer(readings(10, 1))).isFalse();
+  }
+
+  @Test
+  void unavailableDatabaseIsRetried() {
+    when(sensorDataService.saveSensorDataBatch(anyList()))
+        .thenThrow(new TransientDataAccessResourceException("connection lost"))
+        .thenThrow(new TransientDataAccessResourceException("connection lost"))
+        .thenAnswer(invocation -> {
+          written.addAll(invocation.getArgument(0));
+          return null;
+        });
+    queue.start();
+
+    assertThat(queue.offer(readings(0, 4))).isTrue();
+    queue.stop();
+
+    verify(sensorDataService, times(3)).saveSensorDataBatch(anyList());
+    assertThat(written).containsExactlyElementsOf(readings(0, 4));
+  }
+
+  @Test
+  void readingWhichCannotBeWrittenIsDroppedAloneAndTheRestOfItsBatchIsWritten() {
+    final var broken = new SensorDataDto(20, 60, START, "broken");
+    when(sensorDataService.saveSensorDataBatch(anyList())).thenAnswer(invocation -> {
+      final List<SensorDataDto> batch = invocation.getArgument(0);
+      if (batch.contains(broken)) {
+        throw new DataIntegrityViolationException("value too long for type character varying(128)");
+      }
+      written.addAll(batch);
+      return null;
+    });
+    final var batch = readings(0, 4);
+    batch.add(2, broken);
+    queue.start();
+
+    assertThat(queue.offer(batch)).isTrue();
+    queue.stop();
+
+    assertThat(written).containsExactlyElementsOf(readings(0, 4));
+    queue.start();
+    assertThat(queue.offer(readings(4, 10))).as("the dropped reading gave its capacity back").isTrue();
+  }
+
+  private static List<SensorDataDto> readings(int from, int count) {
+    final List<SensorDataDto> readings = new ArrayList<>(count);
+    for (int i = from; i < from + count; i++) {
+      readings.add(new SensorDataDto(20, 60, START.plusSeconds(i), "cellar-1"));
+    }
+    return readings;
+  }
+}
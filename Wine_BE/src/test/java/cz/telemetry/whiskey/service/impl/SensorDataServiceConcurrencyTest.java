@@ -0,0 +1,83 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.api.response.IngestStatus;
+import cz.telemetry.whiskey.repository.SensorDataRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Retries of one reading racing each other must end with exactly one insert and no constraint violation.
+ */
+@DataJpaTest
+@Import(SensorDataServiceTestConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SensorDataServiceConcurrencyTest extends AbstractPostgresTest {
+
+  private static final int THREADS = 32;
+
+  @Autowired
+  private SensorDataService sensorDataService;
+
+  @Autowired
+  private SensorDataRepository repository;
+
+  @Test
+  void sameReadingFromManyThreadsIsStoredOnce() throws Exception {
+    final var dto = new SensorDataDto(21.5, 63, Instant.parse("2025-04-01T10:00:00Z"), "sensor-race");
+
+    final var results = hammer(() -> sensorDataService.saveSensorData(dto) == IngestStatus.ACCEPTED);
+
+    assertThat(results).containsOnlyOnce(true);
+    assertThat(repository.findAllByTimestampBetween(dto.getTimestamp(), dto.getTimestamp())).hasSize(1);
+  }
+
+  @Test
+  void sameInsertFromManyThreadsReportsOneInsertWithoutFilter() throws Exception {
+    final var reading = new SensorData(null, 21.5, 63, Instant.parse("2025-04-01T11:00:00Z"), "sensor-race");
+
+    final var results = hammer(() -> repository.insertIgnoringDuplicates(List.of(reading))[0]);
+
+    assertThat(results).containsOnlyOnce(true);
+  }
+
+  private List<Boolean> hammer(Callable<Boolean> call) throws Exception {
+    final var executor = Executors.newFixedThreadPool(THREADS);
+    final var start = new CountDownLatch(1);
+    try {
+      final var futures = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < THREADS; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return call.call();
+        }));
+      }
+      start.countDown();
+      final List<Boolean> results = new ArrayList<>();
+      for (final var future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import cz.telemetry.whiskey.AbstractPostgresTest;
+import cz.telemetry.whiskey.api.response.IngestStatus;
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.domain.QualityFlag;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataService;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Batches stored through the service commit chunk by chunk like in production, so the test runs without a
+ * transaction and removes its readings afterwards.
+ */
+@DataJpaTest
+@Import(SensorDataServiceTestConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SensorDataServiceImplTest extends AbstractPostgresTest {
+
+  private static final Instant START = Instant.parse("2025-06-01T00:00:00Z");
+
+  private static final String SENSOR = "sensor-chunks";
+
+  @Autowired
+  private SensorDataService sensorDataService;
+
+  @Autowired
+  private IngestLog ingestLog;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void tearDown() {
+    for (String table : List.of("sensor_data", "sensor_data_rollup", "sensor_data_sketch")) {
+      jdbcTemplate.update("DELETE FROM " + table + " WHERE sensor_id = ?", SENSOR);
+    }
+  }
+
+  @Test
+  void chunksCommittedBeforeAFailingOneReachTheListenersExactlyOnce() {
+    final var cursor = ingestLog.changesSince(null, 1).cursor();
+    final var batch = batch(START);
+    final var broken = brokenInSecondChunk(batch);
+
+    assertThatThrownBy(() -> sensorDataService.storeSensorDataBatch(broken))
+        .isInstanceOf(DataIntegrityViolationException.class);
+    assertThat(ingestLog.changesSince(cursor, 2000).readings()).hasSize(1000);
+
+    final var retried = sensorDataService.storeSensorDataBatch(batch);
+
+    assertThat(retried.accepted()).isEqualTo(500);
+    assertThat(retried.duplicates()).isEqualTo(1000);
+    assertThat(retried.items().subList(0, 1000)).containsOnly(IngestStatus.DUPLICATE);
+    assertThat(retried.items().subList(1000, 1500)).containsOnly(IngestStatus.ACCEPTED);
+    assertThat(ingestLog.changesSince(cursor, 2000).readings())
+        .extracting(SensorReadingResponse::timestamp)
+        .containsExactlyElementsOf(batch.stream().map(SensorDataDto::getTimestamp).toList());
+  }
+
+  @Test
+  void spikeInAFailedChunkIsStillFlaggedWhenTheBatchIsRetried() {
+    final var batch = batch(START.plus(Duration.ofDays(7)));
+    batch.get(1100).setTemperature(40);
+
+    assertThatThrownBy(() -> sensorDataService.storeSensorDataBatch(brokenInSecondChunk(batch)))
+        .isInstanceOf(DataIntegrityViolationException.class);
+    sensorDataService.storeSensorDataBatch(batch);
+
+    final var flags = jdbcTemplate.queryForObject(
+        "SELECT quality_flag FROM sensor_data WHERE sensor_id = ? AND timestamp = ?", Short.class, SENSOR,
+        Timestamp.from(batch.get(1100).getTimestamp()));
+    assertThat(QualityFlag.of(flags)).contains(QualityFlag.SPIKE);
+  }
+
+  private static List<SensorDataDto> batch(Instant start) {
+    final List<SensorDataDto> batch = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      batch.add(new SensorDataDto(20 + i % 10 * 0.1, 60, start.plusSeconds(i * 60L), SENSOR));
+    }
+    return batch;
+  }
+
+  /**
+   * @return copy of the batch whose second chunk of 1000 readings fails on the sensor id column
+   */
+  private static List<SensorDataDto> brokenInSecondChunk(List<SensorDataDto> batch) {
+    final var broken = new ArrayList<>(batch);
+    broken.set(1200, new SensorDataDto(20, 60, batch.get(1200).getTimestamp(), "x".repeat(129)));
+    return broken;
+  }
+}
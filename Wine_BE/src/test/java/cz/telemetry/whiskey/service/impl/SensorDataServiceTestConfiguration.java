@@ -0,0 +1,26 @@
+package cz.telemetry.whiskey.service.impl;
+
+import cz.telemetry.whiskey.config.JpaConfiguration;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The services of {@code service.impl} with the JDBC repositories and the archive they use, on top of the
+ * {@code @DataJpaTest} slice. Scanned rather than listed, so a new collaborator of the sensor data services
+ * does not have to be wired into every test. Accounts need the security configuration and are left out.
+ */
+@TestConfiguration
+@ComponentScan(basePackages = {"cz.telemetry.whiskey.service.impl", "cz.telemetry.whiskey.repository",
+    "cz.telemetry.whiskey.archive"},
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+        classes = {AuthenticationServiceImpl.class, UserDetailServiceImpl.class, ProfileServiceImpl.class}))
+@Import({JpaConfiguration.class, WhiskeyProperties.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class SensorDataServiceTestConfiguration {
+}
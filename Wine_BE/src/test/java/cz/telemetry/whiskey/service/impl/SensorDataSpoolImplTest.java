@@ -0,0 +1,161 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.security.sensor.SensorDataDto;
+import cz.telemetry.whiskey.service.SensorDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+class SensorDataSpoolImplTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+  @TempDir
+  Path directory;
+
+  private final SensorDataService sensorDataService = mock(SensorDataService.class);
+  private final WhiskeyProperties properties = new WhiskeyProperties();
+
+  @BeforeEach
+  void setUp() {
+    properties.getSpool().setDirectory(directory);
+    properties.getSpool().setSegmentSize(DataSize.ofKilobytes(1));
+    properties.getSpool().setMaxDiskUsage(DataSize.ofKilobytes(4));
+  }
+
+  @Test
+  void spooledReadingsSurviveRestartAndAreReplayed() throws IOException {
+    final var readings = readings(3);
+    assertThat(open().append(readings)).isTrue();
+
+    final var restarted = open();
+    assertThat(restarted.pendingReadings()).isEqualTo(3);
+
+    restarted.replay();
+
+    verify(sensorDataService).storeSensorDataBatch(readings);
+    assertThat(restarted.pendingReadings()).isZero();
+    assertThat(open().pendingReadings()).isZero();
+  }
+
+  @Test
+  void readingsStaySpooledWhileDatabaseIsUnavailable() throws IOException {
+    when(sensorDataService.storeSensorDataBatch(anyList()))
+        .thenThrow(new DataAccessResourceFailureException("down"));
+    final var spool = open();
+    spool.append(readings(2));
+
+    spool.replay();
+
+    assertThat(spool.pendingReadings()).isEqualTo(2);
+  }
+
+  @Test
+  void tornRecordIsDroppedOnRestart() throws IOException {
+    open().append(readings(2));
+
+    // flip a byte inside the payload of the second record
+    try (final var file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+      file.seek(recordSize() + 20);
+      file.write(file.read() ^ 0xFF);
+    }
+
+    final var restarted = open();
+    assertThat(restarted.pendingReadings()).isEqualTo(1);
+    assertThat(restarted.append(readings(1))).isTrue();
+    assertThat(open().pendingReadings()).isEqualTo(2);
+  }
+
+  @Test
+  void corruptedRecordIsSkippedAloneAndTheReadingsAfterItAreReplayed() throws IOException {
+    final var readings = readings(3);
+    open().append(readings);
+
+    // flip a byte inside the payload of the middle record
+    try (final var file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+      file.seek(recordSize() + 20);
+      file.write(file.read() ^ 0xFF);
+    }
+
+    final var meterRegistry = new SimpleMeterRegistry();
+    final var restarted = new SensorDataSpoolImpl(sensorDataService, meterRegistry, properties);
+    restarted.open();
+    assertThat(restarted.pendingReadings()).isEqualTo(2);
+    final var appended = new SensorDataDto(30, 60, START.plusSeconds(60), "sensor-1");
+    assertThat(restarted.append(List.of(appended))).isTrue();
+
+    restarted.replay();
+
+    verify(sensorDataService).storeSensorDataBatch(List.of(readings.get(0), readings.get(2), appended));
+    assertThat(restarted.pendingReadings()).isZero();
+    assertThat(meterRegistry.get("whiskey.spool.corrupted").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void rollsSegmentsAndDeletesReplayedOnes() throws IOException {
+    final var spool = open();
+    final var perSegment = 1024 / recordSize();
+    spool.append(readings(perSegment + 1));
+    assertThat(segments()).hasSize(2);
+
+    spool.replay();
+
+    assertThat(spool.pendingReadings()).isZero();
+    assertThat(segments()).hasSize(1);
+  }
+
+  @Test
+  void rejectsReadingsOverDiskLimit() throws IOException {
+    final var spool = open();
+    final var perSegment = 1024 / recordSize();
+
+    assertThat(spool.append(readings(perSegment * 4))).isTrue();
+    assertThat(spool.append(readings(1))).isFalse();
+    spool.replay();
+    assertThat(spool.append(readings(1))).isTrue();
+    verify(sensorDataService, never()).saveSensorDataBatch(anyList());
+  }
+
+  private SensorDataSpoolImpl open() throws IOException {
+    final var spool = new SensorDataSpoolImpl(sensorDataService, new SimpleMeterRegistry(), properties);
+    spool.open();
+    return spool;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (final var files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(".spool")).sorted().toList();
+    }
+  }
+
+  private static int recordSize() {
+    // header, append time, timestamp, two values, id length and "sensor-1"
+    return 8 + 8 + 8 + 16 + 2 + 8;
+  }
+
+  private static List<SensorDataDto> readings(int count) {
+    final List<SensorDataDto> readings = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      readings.add(new SensorDataDto(20 + i, 60, START.plusSeconds(2L * i), "sensor-1"));
+    }
+    return readings;
+  }
+}
@@ -0,0 +1,198 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.api.response.SensorReadingResponse;
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.exception.TooManySubscribersException;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class SensorDataStreamServiceImplTest {
+
+  private static final Instant T0 = Instant.parse("2025-04-01T10:00:00Z");
+
+  private SensorDataStreamServiceImpl service;
+
+  @BeforeEach
+  void setUp() {
+    final var cache = mock(LatestReadingCache.class);
+    when(cache.all()).thenReturn(List.of(new SensorReadingResponse("cellar-1", T0, 20.0, 60.0)));
+    final var properties = new WhiskeyProperties();
+    properties.getStream().setMaxSubscribers(2);
+    properties.getStream().setSenderThreads(1);
+    properties.getStream().setSendTimeout(Duration.ofMillis(200));
+    service = new SensorDataStreamServiceImpl(cache, properties);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  void startsWithCurrentReadingsAndPushesNewOnes() throws InterruptedException {
+    final var emitter = new RecordingEmitter();
+    service.subscribe(null, emitter);
+    emitter.awaitReadings(1);
+
+    service.onSensorDataStored(List.of(reading("cellar-2", T0.plusSeconds(10), 15.0)));
+    emitter.awaitReadings(2);
+
+    assertThat(emitter.readings).extracting(SensorReadingResponse::sensorId).containsExactly("cellar-1", "cellar-2");
+  }
+
+  @Test
+  void filtersBySensor() throws InterruptedException {
+    final var emitter = new RecordingEmitter();
+    service.subscribe(Set.of("cellar-2"), emitter);
+
+    service.onSensorDataStored(List.of(reading("cellar-1", T0.plusSeconds(10), 21.0),
+        reading("cellar-2", T0.plusSeconds(10), 15.0)));
+    emitter.awaitReadings(1);
+
+    assertThat(emitter.readings).extracting(SensorReadingResponse::sensorId).containsExactly("cellar-2");
+  }
+
+  @Test
+  void slowSubscriberGetsOnlyNewestReadingOfEachSensor() throws InterruptedException {
+    final var emitter = new RecordingEmitter();
+    emitter.blocked = new CountDownLatch(1);
+    service.subscribe(Set.of("cellar-1"), emitter);
+    emitter.awaitSendStarted();
+
+    for (int i = 1; i <= 100; i++) {
+      service.onSensorDataStored(List.of(reading("cellar-1", T0.plusSeconds(i), i)));
+    }
+    emitter.blocked.countDown();
+    emitter.awaitReadings(2);
+    Thread.sleep(100);
+
+    assertThat(emitter.readings).extracting(SensorReadingResponse::temperature).containsExactly(20.0, 100.0);
+  }
+
+  @Test
+  void rejectsSubscribersOverLimit() {
+    service.subscribe(null, new RecordingEmitter());
+    service.subscribe(null, new RecordingEmitter());
+
+    assertThatThrownBy(() -> service.subscribe(null, new RecordingEmitter()))
+        .isInstanceOf(TooManySubscribersException.class);
+  }
+
+  @Test
+  void concurrentSubscriptionsDoNotOvershootTheLimit() throws InterruptedException {
+    final var start = new CountDownLatch(1);
+    final var accepted = new AtomicInteger();
+    final List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      final var thread = new Thread(() -> {
+        try {
+          start.await();
+          service.subscribe(null, new RecordingEmitter());
+          accepted.incrementAndGet();
+        } catch (InterruptedException | TooManySubscribersException e) {
+          // over the limit
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(accepted).hasValue(2);
+    assertThat(service.subscriberCount()).isEqualTo(2);
+  }
+
+  @Test
+  void stuckSubscriberIsDroppedAndDoesNotHoldTheOthers() throws InterruptedException {
+    final var stuck = new RecordingEmitter();
+    stuck.blocked = new CountDownLatch(1);
+    service.subscribe(null, stuck);
+    stuck.awaitSendStarted();
+    final var emitter = new RecordingEmitter();
+    service.subscribe(null, emitter);
+
+    service.onSensorDataStored(List.of(reading("cellar-2", T0.plusSeconds(10), 15.0)));
+    emitter.awaitReadings(2);
+
+    assertThat(service.subscriberCount()).isEqualTo(1);
+    stuck.blocked.countDown();
+  }
+
+  @Test
+  void failedSendDropsSubscriber() throws InterruptedException {
+    final var emitter = new RecordingEmitter();
+    emitter.failing = true;
+    service.subscribe(null, emitter);
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (service.subscriberCount() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(service.subscriberCount()).isZero();
+  }
+
+  private static SensorData reading(String sensorId, Instant timestamp, double temperature) {
+    return new SensorData(null, temperature, 60, timestamp, sensorId);
+  }
+
+  private static final class RecordingEmitter extends SseEmitter {
+
+    private final List<SensorReadingResponse> readings = new CopyOnWriteArrayList<>();
+    private final CountDownLatch sendStarted = new CountDownLatch(1);
+    private volatile CountDownLatch blocked;
+    private volatile boolean failing;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      sendStarted.countDown();
+      if (failing) {
+        throw new IOException("Broken pipe");
+      }
+      if (blocked != null) {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      builder.build().stream()
+          .map(DataWithMediaType::getData)
+          .filter(SensorReadingResponse.class::isInstance)
+          .map(SensorReadingResponse.class::cast)
+          .forEach(readings::add);
+    }
+
+    private void awaitSendStarted() throws InterruptedException {
+      assertThat(sendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void awaitReadings(int count) throws InterruptedException {
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (readings.size() < count && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(readings).hasSizeGreaterThanOrEqualTo(count);
+    }
+  }
+}
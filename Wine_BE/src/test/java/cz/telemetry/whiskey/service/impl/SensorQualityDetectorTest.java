@@ -0,0 +1,151 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.config.properties.WhiskeyProperties;
+import cz.telemetry.whiskey.domain.QualityFlag;
+import cz.telemetry.whiskey.repository.SensorQualityState;
+import cz.telemetry.whiskey.repository.SensorQualityStateRepository;
+import cz.telemetry.whiskey.security.sensor.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SensorQualityDetectorTest {
+
+  private static final Instant START = Instant.parse("2025-04-01T10:00:00Z");
+
+  private WhiskeyProperties properties;
+  private SensorQualityStateRepository stateRepository;
+  private List<SensorQualityState> saved;
+  private SensorQualityDetector detector;
+
+  @BeforeEach
+  void setUp() {
+    properties = new WhiskeyProperties();
+    properties.getQuality().setWarmUpReadings(10);
+    properties.getQuality().setFlatlineDuration(Duration.ofHours(1));
+    stateRepository = mock(SensorQualityStateRepository.class);
+    saved = new ArrayList<>();
+    doAnswer(invocation -> saved.addAll(invocation.<Collection<SensorQualityState>>getArgument(0)))
+        .when(stateRepository).saveAll(anyCollection());
+    detector = new SensorQualityDetector(properties, stateRepository, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void spikeIsFlaggedOnceWarmedUpAndDoesNotMoveTheModel() {
+    warmUp(detector, "cellar-1");
+
+    assertThat(inspect("cellar-1", 100, 40, 61)).contains(QualityFlag.SPIKE);
+    assertThat(inspect("cellar-1", 110, 13, 60)).isEmpty();
+    assertThat(inspect("cellar-1", 120, 12, 20)).contains(QualityFlag.SPIKE);
+  }
+
+  @Test
+  void changeFasterThanPlausibleIsFlaggedButDriftIsNot() {
+    assertThat(inspect("cellar-1", 0, 12, 60)).isEmpty();
+    assertThat(inspect("cellar-1", 10, 16, 60)).containsExactly(QualityFlag.RATE_OF_CHANGE);
+    assertThat(inspect("cellar-1", 20, 13, 61)).isEmpty();
+    assertThat(inspect("cellar-1", 320, 23, 61)).isEmpty();
+  }
+
+  @Test
+  void frozenSensorIsFlaggedAfterFlatlineDuration() {
+    for (int minute = 0; minute < 60; minute++) {
+      assertThat(inspect("cellar-1", minute * 60L, 12, 60)).isEmpty();
+    }
+
+    assertThat(inspect("cellar-1", 3600, 12, 60)).containsExactly(QualityFlag.FLATLINE);
+    assertThat(inspect("cellar-1", 3660, 12, 61)).isEmpty();
+  }
+
+  @Test
+  void lastingLevelShiftIsLearnedAfterWarmUpOutliers() {
+    warmUp(detector, "cellar-1");
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(inspect("cellar-1", 100 + i * 10L, 30, 61)).isNotEmpty();
+    }
+    assertThat(inspect("cellar-1", 200, 30, 60)).isEmpty();
+  }
+
+  @Test
+  void lateAndNonFiniteReadingsAreNotLearned() {
+    assertThat(inspect("cellar-1", 10, 12, 60)).isEmpty();
+
+    assertThat(inspect("cellar-1", 5, 90, 60)).isEmpty();
+    assertThat(inspect("cellar-1", 20, Double.NaN, 60)).containsExactly(QualityFlag.SPIKE);
+    assertThat(inspect("cellar-1", 30, 12, 60)).isEmpty();
+  }
+
+  @Test
+  void batchWhichWasNotStoredIsFlaggedTheSameWhenRetried() {
+    warmUp(detector, "cellar-1");
+    final var batch = List.of(reading("cellar-1", 100, 12, 60), reading("cellar-1", 110, 40, 61),
+        reading("cellar-1", 120, 13, 60));
+
+    detector.classify(batch);
+    assertThat(batch).extracting(reading -> QualityFlag.of(reading.getQualityFlag()))
+        .containsExactly(Set.of(), Set.of(QualityFlag.SPIKE, QualityFlag.RATE_OF_CHANGE), Set.of());
+    // only the first reading was stored before the insert failed
+    detector.commit(batch.subList(0, 1));
+
+    final var retried = List.of(reading("cellar-1", 100, 12, 60), reading("cellar-1", 110, 40, 61),
+        reading("cellar-1", 120, 13, 60));
+    detector.classify(retried);
+    assertThat(retried.get(0).getQualityFlag()).as("already stored").isZero();
+    assertThat(QualityFlag.of(retried.get(1).getQualityFlag())).contains(QualityFlag.SPIKE);
+  }
+
+  @Test
+  void checkpointedModelIsRestored() {
+    warmUp(detector, "cellar-1");
+    detector.checkpoint();
+    detector.checkpoint();
+    assertThat(saved).singleElement().satisfies(state -> assertThat(state.readings()).isEqualTo(10));
+
+    when(stateRepository.findAll()).thenReturn(saved);
+    final var restarted = new SensorQualityDetector(properties, stateRepository, new SimpleMeterRegistry());
+    restarted.restore();
+
+    final var spike = reading("cellar-1", 100, 40, 61);
+    restarted.classify(List.of(spike));
+    assertThat(QualityFlag.of(spike.getQualityFlag())).contains(QualityFlag.SPIKE);
+  }
+
+  private void warmUp(SensorQualityDetector target, String sensorId) {
+    for (int i = 0; i < 10; i++) {
+      final var reading = reading(sensorId, i * 10L, 12 + i % 2, 60 + i % 2);
+      store(target, reading);
+      assertThat(reading.getQualityFlag()).isZero();
+    }
+  }
+
+  /**
+   * Classifies and commits the reading like an ingest whose insert succeeded.
+   */
+  private static void store(SensorQualityDetector target, SensorData reading) {
+    target.classify(List.of(reading));
+    target.commit(List.of(reading));
+  }
+
+  private Set<QualityFlag> inspect(String sensorId, long second, double temperature, double humidity) {
+    final var reading = reading(sensorId, second, temperature, humidity);
+    store(detector, reading);
+    return QualityFlag.of(reading.getQualityFlag());
+  }
+
+  private static SensorData reading(String sensorId, long second, double temperature, double humidity) {
+    return new SensorData(null, temperature, humidity, START.plusSeconds(second), sensorId);
+  }
+}
@@ -0,0 +1,54 @@
+package cz.telemetry.whiskey.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import cz.telemetry.whiskey.repository.LocationRepository;
+import cz.telemetry.whiskey.security.sensor.Location;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SensorTopologyTest {
+
+  private LocationRepository repository;
+  private SensorTopology topology;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(LocationRepository.class);
+    when(repository.findAllBySensorIdNotNull()).thenReturn(List.of(
+        new Location(1L, "cellar", "North wall", "cellar-1"),
+        new Location(2L, "cellar", null, "cellar-2"),
+        new Location(3L, "tasting room", null, "room-1")));
+    topology = new SensorTopology(repository);
+  }
+
+  @Test
+  void resolvesLocationsToSensorsFromOneLoad() {
+    assertThat(topology.sensorsAt("cellar")).contains(Set.of("cellar-1", "cellar-2"));
+    assertThat(topology.sensorsAt("attic")).isEmpty();
+    assertThat(topology.locationOf("room-1")).contains("tasting room");
+    assertThat(topology.locationOf("unknown")).isEmpty();
+
+    verify(repository, times(1)).findAllBySensorIdNotNull();
+  }
+
+  @Test
+  void invalidationReloadsAndMovesVersion() {
+    assertThat(topology.locations()).containsExactlyInAnyOrder("cellar", "tasting room");
+    final long version = topology.version();
+    when(repository.findAllBySensorIdNotNull()).thenReturn(List.of(new Location(3L, "cellar", null, "room-1")));
+
+    topology.invalidate();
+
+    assertThat(topology.version()).isGreaterThan(version);
+    assertThat(topology.sensorsAt("cellar")).contains(Set.of("room-1"));
+    assertThat(topology.sensorsAt("tasting room")).isEmpty();
+    verify(repository, times(2)).findAllBySensorIdNotNull();
+  }
+}
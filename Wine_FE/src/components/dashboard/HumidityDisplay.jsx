@@ -19,8 +19,9 @@ import DashboardCard from "../common/DashboardCard";
 import RangeIndicator from "../common/RangeIndicator";
 import {
   getCurrentHumidity,
-  getSensorDataBetweenDates,
+  getRecentReadings,
 } from "../../services/sensors";
+import { saveRangeRule } from "../../services/alerts";
 import { generateHumidity } from "../../services/mockData";
 import { keyframes } from "@emotion/react";
 
@@ -90,23 +91,14 @@ const HumidityDisplay = () => {
             new Date(newSensorTimestamp.getTime() - 60 * 1000)
           );
         } else {
-          const endTime = new Date();
-          const startTime = new Date();
-          startTime.setHours(startTime.getHours() - 24);
-
-          const recentData = await getSensorDataBetweenDates(
-            startTime,
-            endTime
-          );
+          const recentData = await getRecentReadings();
 
           if (
             recentData &&
             Array.isArray(recentData) &&
             recentData.length > 0
           ) {
-            const sortedData = [...recentData].sort(
-              (a, b) => new Date(a.timestamp) - new Date(b.timestamp)
-            );
+            const sortedData = recentData;
 
             const latestReading = sortedData[sortedData.length - 1];
             newHumidity = latestReading.humidity;
@@ -197,6 +189,13 @@ const HumidityDisplay = () => {
   };
 
   const handleSaveSettings = (settings) => {
+    if (!USE_MOCK_FOR_SENSORS) {
+      saveRangeRule(
+        "HUMIDITY",
+        settings.minHumidity,
+        settings.maxHumidity
+      ).catch((err) => console.error("Error saving alert rule:", err));
+    }
     setMinHumidity(settings.minHumidity);
     setMaxHumidity(settings.maxHumidity);
 
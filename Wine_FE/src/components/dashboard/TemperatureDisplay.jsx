@@ -19,8 +19,9 @@ import DashboardCard from "../common/DashboardCard";
 import RangeIndicator from "../common/RangeIndicator";
 import {
   getCurrentTemperature,
-  getSensorDataBetweenDates,
+  getRecentReadings,
 } from "../../services/sensors";
+import { saveRangeRule } from "../../services/alerts";
 import { generateTemperature } from "../../services/mockData";
 import { keyframes } from "@emotion/react";
 
@@ -90,23 +91,14 @@ const TemperatureDisplay = () => {
             new Date(newSensorTimestamp.getTime() - 60 * 1000)
           );
         } else {
-          const endTime = new Date();
-          const startTime = new Date();
-          startTime.setHours(startTime.getHours() - 24);
-
-          const recentData = await getSensorDataBetweenDates(
-            startTime,
-            endTime
-          );
+          const recentData = await getRecentReadings();
 
           if (
             recentData &&
             Array.isArray(recentData) &&
             recentData.length > 0
           ) {
-            const sortedData = [...recentData].sort(
-              (a, b) => new Date(a.timestamp) - new Date(b.timestamp)
-            );
+            const sortedData = recentData;
 
             const latestReading = sortedData[sortedData.length - 1];
             newTemp = latestReading.temperature;
@@ -197,6 +189,13 @@ const TemperatureDisplay = () => {
   };
 
   const handleSaveSettings = (settings) => {
+    if (!USE_MOCK_FOR_SENSORS) {
+      saveRangeRule(
+        "TEMPERATURE",
+        settings.minTemperature,
+        settings.maxTemperature
+      ).catch((err) => console.error("Error saving alert rule:", err));
+    }
     setMinTemperature(settings.minTemperature);
     setMaxTemperature(settings.maxTemperature);
 
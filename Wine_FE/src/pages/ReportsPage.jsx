@@ -36,7 +36,7 @@ import {
   ResponsiveContainer,
   ReferenceLine,
 } from "recharts";
-import { getSensorDataBetweenDates } from "../services/sensors";
+import { getSensorAggregate, getSensorSeries } from "../services/sensors";
 import { formatDateTimeForBackend } from "../utils/dateHelpers";
 import ContentLoader from "../components/common/ContentLoader";
 import {
@@ -155,31 +155,24 @@ const ReportsPage = () => {
         endDateTime = formatDateTimeForBackend(endOfDay);
       }
 
-      const sensorData = await getSensorDataBetweenDates(
-        startDateTime,
-        endDateTime
-      );
-
-      if (sensorData && Array.isArray(sensorData) && sensorData.length > 0) {
-        const sortedData = [...sensorData].sort(
-          (a, b) => new Date(a.timestamp) - new Date(b.timestamp)
-        );
-
-        const readings = sortedData.map((reading) => ({
-          timestamp: reading.timestamp,
-          value:
-            reportType === "temperature"
-              ? reading.temperature
-              : reading.humidity,
-          date: formatDate(reading.timestamp),
-          time: new Date(reading.timestamp).toLocaleTimeString("cs-CZ"),
+      const [series, aggregate] = await Promise.all([
+        getSensorSeries(startDateTime, endDateTime),
+        getSensorAggregate(startDateTime, endDateTime),
+      ]);
+      const points = series?.points ?? [];
+      const group = aggregate?.groups?.[0];
+
+      if (points.length > 0 && group) {
+        const isTemperature = reportType === "temperature";
+
+        const readings = points.map((point) => ({
+          timestamp: point.timestamp,
+          value: isTemperature ? point.temperatureAvg : point.humidityAvg,
+          date: formatDate(point.timestamp),
+          time: new Date(point.timestamp).toLocaleTimeString("cs-CZ"),
         }));
 
-        const sum = readings.reduce((acc, item) => acc + item.value, 0);
-        const average = readings.length > 0 ? sum / readings.length : 0;
-
-        const minValue = Math.min(...readings.map((item) => item.value));
-        const maxValue = Math.max(...readings.map((item) => item.value));
+        const statistics = isTemperature ? group.temperature : group.humidity;
 
         const optimalRange =
           reportType === "temperature"
@@ -191,14 +184,18 @@ const ReportsPage = () => {
             : { optimalMin: 25, optimalMax: 45 };
 
         setReportData({
-          average: parseFloat(average.toFixed(1)),
+          average: parseFloat(statistics.average.toFixed(1)),
           type: reportType,
           startDate: formatDate(startDateTime),
           endDate: formatDate(endDateTime),
-          minValue: parseFloat(minValue.toFixed(1)),
-          maxValue: parseFloat(maxValue.toFixed(1)),
+          minValue: parseFloat(statistics.min.toFixed(1)),
+          maxValue: parseFloat(statistics.max.toFixed(1)),
+          standardDeviation:
+            statistics.standardDeviation === null
+              ? null
+              : parseFloat(statistics.standardDeviation.toFixed(2)),
           readings: readings,
-          rawData: sortedData,
+          rawData: points,
           optimalMin: optimalRange.optimalMin,
           optimalMax: optimalRange.optimalMax,
           dataSource: USE_MOCK_FOR_SENSORS ? "mock" : "api",
@@ -466,6 +463,14 @@ const ReportsPage = () => {
                         ? formatTemperature(reportData.maxValue)
                         : formatHumidity(reportData.maxValue)}
                     </Typography>
+                    {reportData.standardDeviation !== null && (
+                      <Typography variant="body2" color="text.secondary">
+                        Směrodatná odchylka:{" "}
+                        {reportType === "temperature"
+                          ? formatTemperature(reportData.standardDeviation)
+                          : formatHumidity(reportData.standardDeviation)}
+                      </Typography>
+                    )}
                   </Paper>
                 </Grid>
               </Grid>
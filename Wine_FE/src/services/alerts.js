@@ -0,0 +1,35 @@
+import api from "./api";
+
+/**
+ * Names of the server-side rules mirroring the ranges set on the dashboard.
+ */
+const RANGE_RULE_NAMES = {
+  TEMPERATURE: "Dashboard – rozsah teploty",
+  HUMIDITY: "Dashboard – rozsah vlhkosti",
+};
+
+/**
+ * Store the acceptable range of a metric as a server-side alert rule, so
+ * excursions are detected on ingest even when no dashboard is open.
+ * @param {"TEMPERATURE"|"HUMIDITY"} metric
+ * @param {number} min
+ * @param {number} max
+ * @returns {Promise<Object>} - Saved rule
+ */
+export const saveRangeRule = async (metric, min, max) => {
+  const name = RANGE_RULE_NAMES[metric];
+  try {
+    const rules = (await api.get("/api/alerts/rules")).data;
+    const existing = rules.find((rule) => rule.name === name);
+    const rule = { name, metric, min, max };
+    const response = existing
+      ? await api.put(`/api/alerts/rules/${existing.id}`, rule)
+      : await api.post("/api/alerts/rules", rule);
+    return response.data;
+  } catch (error) {
+    throw new Error(
+      error.response?.data?.detail || "Nepodařilo se uložit pravidlo upozornění"
+    );
+  }
+};
+
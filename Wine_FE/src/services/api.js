@@ -99,6 +99,7 @@ function shouldMockEndpoint(url) {
   if (!url) return false;
 
   const mockEndpoints = [
+    "/api/sensors/current",
     "/api/sensors/temperature/current",
     "/api/sensors/temperature/averageByDay",
     "/api/sensors/temperature/averageBetweenDays",
@@ -106,6 +107,9 @@ function shouldMockEndpoint(url) {
     "/api/sensors/humidity/averageByDay",
     "/api/sensors/humidity/averageBetweenDays",
     "/api/sensors/between",
+    "/api/sensors/series",
+    "/api/sensors/aggregate",
+    "/api/sensors/since",
   ];
 
   return mockEndpoints.some(
@@ -124,7 +128,9 @@ function handleMockRequest(request) {
   return new Promise((resolve) => {
     let responseData;
 
-    if (url.includes("/api/sensors/temperature/current")) {
+    if (url.includes("/api/sensors/current")) {
+      responseData = mockData.getCurrentReadings();
+    } else if (url.includes("/api/sensors/temperature/current")) {
       responseData = mockData.getCurrentTemperature();
     } else if (url.includes("/api/sensors/humidity/current")) {
       responseData = mockData.getCurrentHumidity();
@@ -142,6 +148,16 @@ function handleMockRequest(request) {
         params.start,
         params.end
       );
+    } else if (url.includes("/api/sensors/series")) {
+      responseData = mockData.getSensorSeries(
+        params.from,
+        params.to,
+        params.maxPoints
+      );
+    } else if (url.includes("/api/sensors/aggregate")) {
+      responseData = mockData.getSensorAggregate(params.from, params.to);
+    } else if (url.includes("/api/sensors/since")) {
+      responseData = mockData.getSensorDataSince(params.cursor, params.limit);
     } else if (url.includes("/api/sensors/between")) {
       responseData = mockData.getSensorDataBetweenDates(params.from, params.to);
     } else {
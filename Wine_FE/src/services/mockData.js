@@ -167,6 +167,22 @@ export function getCurrentHumidity() {
   return parseFloat(generateHumidity(new Date()));
 }
 
+/**
+ * Get current reading of every sensor
+ * @returns {Array} Current readings
+ */
+export function getCurrentReadings() {
+  const now = new Date();
+  return [
+    {
+      sensorId: "mock-sensor",
+      timestamp: now.toISOString(),
+      temperature: parseFloat(generateTemperature(now)),
+      humidity: parseFloat(generateHumidity(now)),
+    },
+  ];
+}
+
 /**
  * Get average temperature for a specific day
  * @param {string} dateStr - Date
@@ -244,6 +260,134 @@ export function getSensorDataBetweenDates(startDateStr, endDateStr) {
   return getSensorDataBetween(new Date(startDateStr), new Date(endDateStr));
 }
 
+/**
+ * Get readings stored after a cursor, the mock cursor is the time up to which
+ * readings were already returned. A missing or foreign cursor is reset.
+ * @param {string} cursor - Cursor of the previous response
+ * @param {number} limit - Maximum number of readings
+ * @returns {Object} Readings with the cursor for the next poll
+ */
+export function getSensorDataSince(cursor, limit = 1000) {
+  const now = Date.now();
+  const after = /^mock-\d+$/.test(cursor ?? "") ? Number(cursor.slice(5)) : null;
+  if (after === null || after > now) {
+    return { readings: [], cursor: `mock-${now}`, reset: true };
+  }
+
+  const intervalMs = CONFIG.readingFrequency * 60 * 1000;
+  const readings = [];
+  let time = (Math.floor(after / intervalMs) + 1) * intervalMs;
+  while (time <= now && readings.length < limit) {
+    const timestamp = new Date(time);
+    readings.push({
+      sensorId: CONFIG.defaultSensorId,
+      timestamp: timestamp.toISOString(),
+      temperature: parseFloat(generateTemperature(timestamp)),
+      humidity: parseFloat(generateHumidity(timestamp)),
+    });
+    time += intervalMs;
+  }
+
+  const caughtUp = readings.length < limit;
+  return {
+    readings,
+    cursor: `mock-${caughtUp ? now : time - intervalMs}`,
+    reset: false,
+  };
+}
+
+/**
+ * Get readings between two dates aggregated into at most maxPoints buckets
+ * @param {string} startDateStr - Start date
+ * @param {string} endDateStr - End date
+ * @param {number} maxPoints - Maximum number of buckets
+ * @returns {Object} Series
+ */
+export function getSensorSeries(startDateStr, endDateStr, maxPoints = 500) {
+  const readings = getSensorDataBetween(
+    new Date(startDateStr),
+    new Date(endDateStr)
+  );
+  const perBucket = Math.max(1, Math.ceil(readings.length / maxPoints));
+  const points = [];
+
+  for (let i = 0; i < readings.length; i += perBucket) {
+    const bucket = readings.slice(i, i + perBucket);
+    const temperatures = bucket.map((reading) => reading.temperature);
+    const humidities = bucket.map((reading) => reading.humidity);
+    const average = (values) =>
+      values.reduce((acc, value) => acc + value, 0) / values.length;
+
+    points.push({
+      timestamp: bucket[0].timestamp,
+      count: bucket.length,
+      temperatureAvg: average(temperatures),
+      temperatureMin: Math.min(...temperatures),
+      temperatureMax: Math.max(...temperatures),
+      humidityAvg: average(humidities),
+      humidityMin: Math.min(...humidities),
+      humidityMax: Math.max(...humidities),
+    });
+  }
+
+  return {
+    from: readings[0]?.timestamp ?? startDateStr,
+    to: endDateStr,
+    bucketSeconds: 0,
+    points,
+  };
+}
+
+/**
+ * Get statistics of both metrics between two dates
+ * @param {string} startDateStr - Start date
+ * @param {string} endDateStr - End date
+ * @returns {Object} Aggregate with a single group
+ */
+export function getSensorAggregate(startDateStr, endDateStr) {
+  const readings = getSensorDataBetween(
+    new Date(startDateStr),
+    new Date(endDateStr)
+  );
+  const statistics = (values) => {
+    if (values.length === 0) {
+      return { average: null, min: null, max: null, standardDeviation: null };
+    }
+    const average =
+      values.reduce((acc, value) => acc + value, 0) / values.length;
+    const variance =
+      values.length < 2
+        ? null
+        : values.reduce((acc, value) => acc + (value - average) ** 2, 0) /
+          (values.length - 1);
+    return {
+      average,
+      min: Math.min(...values),
+      max: Math.max(...values),
+      standardDeviation: variance === null ? null : Math.sqrt(variance),
+    };
+  };
+
+  return {
+    from: startDateStr,
+    to: endDateStr,
+    groups:
+      readings.length === 0
+        ? []
+        : [
+            {
+              sensorId: null,
+              bucketStart: null,
+              count: readings.length,
+              temperature: statistics(
+                readings.map((reading) => reading.temperature)
+              ),
+              humidity: statistics(readings.map((reading) => reading.humidity)),
+            },
+          ],
+  };
+}
+
 /**
  * Get average humidity between two dates
  * @param {string} startDateStr - Start date
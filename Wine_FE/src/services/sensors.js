@@ -4,10 +4,51 @@ import {
   formatDateTimeForBackend,
 } from "../utils/dateHelpers";
 
+/**
+ * How long a fetched snapshot is reused, so displays polling at nearly the same
+ * time share one request.
+ */
+const SNAPSHOT_SHARE_MS = 5000;
+
+let snapshotRequest = null;
+let snapshotRequestedAt = 0;
+
+/**
+ * Get the current reading of every sensor in one call.
+ * @returns {Promise<Array<{sensorId: string, timestamp: string, temperature: number, humidity: number}>>}
+ */
+export const getCurrentReadings = () => {
+  const now = Date.now();
+  if (!snapshotRequest || now - snapshotRequestedAt > SNAPSHOT_SHARE_MS) {
+    snapshotRequestedAt = now;
+    snapshotRequest = api.get("/api/sensors/current").then(
+      (response) => response.data,
+      (error) => {
+        snapshotRequest = null;
+        throw error;
+      }
+    );
+  }
+  return snapshotRequest;
+};
+
+const getNewestReading = async () => {
+  const readings = await getCurrentReadings();
+  if (!Array.isArray(readings) || readings.length === 0) {
+    return null;
+  }
+  return readings.reduce((newest, reading) =>
+    new Date(reading.timestamp) > new Date(newest.timestamp) ? reading : newest
+  );
+};
+
 export const getCurrentTemperature = async () => {
   try {
-    const response = await api.get("/api/sensors/temperature/current");
-    return response.data;
+    const reading = await getNewestReading();
+    if (!reading) {
+      throw new Error("Nepodařilo se získat aktuální teplotu");
+    }
+    return reading.temperature;
   } catch (error) {
     throw new Error(
       error.response?.data?.message || "Nepodařilo se získat aktuální teplotu"
@@ -17,8 +58,11 @@ export const getCurrentTemperature = async () => {
 
 export const getCurrentHumidity = async () => {
   try {
-    const response = await api.get("/api/sensors/humidity/current");
-    return response.data;
+    const reading = await getNewestReading();
+    if (!reading) {
+      throw new Error("Nepodařilo se získat aktuální vlhkost");
+    }
+    return reading.humidity;
   } catch (error) {
     throw new Error(
       error.response?.data?.message || "Nepodařilo se získat aktuální vlhkost"
@@ -122,6 +166,165 @@ export const getSensorDataBetweenDates = async (startDate, endDate) => {
   }
 };
 
+/**
+ * Length of the window kept by getRecentReadings.
+ */
+const RECENT_WINDOW_MS = 24 * 60 * 60 * 1000;
+const SINCE_LIMIT = 1000;
+
+let recentReadings = null;
+let recentKeys = null;
+let recentCursor = null;
+let recentRequest = null;
+
+const readingKey = (reading) => `${reading.sensorId}|${reading.timestamp}`;
+
+const loadRecentWindow = async () => {
+  // the cursor is taken before the window is read, so nothing stored in between is missed
+  const { data } = await api.get(`/api/sensors/since`);
+  const endTime = new Date();
+  const startTime = new Date(endTime.getTime() - RECENT_WINDOW_MS);
+  const readings = await getSensorDataBetweenDates(startTime, endTime);
+
+  recentReadings = [...readings].sort(
+    (a, b) => new Date(a.timestamp) - new Date(b.timestamp)
+  );
+  recentKeys = new Set(recentReadings.map(readingKey));
+  recentCursor = data.cursor;
+};
+
+const pollRecentReadings = async () => {
+  if (!recentReadings) {
+    await loadRecentWindow();
+    return;
+  }
+
+  const fresh = [];
+  let caughtUp = false;
+  while (!caughtUp) {
+    const { data } = await api.get(`/api/sensors/since`, {
+      params: { cursor: recentCursor, limit: SINCE_LIMIT },
+    });
+    if (data.reset) {
+      await loadRecentWindow();
+      return;
+    }
+    fresh.push(...data.readings);
+    recentCursor = data.cursor;
+    caughtUp = data.readings.length < SINCE_LIMIT;
+  }
+
+  const windowStart = Date.now() - RECENT_WINDOW_MS;
+  let outOfOrder = false;
+  for (const reading of fresh) {
+    const key = readingKey(reading);
+    if (recentKeys.has(key) || new Date(reading.timestamp) < windowStart) {
+      continue;
+    }
+    const last = recentReadings[recentReadings.length - 1];
+    outOfOrder ||= last && new Date(reading.timestamp) < new Date(last.timestamp);
+    recentKeys.add(key);
+    recentReadings.push(reading);
+  }
+  if (outOfOrder) {
+    recentReadings.sort((a, b) => new Date(a.timestamp) - new Date(b.timestamp));
+  }
+
+  let expired = 0;
+  while (
+    expired < recentReadings.length &&
+    new Date(recentReadings[expired].timestamp) < windowStart
+  ) {
+    recentKeys.delete(readingKey(recentReadings[expired]));
+    expired++;
+  }
+  if (expired > 0) {
+    recentReadings = recentReadings.slice(expired);
+  }
+};
+
+/**
+ * Get the readings of the last 24 hours sorted by timestamp. The window is
+ * loaded once, later calls only fetch readings stored since the previous call.
+ * Concurrent callers share one request.
+ * @returns {Promise<Array<{sensorId: string, timestamp: string, temperature: number, humidity: number}>>}
+ */
+export const getRecentReadings = () => {
+  if (!recentRequest) {
+    recentRequest = pollRecentReadings()
+      .then(() => recentReadings)
+      .catch((error) => {
+        recentReadings = null;
+        throw new Error(
+          error.response?.data?.message ||
+            error.message ||
+            "Nepodařilo se získat data ze senzorů"
+        );
+      })
+      .finally(() => {
+        recentRequest = null;
+      });
+  }
+  return recentRequest;
+};
+
+/**
+ * Get a chart-ready series, the server aggregates the readings into at most
+ * maxPoints buckets with min, average and max, whatever the length of the range.
+ * @returns {Promise<{from: string, to: string, bucketSeconds: number, points: Array}>}
+ */
+export const getSensorSeries = async (startDate, endDate, maxPoints = 500) => {
+  try {
+    const backendStart =
+      typeof startDate === "string"
+        ? startDate
+        : formatDateTimeForBackend(startDate);
+    const backendEnd =
+      typeof endDate === "string" ? endDate : formatDateTimeForBackend(endDate);
+
+    const response = await api.get(`/api/sensors/series`, {
+      params: {
+        from: backendStart,
+        to: backendEnd,
+        maxPoints,
+      },
+    });
+    return response.data;
+  } catch (error) {
+    throw new Error(
+      error.response?.data?.message || "Nepodařilo se získat data ze senzorů"
+    );
+  }
+};
+
+/**
+ * Get count, average, min, max and standard deviation of temperature and
+ * humidity in one call, computed by the server in a single pass.
+ * @returns {Promise<{from: string, to: string, groups: Array}>}
+ */
+export const getSensorAggregate = async (startDate, endDate) => {
+  try {
+    const backendStart =
+      typeof startDate === "string"
+        ? startDate
+        : formatDateTimeForBackend(startDate);
+    const backendEnd =
+      typeof endDate === "string" ? endDate : formatDateTimeForBackend(endDate);
+
+    const response = await api.get(`/api/sensors/aggregate`, {
+      params: {
+        from: backendStart,
+        to: backendEnd,
+      },
+    });
+    return response.data;
+  } catch (error) {
+    throw new Error(
+      error.response?.data?.message || "Nepodařilo se získat statistiky"
+    );
+  }
+};
+
 /**
  * Get the previous temperature reading (second to last)
  * @returns {number|null} Previous temperature or null if not available